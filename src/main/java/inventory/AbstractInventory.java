@@ -0,0 +1,227 @@
+package inventory;
+
+import inventory.data.Asset;
+import inventory.query.QueryCriteria;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.apache.commons.lang3.math.NumberUtils.max;
+import static org.apache.commons.lang3.math.NumberUtils.min;
+
+/**
+ * Base class for inventory implementations.
+ *
+ * The list based query methods are defined in terms of their single criteria counterparts,
+ * so every implementation shares the same semantics for a list of criteria: each entry in the
+ * list is evaluated on its own and the results are combined.
+ */
+public abstract class AbstractInventory implements Inventory {
+
+    protected final Logger logger = Logger.getLogger(getClass().getName());
+
+    @Override
+    public List<Asset> deleteAssets(final List<QueryCriteria> criteria) {
+        if (criteria == null) return new ArrayList<>();
+
+        List<Asset> assets = new ArrayList<>();
+        logger.info("Deleting a list of assets matching list of criteria" );
+        for (QueryCriteria c : criteria) {
+            assets.addAll(deleteAssets(c));
+        }
+
+        return assets;
+    }
+
+    /**
+     * List the basic search method but takes a list of criteria allowing for
+     * more robust searching.
+     *
+     * If the list is null, the method returns an empty list (found nothing).
+     *
+     * If any entry in the list is null or isEmpty, the rules of the search
+     * method apply.
+     *
+     * @param criteria
+     * @return list of assets matching the query criteria
+     * */
+    @Override
+    public List<Asset> search(final List<QueryCriteria> criteria) {
+        if (criteria == null) return new ArrayList<>();
+
+        List<Asset> result = new ArrayList<>();
+
+        for (QueryCriteria c : criteria) {
+            result.addAll(search(c));
+        }
+
+        return result;
+    }
+
+    /**
+     * Determines the total number of assets matching the list of criteria
+     * If the input list is null, a message is logged and a 0 is returned.
+     *
+     * @param criteria
+     * @return int
+     */
+    @Override
+    public int totalAssets(final List<QueryCriteria> criteria) {
+        int result = 0;
+
+        if (criteria == null) {
+            logger.info("Input criteria is null, returning 0.");
+            return result;
+        }
+
+        for (QueryCriteria c : criteria) {
+            result += totalAssets(c);
+        }
+
+        return result;
+    }
+
+    /**
+     * Determines the total amount of memory based on the list criteria provided.
+     * If the input list is null, a message is logged and a 0 is returned.
+     *
+     * @param criteria
+     * @return int
+     */
+    @Override
+    public int totalMemory(final List<QueryCriteria> criteria) {
+        int result = 0;
+
+        if (criteria == null) {
+            logger.info("Input criteria is null, returning 0.");
+            return result;
+        }
+
+        for (QueryCriteria c : criteria) {
+            result += totalMemory(c);
+        }
+
+        return result;
+    }
+
+    /**
+     * Determines the total number of cores based on the list criteria provided.
+     * If the input list is null, a message is logged and a 0 is returned.
+     *
+     * @param criteria
+     * @return int
+     */
+    @Override
+    public int totalCores(final List<QueryCriteria> criteria) {
+        int result = 0;
+
+        // Short circuit is null
+        if (criteria == null) {
+            logger.info("Input criteria is null, returning 0.");
+            return result;
+        }
+
+        for (QueryCriteria c : criteria) {
+            result += totalCores(c);
+        }
+
+        return result;
+    }
+
+    /**
+     * Determines the max amount of memory based on the list criteria provided.
+     * If the input list is null, a message is logged and a 0 is returned.
+     *
+     * @param criteria
+     * @return int
+     */
+    @Override
+    public int maxMemory(final List<QueryCriteria> criteria) {
+        int result = 0;
+
+        if (criteria == null) {
+            logger.info("Input criteria is null, returning 0.");
+            return 0;
+        }
+
+        for (QueryCriteria c : criteria) {
+            result = max(maxMemory(c), result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Determines the max number of cores based on the list criteria provided.
+     * If the input list is null, a message is logged and a 0 is returned.
+     *
+     * @param criteria
+     * @return int
+     */
+    @Override
+    public int maxCores(final List<QueryCriteria> criteria) {
+        int result = 0;
+
+        if (criteria == null) {
+            logger.info("Input criteria is null, returning 0.");
+            return 0;
+        }
+
+        for (QueryCriteria c : criteria) {
+            result = max(maxCores(c), result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Determines the min amount of memory based on the list criteria provided.
+     * If the input list is null, a message is logged and a 0 is returned.
+     *
+     * @param criteria
+     * @return int
+     */
+    @Override
+    public int minMemory(final List<QueryCriteria> criteria) {
+        // Set the initial value to the max integer
+        int result = Integer.MAX_VALUE;
+
+        // Short circuit is null
+        if (criteria == null) {
+            logger.info("Input criteria is null, returning 0.");
+            return 0;
+        }
+
+        for (QueryCriteria c : criteria) {
+            result = min(minMemory(c), result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Determines the min number of cores based on the list criteria provided.
+     * If the input list is null, a message is logged and a 0 is returned.
+     *
+     * @param criteria
+     * @return int
+     */
+    @Override
+    public int minCores(final List<QueryCriteria> criteria) {
+        // Set the initial value to the max integer
+        int result = Integer.MAX_VALUE;
+
+        // Short circuit is null
+        if (criteria == null) {
+            logger.info("Input criteria is null, returning 0.");
+            return 0;
+        }
+
+        for (QueryCriteria c : criteria) {
+            result = min(minCores(c), result);
+        }
+
+        return result;
+    }
+}
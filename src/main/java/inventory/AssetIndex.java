@@ -0,0 +1,296 @@
+package inventory;
+
+import inventory.data.Asset;
+import inventory.data.Configuration;
+import inventory.query.Attribute;
+import inventory.query.Cursor;
+import inventory.query.Expression;
+import inventory.query.Histogram;
+import inventory.query.PageRequest;
+import inventory.query.QueryCriteria;
+import inventory.query.SortKey;
+import inventory.query.Statistics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Hash indexes (value to assets) over a chosen set of attributes of the assets of a
+ * DefaultInventory, along with a histogram of every attribute, indexed or not, the assets
+ * ordered by a chosen set of sort keys and the number of assets of each configuration.
+ *
+ * The histograms are the statistics the query compiler uses to order predicates and choose
+ * between scanning, probing an index and intersecting indexes.
+ * Not thread safe, guarded by the owning inventory.
+ */
+final class AssetIndex implements Statistics {
+
+    private final Map<Attribute, Map<Object, Map<String, Asset>>> buckets = new EnumMap<>(Attribute.class);
+    private final Map<Attribute, Histogram> histograms = new EnumMap<>(Attribute.class);
+    private final Map<SortKey, NavigableMap<Cursor.Position, Asset>> orders = new EnumMap<>(SortKey.class);
+    private final Map<Configuration, Integer> configurations = new HashMap<>();
+    private int size;
+
+    /**
+     * @param indexed attributes with a hash index
+     * @param ordered sort keys the assets are kept ordered by, each costs a tree entry per asset
+     */
+    AssetIndex(final Set<Attribute> indexed, final Set<SortKey> ordered) {
+        for (Attribute attribute : indexed) {
+            buckets.put(attribute, new HashMap<>());
+        }
+        for (Attribute attribute : Attribute.values()) {
+            histograms.put(attribute, new Histogram());
+        }
+        for (SortKey key : ordered) {
+            orders.put(key, new TreeMap<>());
+        }
+    }
+
+    void add(final Asset asset) {
+        for (Map.Entry<Attribute, Map<Object, Map<String, Asset>>> entry : buckets.entrySet()) {
+            entry.getValue()
+                    .computeIfAbsent(entry.getKey().valueIn(asset), v -> new HashMap<>())
+                    .put(asset.getAssetId(), asset);
+        }
+        for (Map.Entry<Attribute, Histogram> entry : histograms.entrySet()) {
+            entry.getValue().add(entry.getKey().valueIn(asset));
+        }
+        for (Map.Entry<SortKey, NavigableMap<Cursor.Position, Asset>> entry : orders.entrySet()) {
+            entry.getValue().put(Cursor.Position.of(entry.getKey(), asset), asset);
+        }
+        configurations.merge(asset.getConfiguration(), 1, Integer::sum);
+        size++;
+    }
+
+    void remove(final Asset asset) {
+        for (Map.Entry<Attribute, Map<Object, Map<String, Asset>>> entry : buckets.entrySet()) {
+            Object value = entry.getKey().valueIn(asset);
+            Map<String, Asset> bucket = entry.getValue().get(value);
+            if (bucket != null && bucket.remove(asset.getAssetId()) != null && bucket.isEmpty()) {
+                entry.getValue().remove(value);
+            }
+        }
+        for (Map.Entry<Attribute, Histogram> entry : histograms.entrySet()) {
+            entry.getValue().remove(entry.getKey().valueIn(asset));
+        }
+        for (Map.Entry<SortKey, NavigableMap<Cursor.Position, Asset>> entry : orders.entrySet()) {
+            entry.getValue().remove(Cursor.Position.of(entry.getKey(), asset));
+        }
+        configurations.computeIfPresent(asset.getConfiguration(), (c, count) -> count == 1 ? null : count - 1);
+        size--;
+    }
+
+    /**
+     * Moves an asset to its new version, under the same id. Only the values that changed move
+     * to another bucket, count or position, the others are kept and point to the new version.
+     */
+    void replace(final Asset previous, final Asset asset) {
+        String id = asset.getAssetId();
+        for (Map.Entry<Attribute, Map<Object, Map<String, Asset>>> entry : buckets.entrySet()) {
+            Object before = entry.getKey().valueIn(previous);
+            Object after = entry.getKey().valueIn(asset);
+            if (before.equals(after)) {
+                entry.getValue().get(after).put(id, asset);
+                continue;
+            }
+            Map<String, Asset> bucket = entry.getValue().get(before);
+            if (bucket.remove(id) != null && bucket.isEmpty()) {
+                entry.getValue().remove(before);
+            }
+            entry.getValue().computeIfAbsent(after, v -> new HashMap<>()).put(id, asset);
+        }
+        for (Map.Entry<Attribute, Histogram> entry : histograms.entrySet()) {
+            Object before = entry.getKey().valueIn(previous);
+            Object after = entry.getKey().valueIn(asset);
+            if (!before.equals(after)) {
+                entry.getValue().remove(before);
+                entry.getValue().add(after);
+            }
+        }
+        for (Map.Entry<SortKey, NavigableMap<Cursor.Position, Asset>> entry : orders.entrySet()) {
+            Cursor.Position before = Cursor.Position.of(entry.getKey(), previous);
+            Cursor.Position after = Cursor.Position.of(entry.getKey(), asset);
+            if (!before.equals(after)) {
+                entry.getValue().remove(before);
+            }
+            entry.getValue().put(after, asset);
+        }
+        if (previous.getConfiguration() != asset.getConfiguration()) {
+            configurations.computeIfPresent(previous.getConfiguration(), (c, count) -> count == 1 ? null : count - 1);
+            configurations.merge(asset.getConfiguration(), 1, Integer::sum);
+        }
+    }
+
+    /**
+     * @return the assets whose attribute equals the value, a read only view
+     */
+    Collection<Asset> probe(final Attribute attribute, final Object value) {
+        Map<String, Asset> bucket = bucket(attribute, value);
+        return bucket == null ? Collections.emptyList() : Collections.unmodifiableCollection(bucket.values());
+    }
+
+    /**
+     * @return the number of assets of each configuration, a read only view
+     */
+    Map<Configuration, Integer> configurations() {
+        return Collections.unmodifiableMap(configurations);
+    }
+
+    boolean isOrdered(final SortKey key) {
+        return orders.containsKey(key);
+    }
+
+    /**
+     * @return the assets following the request's cursor in the request's order, a read only
+     * view, the key must be ordered
+     */
+    Collection<Asset> ordered(final PageRequest request) {
+        NavigableMap<Cursor.Position, Asset> order = orders.get(request.getKey());
+        Cursor cursor = request.getCursor();
+        if (request.isDescending()) {
+            order = cursor == null ? order.descendingMap() : order.headMap(cursor.getPosition(), false).descendingMap();
+        } else if (cursor != null) {
+            order = order.tailMap(cursor.getPosition(), false);
+        }
+        return Collections.unmodifiableCollection(order.values());
+    }
+
+    /**
+     * Walks the ids of the first attribute's bucket and returns the assets whose id is present
+     * in the buckets of every other attribute.
+     *
+     * @param attributes indexed attributes, the first one drives the intersection
+     * @param criteria   holds the value of each attribute
+     * @return list of assets matching every attribute
+     */
+    List<Asset> intersect(final List<Attribute> attributes, final QueryCriteria criteria) {
+        List<Map<String, Asset>> others = new ArrayList<>(attributes.size() - 1);
+        for (Attribute attribute : attributes.subList(1, attributes.size())) {
+            Map<String, Asset> bucket = bucket(attribute, attribute.valueIn(criteria));
+            if (bucket == null) return new ArrayList<>();
+            others.add(bucket);
+        }
+
+        Attribute driving = attributes.get(0);
+        Map<String, Asset> bucket = bucket(driving, driving.valueIn(criteria));
+        if (bucket == null) return new ArrayList<>();
+
+        List<Asset> result = new ArrayList<>();
+        for (Map.Entry<String, Asset> entry : bucket.entrySet()) {
+            if (containedInAll(entry.getKey(), others)) {
+                result.add(entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Narrows an expression down through the indexes: returns buckets whose union holds every
+     * asset matching the expression, and possibly others, or null when the indexes cannot
+     * narrow it down (an attribute without index, a NOT).
+     *
+     * An AND is narrowed down by its operand with the fewest candidates, an OR by the union
+     * of the candidates of all its operands.
+     *
+     * @param expression
+     * @return list of buckets, possibly overlapping, or null
+     */
+    List<Map<String, Asset>> candidates(final Expression expression) {
+        if (expression instanceof Expression.In) {
+            Expression.In in = (Expression.In) expression;
+            Map<Object, Map<String, Asset>> index = buckets.get(in.getAttribute());
+            if (index == null) return null;
+
+            List<Map<String, Asset>> result = new ArrayList<>();
+            for (Object value : in.getValues()) {
+                Map<String, Asset> bucket = index.get(value);
+                if (bucket != null) {
+                    result.add(bucket);
+                }
+            }
+            return result;
+        }
+
+        if (expression instanceof Expression.Range) {
+            Expression.Range range = (Expression.Range) expression;
+            Map<Object, Map<String, Asset>> index = buckets.get(range.getAttribute());
+            if (index == null) return null;
+
+            // Few distinct values per attribute, checking each of them is cheap
+            List<Map<String, Asset>> result = new ArrayList<>();
+            for (Map.Entry<Object, Map<String, Asset>> entry : index.entrySet()) {
+                if (range.contains((Integer) entry.getKey())) {
+                    result.add(entry.getValue());
+                }
+            }
+            return result;
+        }
+
+        if (expression instanceof Expression.And) {
+            List<Map<String, Asset>> narrowest = null;
+            for (Expression operand : ((Expression.And) expression).getOperands()) {
+                List<Map<String, Asset>> candidates = candidates(operand);
+                if (candidates != null && (narrowest == null || count(candidates) < count(narrowest))) {
+                    narrowest = candidates;
+                }
+            }
+            return narrowest;
+        }
+
+        if (expression instanceof Expression.Or) {
+            List<Map<String, Asset>> union = new ArrayList<>();
+            for (Expression operand : ((Expression.Or) expression).getOperands()) {
+                List<Map<String, Asset>> candidates = candidates(operand);
+                if (candidates == null) return null;
+                union.addAll(candidates);
+            }
+            return union;
+        }
+
+        return null;
+    }
+
+    static int count(final List<Map<String, Asset>> buckets) {
+        int count = 0;
+        for (Map<String, Asset> bucket : buckets) {
+            count += bucket.size();
+        }
+        return count;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int estimate(final Attribute attribute, final Object value) {
+        return histograms.get(attribute).count(value);
+    }
+
+    @Override
+    public boolean isIndexed(final Attribute attribute) {
+        return buckets.containsKey(attribute);
+    }
+
+    private Map<String, Asset> bucket(final Attribute attribute, final Object value) {
+        Map<Object, Map<String, Asset>> index = buckets.get(attribute);
+        return index == null ? null : index.get(value);
+    }
+
+    private static boolean containedInAll(final String assetId, final List<Map<String, Asset>> buckets) {
+        for (Map<String, Asset> bucket : buckets) {
+            if (!bucket.containsKey(assetId)) return false;
+        }
+        return true;
+    }
+}
@@ -1,21 +1,28 @@
 package inventory;
 
 import inventory.data.Asset;
+import inventory.data.Configuration;
+import inventory.query.Aggregates;
+import inventory.query.Attribute;
+import inventory.query.Expression;
+import inventory.query.Page;
+import inventory.query.PageRequest;
+import inventory.query.QueryCompiler;
 import inventory.query.QueryCriteria;
+import inventory.query.QueryPlan;
+import inventory.query.SortKey;
+import inventory.query.TopK;
+import inventory.storage.AssetTable;
 
 import java.util.*;
-import java.util.function.Predicate;
-import java.util.logging.Logger;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 import static java.util.Optional.ofNullable;
-import static java.util.stream.Collectors.toList;
 import static org.apache.commons.lang3.Validate.notNull;
-import static org.apache.commons.lang3.math.NumberUtils.max;
-import static org.apache.commons.lang3.math.NumberUtils.min;
 
 /**
- * Simple class to implement an inventory api using as Hashmap as the underlying storage construct.
+ * Simple class to implement an inventory api using an AssetTable (records in an array, looked
+ * up through a primitive id to slot hash table) as the underlying storage construct.
  *
  * This implementation adds a naive 'id' generator based upon a simple counter, robust implementation
  * the identification generator would take into account object attributes and ensure uniqueness across restarts.
@@ -32,21 +39,97 @@ import static org.apache.commons.lang3.math.NumberUtils.min;
  *
  * Empty query objects return empty results list, no search is performed in these cases.
  *
+ * Attributes can be indexed, none of them by default since each index costs a hash entry per
+ * asset, and a histogram of every attribute is kept up to date as assets are added and
+ * deleted. Criteria are compiled into a QueryPlan which, depending on the estimated costs,
+ * scans the inventory, probes the index of the most selective parameter or intersects several
+ * indexes, see QueryCompiler.
+ *
+ * The list based methods either combine the results of each criteria (CONCATENATION, the
+ * default, an asset matching two criteria is counted twice) or evaluate the union of the
+ * criteria (UNION, each matching asset is counted once) in a single pass.
+ *
  */
-public class DefaultInventory implements Inventory {
+public class DefaultInventory extends AbstractInventory {
+
+    // Holder of all assets, in an array of records indexed by id
+    private final AssetTable inventories;
+
+    // Attribute indexes and histograms, the statistics used to compile queries
+    private final AssetIndex index;
+
+    // How the list based methods combine the criteria of the list
+    private final ListMode listMode;
 
-    // Holder of all assets
-    private Map<String, Asset> inventories = new HashMap<>();
+    // Aggregates walk the configurations unless there are more than one per this many assets,
+    // the columns of the table are scanned then
+    static final int ASSETS_PER_CONFIGURATION = 8;
 
-    private Logger logger = Logger.getLogger(DefaultInventory.class.getName());
+    /**
+     * Semantics of the list based methods.
+     */
+    public enum ListMode {
+        /** Each criteria is evaluated on its own and the results are concatenated, sums are added up */
+        CONCATENATION,
+        /** The criteria are evaluated as a union, an asset matching several of them is counted once */
+        UNION
+    }
+
+    public DefaultInventory() {
+        this(EnumSet.noneOf(Attribute.class));
+    }
 
-    static final String NON_NULL_ARGUMENT = "Cannot add a null object to the inventory.";
+    /**
+     * @param indexed attributes to index, may be empty
+     */
+    public DefaultInventory(final Set<Attribute> indexed) {
+        this(indexed, ListMode.CONCATENATION);
+    }
+
+    public DefaultInventory(final ListMode listMode) {
+        this(EnumSet.noneOf(Attribute.class), listMode);
+    }
+
+    /**
+     * @param indexed  attributes to index, may be empty
+     * @param listMode semantics of the list based methods
+     */
+    public DefaultInventory(final Set<Attribute> indexed, final ListMode listMode) {
+        this(indexed, EnumSet.noneOf(SortKey.class), listMode);
+    }
+
+    /**
+     * @param indexed  attributes to index, may be empty
+     * @param ordered  sort keys to keep the assets ordered by, for paging through large
+     *                 results (see search with a PageRequest), may be empty
+     * @param listMode semantics of the list based methods
+     */
+    public DefaultInventory(final Set<Attribute> indexed, final Set<SortKey> ordered, final ListMode listMode) {
+        this(indexed, ordered, listMode, 0);
+    }
+
+    /**
+     * Same as above, sized to hold the expected number of assets without growing, say before a
+     * bulk load.
+     */
+    public DefaultInventory(final Set<Attribute> indexed, final Set<SortKey> ordered, final ListMode listMode,
+                            final int expected) {
+        notNull(indexed);
+        notNull(ordered);
+        this.listMode = notNull(listMode);
+        inventories = new AssetTable(expected);
+        index = new AssetIndex(indexed, ordered);
+    }
+
+    public ListMode getListMode() {
+        return listMode;
+    }
 
     @Override
     public String addAsset(final Asset asset) {
         notNull(asset, NON_NULL_ARGUMENT);
         logger.info("addAsset:  " + asset);
-        inventories.put(asset.getAssetId(), asset);
+        store(asset);
 
         return asset.getAssetId();
     }
@@ -56,48 +139,138 @@ public class DefaultInventory implements Inventory {
         notNull(assets, NON_NULL_ARGUMENT);
         List<String> ids = new ArrayList<>();
 
-        logger.info("addAssets: Adding list of assets");
+        logger.info("addAssets: Adding list of " + assets.size() + " assets");
         for (Asset a : assets) {
-            ids.add(addAsset(a));
+            store(notNull(a, NON_NULL_ARGUMENT));
+            ids.add(a.getAssetId());
         }
         return ids;
     }
 
+    /**
+     * Computes the difference with the list in parallel, looking the listed ids up in the table
+     * rather than copying the inventory, then applies it. The list is checked entirely before
+     * the first change is made, and a change failing undoes the ones made before it.
+     *
+     * @param assets every asset the inventory should hold
+     * @return the difference applied
+     */
     @Override
-    public List<Asset> deleteAssets(final QueryCriteria criteria) {
-        if (inValidCriteria(criteria)) {
-            logger.info("Input criteria is null, returning empty list");
-            return new ArrayList<>();
-        }
+    public Delta reconcile(final List<Asset> assets) {
+        logger.info("reconcile against " + notNull(assets, NON_NULL_ARGUMENT).size() + " assets");
+        Delta delta = difference(assets);
+        apply(delta);
+        logger.info("reconciled: " + delta);
+        return delta;
+    }
 
-        logger.info("deleteAssets matching " + criteria);
-        return deleteFromInventory(criteria);
+    Delta difference(final List<Asset> assets) {
+        return Delta.between(inventories.values(), inventories::get, assets);
+    }
+
+    /**
+     * Applies the difference, all or nothing, see Delta.apply.
+     *
+     * @return undoes the difference, as long as nothing else changed in between
+     */
+    Runnable apply(final Delta delta) {
+        return delta.apply(this::remove, this::store);
     }
 
+    /**
+     * Replaces the record in its slot of the table, only the index entries and aggregates of
+     * the values that changed are moved.
+     */
     @Override
-    public List<Asset> deleteAssets(final List<QueryCriteria> criteria) {
-        if (inValidCriteria(criteria)) return new ArrayList<>();
+    public Optional<Asset> updateAsset(final Asset asset) {
+        notNull(asset, NON_NULL_ARGUMENT);
+        logger.info("updateAsset: " + asset);
+        if (!inventories.containsKey(asset.getAssetId())) return Optional.empty();
 
-        List<Asset> assets = new ArrayList<>();
-        logger.info("Deleting a list of assets matching list of criteria" );
-        for (QueryCriteria c : criteria) {
-            assets.addAll(deleteAssets(c));
+        return ofNullable(store(asset));
+    }
+
+    @Override
+    public List<Asset> updateAssets(final List<Asset> assets) {
+        notNull(assets, NON_NULL_ARGUMENT);
+        List<Asset> replaced = new ArrayList<>();
+
+        logger.info("updateAssets: updating a list of assets");
+        for (Asset a : assets) {
+            notNull(a, NON_NULL_ARGUMENT);
+            if (inventories.containsKey(a.getAssetId())) {
+                replaced.add(store(a));
+            }
         }
+        return replaced;
+    }
 
-        return assets;
+    @Override
+    public Optional<Asset> upsertAsset(final Asset asset) {
+        notNull(asset, NON_NULL_ARGUMENT);
+        logger.info("upsertAsset: " + asset);
+        return ofNullable(store(asset));
     }
 
     @Override
-    public Optional<Asset> deleteAssetById(final String asset_id) {
-        Asset asset = null;
+    public List<Asset> upsertAssets(final List<Asset> assets) {
+        notNull(assets, NON_NULL_ARGUMENT);
+        List<Asset> replaced = new ArrayList<>();
 
-        logger.info("delete asset with id: " + asset_id);
-        if (inventories.containsKey(asset_id)) {
-            asset = inventories.get(asset_id);
-            inventories.remove(asset_id);
+        logger.info("upsertAssets: upserting a list of assets");
+        for (Asset a : assets) {
+            notNull(a, NON_NULL_ARGUMENT);
+            Asset previous = store(a);
+            if (previous != null) {
+                replaced.add(previous);
+            }
+        }
+        return replaced;
+    }
+
+    /**
+     * Adds the asset to the table and the indexes, in place of the asset with the same id.
+     *
+     * @return the asset replaced, null if none
+     */
+    private Asset store(final Asset asset) {
+        Asset previous = inventories.put(asset);
+        if (previous == null) {
+            index.add(asset);
+        } else {
+            index.replace(previous, asset);
         }
+        return previous;
+    }
 
-        return ofNullable(asset);
+    /**
+     * Removes the asset from the table and the indexes.
+     *
+     * @return the asset removed, null if none
+     */
+    private Asset remove(final String assetId) {
+        Asset asset = inventories.remove(assetId);
+        if (asset != null) {
+            index.remove(asset);
+        }
+        return asset;
+    }
+
+    @Override
+    public List<Asset> deleteAssets(final QueryCriteria criteria) {
+        if (inValidCriteria(criteria)) {
+            logger.info("Input criteria is null, returning empty list");
+            return new ArrayList<>();
+        }
+
+        logger.info("deleteAssets matching " + criteria);
+        return deleteFromInventory(criteria);
+    }
+
+    @Override
+    public Optional<Asset> deleteAssetById(final String asset_id) {
+        logger.info("delete asset with id: " + asset_id);
+        return ofNullable(remove(asset_id));
     }
 
     @Override
@@ -114,29 +287,41 @@ public class DefaultInventory implements Inventory {
 
     @Override
     public Optional<Asset> getAssetById(final String asset_id) {
-        Asset result = null;
-
         logger.info("getAssetById " + asset_id);
-        if (inventories.containsKey(asset_id)) {
-            result = inventories.get(asset_id);
+        return ofNullable(inventories.get(asset_id));
+    }
+
+    @Override
+    public List<Asset> getAssetsByIds(final List<String> asset_ids) {
+        List<Asset> result = new ArrayList<>(asset_ids.size());
+
+        logger.info("getAssetsByIds for " + asset_ids.size() + " ids");
+        for (String id : asset_ids) {
+            Asset asset = inventories.get(id);
+            if (asset != null) {
+                result.add(asset);
+            }
         }
-        return ofNullable(result);
+        return result;
     }
 
     @Override
     public List<Asset> getFullInventory() {
         // Mimics obtaining the full inventory
-        List<Map.Entry<String, Asset>> resultList = filterAssets(QueryCriteria.builder().build());
+        return filterAssets(QueryCriteria.builder().build());
+    }
 
-        return assetsList(resultList);
+    /**
+     * Walks the table in place, the inventory must not change meanwhile.
+     */
+    @Override
+    public void forEachAsset(final Consumer<Asset> action) {
+        inventories.values().forEach(notNull(action));
     }
 
     @Override
     public int getFullInventorySize() {
-        // Mimics obtaining the full inventory
-        List<Map.Entry<String, Asset>> resultList = filterAssets(QueryCriteria.builder().build());
-
-        return assetsList(resultList).size();
+        return inventories.size();
     }
 
     /**
@@ -148,7 +333,7 @@ public class DefaultInventory implements Inventory {
     @Override
     public int totalMemory() {
         logger.info("totalMemory for entire inventory");
-        return getFullInventory().stream().mapToInt(Asset::getMemory).sum();
+        return aggregate().getTotalMemory();
     }
 
     /**
@@ -166,7 +351,7 @@ public class DefaultInventory implements Inventory {
     @Override
     public int totalMemory(final QueryCriteria criteria) {
         logger.info("totalMemory for criteria: " + criteria);
-        return search(criteria).stream().mapToInt(Asset::getMemory).sum();
+        return aggregate(criteria).getTotalMemory();
     }
 
     /**
@@ -178,7 +363,7 @@ public class DefaultInventory implements Inventory {
     @Override
     public int totalCores() {
         logger.info("totalCores for entire inventory");
-        return getFullInventory().stream().mapToInt(Asset::getCores).sum();
+        return aggregate().getTotalCores();
     }
 
     /**
@@ -196,9 +381,7 @@ public class DefaultInventory implements Inventory {
     @Override
     public int totalCores(final QueryCriteria criteria) {
         logger.info("totalCores " + criteria);
-        return search(criteria).stream()
-                .mapToInt(Asset::getCores)
-                .sum();
+        return aggregate(criteria).getTotalCores();
     }
 
     /**
@@ -208,13 +391,19 @@ public class DefaultInventory implements Inventory {
      * For example, to find how many assets are in the inventory with the Windows OS
      * simple pass in the criteria object with the OS field set to Windows.
      *
+     * The assets are counted without being collected: a criteria on a single parameter is
+     * answered by the histogram of that parameter, others by running the compiled plan with a
+     * counter in place of a result list.
+     *
      * @param criteria
      * @return long - total count of assets matching the criteria
      */
     @Override
     public int totalAssets(final QueryCriteria criteria) {
+        if (criteria == null || criteria.isEmpty()) return 0;
+
         logger.info("totaling assets matching criteria: " + criteria);
-        return search(criteria).size();
+        return count(QueryCompiler.compile(criteria, index));
     }
 
     /**
@@ -226,14 +415,14 @@ public class DefaultInventory implements Inventory {
     @Override
     public int maxMemory() {
         logger.info("maxMemory for entire inventory");
-        return getFullInventory().stream().mapToInt(Asset::getMemory).max().orElse(0);
+        return aggregate().getMaxMemory();
     }
 
 
     @Override
     public int maxMemory(final QueryCriteria criteria) {
         logger.info("maxMemory " + criteria);
-        return search(criteria).stream().mapToInt(Asset::getMemory).max().orElse(0);
+        return aggregate(criteria).getMaxMemory();
     }
 
     /**
@@ -245,17 +434,14 @@ public class DefaultInventory implements Inventory {
     @Override
     public int maxCores() {
         logger.info("maxCores for entire inventory");
-        return getFullInventory().stream().mapToInt(Asset::getCores).max().orElse(0);
+        return aggregate().getMaxCores();
     }
 
 
     @Override
     public int maxCores(final QueryCriteria criteria) {
         logger.info("maxCores " + criteria);
-        return search(criteria)
-                .stream()
-                .mapToInt(Asset::getCores)
-                .max().orElse(0);
+        return aggregate(criteria).getMaxCores();
     }
 
     /**
@@ -267,13 +453,13 @@ public class DefaultInventory implements Inventory {
     @Override
     public int minMemory() {
         logger.info("minMemory for entire inventory");
-        return getFullInventory().stream().mapToInt(Asset::getMemory).min().orElse(0);
+        return aggregate().getMinMemory();
     }
 
     @Override
     public int minMemory(final QueryCriteria criteria) {
         logger.info("minMemory " + criteria);
-        return search(criteria).stream().mapToInt(Asset::getMemory).min().orElse(0);
+        return aggregate(criteria).getMinMemory();
     }
 
     /**
@@ -285,13 +471,77 @@ public class DefaultInventory implements Inventory {
     @Override
     public int minCores() {
         logger.info("minCores for entire inventory");
-        return getFullInventory().stream().mapToInt(Asset::getCores).min().orElse(0);
+        return aggregate().getMinCores();
     }
 
     @Override
     public int minCores(final QueryCriteria criteria) {
         logger.info("minCores " + criteria);
-        return search(criteria).stream().mapToInt(Asset::getCores).min().orElse(0);
+        return aggregate(criteria).getMinCores();
+    }
+
+    /**
+     * Computes the count along with the sum, min and max of memory and cores for the entire
+     * inventory, from the number of assets of each configuration: the cost depends on the
+     * number of distinct configurations, not on the number of assets. When most assets have a
+     * configuration of their own, the columns of the table are scanned instead.
+     *
+     * @return Aggregates - partial that can be merged with those of other inventories
+     */
+    public Aggregates aggregate() {
+        logger.info("aggregate for entire inventory");
+        if (scanColumns()) return inventories.aggregate(QueryCriteria.builder().build());
+
+        Aggregates.Accumulator accumulator = new Aggregates.Accumulator();
+        for (Map.Entry<Configuration, Integer> entry : index.configurations().entrySet()) {
+            accumulate(accumulator, entry.getKey(), entry.getValue());
+        }
+        return accumulator.result();
+    }
+
+    /**
+     * Computes the count along with the sum, min and max of memory and cores for the assets
+     * matching the criteria. A criteria only tests the configuration of an asset, so the
+     * configurations are matched rather than the assets, unless they are too many and the
+     * columns of the table are scanned (see AssetTable). The rules of the search method apply,
+     * a null or empty criteria matches nothing.
+     *
+     * @param criteria
+     * @return Aggregates - partial that can be merged with those of other inventories
+     */
+    public Aggregates aggregate(final QueryCriteria criteria) {
+        if (criteria == null || criteria.isEmpty()) return Aggregates.EMPTY;
+
+        logger.info("aggregate " + criteria);
+        if (scanColumns()) return inventories.aggregate(criteria);
+
+        Aggregates.Accumulator accumulator = new Aggregates.Accumulator();
+        for (Map.Entry<Configuration, Integer> entry : index.configurations().entrySet()) {
+            if (criteria.matches(entry.getKey())) {
+                accumulate(accumulator, entry.getKey(), entry.getValue());
+            }
+        }
+        return accumulator.result();
+    }
+
+    /**
+     * @return the number of assets of each configuration, a read only view
+     */
+    public Map<Configuration, Integer> getConfigurations() {
+        return index.configurations();
+    }
+
+    /**
+     * @return whether the configurations are too many for walking them to beat a scan of the
+     * columns
+     */
+    private boolean scanColumns() {
+        return (long) index.configurations().size() * ASSETS_PER_CONFIGURATION > inventories.size();
+    }
+
+    private static void accumulate(final Aggregates.Accumulator accumulator, final Configuration configuration,
+                                   final int count) {
+        accumulator.add(count, configuration.getCores(), configuration.getMemory());
     }
 
     /**
@@ -307,276 +557,388 @@ public class DefaultInventory implements Inventory {
         if (criteria == null || criteria.isEmpty()) return new ArrayList<>();
 
         logger.info("deleteFromInventory " + criteria);
-        List<Map.Entry<String, Asset>> deleteList = filterAssets(criteria);
+        List<Asset> deleteList = filterAssets(criteria);
 
         //Now remove the entries from the map
-        for (Map.Entry<String, Asset> entry : deleteList) {
+        for (Asset asset : deleteList) {
             //remove the item from the list
-            inventories.remove(entry.getKey());
+            inventories.remove(asset.getAssetId());
+            index.remove(asset);
         }
 
-        //Construct the list of assets that were deleted
-        return assetsList(deleteList);
+        return deleteList;
     }
 
     /**
-     * Applies the filter criteria to the inventory and returns a list of matching map entries.
+     * Compiles the criteria against the current statistics of the inventory. The plan stays
+     * valid as the inventory changes, though its access path may no longer be the best one.
+     *
      * @param criteria
-     * @return List<Map<String, Asset>> this is the set of entries matching the inventory.data.query
+     * @return QueryPlan
      */
-    private List<Map.Entry<String, Asset>> filterAssets(final QueryCriteria criteria) {
-        return inventories.entrySet().stream()
-                .filter(includeOS(criteria))
-                .filter(includeCPU(criteria))
-                .filter(includeCores(criteria))
-                .filter(includeMemory(criteria))
-                .collect(toList());
+    public QueryPlan compile(final QueryCriteria criteria) {
+        notNull(criteria);
+        return QueryCompiler.compile(criteria, index);
     }
 
     /**
-     * Takes a list of map entries and returns just the values (assets) as a list
-     * @param assets
-     * @return list of assets matching the query criteria
+     * @param criteria
+     * @return description of the plan the criteria compiles to
      */
-    private List<Asset> assetsList(final List<Map.Entry<String, Asset>> assets) {
-        return assets.stream().map(Map.Entry::getValue)
-                .collect(Collectors.toList());
+    public String explain(final QueryCriteria criteria) {
+        return compile(criteria).explain();
     }
 
     /**
-     * Basic search method taking a single QueryCriteria object.
-     * If the criteria object has no parameters (isEmpty) or is null, the search
-     * returns an empty list.
+     * Runs a compiled plan. The rules of the search method apply, a plan compiled from an
+     * empty criteria returns an empty list. A plan going through an index this inventory does
+     * not have, compiled by another inventory, is compiled again against this one.
      *
-     * @param criteria
+     * @param plan
      * @return list of assets matching the query criteria
-     * */
-    @Override
-    public List<Asset> search(final QueryCriteria criteria) {
-        if (criteria == null || criteria.isEmpty()) return new ArrayList<>();
-
-        logger.info("search for assets matching criteria: " + criteria);
-
-        List<Map.Entry<String, Asset>> resultList = filterAssets(criteria);
-
-        return assetsList(resultList);
+     */
+    public List<Asset> search(final QueryPlan plan) {
+        notNull(plan);
+        if (plan.getCriteria().isEmpty()) return new ArrayList<>();
+
+        QueryPlan runnable = plan;
+        for (Attribute attribute : plan.getIndexes()) {
+            if (!index.isIndexed(attribute)) {
+                runnable = QueryCompiler.compile(plan.getCriteria(), index);
+                break;
+            }
+        }
+        logger.info("search for assets with plan: " + runnable.explain());
+        return execute(runnable);
     }
 
     /**
-     * List the basic search method but takes a list of criteria allowing for
-     * more robust searching.
-     *
-     * If the list is null, the method returns an empty list (found nothing).
-     *
-     * If any entry in the list is null or isEmpty, the rules of the search
-     * method apply.
-     *
+     * Applies the filter criteria to the inventory and returns the list of matching assets.
      * @param criteria
-     * @return list of assets matching the query criteria
-     * */
+     * @return List<Asset> this is the set of assets matching the inventory.data.query
+     */
+    private List<Asset> filterAssets(final QueryCriteria criteria) {
+        return execute(QueryCompiler.compile(criteria, index));
+    }
+
     @Override
-    public List<Asset> search(final List<QueryCriteria> criteria) {
-        if (criteria == null) return new ArrayList<>();
+    public List<Asset> top(final int k, final SortKey key) {
+        return select(TopK.largest(k, key), null);
+    }
 
-        List<Asset> result = new ArrayList<>();
+    @Override
+    public List<Asset> top(final int k, final SortKey key, final QueryCriteria criteria) {
+        if (criteria == null || criteria.isEmpty()) return TopK.largest(k, key).result();
+        return select(TopK.largest(k, key), criteria);
+    }
 
-        for (QueryCriteria c : criteria) {
-            result.addAll(search(c));
-        }
+    @Override
+    public List<Asset> bottom(final int k, final SortKey key) {
+        return select(TopK.smallest(k, key), null);
+    }
 
-        return result;
+    @Override
+    public List<Asset> bottom(final int k, final SortKey key, final QueryCriteria criteria) {
+        if (criteria == null || criteria.isEmpty()) return TopK.smallest(k, key).result();
+        return select(TopK.smallest(k, key), criteria);
     }
 
     /**
-     * Determines the total number of assets matching the list of criteria
-     * If the input list is null, a message is logged and a 0 is returned.
+     * Ordered search, one page at a time. When the criteria is selective enough to go through
+     * the hash indexes, the page is selected among the few candidates. Otherwise, when the
+     * assets are kept sorted by the request's key, they are walked from the cursor on and the
+     * walk stops as soon as the page is full, so a page costs the same whatever its number.
+     * Without that order, the page is selected among every matching asset with a bounded heap.
      *
      * @param criteria
-     * @return int
+     * @param request
+     * @return the page following the request's cursor, empty for a null or empty criteria
      */
     @Override
-    public int totalAssets(final List<QueryCriteria> criteria) {
-        int result = 0;
-
-        if (criteria == null) {
-            logger.info("Input criteria is null, returning 0.");
-            return result;
+    public Page search(final QueryCriteria criteria, final PageRequest request) {
+        notNull(request);
+        if (criteria == null || criteria.isEmpty()) return Page.of(request, new ArrayList<>());
+
+        logger.info("search page of assets matching criteria: " + criteria);
+        QueryPlan plan = QueryCompiler.compile(criteria, index);
+        if (plan.getAccess() != QueryPlan.Access.SCAN || !index.isOrdered(request.getKey())) {
+            TopK page = new TopK(request.getPageSize() + 1, request.order());
+            forEach(plan, a -> {
+                if (request.isAfterCursor(a)) page.accept(a);
+            });
+            return Page.of(request, page.result());
         }
 
-        for (QueryCriteria c : criteria) {
-            result += totalAssets(c);
+        // One asset more than the page size tells whether another page follows
+        List<Asset> fetched = new ArrayList<>(request.getPageSize() + 1);
+        for (Asset asset : index.ordered(request)) {
+            if (plan.filter(asset)) {
+                fetched.add(asset);
+                if (fetched.size() > request.getPageSize()) break;
+            }
         }
-
-        return result;
+        return Page.of(request, fetched);
     }
 
     /**
-     * Determines the total amount of memory based on the list criteria provided.
-     * If the input list is null, a message is logged and a 0 is returned.
-     *
-     * @param criteria
-     * @return int
+     * Feeds the assets matching the criteria (every asset when null) to the selection, which
+     * keeps only the ones it needs.
      */
-    @Override
-    public int totalMemory(final List<QueryCriteria> criteria) {
-        int result = 0;
-
+    private List<Asset> select(final TopK selection, final QueryCriteria criteria) {
+        logger.info("selecting assets matching criteria: " + criteria);
         if (criteria == null) {
-            logger.info("Input criteria is null, returning 0.");
-            return result;
+            inventories.values().forEach(selection);
+        } else {
+            forEach(QueryCompiler.compile(criteria, index), selection);
         }
+        return selection.result();
+    }
 
-        for (QueryCriteria c : criteria) {
-            result += totalMemory(c);
+    /**
+     * Histograms count every value exactly, so they answer a single parameter, or any
+     * criteria with a parameter no asset has, before anything is visited.
+     */
+    private int count(final QueryPlan plan) {
+        QueryCriteria criteria = plan.getCriteria();
+        Attribute only = null;
+        int parameters = 0;
+        for (Attribute attribute : Attribute.values()) {
+            Object value = attribute.valueIn(criteria);
+            if (value == null) continue;
+
+            if (index.estimate(attribute, value) == 0) return 0;
+            only = attribute;
+            parameters++;
         }
+        if (parameters == 1) return index.estimate(only, only.valueIn(criteria));
+
+        Counter counter = new Counter();
+        forEach(plan, counter);
+        return counter.count;
+    }
 
+    private List<Asset> execute(final QueryPlan plan) {
+        List<Asset> result = new ArrayList<>();
+        forEach(plan, result::add);
         return result;
     }
 
+    private void forEach(final QueryPlan plan, final Consumer<Asset> action) {
+        Collection<Asset> candidates;
+        switch (plan.getAccess()) {
+            case INDEX_PROBE:
+                candidates = index.probe(plan.getProbe(), plan.getProbeValue());
+                break;
+            case INDEX_INTERSECTION:
+                candidates = index.intersect(plan.getIndexes(), plan.getCriteria());
+                break;
+            default:
+                candidates = inventories.values();
+        }
+
+        for (Asset asset : candidates) {
+            if (plan.filter(asset)) {
+                action.accept(asset);
+            }
+        }
+    }
+
     /**
-     * Determines the total number of cores based on the list criteria provided.
-     * If the input list is null, a message is logged and a 0 is returned.
+     * Basic search method taking a single QueryCriteria object.
+     * If the criteria object has no parameters (isEmpty) or is null, the search
+     * returns an empty list.
      *
      * @param criteria
-     * @return int
-     */
+     * @return list of assets matching the query criteria
+     * */
     @Override
-    public int totalCores(final List<QueryCriteria> criteria) {
-        int result = 0;
-
-        // Short circuit is null
-        if (criteria == null) {
-            logger.info("Input criteria is null, returning 0.");
-            return result;
-        }
+    public List<Asset> search(final QueryCriteria criteria) {
+        if (criteria == null || criteria.isEmpty()) return new ArrayList<>();
 
-        for (QueryCriteria c : criteria) {
-            result += totalCores(c);
-        }
+        logger.info("search for assets matching criteria: " + criteria);
 
-        return result;
+        return filterAssets(criteria);
     }
 
     /**
-     * Determines the max amount of memory based on the list criteria provided.
-     * If the input list is null, a message is logged and a 0 is returned.
+     * Evaluates the expression in a single pass, over the candidates narrowed down through the
+     * indexes when that is cheaper than scanning the inventory. Each matching asset is returned
+     * once, however many branches of the expression it matches.
      *
-     * @param criteria
-     * @return int
+     * @param expression
+     * @return list of assets matching the expression, empty list for a null expression
      */
     @Override
-    public int maxMemory(final List<QueryCriteria> criteria) {
-        int result = 0;
-
-        if (criteria == null) {
-            logger.info("Input criteria is null, returning 0.");
-            return 0;
-        }
-
-        for (QueryCriteria c : criteria) {
-            result = max(maxMemory(c), result);
-        }
+    public List<Asset> search(final Expression expression) {
+        if (expression == null) return new ArrayList<>();
 
+        logger.info("search for assets matching expression: " + expression);
+        List<Asset> result = new ArrayList<>();
+        forEachMatch(expression, result::add);
         return result;
     }
 
     /**
-     * Determines the max number of cores based on the list criteria provided.
-     * If the input list is null, a message is logged and a 0 is returned.
+     * Deletes every asset matching any of the criteria. In UNION mode the matches are found in
+     * a single pass, the assets deleted are the same in both modes.
      *
      * @param criteria
-     * @return int
+     * @return list of assets deleted or empty list
      */
     @Override
-    public int maxCores(final List<QueryCriteria> criteria) {
-        int result = 0;
+    public List<Asset> deleteAssets(final List<QueryCriteria> criteria) {
+        if (listMode == ListMode.CONCATENATION) return super.deleteAssets(criteria);
+        if (criteria == null) return new ArrayList<>();
 
-        if (criteria == null) {
-            logger.info("Input criteria is null, returning 0.");
-            return 0;
+        logger.info("Deleting the union of a list of criteria");
+        List<Asset> deleted = new ArrayList<>();
+        forEachMatch(union(criteria), deleted::add);
+        for (Asset asset : deleted) {
+            inventories.remove(asset.getAssetId());
+            index.remove(asset);
         }
+        return deleted;
+    }
 
-        for (QueryCriteria c : criteria) {
-            result = max(maxCores(c), result);
-        }
+    @Override
+    public List<Asset> search(final List<QueryCriteria> criteria) {
+        if (listMode == ListMode.CONCATENATION) return super.search(criteria);
+        if (criteria == null) return new ArrayList<>();
 
+        List<Asset> result = new ArrayList<>();
+        forEachMatch(union(criteria), result::add);
         return result;
     }
 
+    @Override
+    public int totalAssets(final List<QueryCriteria> criteria) {
+        if (listMode == ListMode.CONCATENATION) return super.totalAssets(criteria);
+        if (criteria == null) return 0;
+
+        Counter counter = new Counter();
+        forEachMatch(union(criteria), counter);
+        return counter.count;
+    }
+
+    @Override
+    public int totalMemory(final List<QueryCriteria> criteria) {
+        if (listMode == ListMode.CONCATENATION) return super.totalMemory(criteria);
+        return aggregate(criteria).getTotalMemory();
+    }
+
+    @Override
+    public int totalCores(final List<QueryCriteria> criteria) {
+        if (listMode == ListMode.CONCATENATION) return super.totalCores(criteria);
+        return aggregate(criteria).getTotalCores();
+    }
+
+    @Override
+    public int maxMemory(final List<QueryCriteria> criteria) {
+        if (listMode == ListMode.CONCATENATION) return super.maxMemory(criteria);
+        return aggregate(criteria).getMaxMemory();
+    }
+
+    @Override
+    public int maxCores(final List<QueryCriteria> criteria) {
+        if (listMode == ListMode.CONCATENATION) return super.maxCores(criteria);
+        return aggregate(criteria).getMaxCores();
+    }
+
     /**
-     * Determines the min amount of memory based on the list criteria provided.
-     * If the input list is null, a message is logged and a 0 is returned.
-     *
-     * @param criteria
-     * @return int
+     * In UNION mode, the min over the assets matching any of the criteria, 0 when none does.
      */
     @Override
     public int minMemory(final List<QueryCriteria> criteria) {
-        // Set the initial value to the max integer
-        int result = Integer.MAX_VALUE;
-
-        // Short circuit is null
-        if (criteria == null) {
-            logger.info("Input criteria is null, returning 0.");
-            return 0;
-        }
-
-        for (QueryCriteria c : criteria) {
-            result = min(minMemory(c), result);
-        }
+        if (listMode == ListMode.CONCATENATION) return super.minMemory(criteria);
+        return aggregate(criteria).getMinMemory();
+    }
 
-        return result;
+    /**
+     * In UNION mode, the min over the assets matching any of the criteria, 0 when none does.
+     */
+    @Override
+    public int minCores(final List<QueryCriteria> criteria) {
+        if (listMode == ListMode.CONCATENATION) return super.minCores(criteria);
+        return aggregate(criteria).getMinCores();
     }
 
     /**
-     * Determines the min number of cores based on the list criteria provided.
-     * If the input list is null, a message is logged and a 0 is returned.
+     * Computes the aggregates over the union of the criteria in a single pass, each asset
+     * matching any of the criteria is accounted for once whatever the list mode.
      *
      * @param criteria
-     * @return int
+     * @return Aggregates - partial that can be merged with those of other inventories
      */
-    @Override
-    public int minCores(final List<QueryCriteria> criteria) {
-        // Set the initial value to the max integer
-        int result = Integer.MAX_VALUE;
+    public Aggregates aggregate(final List<QueryCriteria> criteria) {
+        if (criteria == null) return Aggregates.EMPTY;
 
-        // Short circuit is null
-        if (criteria == null) {
-            logger.info("Input criteria is null, returning 0.");
-            return 0;
-        }
+        logger.info("aggregate the union of a list of criteria");
+        Aggregates.Accumulator accumulator = new Aggregates.Accumulator();
+        forEachMatch(union(criteria), accumulator::add);
+        return accumulator.result();
+    }
 
+    /**
+     * The union of the criteria, following the rules of the search method null and empty
+     * criteria match nothing.
+     */
+    private static Expression union(final List<QueryCriteria> criteria) {
+        List<Expression> operands = new ArrayList<>(criteria.size());
         for (QueryCriteria c : criteria) {
-            result = min(minCores(c), result);
+            if (c != null && !c.isEmpty()) {
+                operands.add(Expression.of(c));
+            }
         }
-
-        return result;
+        return Expression.or(operands.toArray(new Expression[0]));
     }
 
-    private boolean inValidCriteria(final QueryCriteria criteria) {
-        return criteria == null;
-    }
+    /**
+     * Visits each asset matching the expression once, in a single pass over the candidates
+     * narrowed down through the indexes when that is cheaper than scanning the inventory.
+     */
+    private void forEachMatch(final Expression expression, final Consumer<Asset> action) {
+        List<Map<String, Asset>> candidates = index.candidates(expression);
+        if (candidates == null || scanIsCheaper(candidates)) {
+            for (Asset asset : inventories.values()) {
+                if (expression.matches(asset)) {
+                    action.accept(asset);
+                }
+            }
+            return;
+        }
 
-    private boolean inValidCriteria(final List<QueryCriteria> criteria) {
-        return criteria == null;
+        // Buckets of different attributes may overlap
+        Set<String> seen = candidates.size() > 1 ? new HashSet<>() : null;
+        for (Map<String, Asset> bucket : candidates) {
+            for (Asset asset : bucket.values()) {
+                if ((seen == null || seen.add(asset.getAssetId())) && expression.matches(asset)) {
+                    action.accept(asset);
+                }
+            }
+        }
     }
 
-    private static Predicate<Map.Entry<String, Asset>> includeOS(final QueryCriteria criteria) {
-        return criteria.getOs().isPresent() ? o -> o.getValue().getOS() == criteria.getOs().get() : o -> true;
+    private boolean scanIsCheaper(final List<Map<String, Asset>> candidates) {
+        double indexCost = candidates.size() * QueryCompiler.INDEX_OPEN_COST
+                + AssetIndex.count(candidates) * QueryCompiler.INDEX_ROW_COST;
+        return indexCost >= inventories.size() * QueryCompiler.SCAN_ROW_COST;
     }
 
-    private static Predicate<Map.Entry<String, Asset>> includeCPU(final QueryCriteria criteria) {
-        return criteria.getCpu().isPresent() ? o -> o.getValue().getCPU() == criteria.getCpu().get() : o -> true;
+    private boolean inValidCriteria(final QueryCriteria criteria) {
+        return criteria == null;
     }
 
-    private static Predicate<Map.Entry<String, Asset>> includeMemory(final QueryCriteria criteria) {
-        return criteria.getMemory().isPresent() ? o ->
-                o.getValue().getMemory().intValue() == criteria.getMemory().get() : o -> true;
-    }
+    /**
+     * Counts the assets visited, in place of a list collecting them.
+     */
+    private static final class Counter implements Consumer<Asset> {
 
-    private static Predicate<Map.Entry<String, Asset>> includeCores(final QueryCriteria criteria) {
-        return criteria.getCores().isPresent() ? o -> o.getValue().getCores().intValue() == criteria.getCores().get()
-                : o -> true;
+        private int count;
+
+        @Override
+        public void accept(final Asset asset) {
+            count++;
+        }
     }
 
 }
@@ -0,0 +1,187 @@
+package inventory;
+
+import inventory.data.Asset;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static inventory.Inventory.NON_NULL_ARGUMENT;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Difference between the assets of an inventory and a complete list of the assets it should
+ * hold, matched by asset id: the assets to add, the ones to remove and the ones whose
+ * configuration changed.
+ *
+ * The difference is computed by hashing the ids of both sides, in parallel once the sides are
+ * large enough, so the cost is linear in the number of assets and nothing is sorted.
+ */
+public final class Delta implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final Delta EMPTY = new Delta(Collections.emptyList(), Collections.emptyList(),
+            Collections.emptyList());
+
+    public static final String DUPLICATE_ID_MESSAGE = "Asset id listed more than once: ";
+
+    // Below this many assets on both sides together the difference is computed sequentially
+    static final int PARALLEL_THRESHOLD = 10_000;
+
+    private final List<Asset> added;
+    private final List<Asset> removed;
+    private final List<Asset> changed;
+
+    private Delta(final List<Asset> added, final List<Asset> removed, final List<Asset> changed) {
+        this.added = Collections.unmodifiableList(added);
+        this.removed = Collections.unmodifiableList(removed);
+        this.changed = Collections.unmodifiableList(changed);
+    }
+
+    /**
+     * @param current assets held now
+     * @param target  every asset that should be held, each id at most once
+     * @return what turns the current assets into the target ones
+     */
+    public static Delta between(final Collection<Asset> current, final Collection<Asset> target) {
+        notNull(current);
+        boolean parallel = current.size() + notNull(target).size() >= PARALLEL_THRESHOLD;
+        Map<String, Asset> held = stream(current, parallel).collect(toMap(Asset::getAssetId, a -> a));
+        return between(current, held::get, target);
+    }
+
+    /**
+     * Same as above, the current assets are looked up through the function, which must be safe
+     * to call from several threads while nothing changes.
+     */
+    static Delta between(final Collection<Asset> current, final Function<String, Asset> lookup,
+                         final Collection<Asset> target) {
+        return between(current, lookup, target, current.size() + target.size() >= PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Same as above, computed sequentially unless asked, for current assets that cannot be
+     * read from several threads.
+     */
+    static Delta between(final Collection<Asset> current, final Function<String, Asset> lookup,
+                         final Collection<Asset> target, final boolean parallel) {
+        Map<String, Asset> wanted = stream(target, parallel)
+                .peek(a -> notNull(a, NON_NULL_ARGUMENT))
+                .collect(toMap(Asset::getAssetId, a -> a, (a, b) -> {
+                    throw new IllegalArgumentException(DUPLICATE_ID_MESSAGE + a.getAssetId());
+                }));
+
+        List<Asset> removed = stream(current, parallel)
+                .filter(a -> !wanted.containsKey(a.getAssetId()))
+                .collect(toList());
+        List<Asset> added = stream(target, parallel)
+                .filter(a -> lookup.apply(a.getAssetId()) == null)
+                .collect(toList());
+        List<Asset> changed = stream(target, parallel)
+                .filter(a -> {
+                    Asset held = lookup.apply(a.getAssetId());
+                    return held != null && !held.getConfiguration().equals(a.getConfiguration());
+                })
+                .collect(toList());
+
+        if (added.isEmpty() && removed.isEmpty() && changed.isEmpty()) return EMPTY;
+        return new Delta(added, removed, changed);
+    }
+
+    /**
+     * @return the deltas of parts of an inventory with no id in common, put together
+     */
+    public static Delta concat(final List<Delta> deltas) {
+        List<Asset> added = new ArrayList<>();
+        List<Asset> removed = new ArrayList<>();
+        List<Asset> changed = new ArrayList<>();
+        for (Delta delta : deltas) {
+            added.addAll(delta.added);
+            removed.addAll(delta.removed);
+            changed.addAll(delta.changed);
+        }
+        if (added.isEmpty() && removed.isEmpty() && changed.isEmpty()) return EMPTY;
+        return new Delta(added, removed, changed);
+    }
+
+    /**
+     * @return assets to add, their ids are not held
+     */
+    public List<Asset> getAdded() {
+        return added;
+    }
+
+    /**
+     * @return assets to remove, as they are held
+     */
+    public List<Asset> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * @return new versions of the assets whose configuration changed, under the same ids
+     */
+    public List<Asset> getChanged() {
+        return changed;
+    }
+
+    /**
+     * @return the number of assets added, removed or changed
+     */
+    public int size() {
+        return added.size() + removed.size() + changed.size();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Applies the difference through the functions, all or nothing: when a change fails, the
+     * changes already made are undone before the failure is rethrown.
+     *
+     * @param remove removes the asset of the id, returns it or null if none
+     * @param store  stores the asset in place of the one of the same id, returns that one or null
+     * @return undoes the difference, as long as nothing else changed in between
+     */
+    Runnable apply(final Function<String, Asset> remove, final Function<Asset, Asset> store) {
+        Deque<Runnable> undo = new ArrayDeque<>();
+        try {
+            for (Asset asset : removed) {
+                Asset previous = remove.apply(asset.getAssetId());
+                if (previous != null) {
+                    undo.push(() -> store.apply(previous));
+                }
+            }
+            for (List<Asset> stored : Arrays.asList(added, changed)) {
+                for (Asset asset : stored) {
+                    Asset previous = store.apply(asset);
+                    undo.push(previous == null ? () -> remove.apply(asset.getAssetId()) : () -> store.apply(previous));
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            undo.forEach(Runnable::run);
+            throw e;
+        }
+        return () -> undo.forEach(Runnable::run);
+    }
+
+    public String toString() {
+        return "Added: " + added.size() + " Removed: " + removed.size() + " Changed: " + changed.size();
+    }
+
+    private static Stream<Asset> stream(final Collection<Asset> assets, final boolean parallel) {
+        return parallel ? assets.parallelStream() : assets.stream();
+    }
+}
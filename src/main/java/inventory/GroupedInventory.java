@@ -0,0 +1,393 @@
+package inventory;
+
+import inventory.data.Asset;
+import inventory.data.Configuration;
+import inventory.data.types.CPU;
+import inventory.query.Aggregates;
+import inventory.query.Expression;
+import inventory.query.QueryCriteria;
+import inventory.storage.AssetTable;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import static java.util.Comparator.naturalOrder;
+import static java.util.Comparator.nullsFirst;
+import static java.util.Optional.ofNullable;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Inventory storing its assets grouped by configuration: a sorted dictionary from each
+ * distinct (OS, CPU, cores, memory) to the compact table of the assets sharing it.
+ *
+ * Every attribute an inventory query tests belongs to the configuration, so a query is
+ * answered group by group. Totals, minimums, maximums and counts walk the groups, hundreds
+ * of them for a fleet of millions of assets, and multiply by the size of each group. A search
+ * tests each group once and only expands the groups that match. The groups are maintained as
+ * assets are added and deleted, a group is dropped with its last asset. Each asset is held
+ * once, by the table of its group, next to a map from its id to its configuration. A criteria
+ * fixing the OS, or the OS and CPU, and so on, only visits the range of groups sharing these
+ * leading values.
+ *
+ * Queries follow the rules of DefaultInventory, a null or empty criteria matches nothing. The
+ * list based methods concatenate the results of each criteria. Not thread safe.
+ */
+public class GroupedInventory extends AbstractInventory {
+
+    /**
+     * Order of the groups, by OS then CPU, cores and memory. A missing value sorts first, so a
+     * configuration with only its leading values set is the lower bound of their range.
+     */
+    static final Comparator<Configuration> CONFIGURATION_ORDER = Comparator
+            .comparing(Configuration::getOS)
+            .thenComparing(Configuration::getCPU, nullsFirst(naturalOrder()))
+            .thenComparing(Configuration::getCores, nullsFirst(naturalOrder()))
+            .thenComparing(Configuration::getMemory, nullsFirst(naturalOrder()));
+
+    // The configuration of each asset, by id
+    private final Map<String, Configuration> configurations = new HashMap<>();
+
+    // The assets of each configuration
+    private final NavigableMap<Configuration, AssetTable> groups = new TreeMap<>(CONFIGURATION_ORDER);
+
+    // Every asset, group after group
+    private final Collection<Asset> assets = new AbstractCollection<Asset>() {
+        @Override
+        public Iterator<Asset> iterator() {
+            return groups.values().stream().flatMap(group -> group.values().stream()).iterator();
+        }
+
+        @Override
+        public int size() {
+            return configurations.size();
+        }
+    };
+
+    @Override
+    public String addAsset(final Asset asset) {
+        notNull(asset, NON_NULL_ARGUMENT);
+        logger.info("addAsset:  " + asset);
+        store(asset);
+        return asset.getAssetId();
+    }
+
+    @Override
+    public List<String> addAssets(final List<Asset> assets) {
+        notNull(assets, NON_NULL_ARGUMENT);
+        List<String> ids = new ArrayList<>();
+
+        logger.info("addAssets: Adding list of " + assets.size() + " assets");
+        for (Asset a : assets) {
+            store(notNull(a, NON_NULL_ARGUMENT));
+            ids.add(a.getAssetId());
+        }
+        return ids;
+    }
+
+    /**
+     * Computes the difference looking the listed ids up rather than copying the inventory, then
+     * applies it, all or nothing (see Delta.apply).
+     */
+    @Override
+    public Delta reconcile(final List<Asset> assets) {
+        logger.info("reconcile against " + notNull(assets, NON_NULL_ARGUMENT).size() + " assets");
+        Delta delta = Delta.between(this.assets, this::get, assets);
+        delta.apply(this::remove, this::store);
+        logger.info("reconciled: " + delta);
+        return delta;
+    }
+
+    @Override
+    public Optional<Asset> getAssetById(final String assetId) {
+        logger.info("getAssetById " + assetId);
+        return ofNullable(get(assetId));
+    }
+
+    @Override
+    public List<Asset> deleteAssets(final QueryCriteria criteria) {
+        List<Asset> deleted = new ArrayList<>();
+        if (criteria == null || criteria.isEmpty()) return deleted;
+
+        logger.info("deleteAssets matching " + criteria);
+        for (Map.Entry<Configuration, AssetTable> group : matching(criteria)) {
+            for (Asset asset : group.getValue().values()) {
+                configurations.remove(asset.getAssetId());
+                deleted.add(asset);
+            }
+            groups.remove(group.getKey());
+        }
+        return deleted;
+    }
+
+    @Override
+    public Optional<Asset> deleteAssetById(final String assetId) {
+        logger.info("delete asset with id: " + assetId);
+        return ofNullable(remove(assetId));
+    }
+
+    @Override
+    public List<Asset> deleteAssetsByIds(final List<String> assetIds) {
+        List<Asset> deleted = new ArrayList<>();
+
+        logger.info("deleteAssetsByIds: deleting a list of assets by id");
+        for (String id : assetIds) {
+            deleteAssetById(id).ifPresent(deleted::add);
+        }
+        return deleted;
+    }
+
+    @Override
+    public List<Asset> getFullInventory() {
+        return new ArrayList<>(assets);
+    }
+
+    /**
+     * Walks the groups in place, the inventory must not change meanwhile.
+     */
+    @Override
+    public void forEachAsset(final Consumer<Asset> action) {
+        notNull(action);
+        for (AssetTable group : groups.values()) {
+            group.values().forEach(action);
+        }
+    }
+
+    @Override
+    public int getFullInventorySize() {
+        return configurations.size();
+    }
+
+    /**
+     * Expands the groups matching the criteria, the assets of a group are listed together.
+     *
+     * @param criteria
+     * @return list of assets matching the criteria, empty for a null or empty criteria
+     */
+    @Override
+    public List<Asset> search(final QueryCriteria criteria) {
+        List<Asset> result = new ArrayList<>();
+        if (criteria == null || criteria.isEmpty()) return result;
+
+        logger.info("search for assets matching criteria: " + criteria);
+        for (Map.Entry<Configuration, AssetTable> group : matching(criteria)) {
+            result.addAll(group.getValue().values());
+        }
+        return result;
+    }
+
+    /**
+     * The expression is evaluated once per group, on any of its assets since they share their
+     * configuration.
+     */
+    @Override
+    public List<Asset> search(final Expression expression) {
+        List<Asset> result = new ArrayList<>();
+        if (expression == null) return result;
+
+        logger.info("search for assets matching expression: " + expression);
+        for (AssetTable group : groups.values()) {
+            if (expression.matches(group.values().iterator().next())) {
+                result.addAll(group.values());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of groups, that is of distinct configurations
+     */
+    public int getGroupCount() {
+        return groups.size();
+    }
+
+    /**
+     * @return the aggregates over the entire inventory, computed group by group
+     */
+    public Aggregates aggregate() {
+        logger.info("aggregate for entire inventory");
+        Aggregates.Accumulator accumulator = new Aggregates.Accumulator();
+        for (Map.Entry<Configuration, AssetTable> group : groups.entrySet()) {
+            accumulate(accumulator, group);
+        }
+        return accumulator.result();
+    }
+
+    /**
+     * @param criteria
+     * @return the aggregates over the groups matching the criteria, empty for a null or empty
+     * criteria
+     */
+    public Aggregates aggregate(final QueryCriteria criteria) {
+        if (criteria == null || criteria.isEmpty()) return Aggregates.EMPTY;
+
+        logger.info("aggregate " + criteria);
+        Aggregates.Accumulator accumulator = new Aggregates.Accumulator();
+        for (Map.Entry<Configuration, AssetTable> group : matching(criteria)) {
+            accumulate(accumulator, group);
+        }
+        return accumulator.result();
+    }
+
+    @Override
+    public int totalMemory() {
+        return aggregate().getTotalMemory();
+    }
+
+    @Override
+    public int totalMemory(final QueryCriteria criteria) {
+        return aggregate(criteria).getTotalMemory();
+    }
+
+    @Override
+    public int totalCores() {
+        return aggregate().getTotalCores();
+    }
+
+    @Override
+    public int totalCores(final QueryCriteria criteria) {
+        return aggregate(criteria).getTotalCores();
+    }
+
+    @Override
+    public int maxMemory() {
+        return aggregate().getMaxMemory();
+    }
+
+    @Override
+    public int maxMemory(final QueryCriteria criteria) {
+        return aggregate(criteria).getMaxMemory();
+    }
+
+    @Override
+    public int maxCores() {
+        return aggregate().getMaxCores();
+    }
+
+    @Override
+    public int maxCores(final QueryCriteria criteria) {
+        return aggregate(criteria).getMaxCores();
+    }
+
+    @Override
+    public int minMemory() {
+        return aggregate().getMinMemory();
+    }
+
+    @Override
+    public int minMemory(final QueryCriteria criteria) {
+        return aggregate(criteria).getMinMemory();
+    }
+
+    @Override
+    public int minCores() {
+        return aggregate().getMinCores();
+    }
+
+    @Override
+    public int minCores(final QueryCriteria criteria) {
+        return aggregate(criteria).getMinCores();
+    }
+
+    @Override
+    public int totalAssets(final QueryCriteria criteria) {
+        return aggregate(criteria).getCount();
+    }
+
+    /**
+     * @return the groups whose configuration satisfies the criteria, a copy so that the
+     * groups can be removed while iterating
+     */
+    private List<Map.Entry<Configuration, AssetTable>> matching(final QueryCriteria criteria) {
+        List<Map.Entry<Configuration, AssetTable>> result = new ArrayList<>();
+        for (Map.Entry<Configuration, AssetTable> group : from(criteria).entrySet()) {
+            if (past(criteria, group.getKey())) break;
+            if (criteria.matches(group.getKey())) {
+                result.add(new AbstractMap.SimpleImmutableEntry<>(group));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the groups from the first one that can share the leading values the criteria
+     * fixes (the OS, then the CPU and cores), every group when it does not fix the OS
+     */
+    private NavigableMap<Configuration, AssetTable> from(final QueryCriteria criteria) {
+        if (!criteria.getOs().isPresent()) return groups;
+
+        // Not interned, the values come from the caller
+        CPU cpu = criteria.getCpu().orElse(null);
+        Integer cores = cpu == null ? null : criteria.getCores().orElse(null);
+        return groups.tailMap(Configuration.bound(criteria.getOs().get(), cpu, cores, null), true);
+    }
+
+    /**
+     * @return whether the configuration, and the ones after it, differ from the leading values
+     * the criteria fixes
+     */
+    private static boolean past(final QueryCriteria criteria, final Configuration configuration) {
+        if (!criteria.getOs().isPresent()) return false;
+        if (configuration.getOS() != criteria.getOs().get()) return true;
+        if (!criteria.getCpu().isPresent()) return false;
+        if (configuration.getCPU() != criteria.getCpu().get()) return true;
+        return criteria.getCores().isPresent() && !criteria.getCores().get().equals(configuration.getCores());
+    }
+
+    /**
+     * @return the asset with the id, null if none
+     */
+    private Asset get(final String assetId) {
+        Configuration configuration = configurations.get(assetId);
+        return configuration == null ? null : groups.get(configuration).get(assetId);
+    }
+
+    /**
+     * Adds the asset to its group, in place of the asset with the same id.
+     *
+     * @return the asset replaced, null if none
+     */
+    private Asset store(final Asset asset) {
+        Configuration previous = configurations.put(asset.getAssetId(), asset.getConfiguration());
+        if (previous == asset.getConfiguration()) {
+            // Same group, the record is replaced in its slot
+            return groups.get(previous).put(asset);
+        }
+        Asset replaced = previous == null ? null : removeFromGroup(previous, asset.getAssetId());
+        groups.computeIfAbsent(asset.getConfiguration(), c -> new AssetTable()).put(asset);
+        return replaced;
+    }
+
+    /**
+     * @return the asset removed, null if none
+     */
+    private Asset remove(final String assetId) {
+        Configuration configuration = configurations.remove(assetId);
+        return configuration == null ? null : removeFromGroup(configuration, assetId);
+    }
+
+    private Asset removeFromGroup(final Configuration configuration, final String assetId) {
+        AssetTable group = groups.get(configuration);
+        Asset asset = group.remove(assetId);
+        if (group.size() == 0) {
+            groups.remove(configuration);
+        }
+        return asset;
+    }
+
+    private static void accumulate(final Aggregates.Accumulator accumulator,
+                                   final Map.Entry<Configuration, AssetTable> group) {
+        Configuration configuration = group.getKey();
+        accumulator.add(group.getValue().size(), configuration.getCores(), configuration.getMemory());
+    }
+}
@@ -1,13 +1,24 @@
 package inventory;
 
 import inventory.data.Asset;
+import inventory.query.Expression;
+import inventory.query.Page;
+import inventory.query.PageRequest;
 import inventory.query.QueryCriteria;
+import inventory.query.SortKey;
+import inventory.query.TopK;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.apache.commons.lang3.Validate.notNull;
 
 public interface Inventory {
 
+    String NON_NULL_ARGUMENT = "Cannot add a null object to the inventory.";
+
     /** Basic asset creation and deletion methods **/
 
     // Must return the unique ID of the asset added
@@ -18,6 +29,56 @@ public interface Inventory {
 
     Optional<Asset> getAssetById(final String asset_id);
 
+    // Must replace the asset holding the same id and return the version replaced. An id not in the inventory is not
+    // added and an empty optional is returned. Build the new version with asset.toBuilder() so that it keeps the id.
+    // Implementations override these to adjust their indexes and aggregates by the difference between the versions.
+    default Optional<Asset> updateAsset(final Asset asset) {
+        notNull(asset, NON_NULL_ARGUMENT);
+        Optional<Asset> previous = getAssetById(asset.getAssetId());
+        if (previous.isPresent()) {
+            addAsset(asset);
+        }
+        return previous;
+    }
+
+    // Must return the versions replaced, in the order of the assets, assets whose id is not in the inventory are skipped.
+    default List<Asset> updateAssets(final List<Asset> assets) {
+        notNull(assets, NON_NULL_ARGUMENT);
+        List<Asset> replaced = new ArrayList<>();
+        for (Asset a : assets) {
+            updateAsset(a).ifPresent(replaced::add);
+        }
+        return replaced;
+    }
+
+    // Must replace the asset holding the same id, or add the asset when there is none, and return the version replaced.
+    default Optional<Asset> upsertAsset(final Asset asset) {
+        notNull(asset, NON_NULL_ARGUMENT);
+        Optional<Asset> previous = getAssetById(asset.getAssetId());
+        addAsset(asset);
+        return previous;
+    }
+
+    // Must return the versions replaced, in the order of the assets, the other assets are added.
+    default List<Asset> upsertAssets(final List<Asset> assets) {
+        notNull(assets, NON_NULL_ARGUMENT);
+        List<Asset> replaced = new ArrayList<>();
+        for (Asset a : assets) {
+            upsertAsset(a).ifPresent(replaced::add);
+        }
+        return replaced;
+    }
+
+    // Must return the assets found, in the order of the ids, ids not in the inventory are skipped.
+    // Implementations override this to look up a batch of ids in a single pass over their storage.
+    default List<Asset> getAssetsByIds(final List<String> assetIds) {
+        List<Asset> assets = new ArrayList<>();
+        for (String id : assetIds) {
+            getAssetById(id).ifPresent(assets::add);
+        }
+        return assets;
+    }
+
     // Must return list of assets or empty list
     List<Asset> deleteAssets(final QueryCriteria criteria);
 
@@ -30,11 +91,40 @@ public interface Inventory {
     // Must return list of assets or empty list
     List<Asset> deleteAssetsByIds(final List<String> assetId);
 
+    // Must make the inventory hold exactly the assets listed, matched by id, and return the difference applied:
+    // only the assets missing, no longer listed or whose configuration changed are touched. The list is checked
+    // (no null asset, no id listed twice) before anything changes. This default pulls the full inventory, then deletes
+    // and adds through the other methods, it is not atomic: a failure leaves part of the difference applied. Every
+    // writable inventory of the project overrides it, all or nothing, but DistributedInventory, which is atomic per
+    // node only.
+    default Delta reconcile(final List<Asset> assets) {
+        notNull(assets, NON_NULL_ARGUMENT);
+        Delta delta = Delta.between(getFullInventory(), assets);
+        if (delta.isEmpty()) return delta;
+
+        List<String> removed = new ArrayList<>(delta.getRemoved().size());
+        for (Asset a : delta.getRemoved()) {
+            removed.add(a.getAssetId());
+        }
+        List<Asset> stored = new ArrayList<>(delta.getAdded());
+        stored.addAll(delta.getChanged());
+
+        deleteAssetsByIds(removed);
+        addAssets(stored);
+        return delta;
+    }
+
     /* Since query criteria inventory search and convenience methods */
 
     // Must return list of assets or empty list (if inventory is empty)
     List<Asset> getFullInventory();
 
+    // Must pass every asset to the action, this default goes through a copy of the full inventory, an inventory able to
+    // walk its assets in place overrides it.
+    default void forEachAsset(final Consumer<Asset> action) {
+        getFullInventory().forEach(notNull(action));
+    }
+
     // Must return list of assets or empty list (if inventory is empty)
     int getFullInventorySize();
 
@@ -67,6 +157,54 @@ public interface Inventory {
     // Must return list of assets matching query or empty list
     List<Asset> search(final QueryCriteria criteria);
 
+    // Must return each asset matching the expression once, or empty list (null expression).
+    // Implementations override this to evaluate the expression over their storage, using indexes where available.
+    default List<Asset> search(final Expression expression) {
+        List<Asset> result = new ArrayList<>();
+        if (expression == null) return result;
+
+        for (Asset a : getFullInventory()) {
+            if (expression.matches(a)) {
+                result.add(a);
+            }
+        }
+        return result;
+    }
+
+    // Must return at most k assets, largest value of the key first (ties by asset id).
+    // Implementations override these to select the assets in a single pass, without collecting or sorting them all.
+    default List<Asset> top(final int k, final SortKey key) {
+        return TopK.largest(k, key).addAll(getFullInventory()).result();
+    }
+
+    // Same as top, over the assets matching the criteria, the rules of the search method apply.
+    default List<Asset> top(final int k, final SortKey key, final QueryCriteria criteria) {
+        return TopK.largest(k, key).addAll(search(criteria)).result();
+    }
+
+    // Must return at most k assets, smallest value of the key first (ties by asset id).
+    default List<Asset> bottom(final int k, final SortKey key) {
+        return TopK.smallest(k, key).addAll(getFullInventory()).result();
+    }
+
+    // Same as bottom, over the assets matching the criteria, the rules of the search method apply.
+    default List<Asset> bottom(final int k, final SortKey key, final QueryCriteria criteria) {
+        return TopK.smallest(k, key).addAll(search(criteria)).result();
+    }
+
+    // Must return the page of assets matching the criteria that follows the request's cursor, in the request's order.
+    // The rules of the search method apply. Implementations override this to resume from the cursor in a sorted
+    // structure rather than selecting the page among every match.
+    default Page search(final QueryCriteria criteria, final PageRequest request) {
+        notNull(request);
+        TopK page = new TopK(request.getPageSize() + 1, request.order());
+        for (Asset a : search(criteria)) {
+            if (request.isAfterCursor(a)) {
+                page.accept(a);
+            }
+        }
+        return Page.of(request, page.result());
+    }
 
     /*
      * This set of interface methods provides for submitting a list of query criteria
@@ -0,0 +1,530 @@
+package inventory;
+
+import inventory.data.Asset;
+import inventory.data.Configuration;
+import inventory.query.Aggregates;
+import inventory.query.Expression;
+import inventory.query.Page;
+import inventory.query.PageRequest;
+import inventory.query.QueryCriteria;
+import inventory.query.SortKey;
+import inventory.query.TopK;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toList;
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Inventory that spreads assets across a fixed number of independent shards by the hash of
+ * the asset id. Each shard is a DefaultInventory guarded by its own read/write lock, so writers
+ * to different shards never contend with one another.
+ *
+ * Operations addressing a single asset id go straight to the owning shard. Searches and
+ * aggregates fan out to every shard in parallel and merge the partial results. Aggregates are
+ * merged from per shard partials (see Aggregates) so that shards without a match never take
+ * part in a min or a max.
+ */
+public class ShardedInventory extends AbstractInventory {
+
+    static final int DEFAULT_SHARD_COUNT = 16;
+
+    // Attempts at computing the difference of a reconcile, the last one under the write locks
+    static final int RECONCILE_ATTEMPTS = 3;
+
+    static final String INVALID_SHARD_COUNT = "Shard count must be a positive number.";
+
+    private final List<Shard> shards;
+
+    public ShardedInventory() {
+        this(DEFAULT_SHARD_COUNT);
+    }
+
+    public ShardedInventory(final int shardCount) {
+        isTrue(shardCount > 0, INVALID_SHARD_COUNT);
+
+        List<Shard> list = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            list.add(new Shard());
+        }
+        shards = list;
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    @Override
+    public String addAsset(final Asset asset) {
+        notNull(asset, NON_NULL_ARGUMENT);
+        return shardFor(asset.getAssetId()).write(s -> s.addAsset(asset));
+    }
+
+    @Override
+    public List<String> addAssets(final List<Asset> assets) {
+        notNull(assets, NON_NULL_ARGUMENT);
+
+        logger.info("addAssets: Adding list of assets to " + shards.size() + " shards");
+        Map<Shard, List<Asset>> batches = new LinkedHashMap<>();
+        List<String> ids = new ArrayList<>(assets.size());
+        for (Asset a : assets) {
+            notNull(a, NON_NULL_ARGUMENT);
+            batches.computeIfAbsent(shardFor(a.getAssetId()), s -> new ArrayList<>()).add(a);
+            ids.add(a.getAssetId());
+        }
+
+        // One lock acquisition per shard, shards are loaded in parallel
+        batches.entrySet().parallelStream()
+                .forEach(e -> e.getKey().write(s -> s.addAssets(e.getValue())));
+
+        return ids;
+    }
+
+    /**
+     * The difference of each shard is computed in parallel under its read lock, so readers and
+     * writers of the other shards keep going meanwhile. Every shard is then write locked while
+     * the differences are applied, readers see the inventory either before or after them. A
+     * shard changed in between has the differences computed again, the last of the
+     * RECONCILE_ATTEMPTS under the write locks. A difference failing to apply undoes the ones applied before it.
+     */
+    @Override
+    public Delta reconcile(final List<Asset> assets) {
+        notNull(assets, NON_NULL_ARGUMENT);
+
+        logger.info("reconcile against " + assets.size() + " assets in " + shards.size() + " shards");
+        Map<Shard, List<Asset>> parts = new LinkedHashMap<>();
+        for (Shard shard : shards) {
+            parts.put(shard, new ArrayList<>());
+        }
+        for (Asset a : assets) {
+            notNull(a, NON_NULL_ARGUMENT);
+            parts.get(shardFor(a.getAssetId())).add(a);
+        }
+
+        for (int attempt = 1; attempt < RECONCILE_ATTEMPTS; attempt++) {
+            long[] versions = new long[shards.size()];
+            List<Delta> deltas = IntStream.range(0, shards.size()).parallel()
+                    .mapToObj(i -> shards.get(i).read(s -> {
+                        versions[i] = shards.get(i).version;
+                        return s.difference(parts.get(shards.get(i)));
+                    }))
+                    .collect(toList());
+            Delta delta = writeAll(() -> unchanged(versions) ? applyAll(deltas) : null);
+            if (delta != null) return delta;
+            logger.info("reconcile: shards changed while computing the difference, computing it again");
+        }
+        return writeAll(() -> applyAll(shards.parallelStream()
+                .map(shard -> shard.inventory.difference(parts.get(shard)))
+                .collect(toList())));
+    }
+
+    /**
+     * Runs the operation with every shard write locked, always taken in the same order.
+     */
+    private <T> T writeAll(final Supplier<T> operation) {
+        for (Shard shard : shards) {
+            shard.lock.writeLock().lock();
+        }
+        try {
+            return operation.get();
+        } finally {
+            for (Shard shard : shards) {
+                shard.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private boolean unchanged(final long[] versions) {
+        for (int i = 0; i < shards.size(); i++) {
+            if (shards.get(i).version != versions[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Applies the difference of each shard, all or nothing, the shards must be write locked.
+     */
+    private Delta applyAll(final List<Delta> deltas) {
+        Deque<Runnable> undo = new ArrayDeque<>();
+        try {
+            for (int i = 0; i < shards.size(); i++) {
+                if (!deltas.get(i).isEmpty()) {
+                    undo.push(shards.get(i).inventory.apply(deltas.get(i)));
+                    shards.get(i).version++;
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            undo.forEach(Runnable::run);
+            throw e;
+        }
+        return Delta.concat(deltas);
+    }
+
+    @Override
+    public Optional<Asset> getAssetById(final String asset_id) {
+        if (asset_id == null) return Optional.empty();
+        return shardFor(asset_id).read(s -> s.getAssetById(asset_id));
+    }
+
+    /**
+     * Looks up the ids of each shard under a single acquisition of that shard's read lock.
+     */
+    @Override
+    public List<Asset> getAssetsByIds(final List<String> asset_ids) {
+        Map<Shard, List<String>> batches = new LinkedHashMap<>();
+        for (String id : asset_ids) {
+            if (id != null) {
+                batches.computeIfAbsent(shardFor(id), s -> new ArrayList<>()).add(id);
+            }
+        }
+
+        Map<String, Asset> found = new HashMap<>();
+        for (Map.Entry<Shard, List<String>> e : batches.entrySet()) {
+            for (Asset a : e.getKey().read(s -> s.getAssetsByIds(e.getValue()))) {
+                found.put(a.getAssetId(), a);
+            }
+        }
+        return inOrder(asset_ids, found);
+    }
+
+    @Override
+    public Optional<Asset> updateAsset(final Asset asset) {
+        notNull(asset, NON_NULL_ARGUMENT);
+        return shardFor(asset.getAssetId()).write(s -> s.updateAsset(asset));
+    }
+
+    @Override
+    public List<Asset> updateAssets(final List<Asset> assets) {
+        logger.info("updateAssets: updating a list of assets in " + shards.size() + " shards");
+        return replace(assets, DefaultInventory::updateAsset);
+    }
+
+    @Override
+    public Optional<Asset> upsertAsset(final Asset asset) {
+        notNull(asset, NON_NULL_ARGUMENT);
+        return shardFor(asset.getAssetId()).write(s -> s.upsertAsset(asset));
+    }
+
+    @Override
+    public List<Asset> upsertAssets(final List<Asset> assets) {
+        logger.info("upsertAssets: upserting a list of assets in " + shards.size() + " shards");
+        return replace(assets, DefaultInventory::upsertAsset);
+    }
+
+    @Override
+    public List<Asset> deleteAssets(final QueryCriteria criteria) {
+        if (criteria == null) {
+            logger.info("Input criteria is null, returning empty list");
+            return new ArrayList<>();
+        }
+
+        logger.info("deleteAssets matching " + criteria + " across all shards");
+        return concat(shards.parallelStream()
+                .map(shard -> shard.write(s -> s.deleteAssets(criteria)))
+                .collect(toList()));
+    }
+
+    @Override
+    public Optional<Asset> deleteAssetById(final String asset_id) {
+        if (asset_id == null) return Optional.empty();
+        return shardFor(asset_id).write(s -> s.deleteAssetById(asset_id));
+    }
+
+    @Override
+    public List<Asset> deleteAssetsByIds(final List<String> asset_ids) {
+        Map<Shard, List<String>> batches = new LinkedHashMap<>();
+        for (String id : asset_ids) {
+            if (id != null) {
+                batches.computeIfAbsent(shardFor(id), s -> new ArrayList<>()).add(id);
+            }
+        }
+
+        return concat(batches.entrySet().parallelStream()
+                .map(e -> e.getKey().write(s -> s.deleteAssetsByIds(e.getValue())))
+                .collect(toList()));
+    }
+
+    @Override
+    public List<Asset> getFullInventory() {
+        return concat(fanOut(DefaultInventory::getFullInventory));
+    }
+
+    @Override
+    public int getFullInventorySize() {
+        return fanOut(DefaultInventory::getFullInventorySize).stream().mapToInt(Integer::intValue).sum();
+    }
+
+    @Override
+    public List<Asset> search(final QueryCriteria criteria) {
+        if (criteria == null || criteria.isEmpty()) return new ArrayList<>();
+
+        logger.info("search for assets matching criteria: " + criteria + " across all shards");
+        return concat(fanOut(s -> s.search(criteria)));
+    }
+
+    @Override
+    public List<Asset> search(final Expression expression) {
+        if (expression == null) return new ArrayList<>();
+
+        logger.info("search for assets matching expression: " + expression + " across all shards");
+        return concat(fanOut(s -> s.search(expression)));
+    }
+
+    /**
+     * Each shard selects its own k assets, the result is selected among those.
+     */
+    @Override
+    public List<Asset> top(final int k, final SortKey key) {
+        return TopK.largest(k, key).addAll(concat(fanOut(s -> s.top(k, key)))).result();
+    }
+
+    @Override
+    public List<Asset> top(final int k, final SortKey key, final QueryCriteria criteria) {
+        return TopK.largest(k, key).addAll(concat(fanOut(s -> s.top(k, key, criteria)))).result();
+    }
+
+    @Override
+    public List<Asset> bottom(final int k, final SortKey key) {
+        return TopK.smallest(k, key).addAll(concat(fanOut(s -> s.bottom(k, key)))).result();
+    }
+
+    @Override
+    public List<Asset> bottom(final int k, final SortKey key, final QueryCriteria criteria) {
+        return TopK.smallest(k, key).addAll(concat(fanOut(s -> s.bottom(k, key, criteria)))).result();
+    }
+
+    /**
+     * Every shard resumes from the same cursor and returns its own page, the page is the
+     * first assets of the merge. Another page follows when any shard has more.
+     */
+    @Override
+    public Page search(final QueryCriteria criteria, final PageRequest request) {
+        notNull(request);
+        List<Page> pages = fanOut(s -> s.search(criteria, request));
+
+        TopK merged = new TopK(request.getPageSize() + 1, request.order());
+        boolean more = false;
+        for (Page page : pages) {
+            merged.addAll(page.getAssets());
+            more |= page.hasNext();
+        }
+        return Page.of(request, merged.result(), more);
+    }
+
+    /**
+     * Merges the partial aggregates of every shard for the entire inventory.
+     *
+     * @return Aggregates
+     */
+    public Aggregates aggregate() {
+        return merge(fanOut(DefaultInventory::aggregate));
+    }
+
+    /**
+     * Merges the partial aggregates of every shard for the assets matching the criteria.
+     * The rules of the search method apply, a null or empty criteria matches nothing.
+     *
+     * @param criteria
+     * @return Aggregates
+     */
+    public Aggregates aggregate(final QueryCriteria criteria) {
+        if (criteria == null || criteria.isEmpty()) return Aggregates.EMPTY;
+        return merge(fanOut(s -> s.aggregate(criteria)));
+    }
+
+    /**
+     * @return the number of assets of each configuration, merged from a copy taken of every
+     * shard under its read lock
+     */
+    public Map<Configuration, Integer> getConfigurations() {
+        Map<Configuration, Integer> result = new HashMap<>();
+        for (Map<Configuration, Integer> partial : fanOut(s -> new HashMap<>(s.getConfigurations()))) {
+            partial.forEach((configuration, count) -> result.merge(configuration, count, Integer::sum));
+        }
+        return result;
+    }
+
+    @Override
+    public int totalMemory() {
+        return aggregate().getTotalMemory();
+    }
+
+    @Override
+    public int totalMemory(final QueryCriteria criteria) {
+        return aggregate(criteria).getTotalMemory();
+    }
+
+    @Override
+    public int totalCores() {
+        return aggregate().getTotalCores();
+    }
+
+    @Override
+    public int totalCores(final QueryCriteria criteria) {
+        return aggregate(criteria).getTotalCores();
+    }
+
+    @Override
+    public int maxMemory() {
+        return aggregate().getMaxMemory();
+    }
+
+    @Override
+    public int maxMemory(final QueryCriteria criteria) {
+        return aggregate(criteria).getMaxMemory();
+    }
+
+    @Override
+    public int maxCores() {
+        return aggregate().getMaxCores();
+    }
+
+    @Override
+    public int maxCores(final QueryCriteria criteria) {
+        return aggregate(criteria).getMaxCores();
+    }
+
+    @Override
+    public int minMemory() {
+        return aggregate().getMinMemory();
+    }
+
+    @Override
+    public int minMemory(final QueryCriteria criteria) {
+        return aggregate(criteria).getMinMemory();
+    }
+
+    @Override
+    public int minCores() {
+        return aggregate().getMinCores();
+    }
+
+    @Override
+    public int minCores(final QueryCriteria criteria) {
+        return aggregate(criteria).getMinCores();
+    }
+
+    @Override
+    public int totalAssets(final QueryCriteria criteria) {
+        return fanOut(s -> s.totalAssets(criteria)).stream().mapToInt(Integer::intValue).sum();
+    }
+
+    private Shard shardFor(final String assetId) {
+        return shards.get(Math.floorMod(assetId.hashCode(), shards.size()));
+    }
+
+    /**
+     * Runs the read operation against every shard in parallel, each under its shard's read lock.
+     */
+    private <T> List<T> fanOut(final Function<DefaultInventory, T> operation) {
+        return shards.parallelStream()
+                .map(shard -> shard.read(operation))
+                .collect(toList());
+    }
+
+    /**
+     * Runs the operation on each asset, the assets of a shard under one acquisition of that
+     * shard's write lock, shards in parallel.
+     *
+     * @return the versions replaced, in the order of the assets
+     */
+    private List<Asset> replace(final List<Asset> assets,
+                                final BiFunction<DefaultInventory, Asset, Optional<Asset>> operation) {
+        notNull(assets, NON_NULL_ARGUMENT);
+        // Positions of the assets of each shard, an id listed twice is replaced twice
+        Map<Shard, List<Integer>> batches = new LinkedHashMap<>();
+        for (int i = 0; i < assets.size(); i++) {
+            Asset a = notNull(assets.get(i), NON_NULL_ARGUMENT);
+            batches.computeIfAbsent(shardFor(a.getAssetId()), s -> new ArrayList<>()).add(i);
+        }
+
+        Asset[] replaced = new Asset[assets.size()];
+        batches.entrySet().parallelStream().forEach(e -> e.getKey().write(s -> {
+            for (int i : e.getValue()) {
+                replaced[i] = operation.apply(s, assets.get(i)).orElse(null);
+            }
+            return null;
+        }));
+
+        List<Asset> result = new ArrayList<>();
+        for (Asset a : replaced) {
+            if (a != null) {
+                result.add(a);
+            }
+        }
+        return result;
+    }
+
+    private static Aggregates merge(final List<Aggregates> partials) {
+        Aggregates result = Aggregates.EMPTY;
+        for (Aggregates partial : partials) {
+            result = result.merge(partial);
+        }
+        return result;
+    }
+
+    private static List<Asset> inOrder(final List<String> ids, final Map<String, Asset> found) {
+        List<Asset> result = new ArrayList<>(found.size());
+        for (String id : ids) {
+            Asset a = found.get(id);
+            if (a != null) {
+                result.add(a);
+            }
+        }
+        return result;
+    }
+
+    private static List<Asset> concat(final List<List<Asset>> partials) {
+        List<Asset> result = new ArrayList<>();
+        for (List<Asset> partial : partials) {
+            result.addAll(partial);
+        }
+        return result;
+    }
+
+    /**
+     * A single partition of the inventory along with the lock guarding it.
+     */
+    private static final class Shard {
+
+        private final DefaultInventory inventory = new DefaultInventory();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        // Incremented under the write lock, tells reconcile whether the shard changed
+        private long version;
+
+        <T> T read(final Function<DefaultInventory, T> operation) {
+            return locked(lock.readLock(), operation);
+        }
+
+        <T> T write(final Function<DefaultInventory, T> operation) {
+            return locked(lock.writeLock(), inventory -> {
+                version++;
+                return operation.apply(inventory);
+            });
+        }
+
+        private <T> T locked(final Lock held, final Function<DefaultInventory, T> operation) {
+            held.lock();
+            try {
+                return operation.apply(inventory);
+            } finally {
+                held.unlock();
+            }
+        }
+    }
+}
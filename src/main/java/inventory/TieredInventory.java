@@ -0,0 +1,350 @@
+package inventory;
+
+import inventory.data.Asset;
+import inventory.data.Configuration;
+import inventory.query.Aggregates;
+import inventory.query.QueryCriteria;
+import inventory.storage.TieredTable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.Optional.ofNullable;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Inventory keeping only what queries need on the heap: the assets are stored in a TieredTable,
+ * whose primitive columns and id index stay in memory while the full records go to a
+ * memory-mapped segment file, with an LRU cache of assets in front of it for getAssetById and
+ * for materialising results.
+ *
+ * The number of assets of each configuration is kept up to date as in DefaultInventory, so
+ * counts and aggregates are answered from the configurations, or from a scan of the columns
+ * when the configurations are too many. Searches match the criteria on the columns and only
+ * decode the records of the matching assets.
+ *
+ * The segment file is replaced when the inventory is created. For a fast restart, save an
+ * image of the structures on the heap on shutdown (saveImage) and open the inventory from the
+ * segment and the image (open): it serves right away, each structure is mapped from the image
+ * when first needed, or rebuilt from the records if its part of the image is stale. Ids other
+ * than UUIDs are accepted but held on the heap, see TieredTable.
+ *
+ * Not thread safe.
+ */
+public class TieredInventory extends AbstractInventory implements Closeable {
+
+    private final TieredTable table;
+
+    /**
+     * @param segmentFile file receiving the asset records, replaced if it exists
+     */
+    public TieredInventory(final Path segmentFile) throws IOException {
+        this(segmentFile, TieredTable.DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param segmentFile file receiving the asset records, replaced if it exists
+     * @param cacheSize   number of assets kept on the heap for lookups by id, 0 for none
+     */
+    public TieredInventory(final Path segmentFile, final int cacheSize) throws IOException {
+        this(new TieredTable(segmentFile, cacheSize));
+    }
+
+    private TieredInventory(final TieredTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Restarts an inventory from the segment and the image it saved on shutdown.
+     *
+     * @param segmentFile file holding the asset records, as left by the inventory
+     * @param image       image saved by the inventory, see saveImage
+     * @param cacheSize   number of assets kept on the heap for lookups by id, 0 for none
+     * @throws IOException when the image is not valid or does not match the segment, the
+     *                     inventory must then be loaded again from its source
+     */
+    public static TieredInventory open(final Path segmentFile, final Path image, final int cacheSize)
+            throws IOException {
+        TieredInventory inventory = new TieredInventory(TieredTable.open(segmentFile, image, cacheSize));
+        inventory.logger.info("Opened inventory of " + inventory.getFullInventorySize() + " assets from " + image);
+        return inventory;
+    }
+
+    /**
+     * Saves the structures on the heap to the image, replacing it. Any change made afterwards
+     * makes the image stale, so it is meant to be saved on shutdown.
+     */
+    public void saveImage(final Path image) throws IOException {
+        table.save(image);
+    }
+
+    /**
+     * Loads every structure from the image and the records into memory, say from a background
+     * thread right after open, so that the first queries do not pay for it.
+     */
+    public void warmUp() {
+        logger.info("warming up");
+        table.warmUp();
+    }
+
+    @Override
+    public String addAsset(final Asset asset) {
+        notNull(asset, NON_NULL_ARGUMENT);
+        logger.info("addAsset:  " + asset);
+        table.put(asset);
+        return asset.getAssetId();
+    }
+
+    @Override
+    public List<String> addAssets(final List<Asset> assets) {
+        notNull(assets, NON_NULL_ARGUMENT);
+        List<String> ids = new ArrayList<>();
+
+        logger.info("addAssets: Adding list of assets");
+        for (Asset a : assets) {
+            ids.add(addAsset(a));
+        }
+        return ids;
+    }
+
+    @Override
+    public Optional<Asset> updateAsset(final Asset asset) {
+        notNull(asset, NON_NULL_ARGUMENT);
+        logger.info("updateAsset: " + asset);
+        if (!table.containsKey(asset.getAssetId())) return Optional.empty();
+
+        return ofNullable(table.put(asset));
+    }
+
+    @Override
+    public Optional<Asset> upsertAsset(final Asset asset) {
+        notNull(asset, NON_NULL_ARGUMENT);
+        logger.info("upsertAsset: " + asset);
+        return ofNullable(table.put(asset));
+    }
+
+    /**
+     * Computes the difference looking the listed ids up rather than copying the inventory, then
+     * applies it, all or nothing (see Delta.apply). The table is not thread safe, the difference
+     * is computed sequentially and its lookups bypass the cache.
+     */
+    @Override
+    public Delta reconcile(final List<Asset> assets) {
+        logger.info("reconcile against " + notNull(assets, NON_NULL_ARGUMENT).size() + " assets");
+        Delta delta = Delta.between(table.values(), table::find, assets, false);
+        delta.apply(table::remove, table::put);
+        logger.info("reconciled: " + delta);
+        return delta;
+    }
+
+    @Override
+    public Optional<Asset> getAssetById(final String asset_id) {
+        logger.info("getAssetById " + asset_id);
+        return ofNullable(table.get(asset_id));
+    }
+
+    @Override
+    public List<Asset> getAssetsByIds(final List<String> asset_ids) {
+        List<Asset> result = new ArrayList<>(asset_ids.size());
+
+        logger.info("getAssetsByIds for " + asset_ids.size() + " ids");
+        for (String id : asset_ids) {
+            Asset asset = table.get(id);
+            if (asset != null) {
+                result.add(asset);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Asset> deleteAssets(final QueryCriteria criteria) {
+        if (criteria == null || criteria.isEmpty()) return new ArrayList<>();
+
+        logger.info("deleteAssets matching " + criteria);
+        List<Asset> deleted = table.select(criteria);
+        for (Asset asset : deleted) {
+            table.remove(asset.getAssetId());
+        }
+        return deleted;
+    }
+
+    @Override
+    public Optional<Asset> deleteAssetById(final String assetId) {
+        logger.info("delete asset with id: " + assetId);
+        return ofNullable(table.remove(assetId));
+    }
+
+    @Override
+    public List<Asset> deleteAssetsByIds(final List<String> assetIds) {
+        List<Asset> deleted = new ArrayList<>();
+
+        logger.info("deleteAssetsByIds: deleting a list of assets by id");
+        for (String id : assetIds) {
+            Asset asset = table.remove(id);
+            if (asset != null) {
+                deleted.add(asset);
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public List<Asset> getFullInventory() {
+        return table.select(QueryCriteria.builder().build());
+    }
+
+    @Override
+    public int getFullInventorySize() {
+        return table.size();
+    }
+
+    @Override
+    public List<Asset> search(final QueryCriteria criteria) {
+        if (criteria == null || criteria.isEmpty()) return new ArrayList<>();
+
+        logger.info("search for assets matching criteria: " + criteria);
+        // No configuration matching, no record to visit
+        if (totalAssets(criteria) == 0) return new ArrayList<>();
+        return table.select(criteria);
+    }
+
+    /**
+     * Counted from the configurations, no asset is visited.
+     */
+    @Override
+    public int totalAssets(final QueryCriteria criteria) {
+        if (criteria == null || criteria.isEmpty()) return 0;
+
+        int count = 0;
+        for (Map.Entry<Configuration, Integer> entry : table.getConfigurations().entrySet()) {
+            if (criteria.matches(entry.getKey())) {
+                count += entry.getValue();
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int totalMemory() {
+        return aggregate().getTotalMemory();
+    }
+
+    @Override
+    public int totalMemory(final QueryCriteria criteria) {
+        return aggregate(criteria).getTotalMemory();
+    }
+
+    @Override
+    public int totalCores() {
+        return aggregate().getTotalCores();
+    }
+
+    @Override
+    public int totalCores(final QueryCriteria criteria) {
+        return aggregate(criteria).getTotalCores();
+    }
+
+    @Override
+    public int maxMemory() {
+        return aggregate().getMaxMemory();
+    }
+
+    @Override
+    public int maxMemory(final QueryCriteria criteria) {
+        return aggregate(criteria).getMaxMemory();
+    }
+
+    @Override
+    public int maxCores() {
+        return aggregate().getMaxCores();
+    }
+
+    @Override
+    public int maxCores(final QueryCriteria criteria) {
+        return aggregate(criteria).getMaxCores();
+    }
+
+    @Override
+    public int minMemory() {
+        return aggregate().getMinMemory();
+    }
+
+    @Override
+    public int minMemory(final QueryCriteria criteria) {
+        return aggregate(criteria).getMinMemory();
+    }
+
+    @Override
+    public int minCores() {
+        return aggregate().getMinCores();
+    }
+
+    @Override
+    public int minCores(final QueryCriteria criteria) {
+        return aggregate(criteria).getMinCores();
+    }
+
+    /**
+     * Same as DefaultInventory.aggregate, from the configurations or the columns, the records
+     * are never read.
+     */
+    public Aggregates aggregate() {
+        logger.info("aggregate for entire inventory");
+        return aggregateMatching(QueryCriteria.builder().build());
+    }
+
+    /**
+     * Same as DefaultInventory.aggregate, a null or empty criteria matches nothing.
+     */
+    public Aggregates aggregate(final QueryCriteria criteria) {
+        if (criteria == null || criteria.isEmpty()) return Aggregates.EMPTY;
+
+        logger.info("aggregate " + criteria);
+        return aggregateMatching(criteria);
+    }
+
+    /**
+     * @return the number of assets of each configuration, a read only view
+     */
+    public Map<Configuration, Integer> getConfigurations() {
+        return table.getConfigurations();
+    }
+
+    /**
+     * @return number of assets held on the heap by the cache
+     */
+    public int getCachedCount() {
+        return table.getCachedCount();
+    }
+
+    /**
+     * Closes the segment file, the inventory cannot be used afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        table.close();
+    }
+
+    private Aggregates aggregateMatching(final QueryCriteria criteria) {
+        Map<Configuration, Integer> configurations = table.getConfigurations();
+        if ((long) configurations.size() * DefaultInventory.ASSETS_PER_CONFIGURATION > table.size()) {
+            return table.aggregate(criteria);
+        }
+
+        Aggregates.Accumulator accumulator = new Aggregates.Accumulator();
+        for (Map.Entry<Configuration, Integer> entry : configurations.entrySet()) {
+            Configuration configuration = entry.getKey();
+            if (criteria.matches(configuration)) {
+                accumulator.add(entry.getValue(), configuration.getCores(), configuration.getMemory());
+            }
+        }
+        return accumulator.result();
+    }
+
+}
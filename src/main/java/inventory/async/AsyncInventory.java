@@ -0,0 +1,292 @@
+package inventory.async;
+
+import inventory.Inventory;
+import inventory.data.Asset;
+import inventory.query.Expression;
+import inventory.query.QueryCriteria;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Asynchronous facade over an Inventory, every call returns a CompletableFuture completed on
+ * the facade's executor.
+ *
+ * Lookups by id issued concurrently are coalesced: they are queued and a single task drains the
+ * queue and resolves every pending id through one getAssetsByIds call on the inventory, so that a
+ * burst of small requests costs one pass over storage (one lock acquisition per shard, one round
+ * trip per node, ...) rather than one per request.
+ *
+ * The facade does not use monitors (synchronized), so callers running on virtual threads never
+ * pin their carrier thread on it. The wrapped inventory may: the inventories of the project log
+ * every call at INFO level and the handlers of java.util.logging publish under a monitor, so
+ * a task can pin its carrier thread while a record is written. Raise the level of their
+ * loggers above INFO where that matters. When no executor is given, a virtual thread per task executor
+ * is used when the runtime provides one (Java 21 and later), a cached pool of daemon threads
+ * otherwise.
+ *
+ * The wrapped inventory is called from several threads at once and must be thread safe, for
+ * example a ShardedInventory or a VersionedInventory.
+ */
+public class AsyncInventory implements AutoCloseable {
+
+    private final Inventory inventory;
+    private final Executor executor;
+    private final boolean ownsExecutor;
+
+    private final Queue<PendingLookup> pendingLookups = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    private Logger logger = Logger.getLogger(AsyncInventory.class.getName());
+
+    public AsyncInventory(final Inventory inventory) {
+        this(inventory, defaultExecutor(), true);
+    }
+
+    public AsyncInventory(final Inventory inventory, final Executor executor) {
+        this(inventory, executor, false);
+    }
+
+    private AsyncInventory(final Inventory inventory, final Executor executor, final boolean ownsExecutor) {
+        this.inventory = notNull(inventory);
+        this.executor = notNull(executor);
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    /**
+     * Queues the lookup, lookups queued concurrently are resolved together in one batch.
+     */
+    public CompletableFuture<Optional<Asset>> getAssetById(final String assetId) {
+        PendingLookup lookup = new PendingLookup(assetId);
+        pendingLookups.add(lookup);
+
+        if (drainScheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drainLookups);
+            } catch (RuntimeException e) {
+                drainScheduled.set(false);
+                failPending(e);
+            }
+        }
+        return lookup.future;
+    }
+
+    public CompletableFuture<List<Asset>> getAssetsByIds(final List<String> assetIds) {
+        return supply(() -> inventory.getAssetsByIds(assetIds));
+    }
+
+    public CompletableFuture<List<String>> addAssets(final List<Asset> assets) {
+        return supply(() -> inventory.addAssets(assets));
+    }
+
+    public CompletableFuture<List<Asset>> deleteAssets(final QueryCriteria criteria) {
+        return supply(() -> inventory.deleteAssets(criteria));
+    }
+
+    public CompletableFuture<List<Asset>> deleteAssets(final List<QueryCriteria> criteria) {
+        return supply(() -> inventory.deleteAssets(criteria));
+    }
+
+    public CompletableFuture<List<Asset>> deleteAssetsByIds(final List<String> assetIds) {
+        return supply(() -> inventory.deleteAssetsByIds(assetIds));
+    }
+
+    public CompletableFuture<List<Asset>> getFullInventory() {
+        return supply(inventory::getFullInventory);
+    }
+
+    public CompletableFuture<Integer> getFullInventorySize() {
+        return supply(inventory::getFullInventorySize);
+    }
+
+    public CompletableFuture<Integer> totalMemory() {
+        return supply(inventory::totalMemory);
+    }
+
+    public CompletableFuture<Integer> totalCores() {
+        return supply(inventory::totalCores);
+    }
+
+    public CompletableFuture<Integer> maxMemory() {
+        return supply(inventory::maxMemory);
+    }
+
+    public CompletableFuture<Integer> maxCores() {
+        return supply(inventory::maxCores);
+    }
+
+    public CompletableFuture<Integer> minMemory() {
+        return supply(inventory::minMemory);
+    }
+
+    public CompletableFuture<Integer> minCores() {
+        return supply(inventory::minCores);
+    }
+
+    public CompletableFuture<List<Asset>> search(final QueryCriteria criteria) {
+        return supply(() -> inventory.search(criteria));
+    }
+
+    public CompletableFuture<List<Asset>> search(final List<QueryCriteria> criteria) {
+        return supply(() -> inventory.search(criteria));
+    }
+
+    public CompletableFuture<List<Asset>> search(final Expression expression) {
+        return supply(() -> inventory.search(expression));
+    }
+
+    public CompletableFuture<Integer> totalAssets(final QueryCriteria criteria) {
+        return supply(() -> inventory.totalAssets(criteria));
+    }
+
+    public CompletableFuture<Integer> totalMemory(final QueryCriteria criteria) {
+        return supply(() -> inventory.totalMemory(criteria));
+    }
+
+    public CompletableFuture<Integer> totalCores(final QueryCriteria criteria) {
+        return supply(() -> inventory.totalCores(criteria));
+    }
+
+    public CompletableFuture<Integer> maxMemory(final QueryCriteria criteria) {
+        return supply(() -> inventory.maxMemory(criteria));
+    }
+
+    public CompletableFuture<Integer> maxCores(final QueryCriteria criteria) {
+        return supply(() -> inventory.maxCores(criteria));
+    }
+
+    public CompletableFuture<Integer> minMemory(final QueryCriteria criteria) {
+        return supply(() -> inventory.minMemory(criteria));
+    }
+
+    public CompletableFuture<Integer> minCores(final QueryCriteria criteria) {
+        return supply(() -> inventory.minCores(criteria));
+    }
+
+    public CompletableFuture<Integer> totalAssets(final List<QueryCriteria> criteria) {
+        return supply(() -> inventory.totalAssets(criteria));
+    }
+
+    public CompletableFuture<Integer> totalMemory(final List<QueryCriteria> criteria) {
+        return supply(() -> inventory.totalMemory(criteria));
+    }
+
+    public CompletableFuture<Integer> totalCores(final List<QueryCriteria> criteria) {
+        return supply(() -> inventory.totalCores(criteria));
+    }
+
+    public CompletableFuture<Integer> maxMemory(final List<QueryCriteria> criteria) {
+        return supply(() -> inventory.maxMemory(criteria));
+    }
+
+    public CompletableFuture<Integer> maxCores(final List<QueryCriteria> criteria) {
+        return supply(() -> inventory.maxCores(criteria));
+    }
+
+    public CompletableFuture<Integer> minMemory(final List<QueryCriteria> criteria) {
+        return supply(() -> inventory.minMemory(criteria));
+    }
+
+    public CompletableFuture<Integer> minCores(final List<QueryCriteria> criteria) {
+        return supply(() -> inventory.minCores(criteria));
+    }
+
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            ((ExecutorService) executor).shutdown();
+        }
+    }
+
+    private <T> CompletableFuture<T> supply(final Supplier<T> operation) {
+        return CompletableFuture.supplyAsync(operation, executor);
+    }
+
+    /**
+     * Resolves every lookup queued so far with a single call to the inventory.
+     */
+    private void drainLookups() {
+        // Cleared before polling: a lookup queued from here on schedules the next drain
+        drainScheduled.set(false);
+
+        List<PendingLookup> batch = new ArrayList<>();
+        PendingLookup lookup;
+        while ((lookup = pendingLookups.poll()) != null) {
+            batch.add(lookup);
+        }
+        if (batch.isEmpty()) return;
+
+        LinkedHashSet<String> ids = new LinkedHashSet<>();
+        for (PendingLookup p : batch) {
+            if (p.assetId != null) {
+                ids.add(p.assetId);
+            }
+        }
+
+        try {
+            Map<String, Asset> found = new HashMap<>();
+            for (Asset a : inventory.getAssetsByIds(new ArrayList<>(ids))) {
+                found.put(a.getAssetId(), a);
+            }
+
+            logger.fine("resolved " + batch.size() + " lookups in one batch");
+            for (PendingLookup p : batch) {
+                p.future.complete(Optional.ofNullable(p.assetId == null ? null : found.get(p.assetId)));
+            }
+        } catch (Throwable e) {
+            // Errors too, the lookups of the batch would never complete otherwise
+            for (PendingLookup p : batch) {
+                p.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void failPending(final RuntimeException e) {
+        PendingLookup lookup;
+        while ((lookup = pendingLookups.poll()) != null) {
+            lookup.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Executor running each task on its own virtual thread when the runtime supports them.
+     */
+    static ExecutorService defaultExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "async-inventory");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    private static final class PendingLookup {
+
+        final String assetId;
+        final CompletableFuture<Optional<Asset>> future = new CompletableFuture<>();
+
+        PendingLookup(final String assetId) {
+            this.assetId = assetId;
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package inventory.coalescing;
+
+import inventory.Delta;
+import inventory.Inventory;
+import inventory.data.Asset;
+import inventory.query.Expression;
+import inventory.query.Page;
+import inventory.query.PageRequest;
+import inventory.query.QueryCriteria;
+import inventory.query.SortKey;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Inventory decorator coalescing identical concurrent queries (single flight).
+ *
+ * The first caller of a query evaluates it against the wrapped inventory; callers issuing an
+ * equal query (same method, equal criteria) while that evaluation is in flight wait for it and
+ * receive its result instead of scanning again. Once the evaluation completes the next caller
+ * starts a new one, so results are never served from a cache.
+ *
+ * Followers receive their own copy of list results, callers are free to modify them.
+ * Mutations and lookups by id are passed straight through. A mutation detaches the
+ * evaluations in flight once it returns: a query issued after a write never joins an
+ * evaluation started before it, which could miss the write. Queries already waiting on such
+ * an evaluation still get its result.
+ */
+public class CoalescingInventory implements Inventory {
+
+    private final Inventory inventory;
+    private final ConcurrentMap<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public CoalescingInventory(final Inventory inventory) {
+        this.inventory = notNull(inventory);
+    }
+
+    /**
+     * @return number of queries answered by joining an evaluation already in flight
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    @Override
+    public String addAsset(final Asset asset) {
+        return write(() -> inventory.addAsset(asset));
+    }
+
+    @Override
+    public List<String> addAssets(final List<Asset> assets) {
+        return write(() -> inventory.addAssets(assets));
+    }
+
+    @Override
+    public Optional<Asset> updateAsset(final Asset asset) {
+        return write(() -> inventory.updateAsset(asset));
+    }
+
+    @Override
+    public List<Asset> updateAssets(final List<Asset> assets) {
+        return write(() -> inventory.updateAssets(assets));
+    }
+
+    @Override
+    public Optional<Asset> upsertAsset(final Asset asset) {
+        return write(() -> inventory.upsertAsset(asset));
+    }
+
+    @Override
+    public List<Asset> upsertAssets(final List<Asset> assets) {
+        return write(() -> inventory.upsertAssets(assets));
+    }
+
+    @Override
+    public Delta reconcile(final List<Asset> assets) {
+        return write(() -> inventory.reconcile(assets));
+    }
+
+    @Override
+    public Optional<Asset> getAssetById(final String asset_id) {
+        return inventory.getAssetById(asset_id);
+    }
+
+    @Override
+    public List<Asset> getAssetsByIds(final List<String> assetIds) {
+        return inventory.getAssetsByIds(assetIds);
+    }
+
+    @Override
+    public List<Asset> deleteAssets(final QueryCriteria criteria) {
+        return write(() -> inventory.deleteAssets(criteria));
+    }
+
+    @Override
+    public List<Asset> deleteAssets(final List<QueryCriteria> criteria) {
+        return write(() -> inventory.deleteAssets(criteria));
+    }
+
+    @Override
+    public Optional<Asset> deleteAssetById(final String assetId) {
+        return write(() -> inventory.deleteAssetById(assetId));
+    }
+
+    @Override
+    public List<Asset> deleteAssetsByIds(final List<String> assetId) {
+        return write(() -> inventory.deleteAssetsByIds(assetId));
+    }
+
+    @Override
+    public List<Asset> getFullInventory() {
+        return coalesceList(Query.FULL_INVENTORY, Form.INVENTORY, null, inventory::getFullInventory);
+    }
+
+    @Override
+    public int getFullInventorySize() {
+        return coalesce(Query.FULL_INVENTORY_SIZE, Form.INVENTORY, null, inventory::getFullInventorySize);
+    }
+
+    @Override
+    public int totalMemory() {
+        return coalesce(Query.TOTAL_MEMORY, Form.INVENTORY, null, inventory::totalMemory);
+    }
+
+    @Override
+    public int totalMemory(final QueryCriteria criteria) {
+        return coalesce(Query.TOTAL_MEMORY, Form.CRITERIA, criteria, () -> inventory.totalMemory(criteria));
+    }
+
+    @Override
+    public int totalCores() {
+        return coalesce(Query.TOTAL_CORES, Form.INVENTORY, null, inventory::totalCores);
+    }
+
+    @Override
+    public int totalCores(final QueryCriteria criteria) {
+        return coalesce(Query.TOTAL_CORES, Form.CRITERIA, criteria, () -> inventory.totalCores(criteria));
+    }
+
+    @Override
+    public int maxMemory() {
+        return coalesce(Query.MAX_MEMORY, Form.INVENTORY, null, inventory::maxMemory);
+    }
+
+    @Override
+    public int maxMemory(final QueryCriteria criteria) {
+        return coalesce(Query.MAX_MEMORY, Form.CRITERIA, criteria, () -> inventory.maxMemory(criteria));
+    }
+
+    @Override
+    public int maxCores() {
+        return coalesce(Query.MAX_CORES, Form.INVENTORY, null, inventory::maxCores);
+    }
+
+    @Override
+    public int maxCores(final QueryCriteria criteria) {
+        return coalesce(Query.MAX_CORES, Form.CRITERIA, criteria, () -> inventory.maxCores(criteria));
+    }
+
+    @Override
+    public int minMemory() {
+        return coalesce(Query.MIN_MEMORY, Form.INVENTORY, null, inventory::minMemory);
+    }
+
+    @Override
+    public int minMemory(final QueryCriteria criteria) {
+        return coalesce(Query.MIN_MEMORY, Form.CRITERIA, criteria, () -> inventory.minMemory(criteria));
+    }
+
+    @Override
+    public int minCores() {
+        return coalesce(Query.MIN_CORES, Form.INVENTORY, null, inventory::minCores);
+    }
+
+    @Override
+    public int minCores(final QueryCriteria criteria) {
+        return coalesce(Query.MIN_CORES, Form.CRITERIA, criteria, () -> inventory.minCores(criteria));
+    }
+
+    @Override
+    public int totalAssets(final QueryCriteria criteria) {
+        return coalesce(Query.TOTAL_ASSETS, Form.CRITERIA, criteria, () -> inventory.totalAssets(criteria));
+    }
+
+    @Override
+    public List<Asset> search(final QueryCriteria criteria) {
+        return coalesceList(Query.SEARCH, Form.CRITERIA, criteria, () -> inventory.search(criteria));
+    }
+
+    @Override
+    public List<Asset> search(final List<QueryCriteria> criteria) {
+        return coalesceList(Query.SEARCH, Form.CRITERIA_LIST, copy(criteria), () -> inventory.search(criteria));
+    }
+
+    @Override
+    public List<Asset> search(final Expression expression) {
+        return coalesceList(Query.SEARCH, Form.EXPRESSION, expression, () -> inventory.search(expression));
+    }
+
+    @Override
+    public List<Asset> top(final int k, final SortKey key) {
+        return inventory.top(k, key);
+    }
+
+    @Override
+    public List<Asset> top(final int k, final SortKey key, final QueryCriteria criteria) {
+        return inventory.top(k, key, criteria);
+    }
+
+    @Override
+    public List<Asset> bottom(final int k, final SortKey key) {
+        return inventory.bottom(k, key);
+    }
+
+    @Override
+    public List<Asset> bottom(final int k, final SortKey key, final QueryCriteria criteria) {
+        return inventory.bottom(k, key, criteria);
+    }
+
+    @Override
+    public Page search(final QueryCriteria criteria, final PageRequest request) {
+        return inventory.search(criteria, request);
+    }
+
+    @Override
+    public int totalAssets(final List<QueryCriteria> criteria) {
+        return coalesce(Query.TOTAL_ASSETS, Form.CRITERIA_LIST, copy(criteria), () -> inventory.totalAssets(criteria));
+    }
+
+    @Override
+    public int totalMemory(final List<QueryCriteria> criteria) {
+        return coalesce(Query.TOTAL_MEMORY, Form.CRITERIA_LIST, copy(criteria), () -> inventory.totalMemory(criteria));
+    }
+
+    @Override
+    public int totalCores(final List<QueryCriteria> criteria) {
+        return coalesce(Query.TOTAL_CORES, Form.CRITERIA_LIST, copy(criteria), () -> inventory.totalCores(criteria));
+    }
+
+    @Override
+    public int maxMemory(final List<QueryCriteria> criteria) {
+        return coalesce(Query.MAX_MEMORY, Form.CRITERIA_LIST, copy(criteria), () -> inventory.maxMemory(criteria));
+    }
+
+    @Override
+    public int maxCores(final List<QueryCriteria> criteria) {
+        return coalesce(Query.MAX_CORES, Form.CRITERIA_LIST, copy(criteria), () -> inventory.maxCores(criteria));
+    }
+
+    @Override
+    public int minMemory(final List<QueryCriteria> criteria) {
+        return coalesce(Query.MIN_MEMORY, Form.CRITERIA_LIST, copy(criteria), () -> inventory.minMemory(criteria));
+    }
+
+    @Override
+    public int minCores(final List<QueryCriteria> criteria) {
+        return coalesce(Query.MIN_CORES, Form.CRITERIA_LIST, copy(criteria), () -> inventory.minCores(criteria));
+    }
+
+    private List<Asset> coalesceList(final Query query, final Form form, final Object criteria,
+                                     final Supplier<List<Asset>> evaluation) {
+        Key key = new Key(query, form, criteria);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            // Every follower gets its own copy of the shared result
+            return new ArrayList<>(this.<List<Asset>>join(existing));
+        }
+        // The leader is free to modify the list it returns, followers copy from a private one
+        return evaluate(key, flight, evaluation, ArrayList::new);
+    }
+
+    private <T> T coalesce(final Query query, final Form form, final Object criteria, final Supplier<T> evaluation) {
+        Key key = new Key(query, form, criteria);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            return join(existing);
+        }
+        return evaluate(key, flight, evaluation, result -> result);
+    }
+
+    /**
+     * Runs the mutation, then detaches the evaluations in flight, their leaders still complete
+     * them for the callers already waiting.
+     */
+    private <T> T write(final Supplier<T> mutation) {
+        try {
+            return mutation.get();
+        } finally {
+            inFlight.clear();
+        }
+    }
+
+    private <T> T evaluate(final Key key, final CompletableFuture<Object> flight, final Supplier<T> evaluation,
+                           final Function<? super T, Object> shared) {
+        try {
+            T result = evaluation.get();
+            flight.complete(result == null ? null : shared.apply(result));
+            return result;
+        } catch (Throwable e) {
+            // Errors too, the followers would wait forever otherwise
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T join(final CompletableFuture<Object> flight) {
+        coalesced.incrementAndGet();
+        try {
+            return (T) flight.join();
+        } catch (CompletionException e) {
+            // Surface the leader's failure as is
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    private static List<QueryCriteria> copy(final List<QueryCriteria> criteria) {
+        return criteria == null ? null : new ArrayList<>(criteria);
+    }
+
+    private enum Query {
+        FULL_INVENTORY,
+        FULL_INVENTORY_SIZE,
+        SEARCH,
+        TOTAL_ASSETS,
+        TOTAL_MEMORY,
+        TOTAL_CORES,
+        MAX_MEMORY,
+        MAX_CORES,
+        MIN_MEMORY,
+        MIN_CORES
+    }
+
+    /** What a query is evaluated over, so that overloads given null never share a key */
+    private enum Form {
+        INVENTORY,
+        CRITERIA,
+        CRITERIA_LIST,
+        EXPRESSION
+    }
+
+    /**
+     * Identifies a query: the method, the form of its argument and the argument (a single
+     * criteria, a list of criteria, an expression or null for the entire inventory).
+     */
+    private static final class Key {
+
+        private final Query query;
+        private final Form form;
+        private final Object criteria;
+
+        Key(final Query query, final Form form, final Object criteria) {
+            this.query = query;
+            this.form = form;
+            this.criteria = criteria;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+
+            Key other = (Key) o;
+            return query == other.query && form == other.form && Objects.equals(criteria, other.criteria);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * query.hashCode() + form.hashCode()) + Objects.hashCode(criteria);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package inventory.data;
 import inventory.data.types.CPU;
 import inventory.data.types.OperatingSystem;
 
+import java.io.Serializable;
 import java.util.UUID;
 
 import static org.apache.commons.lang3.Validate.notNull;
@@ -11,49 +12,55 @@ import static org.apache.commons.lang3.Validate.notNull;
  * Represents an inventory asset including a unique asset id along with
  * Operating System, CPU, cores and memory.
  *
- * All 4 attributes are required.
+ * All 4 attributes are required. They are held in a Configuration shared by every asset
+ * with the same values.
  */
-public class Asset {
+public class Asset implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private final String assetId;
-    private final OperatingSystem os;
-    private final CPU cpu;
-    private final Integer cores;
-    private final Integer memory;
+    private final Configuration configuration;
 
     static final String POSITIVE_ARG_MESSAGE =
             "Asset requires non-zero, positive arguments for cores and memory";
 
     static final String NON_NULL_MESSAGE = "Asset cannot be created with null arguments";
 
+    static final String BLANK_ID_MESSAGE = "Asset id cannot be blank";
+
     public String getAssetId() { return assetId; }
 
     public CPU getCPU() {
-        return cpu;
+        return configuration.getCPU();
     }
 
     public Integer getCores() {
-        return cores;
+        return configuration.getCores();
     }
 
     public Integer getMemory() {
-        return memory;
+        return configuration.getMemory();
     }
 
-    public OperatingSystem getOS() { return os; }
+    public OperatingSystem getOS() { return configuration.getOS(); }
+
+    public Configuration getConfiguration() {
+        return configuration;
+    }
 
     public String toString() {
         StringBuilder sb = new StringBuilder();
         return sb.append("Asset ID: " )
                 .append(assetId)
                 .append(" Operating System: ")
-                .append(os)
+                .append(getOS())
                 .append(" CPU: ")
-                .append(cpu)
+                .append(getCPU())
                 .append(" Cores: ")
-                .append(cores)
+                .append(getCores())
                 .append(" Memory (GB): ")
-                .append(memory)
+                .append(getMemory())
                 .toString();
     }
 
@@ -66,24 +73,37 @@ public class Asset {
     }
 
     private Asset(final Asset.Builder builder) {
-        // Naive asset Id
-        assetId = UUID.randomUUID().toString();
-        os = notNull(builder.os);
-        cpu = notNull(builder.cpu);
-        cores = isPositive(builder.cores);
-        memory = isPositive(builder.memory);
+        // Naive asset Id, unless restoring an asset created elsewhere
+        if (builder.assetId != null && builder.assetId.trim().isEmpty())
+            throw new IllegalArgumentException(BLANK_ID_MESSAGE);
+        assetId = builder.assetId == null ? UUID.randomUUID().toString() : builder.assetId;
+        configuration = Configuration.of(notNull(builder.os), notNull(builder.cpu),
+                isPositive(builder.cores), isPositive(builder.memory));
     }
 
     public static Asset.Builder builder() {
         return new Asset.Builder();
     }
 
+    /**
+     * @return a builder holding the id and values of this asset, for building its next version
+     */
+    public Asset.Builder toBuilder() {
+        return new Asset.Builder()
+                .setAssetId(assetId)
+                .setOS(getOS())
+                .setCPU(getCPU())
+                .setCore(getCores())
+                .setMemory(getMemory());
+    }
+
     public static final class Builder {
 
         private OperatingSystem os;
         private CPU cpu;
         private Integer cores;
         private Integer memory;
+        private String assetId;
 
         private Builder() {}
 
@@ -112,6 +132,17 @@ public class Asset {
             return this;
         }
 
+        /**
+         * Only meant for restoring an asset exported from an inventory, for a new version of an
+         * asset (see toBuilder) or for an asset identified by another system, a new asset gets a
+         * generated id. Any id but a blank one is accepted, ids are compared exactly.
+         */
+        public Asset.Builder setAssetId(String assetId)
+        {
+            this.assetId = assetId;
+            return this;
+        }
+
         public Asset build()
         {
             return new Asset(this);
@@ -0,0 +1,114 @@
+package inventory.data;
+
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The hardware configuration of an asset: Operating System, CPU, cores and memory.
+ *
+ * A fleet counts few distinct configurations compared to its number of assets, so
+ * configurations are interned: of() returns the one shared instance for each distinct
+ * combination of values and assets only hold a reference to it. Two configurations are equal
+ * exactly when they are the same instance, which makes them cheap map keys for per
+ * configuration aggregates.
+ *
+ * The pool of configurations is never trimmed, it grows with the number of distinct
+ * configurations ever seen.
+ */
+public final class Configuration implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final ConcurrentMap<Configuration, Configuration> POOL = new ConcurrentHashMap<>();
+
+    private final OperatingSystem os;
+    private final CPU cpu;
+    private final Integer cores;
+    private final Integer memory;
+    private final int hash;
+
+    private Configuration(final OperatingSystem os, final CPU cpu, final Integer cores, final Integer memory) {
+        this.os = os;
+        this.cpu = cpu;
+        this.cores = cores;
+        this.memory = memory;
+        hash = Objects.hash(os, cpu, cores, memory);
+    }
+
+    /**
+     * @return the shared configuration with these values, the values are not validated here
+     * (see Asset)
+     */
+    public static Configuration of(final OperatingSystem os, final CPU cpu, final Integer cores,
+                                   final Integer memory) {
+        Configuration candidate = new Configuration(os, cpu, cores, memory);
+        Configuration shared = POOL.putIfAbsent(candidate, candidate);
+        return shared == null ? candidate : shared;
+    }
+
+    /**
+     * @return a configuration with these values that is not interned, any of them may be null,
+     * only meant as the bound of a range of a sorted map of configurations (see GroupedInventory),
+     * never to be stored
+     */
+    public static Configuration bound(final OperatingSystem os, final CPU cpu, final Integer cores,
+                                      final Integer memory) {
+        return new Configuration(os, cpu, cores, memory);
+    }
+
+    /**
+     * @return number of distinct configurations interned so far
+     */
+    public static int interned() {
+        return POOL.size();
+    }
+
+    public OperatingSystem getOS() {
+        return os;
+    }
+
+    public CPU getCPU() {
+        return cpu;
+    }
+
+    public Integer getCores() {
+        return cores;
+    }
+
+    public Integer getMemory() {
+        return memory;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Configuration)) return false;
+
+        Configuration other = (Configuration) o;
+        return os == other.os
+                && cpu == other.cpu
+                && Objects.equals(cores, other.cores)
+                && Objects.equals(memory, other.memory);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    public String toString() {
+        return os + "/" + cpu + "/" + cores + " cores/" + memory + "GB";
+    }
+
+    /**
+     * Deserialized configurations are replaced by the shared instance.
+     */
+    private Object readResolve() {
+        return of(os, cpu, cores, memory);
+    }
+}
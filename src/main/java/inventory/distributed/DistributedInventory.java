@@ -0,0 +1,502 @@
+package inventory.distributed;
+
+import inventory.AbstractInventory;
+import inventory.Delta;
+import inventory.data.Asset;
+import inventory.query.Aggregates;
+import inventory.query.QueryCriteria;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toList;
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Inventory coordinator partitioning assets across several nodes by the hash of the asset id.
+ *
+ * Query criteria are pushed down to the nodes, which filter and aggregate locally. The
+ * coordinator merges only the matching rows or the partial aggregates (see Aggregates) that
+ * come back. Requests are batched per node: a list of assets to add, a list of ids to delete
+ * or a list of criteria to evaluate costs one round trip per node, and nodes are contacted
+ * in parallel.
+ *
+ * The nodes are reached through a pluggable Transport, LocalTransport keeps every node in
+ * process and SocketTransport reaches NodeServers over sockets.
+ */
+public class DistributedInventory extends AbstractInventory implements Closeable {
+
+    private final Transport transport;
+
+    public DistributedInventory(final Transport transport) {
+        this.transport = notNull(transport);
+    }
+
+    @Override
+    public String addAsset(final Asset asset) {
+        notNull(asset, NON_NULL_ARGUMENT);
+        logger.info("addAsset:  " + asset);
+        return call(nodeFor(asset.getAssetId()), Request.add(Collections.singletonList(asset))).getIds().get(0);
+    }
+
+    @Override
+    public List<String> addAssets(final List<Asset> assets) {
+        notNull(assets, NON_NULL_ARGUMENT);
+
+        Map<Integer, List<Asset>> partitions = new TreeMap<>();
+        List<String> ids = new ArrayList<>(assets.size());
+        for (Asset a : assets) {
+            notNull(a, NON_NULL_ARGUMENT);
+            partitions.computeIfAbsent(nodeFor(a.getAssetId()), n -> new ArrayList<>()).add(a);
+            ids.add(a.getAssetId());
+        }
+
+        logger.info("addAssets: Adding " + assets.size() + " assets to " + partitions.size() + " nodes");
+        Map<Integer, List<Request>> batches = new TreeMap<>();
+        partitions.forEach((node, batch) -> batches.put(node, Collections.singletonList(Request.add(batch))));
+        dispatch(batches);
+
+        return ids;
+    }
+
+    /**
+     * Sends each node the part of the list it owns, every node computes and applies its own
+     * difference, all or nothing, so the inventory never travels to the coordinator. The list
+     * is checked before any node is contacted, but the nodes are not reconciled together: a
+     * node failing leaves the others reconciled, and readers may see some nodes reconciled
+     * before others. Reconciling again with the same list completes the work.
+     */
+    @Override
+    public Delta reconcile(final List<Asset> assets) {
+        notNull(assets, NON_NULL_ARGUMENT);
+
+        Map<Integer, List<Asset>> partitions = new TreeMap<>();
+        for (int node = 0; node < transport.nodeCount(); node++) {
+            partitions.put(node, new ArrayList<>());
+        }
+        Set<String> ids = new HashSet<>();
+        for (Asset a : assets) {
+            notNull(a, NON_NULL_ARGUMENT);
+            isTrue(ids.add(a.getAssetId()), Delta.DUPLICATE_ID_MESSAGE + a.getAssetId());
+            partitions.get(nodeFor(a.getAssetId())).add(a);
+        }
+
+        logger.info("reconcile against " + assets.size() + " assets on " + partitions.size() + " nodes");
+        Map<Integer, List<Request>> batches = new TreeMap<>();
+        partitions.forEach((node, batch) -> batches.put(node, Collections.singletonList(Request.reconcile(batch))));
+
+        List<Delta> deltas = new ArrayList<>();
+        for (List<Response> responses : dispatch(batches).values()) {
+            deltas.add(responses.get(0).getDelta());
+        }
+        return Delta.concat(deltas);
+    }
+
+    @Override
+    public Optional<Asset> getAssetById(final String asset_id) {
+        if (asset_id == null) return Optional.empty();
+
+        logger.info("getAssetById " + asset_id);
+        return first(call(nodeFor(asset_id), Request.get(Collections.singletonList(asset_id))).getAssets());
+    }
+
+    /**
+     * Sends one lookup request per node holding any of the ids.
+     */
+    @Override
+    public List<Asset> getAssetsByIds(final List<String> asset_ids) {
+        Map<Integer, List<String>> partitions = new TreeMap<>();
+        for (String id : asset_ids) {
+            if (id != null) {
+                partitions.computeIfAbsent(nodeFor(id), n -> new ArrayList<>()).add(id);
+            }
+        }
+
+        logger.info("getAssetsByIds for " + asset_ids.size() + " ids on " + partitions.size() + " nodes");
+        Map<Integer, List<Request>> batches = new TreeMap<>();
+        partitions.forEach((node, ids) -> batches.put(node, Collections.singletonList(Request.get(ids))));
+
+        Map<String, Asset> found = new HashMap<>();
+        for (List<Response> responses : dispatch(batches).values()) {
+            for (Asset a : responses.get(0).getAssets()) {
+                found.put(a.getAssetId(), a);
+            }
+        }
+
+        List<Asset> result = new ArrayList<>(found.size());
+        for (String id : asset_ids) {
+            Asset a = found.get(id);
+            if (a != null) {
+                result.add(a);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Asset> deleteAssets(final QueryCriteria criteria) {
+        if (criteria == null) {
+            logger.info("Input criteria is null, returning empty list");
+            return new ArrayList<>();
+        }
+
+        logger.info("deleteAssets matching " + criteria + " on all nodes");
+        return assets(broadcast(Request.delete(criteria)));
+    }
+
+    /**
+     * Sends every criteria of the list to each node in a single batch, the assets deleted are
+     * returned in the order of the criteria as with the single node inventory.
+     */
+    @Override
+    public List<Asset> deleteAssets(final List<QueryCriteria> criteria) {
+        if (criteria == null) return new ArrayList<>();
+
+        logger.info("deleteAssets matching " + criteria.size() + " criteria on all nodes");
+        List<Request> batch = new ArrayList<>(criteria.size());
+        for (QueryCriteria c : criteria) {
+            batch.add(Request.delete(c == null || c.isEmpty() ? null : c));
+        }
+
+        List<List<Response>> perNode = broadcast(batch);
+        List<Asset> result = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            for (List<Response> responses : perNode) {
+                result.addAll(responses.get(i).getAssets());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Optional<Asset> deleteAssetById(final String asset_id) {
+        if (asset_id == null) return Optional.empty();
+
+        logger.info("delete asset with id: " + asset_id);
+        return first(call(nodeFor(asset_id), Request.deleteByIds(Collections.singletonList(asset_id))).getAssets());
+    }
+
+    @Override
+    public List<Asset> deleteAssetsByIds(final List<String> asset_ids) {
+        Map<Integer, List<String>> partitions = new TreeMap<>();
+        for (String id : asset_ids) {
+            if (id != null) {
+                partitions.computeIfAbsent(nodeFor(id), n -> new ArrayList<>()).add(id);
+            }
+        }
+
+        logger.info("deleteAssetsByIds: deleting a list of assets by id on " + partitions.size() + " nodes");
+        Map<Integer, List<Request>> batches = new TreeMap<>();
+        partitions.forEach((node, ids) -> batches.put(node, Collections.singletonList(Request.deleteByIds(ids))));
+
+        List<Asset> deleted = new ArrayList<>();
+        for (List<Response> responses : dispatch(batches).values()) {
+            deleted.addAll(responses.get(0).getAssets());
+        }
+        return deleted;
+    }
+
+    @Override
+    public List<Asset> getFullInventory() {
+        return assets(broadcast(Request.fullInventory()));
+    }
+
+    @Override
+    public int getFullInventorySize() {
+        return aggregate().getCount();
+    }
+
+    @Override
+    public List<Asset> search(final QueryCriteria criteria) {
+        if (criteria == null || criteria.isEmpty()) return new ArrayList<>();
+
+        logger.info("search for assets matching criteria: " + criteria + " on all nodes");
+        return assets(broadcast(Request.search(criteria)));
+    }
+
+    /**
+     * Merges the partial aggregates computed by every node over its whole partition.
+     *
+     * @return Aggregates
+     */
+    public Aggregates aggregate() {
+        return aggregates(broadcast(Request.fullAggregate()));
+    }
+
+    /**
+     * Pushes the criteria down to every node and merges the partial aggregates they return.
+     * The rules of the search method apply, a null or empty criteria matches nothing.
+     *
+     * @param criteria
+     * @return Aggregates
+     */
+    public Aggregates aggregate(final QueryCriteria criteria) {
+        if (criteria == null || criteria.isEmpty()) return Aggregates.EMPTY;
+        return aggregates(broadcast(Request.aggregate(criteria)));
+    }
+
+    @Override
+    public int totalMemory() {
+        return aggregate().getTotalMemory();
+    }
+
+    @Override
+    public int totalMemory(final QueryCriteria criteria) {
+        return aggregate(criteria).getTotalMemory();
+    }
+
+    @Override
+    public int totalCores() {
+        return aggregate().getTotalCores();
+    }
+
+    @Override
+    public int totalCores(final QueryCriteria criteria) {
+        return aggregate(criteria).getTotalCores();
+    }
+
+    @Override
+    public int maxMemory() {
+        return aggregate().getMaxMemory();
+    }
+
+    @Override
+    public int maxMemory(final QueryCriteria criteria) {
+        return aggregate(criteria).getMaxMemory();
+    }
+
+    @Override
+    public int maxCores() {
+        return aggregate().getMaxCores();
+    }
+
+    @Override
+    public int maxCores(final QueryCriteria criteria) {
+        return aggregate(criteria).getMaxCores();
+    }
+
+    @Override
+    public int minMemory() {
+        return aggregate().getMinMemory();
+    }
+
+    @Override
+    public int minMemory(final QueryCriteria criteria) {
+        return aggregate(criteria).getMinMemory();
+    }
+
+    @Override
+    public int minCores() {
+        return aggregate().getMinCores();
+    }
+
+    @Override
+    public int minCores(final QueryCriteria criteria) {
+        return aggregate(criteria).getMinCores();
+    }
+
+    @Override
+    public int totalAssets(final QueryCriteria criteria) {
+        return aggregate(criteria).getCount();
+    }
+
+    /**
+     * Sends every criteria of the list to each node in a single batch, results are returned
+     * in the order of the criteria as with the single node inventory.
+     */
+    @Override
+    public List<Asset> search(final List<QueryCriteria> criteria) {
+        if (criteria == null) return new ArrayList<>();
+
+        List<Request> batch = new ArrayList<>(criteria.size());
+        for (QueryCriteria c : criteria) {
+            batch.add(Request.search(c == null || c.isEmpty() ? null : c));
+        }
+
+        List<List<Response>> perNode = broadcast(batch);
+        List<Asset> result = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            for (List<Response> responses : perNode) {
+                result.addAll(responses.get(i).getAssets());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int totalAssets(final List<QueryCriteria> criteria) {
+        if (criteria == null) {
+            logger.info("Input criteria is null, returning 0.");
+            return 0;
+        }
+        return aggregateEach(criteria).stream().mapToInt(Aggregates::getCount).sum();
+    }
+
+    @Override
+    public int totalMemory(final List<QueryCriteria> criteria) {
+        if (criteria == null) {
+            logger.info("Input criteria is null, returning 0.");
+            return 0;
+        }
+        return aggregateEach(criteria).stream().mapToInt(Aggregates::getTotalMemory).sum();
+    }
+
+    @Override
+    public int totalCores(final List<QueryCriteria> criteria) {
+        if (criteria == null) {
+            logger.info("Input criteria is null, returning 0.");
+            return 0;
+        }
+        return aggregateEach(criteria).stream().mapToInt(Aggregates::getTotalCores).sum();
+    }
+
+    @Override
+    public int maxMemory(final List<QueryCriteria> criteria) {
+        if (criteria == null) {
+            logger.info("Input criteria is null, returning 0.");
+            return 0;
+        }
+        return aggregateEach(criteria).stream().mapToInt(Aggregates::getMaxMemory).reduce(0, Math::max);
+    }
+
+    @Override
+    public int maxCores(final List<QueryCriteria> criteria) {
+        if (criteria == null) {
+            logger.info("Input criteria is null, returning 0.");
+            return 0;
+        }
+        return aggregateEach(criteria).stream().mapToInt(Aggregates::getMaxCores).reduce(0, Math::max);
+    }
+
+    @Override
+    public int minMemory(final List<QueryCriteria> criteria) {
+        if (criteria == null) {
+            logger.info("Input criteria is null, returning 0.");
+            return 0;
+        }
+        // Same as the single node inventory, a criteria without matches contributes a 0
+        return aggregateEach(criteria).stream().mapToInt(Aggregates::getMinMemory)
+                .reduce(Integer.MAX_VALUE, Math::min);
+    }
+
+    @Override
+    public int minCores(final List<QueryCriteria> criteria) {
+        if (criteria == null) {
+            logger.info("Input criteria is null, returning 0.");
+            return 0;
+        }
+        return aggregateEach(criteria).stream().mapToInt(Aggregates::getMinCores)
+                .reduce(Integer.MAX_VALUE, Math::min);
+    }
+
+    @Override
+    public void close() throws IOException {
+        transport.close();
+    }
+
+    /**
+     * Evaluates every criteria of the list on all nodes in a single batch per node and
+     * merges the partials per criteria.
+     */
+    private List<Aggregates> aggregateEach(final List<QueryCriteria> criteria) {
+        List<Request> batch = new ArrayList<>(criteria.size());
+        for (QueryCriteria c : criteria) {
+            batch.add(Request.aggregate(c));
+        }
+
+        List<List<Response>> perNode = broadcast(batch);
+        List<Aggregates> result = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Aggregates merged = Aggregates.EMPTY;
+            for (List<Response> responses : perNode) {
+                merged = merged.merge(responses.get(i).getAggregates());
+            }
+            result.add(merged);
+        }
+        return result;
+    }
+
+    private int nodeFor(final String assetId) {
+        return Math.floorMod(assetId.hashCode(), transport.nodeCount());
+    }
+
+    private Response call(final int node, final Request request) {
+        return send(node, Collections.singletonList(request)).get(0);
+    }
+
+    private List<Response> broadcast(final Request request) {
+        List<List<Response>> perNode = broadcast(Collections.singletonList(request));
+        return perNode.stream().map(responses -> responses.get(0)).collect(toList());
+    }
+
+    /**
+     * Sends the same batch to every node in parallel.
+     *
+     * @return the responses of each node, indexed by node
+     */
+    private List<List<Response>> broadcast(final List<Request> batch) {
+        return IntStream.range(0, transport.nodeCount())
+                .parallel()
+                .mapToObj(node -> send(node, batch))
+                .collect(toList());
+    }
+
+    /**
+     * Sends a distinct batch to each node in parallel.
+     */
+    private Map<Integer, List<Response>> dispatch(final Map<Integer, List<Request>> batches) {
+        Map<Integer, List<Response>> responses = new ConcurrentSkipListMap<>();
+        batches.entrySet().parallelStream()
+                .forEach(e -> responses.put(e.getKey(), send(e.getKey(), e.getValue())));
+        return responses;
+    }
+
+    private List<Response> send(final int node, final List<Request> batch) {
+        List<Response> responses;
+        try {
+            responses = transport.send(node, batch);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to reach inventory node " + node, e);
+        }
+
+        for (Response response : responses) {
+            if (response.isError()) {
+                throw new IllegalStateException("Inventory node " + node + " failed: " + response.getError());
+            }
+        }
+        return responses;
+    }
+
+    private static List<Asset> assets(final List<Response> responses) {
+        List<Asset> result = new ArrayList<>();
+        for (Response response : responses) {
+            result.addAll(response.getAssets());
+        }
+        return result;
+    }
+
+    private static Aggregates aggregates(final List<Response> responses) {
+        Aggregates result = Aggregates.EMPTY;
+        for (Response response : responses) {
+            result = result.merge(response.getAggregates());
+        }
+        return result;
+    }
+
+    private static <T> Optional<T> first(final List<T> list) {
+        return list.isEmpty() ? Optional.empty() : Optional.of(list.get(0));
+    }
+}
@@ -0,0 +1,85 @@
+package inventory.distributed;
+
+import inventory.DefaultInventory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+
+/**
+ * A single partition of a distributed inventory.
+ *
+ * The node owns a DefaultInventory holding its share of the assets and evaluates filtering and
+ * aggregation locally, so that only matching rows or partial aggregates are returned to the
+ * coordinator. A batch of requests is applied in order, under one lock acquisition.
+ */
+public class InventoryNode {
+
+    private final DefaultInventory inventory = new DefaultInventory();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Logger logger = Logger.getLogger(InventoryNode.class.getName());
+
+    public List<Response> handle(final List<Request> batch) {
+        Lock held = isReadOnly(batch) ? lock.readLock() : lock.writeLock();
+
+        logger.info("handle batch of " + batch.size() + " requests");
+        held.lock();
+        try {
+            List<Response> responses = new ArrayList<>(batch.size());
+            for (Request request : batch) {
+                responses.add(handle(request));
+            }
+            return responses;
+        } finally {
+            held.unlock();
+        }
+    }
+
+    private Response handle(final Request request) {
+        try {
+            switch (request.getType()) {
+                case ADD:
+                    return Response.ofIds(inventory.addAssets(request.getAssets()));
+                case GET:
+                    return Response.ofAssets(inventory.getAssetsByIds(request.getIds()));
+                case DELETE:
+                    return Response.ofAssets(inventory.deleteAssets(request.getCriteria()));
+                case DELETE_BY_IDS:
+                    return Response.ofAssets(inventory.deleteAssetsByIds(request.getIds()));
+                case SEARCH:
+                    return Response.ofAssets(inventory.search(request.getCriteria()));
+                case AGGREGATE:
+                    return Response.ofAggregates(inventory.aggregate(request.getCriteria()));
+                case FULL_INVENTORY:
+                    return Response.ofAssets(inventory.getFullInventory());
+                case FULL_AGGREGATE:
+                    return Response.ofAggregates(inventory.aggregate());
+                case RECONCILE:
+                    return Response.ofDelta(inventory.reconcile(request.getAssets()));
+                default:
+                    return Response.ofError("Unsupported request type " + request.getType());
+            }
+        } catch (RuntimeException e) {
+            logger.warning("Failed to handle " + request + ": " + e);
+            return Response.ofError(String.valueOf(e.getMessage()));
+        }
+    }
+
+    private static boolean isReadOnly(final List<Request> batch) {
+        for (Request request : batch) {
+            switch (request.getType()) {
+                case ADD:
+                case DELETE:
+                case DELETE_BY_IDS:
+                case RECONCILE:
+                    return false;
+                default:
+            }
+        }
+        return true;
+    }
+}
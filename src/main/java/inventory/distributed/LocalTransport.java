@@ -0,0 +1,46 @@
+package inventory.distributed;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+
+/**
+ * In process transport, every node lives in the current JVM and batches are handed to the
+ * node directly. Useful for testing a distributed inventory on a single machine.
+ */
+public class LocalTransport implements Transport {
+
+    static final String INVALID_NODE_COUNT = "Node count must be a positive number.";
+
+    private final List<InventoryNode> nodes;
+
+    public LocalTransport(final int nodeCount) {
+        isTrue(nodeCount > 0, INVALID_NODE_COUNT);
+
+        nodes = new ArrayList<>(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            nodes.add(new InventoryNode());
+        }
+    }
+
+    public LocalTransport(final List<InventoryNode> nodes) {
+        isTrue(!nodes.isEmpty(), INVALID_NODE_COUNT);
+        this.nodes = new ArrayList<>(nodes);
+    }
+
+    @Override
+    public int nodeCount() {
+        return nodes.size();
+    }
+
+    @Override
+    public List<Response> send(final int node, final List<Request> batch) {
+        return nodes.get(node).handle(batch);
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release
+    }
+}
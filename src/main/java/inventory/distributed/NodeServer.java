@@ -0,0 +1,127 @@
+package inventory.distributed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Exposes an InventoryNode over a socket so that a SocketTransport can reach it.
+ *
+ * Each connection carries a sequence of batches; a batch is a serialized list of requests
+ * and is answered with a serialized list of responses. The server binds to the loopback
+ * address by default, which allows for running several nodes on one machine.
+ *
+ * Both ends only deserialize the classes a batch is made of (see FILTER), anything else ends
+ * the connection, so a peer cannot have arbitrary classes instantiated.
+ */
+public class NodeServer implements Closeable {
+
+    /**
+     * Classes a batch of requests or responses holds, with limits on the nesting of the objects
+     * and the length of their arrays. Superclasses are checked as well, and arrays by their
+     * element type.
+     */
+    static final ObjectInputFilter FILTER = ObjectInputFilter.Config.createFilter("maxdepth=20;maxarray=16777216;"
+            + "inventory.distributed.Request;inventory.distributed.Request$Type;inventory.distributed.Response;"
+            + "inventory.Delta;inventory.data.**;inventory.query.**;java.util.*;java.lang.Object;java.lang.Enum;"
+            + "java.lang.Number;java.lang.Integer;!*");
+
+    private final InventoryNode node;
+    private final ServerSocket serverSocket;
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+
+    private Logger logger = Logger.getLogger(NodeServer.class.getName());
+
+    /**
+     * Starts a server for the node on an ephemeral loopback port.
+     */
+    public NodeServer(final InventoryNode node) throws IOException {
+        this(node, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    public NodeServer(final InventoryNode node, final InetSocketAddress address) throws IOException {
+        this.node = node;
+        serverSocket = new ServerSocket();
+        serverSocket.bind(address);
+
+        Thread acceptor = new Thread(this::accept, "node-server-" + serverSocket.getLocalPort());
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public InetSocketAddress getAddress() {
+        return new InetSocketAddress(serverSocket.getInetAddress(), serverSocket.getLocalPort());
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.add(socket);
+
+                Thread handler = new Thread(() -> serve(socket), "node-connection-" + socket.getPort());
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    logger.warning("Failed to accept connection: " + e);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void serve(final Socket socket) {
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            out.flush();
+            ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(socket.getInputStream()));
+            in.setObjectInputFilter(FILTER);
+
+            while (!socket.isClosed()) {
+                List<Request> batch = (List<Request>) in.readObject();
+                out.writeObject(node.handle(batch));
+                out.flush();
+                // Do not let the stream hold on to every asset it has ever written
+                out.reset();
+            }
+        } catch (EOFException e) {
+            logger.info("Connection closed by coordinator");
+        } catch (IOException | ClassNotFoundException e) {
+            if (!socket.isClosed()) {
+                logger.warning("Connection failed: " + e);
+            }
+        } finally {
+            connections.remove(socket);
+            closeQuietly(socket);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket socket : connections) {
+            closeQuietly(socket);
+        }
+    }
+
+    private static void closeQuietly(final Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Already closing
+        }
+    }
+}
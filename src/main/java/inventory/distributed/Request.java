@@ -0,0 +1,102 @@
+package inventory.distributed;
+
+import inventory.data.Asset;
+import inventory.query.QueryCriteria;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A single operation sent from the coordinator to an inventory node.
+ *
+ * Requests are batched per node, so a coordinator call usually results in one list of
+ * requests (and one round trip) per node rather than one round trip per asset or criteria.
+ */
+public final class Request implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Type {
+        ADD,
+        GET,
+        DELETE,
+        DELETE_BY_IDS,
+        SEARCH,
+        AGGREGATE,
+        FULL_INVENTORY,
+        FULL_AGGREGATE,
+        RECONCILE
+    }
+
+    private final Type type;
+    private final List<Asset> assets;
+    private final List<String> ids;
+    private final QueryCriteria criteria;
+
+    private Request(final Type type, final List<Asset> assets, final List<String> ids,
+                    final QueryCriteria criteria) {
+        this.type = type;
+        this.assets = assets;
+        this.ids = ids;
+        this.criteria = criteria;
+    }
+
+    public Type getType() { return type; }
+
+    public List<Asset> getAssets() { return assets; }
+
+    public List<String> getIds() { return ids; }
+
+    public QueryCriteria getCriteria() { return criteria; }
+
+    public static Request add(final List<Asset> assets) {
+        return new Request(Type.ADD, new ArrayList<>(assets), Collections.emptyList(), null);
+    }
+
+    public static Request get(final List<String> ids) {
+        return new Request(Type.GET, Collections.emptyList(), new ArrayList<>(ids), null);
+    }
+
+    public static Request delete(final QueryCriteria criteria) {
+        return new Request(Type.DELETE, Collections.emptyList(), Collections.emptyList(), criteria);
+    }
+
+    public static Request deleteByIds(final List<String> ids) {
+        return new Request(Type.DELETE_BY_IDS, Collections.emptyList(), new ArrayList<>(ids), null);
+    }
+
+    public static Request search(final QueryCriteria criteria) {
+        return new Request(Type.SEARCH, Collections.emptyList(), Collections.emptyList(), criteria);
+    }
+
+    public static Request aggregate(final QueryCriteria criteria) {
+        return new Request(Type.AGGREGATE, Collections.emptyList(), Collections.emptyList(), criteria);
+    }
+
+    public static Request fullInventory() {
+        return new Request(Type.FULL_INVENTORY, Collections.emptyList(), Collections.emptyList(), null);
+    }
+
+    public static Request fullAggregate() {
+        return new Request(Type.FULL_AGGREGATE, Collections.emptyList(), Collections.emptyList(), null);
+    }
+
+    public static Request reconcile(final List<Asset> assets) {
+        return new Request(Type.RECONCILE, new ArrayList<>(assets), Collections.emptyList(), null);
+    }
+
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        return sb.append("Request: ")
+                .append(type)
+                .append(" Assets: ")
+                .append(assets.size())
+                .append(" Ids: ")
+                .append(ids.size())
+                .append(" Criteria: ")
+                .append(criteria)
+                .toString();
+    }
+}
@@ -0,0 +1,68 @@
+package inventory.distributed;
+
+import inventory.Delta;
+import inventory.data.Asset;
+import inventory.query.Aggregates;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of a single Request as produced by an inventory node.
+ *
+ * Only matching rows or partial aggregates travel back to the coordinator, never the
+ * node's full inventory unless explicitly requested.
+ */
+public final class Response implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<Asset> assets;
+    private final List<String> ids;
+    private final Aggregates aggregates;
+    private final Delta delta;
+    private final String error;
+
+    private Response(final List<Asset> assets, final List<String> ids, final Aggregates aggregates,
+                     final Delta delta, final String error) {
+        this.assets = assets;
+        this.ids = ids;
+        this.aggregates = aggregates;
+        this.delta = delta;
+        this.error = error;
+    }
+
+    public List<Asset> getAssets() { return assets; }
+
+    public List<String> getIds() { return ids; }
+
+    public Aggregates getAggregates() { return aggregates; }
+
+    public Delta getDelta() { return delta; }
+
+    public boolean isError() { return error != null; }
+
+    public String getError() { return error; }
+
+    public static Response ofAssets(final List<Asset> assets) {
+        return new Response(new ArrayList<>(assets), Collections.emptyList(), Aggregates.EMPTY, Delta.EMPTY, null);
+    }
+
+    public static Response ofIds(final List<String> ids) {
+        return new Response(Collections.emptyList(), new ArrayList<>(ids), Aggregates.EMPTY, Delta.EMPTY, null);
+    }
+
+    public static Response ofAggregates(final Aggregates aggregates) {
+        return new Response(Collections.emptyList(), Collections.emptyList(), aggregates, Delta.EMPTY, null);
+    }
+
+    public static Response ofDelta(final Delta delta) {
+        return new Response(Collections.emptyList(), Collections.emptyList(), Aggregates.EMPTY, delta, null);
+    }
+
+    public static Response ofError(final String error) {
+        return new Response(Collections.emptyList(), Collections.emptyList(), Aggregates.EMPTY, Delta.EMPTY, error);
+    }
+}
@@ -0,0 +1,127 @@
+package inventory.distributed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+
+/**
+ * Transport reaching each node through a NodeServer over a socket connection.
+ *
+ * One connection is kept open per node and batches sent to the same node are serialized on
+ * that connection, while batches for different nodes proceed concurrently. Responses are
+ * deserialized through the same filter as the requests on the server, see NodeServer.
+ */
+public class SocketTransport implements Transport {
+
+    static final String INVALID_NODE_COUNT = "At least one node address is required.";
+
+    private final List<Connection> connections;
+
+    public SocketTransport(final List<InetSocketAddress> addresses) {
+        isTrue(!addresses.isEmpty(), INVALID_NODE_COUNT);
+
+        connections = new ArrayList<>(addresses.size());
+        for (InetSocketAddress address : addresses) {
+            connections.add(new Connection(address));
+        }
+    }
+
+    @Override
+    public int nodeCount() {
+        return connections.size();
+    }
+
+    @Override
+    public List<Response> send(final int node, final List<Request> batch) throws IOException {
+        return connections.get(node).send(batch);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Connection connection : connections) {
+            connection.close();
+        }
+    }
+
+    /**
+     * Lazily opened connection to a single node.
+     */
+    private static final class Connection {
+
+        private final InetSocketAddress address;
+        private final Lock lock = new ReentrantLock();
+
+        private Socket socket;
+        private ObjectOutputStream out;
+        private ObjectInputStream in;
+
+        Connection(final InetSocketAddress address) {
+            this.address = address;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Response> send(final List<Request> batch) throws IOException {
+            lock.lock();
+            try {
+                open();
+                try {
+                    out.writeObject(new ArrayList<>(batch));
+                    out.flush();
+                    out.reset();
+                    return (List<Response>) in.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException("Unexpected response from " + address, e);
+                } catch (IOException e) {
+                    // Drop the broken connection, the next batch reconnects
+                    closeSocket();
+                    throw e;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void close() throws IOException {
+            lock.lock();
+            try {
+                closeSocket();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void open() throws IOException {
+            if (socket != null) return;
+
+            Socket s = new Socket();
+            s.setTcpNoDelay(true);
+            s.connect(address);
+            socket = s;
+            out = new ObjectOutputStream(new BufferedOutputStream(s.getOutputStream()));
+            out.flush();
+            in = new ObjectInputStream(new BufferedInputStream(s.getInputStream()));
+            in.setObjectInputFilter(NodeServer.FILTER);
+        }
+
+        private void closeSocket() throws IOException {
+            if (socket == null) return;
+            try {
+                socket.close();
+            } finally {
+                socket = null;
+                out = null;
+                in = null;
+            }
+        }
+    }
+}
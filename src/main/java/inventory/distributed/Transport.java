@@ -0,0 +1,20 @@
+package inventory.distributed;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Carries batches of requests from the coordinator to inventory nodes.
+ *
+ * Implementations may deliver in process (LocalTransport) or over a network connection
+ * (SocketTransport). Responses are returned in the order of the requests in the batch.
+ */
+public interface Transport extends Closeable {
+
+    // Number of nodes reachable through this transport, nodes are addressed 0..nodeCount-1
+    int nodeCount();
+
+    // Must return one response per request, in order
+    List<Response> send(final int node, final List<Request> batch) throws IOException;
+}
@@ -0,0 +1,121 @@
+package inventory.io;
+
+import inventory.DefaultInventory;
+import inventory.Inventory;
+import inventory.data.Asset;
+import inventory.query.Attribute;
+import inventory.query.SortKey;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Compact binary format for moving an inventory between environments.
+ *
+ * Layout, big endian:
+ *
+ * header (32 bytes): magic "INVB", version (short), record size (short), asset count (long),
+ *                    records per block (int), block count (int), reserved (int), CRC32 of the
+ *                    previous 28 bytes (int)
+ * blocks:            record count (int), the records, length of the other ids (int), the other
+ *                    ids, CRC32 of the records and the other ids with their length (int)
+ * record (28 bytes): asset id as the two halves of its UUID (2 longs), OS ordinal (byte),
+ *                    CPU ordinal (byte), id flag (short), cores (int), memory (int)
+ * other ids:         for each record whose id is not a UUID in its canonical form, as
+ *                    generated by Asset: its index in the block (int), length (int), UTF-8
+ *                    bytes of the id. The id flag of its record is set and its UUID halves
+ *                    are zero.
+ *
+ * Every block holds the records per block of the header, except for the last one. The counts
+ * of the header are written once the last block is, a file cut short or with a damaged block
+ * is rejected on import. Files of version 1, without the other ids, are still read.
+ */
+public final class BinaryFormat {
+
+    static final int MAGIC = 0x494E5642;
+    static final short VERSION = 2;
+    // Version without the other ids, only ever read
+    static final short UUID_ONLY_VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_SIZE = 28;
+    static final int DEFAULT_BLOCK_RECORDS = 4096;
+    // Flag of a record whose id is held in the other ids of its block
+    static final short OTHER_ID = 1;
+    static final int MAX_ID_BYTES = 0xFFFF;
+
+    static final String BAD_HEADER_MESSAGE = "Not an inventory file or unsupported version: ";
+    static final String CORRUPT_BLOCK_MESSAGE = "Corrupt block: ";
+    static final String TRUNCATED_MESSAGE = "Truncated inventory file: ";
+    static final String ID_TOO_LONG_MESSAGE = "Asset ids are limited to " + MAX_ID_BYTES + " UTF-8 bytes: ";
+
+    private BinaryFormat() {}
+
+    /**
+     * Writes every asset of the inventory to the file, replacing it. The assets are streamed
+     * from the inventory (see Inventory.forEachAsset), which must not change meanwhile.
+     *
+     * @return the number of assets written
+     * @throws IllegalArgumentException when an asset id is too long, the file is deleted
+     */
+    public static long export(final Inventory inventory, final Path file) throws IOException {
+        notNull(inventory);
+        BinaryWriter writer = new BinaryWriter(file);
+        try (writer) {
+            inventory.forEachAsset(asset -> {
+                try {
+                    writer.write(asset);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            Files.deleteIfExists(file);
+            throw e.getCause();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return writer.getCount();
+    }
+
+    /**
+     * Loads the file into a new DefaultInventory without indexes, sized from the count of the
+     * header so that its table never grows.
+     */
+    public static DefaultInventory load(final Path file) throws IOException {
+        try (BinaryReader reader = new BinaryReader(file)) {
+            DefaultInventory inventory = new DefaultInventory(EnumSet.noneOf(Attribute.class),
+                    EnumSet.noneOf(SortKey.class), DefaultInventory.ListMode.CONCATENATION,
+                    Math.toIntExact(reader.getCount()));
+            load(reader, inventory);
+            return inventory;
+        }
+    }
+
+    /**
+     * Adds the assets of the file to the inventory, a block at a time, keeping their ids.
+     *
+     * @return the number of assets loaded
+     */
+    public static long load(final Path file, final Inventory inventory) throws IOException {
+        notNull(inventory);
+        try (BinaryReader reader = new BinaryReader(file)) {
+            return load(reader, inventory);
+        }
+    }
+
+    private static long load(final BinaryReader reader, final Inventory inventory) throws IOException {
+        long count = 0;
+        for (List<Asset> block = reader.readBlock(); block != null; block = reader.readBlock()) {
+            inventory.addAssets(block);
+            count += block.size();
+        }
+        return count;
+    }
+}
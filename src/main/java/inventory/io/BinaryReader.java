@@ -0,0 +1,178 @@
+package inventory.io;
+
+import inventory.data.Asset;
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+import static inventory.io.BinaryFormat.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.READ;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Reads a file in the BinaryFormat a block at a time, into one direct buffer sized for the
+ * largest block. The header and the checksum of each block are verified before any asset is
+ * decoded, decoding goes through the Asset builder so the usual validation applies.
+ */
+public final class BinaryReader implements AutoCloseable {
+
+    private final Path file;
+    private final FileChannel channel;
+    private final short version;
+    private final long count;
+    private final int blockRecords;
+    private final int blocks;
+    private final ByteBuffer block;
+    private final CRC32 crc = new CRC32();
+    private int blocksRead;
+    private long assetsRead;
+
+    public BinaryReader(final Path file) throws IOException {
+        this.file = notNull(file);
+        channel = FileChannel.open(file, READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            fill(header);
+            crc.update(header.array(), 0, HEADER_SIZE - Integer.BYTES);
+            version = header.getShort(4);
+            if (header.getInt(0) != MAGIC || version != VERSION && version != UUID_ONLY_VERSION
+                    || header.getShort(6) != RECORD_SIZE
+                    || header.getInt(HEADER_SIZE - Integer.BYTES) != (int) crc.getValue()) {
+                throw new IOException(BAD_HEADER_MESSAGE + file);
+            }
+            count = header.getLong(8);
+            blockRecords = header.getInt(16);
+            blocks = header.getInt(20);
+            if (count < 0 || blockRecords <= 0 || blocks < 0 || count > (long) blocks * blockRecords) {
+                throw new IOException(BAD_HEADER_MESSAGE + file);
+            }
+            // The records, then the length of the other ids or, in version 1, the CRC
+            block = ByteBuffer.allocateDirect(blockRecords * RECORD_SIZE + Integer.BYTES);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return number of assets in the file, as recorded in its header
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the assets of the next block, null past the last block
+     */
+    public List<Asset> readBlock() throws IOException {
+        if (blocksRead == blocks) {
+            if (assetsRead != count) throw new IOException(TRUNCATED_MESSAGE + file);
+            return null;
+        }
+
+        ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+        fill(length);
+        int records = length.getInt(0);
+        if (records <= 0 || records > blockRecords) {
+            throw new IOException(CORRUPT_BLOCK_MESSAGE + blocksRead + " of " + file);
+        }
+
+        block.clear().limit(records * RECORD_SIZE + Integer.BYTES);
+        fill(block);
+        Map<Integer, String> otherIds = Map.of();
+        if (version == UUID_ONLY_VERSION) {
+            block.position(0).limit(records * RECORD_SIZE);
+            crc.reset();
+            crc.update(block);
+            if (block.limit(block.capacity()).getInt(records * RECORD_SIZE) != (int) crc.getValue()) {
+                throw new IOException(CORRUPT_BLOCK_MESSAGE + blocksRead + " of " + file);
+            }
+        } else {
+            otherIds = otherIds(records);
+        }
+
+        List<Asset> assets = new ArrayList<>(records);
+        block.position(0);
+        try {
+            for (int i = 0; i < records; i++) {
+                long high = block.getLong();
+                long low = block.getLong();
+                OperatingSystem os = OperatingSystem.values()[block.get()];
+                CPU cpu = CPU.values()[block.get()];
+                String assetId = block.getShort() == OTHER_ID ? otherIds.get(i) : new UUID(high, low).toString();
+                if (assetId == null) throw new IOException(CORRUPT_BLOCK_MESSAGE + blocksRead + " of " + file);
+                assets.add(Asset.builder()
+                        .setAssetId(assetId)
+                        .setOS(os)
+                        .setCPU(cpu)
+                        .setCore(block.getInt())
+                        .setMemory(block.getInt())
+                        .build());
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException(CORRUPT_BLOCK_MESSAGE + blocksRead + " of " + file, e);
+        }
+
+        blocksRead++;
+        assetsRead += records;
+        return assets;
+    }
+
+    /**
+     * Reads the other ids following the records in the buffer and checks the CRC of the block.
+     *
+     * @return the other ids by index in the block
+     */
+    private Map<Integer, String> otherIds(final int records) throws IOException {
+        int length = block.getInt(records * RECORD_SIZE);
+        if (length < 0 || length > (long) records * (2 * Integer.BYTES + MAX_ID_BYTES)) {
+            throw new IOException(CORRUPT_BLOCK_MESSAGE + blocksRead + " of " + file);
+        }
+        ByteBuffer ids = ByteBuffer.allocate(length + Integer.BYTES);
+        fill(ids);
+
+        crc.reset();
+        crc.update(block.position(0).limit(records * RECORD_SIZE + Integer.BYTES));
+        crc.update(ids.array(), 0, length);
+        block.limit(block.capacity());
+        if (ids.getInt(length) != (int) crc.getValue()) {
+            throw new IOException(CORRUPT_BLOCK_MESSAGE + blocksRead + " of " + file);
+        }
+
+        Map<Integer, String> otherIds = new HashMap<>();
+        try {
+            ids.position(0).limit(length);
+            while (ids.hasRemaining()) {
+                int index = ids.getInt();
+                byte[] bytes = new byte[ids.getInt()];
+                ids.get(bytes);
+                otherIds.put(index, new String(bytes, UTF_8));
+            }
+        } catch (RuntimeException e) {
+            throw new IOException(CORRUPT_BLOCK_MESSAGE + blocksRead + " of " + file, e);
+        }
+        return otherIds;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void fill(final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) throw new IOException(TRUNCATED_MESSAGE + file);
+        }
+    }
+}
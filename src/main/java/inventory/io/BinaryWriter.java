@@ -0,0 +1,159 @@
+package inventory.io;
+
+import inventory.data.Asset;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+import static inventory.io.BinaryFormat.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Streams assets to a file in the BinaryFormat. Records are encoded straight into a direct
+ * buffer holding one block, which is handed to the channel whenever it is full, along with
+ * the ids other than UUIDs of the block, gathered on the heap. The header is written last, on
+ * close.
+ */
+public final class BinaryWriter implements AutoCloseable {
+
+    private final FileChannel channel;
+    private final int blockRecords;
+    private final ByteBuffer block;
+    private final CRC32 crc = new CRC32();
+    private final ByteArrayOutputStream otherIds = new ByteArrayOutputStream();
+    private final DataOutputStream otherIdsOut = new DataOutputStream(otherIds);
+    private int pending;
+    private long count;
+    private int blocks;
+
+    public BinaryWriter(final Path file) throws IOException {
+        this(file, DEFAULT_BLOCK_RECORDS);
+    }
+
+    /**
+     * @param file         replaced if it exists
+     * @param blockRecords number of records per block
+     */
+    public BinaryWriter(final Path file, final int blockRecords) throws IOException {
+        notNull(file);
+        isTrue(blockRecords > 0, "Blocks must hold at least one record.");
+        this.blockRecords = blockRecords;
+        // Record count, records, length of the other ids
+        block = ByteBuffer.allocateDirect(Integer.BYTES + blockRecords * RECORD_SIZE + Integer.BYTES);
+        channel = FileChannel.open(file, CREATE, WRITE, TRUNCATE_EXISTING);
+        channel.position(HEADER_SIZE);
+        block.position(Integer.BYTES);
+    }
+
+    /**
+     * @param asset an id other than a UUID in its canonical form is written after the records
+     *              of its block
+     * @throws IllegalArgumentException for an id longer than MAX_ID_BYTES in UTF-8
+     */
+    public void write(final Asset asset) throws IOException {
+        notNull(asset);
+        UUID id = uuid(asset.getAssetId());
+        if (id == null) {
+            byte[] bytes = asset.getAssetId().getBytes(UTF_8);
+            isTrue(bytes.length <= MAX_ID_BYTES, ID_TOO_LONG_MESSAGE + asset.getAssetId());
+            otherIdsOut.writeInt(pending);
+            otherIdsOut.writeInt(bytes.length);
+            otherIdsOut.write(bytes);
+        }
+        block.putLong(id == null ? 0 : id.getMostSignificantBits())
+                .putLong(id == null ? 0 : id.getLeastSignificantBits())
+                .put((byte) asset.getOS().ordinal())
+                .put((byte) asset.getCPU().ordinal())
+                .putShort(id == null ? OTHER_ID : 0)
+                .putInt(asset.getCores())
+                .putInt(asset.getMemory());
+        count++;
+        if (++pending == blockRecords) {
+            flushBlock();
+        }
+    }
+
+    /**
+     * @return the UUID of the id, null for an id that would not read back the same from one,
+     * UUID also parses shortened or upper case forms
+     */
+    private static UUID uuid(final String assetId) {
+        try {
+            UUID id = UUID.fromString(assetId);
+            return id.toString().equals(assetId) ? id : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (pending > 0) {
+                flushBlock();
+            }
+            writeHeader();
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        byte[] ids = otherIds.toByteArray();
+        block.putInt(0, pending).putInt(ids.length).flip();
+
+        crc.reset();
+        crc.update(block.duplicate().position(Integer.BYTES));
+        crc.update(ids);
+
+        write(block);
+        write(ByteBuffer.wrap(ids));
+        write(ByteBuffer.allocate(Integer.BYTES).putInt(0, (int) crc.getValue()));
+        block.clear().position(Integer.BYTES);
+        otherIds.reset();
+        pending = 0;
+        blocks++;
+    }
+
+    private void write(final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC)
+                .putShort(VERSION)
+                .putShort((short) RECORD_SIZE)
+                .putLong(count)
+                .putInt(blockRecords)
+                .putInt(blocks)
+                .putInt(0);
+        crc.reset();
+        crc.update(header.array(), 0, header.position());
+        header.putInt((int) crc.getValue());
+
+        header.flip();
+        long position = 0;
+        while (header.hasRemaining()) {
+            position += channel.write(header, position);
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package inventory.io;
+
+import inventory.Inventory;
+import inventory.data.Asset;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Streams a CSV or NDJSON file of assets into an inventory, in constant memory whatever the size
+ * of the file.
+ *
+ * Two stages run in parallel: a parser thread reads the file through a fixed buffer, builds the
+ * assets (see RecordParser for the accepted lines) and hands them over in batches through a
+ * bounded queue, while the calling thread adds each batch to the inventory. At most a few
+ * batches are in flight, so a slow inventory slows down the parser rather than letting batches
+ * pile up. The inventory is only ever called from the calling thread.
+ *
+ * A line that cannot be turned into an asset is skipped and reported to the error handler,
+ * from the parser thread, with its number and the reason. Blank lines and a CSV header line
+ * are skipped silently.
+ */
+public final class Ingestor {
+
+    public enum Format { CSV, NDJSON }
+
+    static final int BUFFER_SIZE = 8192;
+    static final int MAX_LINE = 4096;
+    static final int QUEUED_BATCHES = 4;
+
+    static final String LINE_TOO_LONG_MESSAGE = "Line longer than " + MAX_LINE + " characters";
+
+    // Marks the end of the batches
+    private static final List<Asset> END = Collections.emptyList();
+
+    private final Logger logger = Logger.getLogger(Ingestor.class.getName());
+
+    private final Format format;
+    private final int batchSize;
+    private final Consumer<LineError> errors;
+
+    private Ingestor(final Builder builder) {
+        format = notNull(builder.format);
+        isTrue(builder.batchSize > 0, "Batch size must be a positive number.");
+        batchSize = builder.batchSize;
+        errors = notNull(builder.errors);
+    }
+
+    public static Ingestor.Builder builder() {
+        return new Ingestor.Builder();
+    }
+
+    /**
+     * Reads the UTF-8 file into the inventory.
+     */
+    public Result ingest(final Path file, final Inventory inventory) throws IOException {
+        notNull(file);
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return ingest(reader, inventory);
+        }
+    }
+
+    /**
+     * Reads the stream into the inventory, the stream is left open.
+     *
+     * @return the counts of lines read, assets added and lines rejected
+     * @throws IOException when the stream cannot be read, the batches parsed before the
+     *                     failure have been added
+     */
+    public Result ingest(final Reader input, final Inventory inventory) throws IOException {
+        notNull(input);
+        notNull(inventory);
+
+        BlockingQueue<List<Asset>> batches = new ArrayBlockingQueue<>(QUEUED_BATCHES);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Parser parser = new Parser(input, batches, failure);
+        Thread thread = new Thread(parser, "ingest-parser");
+        thread.setDaemon(true);
+        thread.start();
+
+        long added = 0;
+        try {
+            for (List<Asset> batch = batches.take(); batch != END; batch = batches.take()) {
+                inventory.addAssets(batch);
+                added += batch.size();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while ingesting", e);
+        } finally {
+            // Stops the parser when the inventory failed
+            parser.stopped = true;
+            thread.interrupt();
+        }
+
+        Throwable thrown = failure.get();
+        if (thrown instanceof IOException) throw (IOException) thrown;
+        if (thrown instanceof Error) throw (Error) thrown;
+        if (thrown != null) throw new IOException(thrown);
+
+        logger.info("ingested " + added + " assets from " + parser.linesRead + " lines, " + parser.rejected
+                + " rejected");
+        return new Result(parser.linesRead, added, parser.rejected);
+    }
+
+    /**
+     * The first stage, turns the lines into batches of assets.
+     */
+    private final class Parser implements Runnable {
+
+        private final LineReader lines;
+        private final BlockingQueue<List<Asset>> batches;
+        private final AtomicReference<Throwable> failure;
+        private volatile boolean stopped;
+        private volatile long rejected;
+        private volatile long linesRead;
+
+        private Parser(final Reader input, final BlockingQueue<List<Asset>> batches,
+                       final AtomicReference<Throwable> failure) {
+            this.lines = new LineReader(input, BUFFER_SIZE, MAX_LINE);
+            this.batches = batches;
+            this.failure = failure;
+        }
+
+        @Override
+        public void run() {
+            try {
+                List<Asset> batch = new ArrayList<>(batchSize);
+                for (String line = lines.next(); line != null && !stopped; line = lines.next()) {
+                    linesRead = lines.getLineNumber();
+                    Asset asset = parse(line);
+                    if (asset == null) continue;
+
+                    batch.add(asset);
+                    if (batch.size() == batchSize) {
+                        put(batch);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    put(batch);
+                }
+            } catch (InterruptedException e) {
+                // Only interrupted once the consumer is done
+            } catch (Throwable e) {
+                // Errors too, the consumer would otherwise wait for the end forever
+                failure.set(e);
+            } finally {
+                try {
+                    put(END);
+                } catch (InterruptedException e) {
+                    // Only interrupted once the consumer is done
+                }
+            }
+        }
+
+        private Asset parse(final String line) {
+            long number = lines.getLineNumber();
+            if (lines.isTooLong()) {
+                reject(number, line, LINE_TOO_LONG_MESSAGE);
+                return null;
+            }
+            if (line.trim().isEmpty() || (format == Format.CSV && number == 1 && RecordParser.isCsvHeader(line))) {
+                return null;
+            }
+
+            try {
+                return format == Format.CSV ? RecordParser.csv(line) : RecordParser.json(line);
+            } catch (IllegalArgumentException e) {
+                reject(number, line, e.getMessage());
+                return null;
+            }
+        }
+
+        private void reject(final long number, final String line, final String reason) {
+            rejected++;
+            errors.accept(new LineError(number, line, reason));
+        }
+
+        private void put(final List<Asset> batch) throws InterruptedException {
+            while (!stopped) {
+                if (batches.offer(batch, 100, TimeUnit.MILLISECONDS)) return;
+            }
+        }
+    }
+
+    /**
+     * A line that was not ingested.
+     */
+    public static final class LineError {
+
+        private final long lineNumber;
+        private final String line;
+        private final String reason;
+
+        LineError(final long lineNumber, final String line, final String reason) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+            this.reason = reason;
+        }
+
+        /**
+         * @return number of the line in the file, from 1
+         */
+        public long getLineNumber() {
+            return lineNumber;
+        }
+
+        /**
+         * @return the line, cut to the maximum length
+         */
+        public String getLine() {
+            return line;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        public String toString() {
+            return "Line " + lineNumber + ": " + reason;
+        }
+    }
+
+    /**
+     * Outcome of an ingestion.
+     */
+    public static final class Result {
+
+        private final long lines;
+        private final long added;
+        private final long rejected;
+
+        Result(final long lines, final long added, final long rejected) {
+            this.lines = lines;
+            this.added = added;
+            this.rejected = rejected;
+        }
+
+        public long getLines() {
+            return lines;
+        }
+
+        public long getAdded() {
+            return added;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        public String toString() {
+            return "Lines: " + lines + " Added: " + added + " Rejected: " + rejected;
+        }
+    }
+
+    public static class Builder {
+
+        private Format format = Format.CSV;
+        private int batchSize = 1000;
+        private Consumer<LineError> errors = e -> {};
+
+        private Builder() {}
+
+        public Builder setFormat(Format format)
+        {
+            this.format = format;
+            return this;
+        }
+
+        public Builder setBatchSize(int batchSize)
+        {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * @param errors called from the parser thread for each line rejected
+         */
+        public Builder setErrorHandler(Consumer<LineError> errors)
+        {
+            this.errors = errors;
+            return this;
+        }
+
+        public Ingestor build()
+        {
+            return new Ingestor(this);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package inventory.io;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Splits a character stream into lines through one fixed buffer, whatever the size of the
+ * stream. Lines longer than the maximum are cut, the rest of such a line is skipped and the
+ * line is reported as too long.
+ */
+final class LineReader {
+
+    private final Reader input;
+    private final char[] buffer;
+    private final int maxLine;
+    private final StringBuilder line;
+    private int position;
+    private int limit;
+    private boolean tooLong;
+    private long number;
+
+    LineReader(final Reader input, final int bufferSize, final int maxLine) {
+        this.input = input;
+        this.buffer = new char[bufferSize];
+        this.maxLine = maxLine;
+        this.line = new StringBuilder(Math.min(maxLine, 256));
+    }
+
+    /**
+     * @return the next line without its terminator (\n or \r\n), null at the end of the stream
+     */
+    String next() throws IOException {
+        line.setLength(0);
+        tooLong = false;
+        boolean read = false;
+        while (true) {
+            if (position == limit) {
+                limit = input.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    if (!read) return null;
+                    break;
+                }
+            }
+            read = true;
+            char c = buffer[position++];
+            if (c == '\n') break;
+            if (line.length() < maxLine) {
+                line.append(c);
+            } else {
+                tooLong = true;
+            }
+        }
+        number++;
+        int end = line.length();
+        if (end > 0 && line.charAt(end - 1) == '\r') {
+            line.setLength(end - 1);
+        }
+        return line.toString();
+    }
+
+    /**
+     * @return whether the last line returned was cut
+     */
+    boolean isTooLong() {
+        return tooLong;
+    }
+
+    /**
+     * @return the number of the last line returned, from 1
+     */
+    long getLineNumber() {
+        return number;
+    }
+}
@@ -0,0 +1,205 @@
+package inventory.io;
+
+import inventory.data.Asset;
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+
+import java.util.Locale;
+
+/**
+ * Parses one line of a CSV or NDJSON file into an Asset, through the Asset builder so the same
+ * validation applies. Any problem with the line is reported as an IllegalArgumentException
+ * whose message tells what is wrong.
+ *
+ * CSV lines hold the OS, CPU, cores and memory in this order, values may be quoted. NDJSON lines
+ * hold a flat object with the keys os, cpu, cores and memory, other keys are ignored. OS and CPU
+ * names are not case sensitive.
+ *
+ * The asset id is optional: a first CSV column before the OS, or the key id. With the ids of
+ * the source system, the assets of a later export match the ones ingested before, so that
+ * reconciling against it only touches what changed. Without, each asset gets a new id.
+ */
+final class RecordParser {
+
+    static final String CSV_COLUMNS_MESSAGE = "Expected 4 or 5 columns: [id,]os,cpu,cores,memory";
+    static final String MISSING_MESSAGE = "Missing value for ";
+
+    // Names of the columns, the id is optional
+    private static final String[] HEADER = {"id", "os", "cpu", "cores", "memory"};
+
+    private RecordParser() {}
+
+    static Asset csv(final String line) {
+        String[] columns = line.split(",", -1);
+        if (columns.length != 4 && columns.length != 5) throw new IllegalArgumentException(CSV_COLUMNS_MESSAGE);
+
+        int first = columns.length - 4;
+        String id = first == 0 ? null : unquote(columns[0]);
+        if (id != null && id.isEmpty()) throw new IllegalArgumentException(MISSING_MESSAGE + "id");
+        return build(id, unquote(columns[first]), unquote(columns[first + 1]), unquote(columns[first + 2]),
+                unquote(columns[first + 3]));
+    }
+
+    /**
+     * @return whether the line is the usual header of the CSV files, exactly the names of the
+     * columns, in any case and possibly quoted
+     */
+    static boolean isCsvHeader(final String line) {
+        String[] columns = line.split(",", -1);
+        if (columns.length != HEADER.length && columns.length != HEADER.length - 1) return false;
+
+        int first = HEADER.length - columns.length;
+        for (int i = 0; i < columns.length; i++) {
+            if (!unquote(columns[i]).equalsIgnoreCase(HEADER[first + i])) return false;
+        }
+        return true;
+    }
+
+    static Asset json(final String line) {
+        JsonObject object = new JsonObject(line);
+        object.parse();
+        if (object.id != null && object.id.trim().isEmpty()) throw new IllegalArgumentException(MISSING_MESSAGE + "id");
+        return build(object.id, object.os, object.cpu, object.cores, object.memory);
+    }
+
+    /**
+     * @param id null for an asset without id, it gets a new one
+     */
+    private static Asset build(final String id, final String os, final String cpu, final String cores,
+                               final String memory) {
+        // The builder would reject missing values with a NullPointerException
+        if (os == null || os.isEmpty()) throw new IllegalArgumentException(MISSING_MESSAGE + "os");
+        if (cpu == null || cpu.isEmpty()) throw new IllegalArgumentException(MISSING_MESSAGE + "cpu");
+        if (cores == null || cores.isEmpty()) throw new IllegalArgumentException(MISSING_MESSAGE + "cores");
+        if (memory == null || memory.isEmpty()) throw new IllegalArgumentException(MISSING_MESSAGE + "memory");
+
+        return Asset.builder()
+                .setAssetId(id)
+                .setOS(constant(OperatingSystem.class, os))
+                .setCPU(constant(CPU.class, cpu))
+                .setCore(number("cores", cores))
+                .setMemory(number("memory", memory))
+                .build();
+    }
+
+    private static <E extends Enum<E>> E constant(final Class<E> type, final String name) {
+        try {
+            return Enum.valueOf(type, name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown " + type.getSimpleName() + ": " + name);
+        }
+    }
+
+    private static Integer number(final String name, final String value) {
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number for " + name + ": " + value);
+        }
+    }
+
+    private static String unquote(final String value) {
+        String trimmed = value.trim();
+        if (trimmed.length() >= 2 && trimmed.charAt(0) == '"' && trimmed.charAt(trimmed.length() - 1) == '"') {
+            return trimmed.substring(1, trimmed.length() - 1).trim();
+        }
+        return trimmed;
+    }
+
+    /**
+     * Just enough of JSON for a flat object of strings, numbers, booleans and nulls.
+     */
+    private static final class JsonObject {
+
+        private final String text;
+        private int at;
+        private String id;
+        private String os;
+        private String cpu;
+        private String cores;
+        private String memory;
+
+        private JsonObject(final String text) {
+            this.text = text;
+        }
+
+        private void parse() {
+            expect('{');
+            char c = peek();
+            if (c == '}') {
+                at++;
+            } else {
+                do {
+                    String key = string();
+                    expect(':');
+                    String value = value();
+                    switch (key) {
+                        case "id": id = value; break;
+                        case "os": os = value; break;
+                        case "cpu": cpu = value; break;
+                        case "cores": cores = value; break;
+                        case "memory": memory = value; break;
+                        default:
+                    }
+                } while ((c = next()) == ',');
+                if (c != '}') throw malformed();
+            }
+            if (peek() != 0) throw malformed();
+        }
+
+        private String value() {
+            char c = peek();
+            if (c == '"') return string();
+            if (c == '{' || c == '[') throw new IllegalArgumentException("Nested values are not supported");
+
+            int start = at;
+            while (at < text.length() && ",}".indexOf(text.charAt(at)) < 0 && !Character.isWhitespace(text.charAt(at))) {
+                at++;
+            }
+            String literal = text.substring(start, at);
+            if (literal.isEmpty()) throw malformed();
+            return literal.equals("null") ? null : literal;
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (at < text.length()) {
+                char c = text.charAt(at++);
+                if (c == '"') return sb.toString();
+                if (c == '\\') {
+                    if (at >= text.length()) break;
+                    char escaped = text.charAt(at++);
+                    sb.append(escaped == 'n' ? '\n' : escaped == 't' ? '\t' : escaped);
+                } else {
+                    sb.append(c);
+                }
+            }
+            throw malformed();
+        }
+
+        private void expect(final char c) {
+            if (next() != c) throw malformed();
+        }
+
+        /**
+         * @return the next character past any whitespace, 0 at the end, and moves past it
+         */
+        private char next() {
+            char c = peek();
+            if (c != 0) at++;
+            return c;
+        }
+
+        private char peek() {
+            while (at < text.length() && Character.isWhitespace(text.charAt(at))) {
+                at++;
+            }
+            return at < text.length() ? text.charAt(at) : 0;
+        }
+
+        private IllegalArgumentException malformed() {
+            return new IllegalArgumentException("Malformed JSON at column " + (at + 1));
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package inventory.query;
+
+import inventory.data.Asset;
+
+import java.io.Serializable;
+import java.util.Collection;
+
+/**
+ * Partial aggregate state for a set of assets: the count of assets along with the
+ * sum, min and max of both memory and cores.
+ *
+ * Partials computed over disjoint parts of an inventory (shards, nodes, groups) can be
+ * merged to obtain the aggregate over the whole. Min and max of an empty partial do not
+ * take part in a merge, so an empty shard never drags a min down to 0.
+ *
+ * To stay consistent with the Inventory api, min and max of an empty aggregate report 0.
+ */
+public final class Aggregates implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final Aggregates EMPTY = new Aggregates(0, 0, 0,
+            Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE);
+
+    private final int count;
+    private final int totalMemory;
+    private final int totalCores;
+    private final int minMemory;
+    private final int maxMemory;
+    private final int minCores;
+    private final int maxCores;
+
+    private Aggregates(final int count, final int totalMemory, final int totalCores,
+                       final int minMemory, final int maxMemory, final int minCores, final int maxCores) {
+        this.count = count;
+        this.totalMemory = totalMemory;
+        this.totalCores = totalCores;
+        this.minMemory = minMemory;
+        this.maxMemory = maxMemory;
+        this.minCores = minCores;
+        this.maxCores = maxCores;
+    }
+
+    public int getCount() { return count; }
+
+    public int getTotalMemory() { return totalMemory; }
+
+    public int getTotalCores() { return totalCores; }
+
+    public int getMinMemory() { return isEmpty() ? 0 : minMemory; }
+
+    public int getMaxMemory() { return isEmpty() ? 0 : maxMemory; }
+
+    public int getMinCores() { return isEmpty() ? 0 : minCores; }
+
+    public int getMaxCores() { return isEmpty() ? 0 : maxCores; }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Combines this partial with another partial computed over a disjoint set of assets.
+     *
+     * @param other
+     * @return the aggregate over both sets of assets
+     */
+    public Aggregates merge(final Aggregates other) {
+        if (other == null || other.isEmpty()) return this;
+        if (isEmpty()) return other;
+
+        return new Aggregates(count + other.count,
+                totalMemory + other.totalMemory,
+                totalCores + other.totalCores,
+                Math.min(minMemory, other.minMemory),
+                Math.max(maxMemory, other.maxMemory),
+                Math.min(minCores, other.minCores),
+                Math.max(maxCores, other.maxCores));
+    }
+
+    /**
+     * @return the aggregates computed elsewhere, EMPTY when the count is 0 whatever the other
+     * values
+     */
+    public static Aggregates of(final int count, final int totalMemory, final int totalCores,
+                                final int minMemory, final int maxMemory, final int minCores, final int maxCores) {
+        if (count == 0) return EMPTY;
+        return new Aggregates(count, totalMemory, totalCores, minMemory, maxMemory, minCores, maxCores);
+    }
+
+    public static Aggregates of(final Collection<Asset> assets) {
+        Accumulator accumulator = new Accumulator();
+        for (Asset a : assets) {
+            accumulator.add(a);
+        }
+        return accumulator.result();
+    }
+
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        return sb.append("Count: ")
+                .append(count)
+                .append(" Memory (GB) sum/min/max: ")
+                .append(totalMemory).append('/').append(getMinMemory()).append('/').append(getMaxMemory())
+                .append(" Cores sum/min/max: ")
+                .append(totalCores).append('/').append(getMinCores()).append('/').append(getMaxCores())
+                .toString();
+    }
+
+    /**
+     * Mutable accumulator used while scanning, so that a scan does not allocate
+     * an intermediate Aggregates per asset.
+     */
+    public static final class Accumulator {
+
+        private int count;
+        private int totalMemory;
+        private int totalCores;
+        private int minMemory = Integer.MAX_VALUE;
+        private int maxMemory = Integer.MIN_VALUE;
+        private int minCores = Integer.MAX_VALUE;
+        private int maxCores = Integer.MIN_VALUE;
+
+        public Accumulator add(final Asset asset) {
+            return add(asset.getCores(), asset.getMemory());
+        }
+
+        public Accumulator add(final int cores, final int memory) {
+            return add(1, cores, memory);
+        }
+
+        /**
+         * Adds {@code times} assets sharing the same cores and memory values.
+         */
+        public Accumulator add(final int times, final int cores, final int memory) {
+            if (times <= 0) return this;
+
+            count += times;
+            totalMemory += times * memory;
+            totalCores += times * cores;
+            minMemory = Math.min(minMemory, memory);
+            maxMemory = Math.max(maxMemory, memory);
+            minCores = Math.min(minCores, cores);
+            maxCores = Math.max(maxCores, cores);
+            return this;
+        }
+
+        public Aggregates result() {
+            if (count == 0) return EMPTY;
+            return new Aggregates(count, totalMemory, totalCores, minMemory, maxMemory, minCores, maxCores);
+        }
+    }
+}
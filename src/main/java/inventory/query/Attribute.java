@@ -0,0 +1,101 @@
+package inventory.query;
+
+import inventory.data.Asset;
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+
+import java.util.function.Predicate;
+
+/**
+ * The asset attributes a QueryCriteria can filter on.
+ *
+ * Each attribute knows how to read its value from an asset and from a criteria, and how to
+ * build a predicate specialised for a given value, so that evaluating the predicate neither
+ * allocates nor re-reads the criteria.
+ */
+public enum Attribute {
+
+    OS {
+        @Override
+        public Object valueIn(final Asset asset) {
+            return asset.getOS();
+        }
+
+        @Override
+        public Object valueIn(final QueryCriteria criteria) {
+            return criteria.getOs().orElse(null);
+        }
+
+        @Override
+        public Predicate<Asset> predicate(final Object value) {
+            final OperatingSystem os = (OperatingSystem) value;
+            return a -> a.getOS() == os;
+        }
+    },
+
+    CPU {
+        @Override
+        public Object valueIn(final Asset asset) {
+            return asset.getCPU();
+        }
+
+        @Override
+        public Object valueIn(final QueryCriteria criteria) {
+            return criteria.getCpu().orElse(null);
+        }
+
+        @Override
+        public Predicate<Asset> predicate(final Object value) {
+            final CPU cpu = (CPU) value;
+            return a -> a.getCPU() == cpu;
+        }
+    },
+
+    CORES {
+        @Override
+        public Object valueIn(final Asset asset) {
+            return asset.getCores();
+        }
+
+        @Override
+        public Object valueIn(final QueryCriteria criteria) {
+            return criteria.getCores().orElse(null);
+        }
+
+        @Override
+        public Predicate<Asset> predicate(final Object value) {
+            final int cores = (Integer) value;
+            return a -> a.getCores() == cores;
+        }
+    },
+
+    MEMORY {
+        @Override
+        public Object valueIn(final Asset asset) {
+            return asset.getMemory();
+        }
+
+        @Override
+        public Object valueIn(final QueryCriteria criteria) {
+            return criteria.getMemory().orElse(null);
+        }
+
+        @Override
+        public Predicate<Asset> predicate(final Object value) {
+            final int memory = (Integer) value;
+            return a -> a.getMemory() == memory;
+        }
+    };
+
+    public abstract Object valueIn(Asset asset);
+
+    /**
+     * @return the value the criteria requires for this attribute, null when not defined
+     */
+    public abstract Object valueIn(QueryCriteria criteria);
+
+    /**
+     * @return predicate matching the assets whose attribute equals the value
+     */
+    public abstract Predicate<Asset> predicate(Object value);
+}
@@ -0,0 +1,130 @@
+package inventory.query;
+
+import inventory.data.Asset;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Position of a page boundary in an ordered result: the sort along with the value and id of
+ * the last asset returned. The next page starts with the asset following that position, so
+ * paging neither skips nor repeats assets when assets are added or deleted in between.
+ *
+ * Clients only handle the encoded form, an opaque string.
+ */
+public final class Cursor {
+
+    static final String INVALID_CURSOR_MESSAGE = "Invalid cursor.";
+
+    private final SortKey key;
+    private final boolean descending;
+    private final Position position;
+
+    private Cursor(final SortKey key, final boolean descending, final Position position) {
+        this.key = key;
+        this.descending = descending;
+        this.position = position;
+    }
+
+    /**
+     * @return cursor positioned right after the asset
+     */
+    public static Cursor after(final SortKey key, final boolean descending, final Asset asset) {
+        return new Cursor(notNull(key), descending, Position.of(key, asset));
+    }
+
+    public SortKey getKey() {
+        return key;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public Position getPosition() {
+        return position;
+    }
+
+    /**
+     * @return whether the asset comes after the cursor in the cursor's order
+     */
+    public boolean precedes(final Asset asset) {
+        int comparison = Position.of(key, asset).compareTo(position);
+        return descending ? comparison < 0 : comparison > 0;
+    }
+
+    public String encode() {
+        String raw = key + ":" + (descending ? "D" : "A") + ":" + position.value + ":" + position.assetId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param encoded cursor as returned by encode
+     * @return Cursor
+     * @throws IllegalArgumentException when the string is not a cursor
+     */
+    public static Cursor decode(final String encoded) {
+        notNull(encoded, INVALID_CURSOR_MESSAGE);
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 4);
+            if (parts.length != 4 || !(parts[1].equals("A") || parts[1].equals("D"))) {
+                throw new IllegalArgumentException(INVALID_CURSOR_MESSAGE);
+            }
+            return new Cursor(SortKey.valueOf(parts[0]), parts[1].equals("D"),
+                    new Position(Integer.parseInt(parts[2]), parts[3]));
+        } catch (IllegalArgumentException e) {
+            // Also covers malformed base64, unknown sort keys and numbers
+            throw new IllegalArgumentException(INVALID_CURSOR_MESSAGE, e);
+        }
+    }
+
+    /**
+     * Place of an asset in the ascending order of a sort key: its value, then its id.
+     */
+    public static final class Position implements Comparable<Position> {
+
+        private final int value;
+        private final String assetId;
+
+        public Position(final int value, final String assetId) {
+            this.value = value;
+            this.assetId = notNull(assetId);
+        }
+
+        public static Position of(final SortKey key, final Asset asset) {
+            return new Position(key.valueOf(asset), asset.getAssetId());
+        }
+
+        public int getValue() {
+            return value;
+        }
+
+        public String getAssetId() {
+            return assetId;
+        }
+
+        @Override
+        public int compareTo(final Position other) {
+            int comparison = Integer.compare(value, other.value);
+            return comparison != 0 ? comparison : assetId.compareTo(other.assetId);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Position)) return false;
+
+            Position other = (Position) o;
+            return value == other.value && assetId.equals(other.assetId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(value, assetId);
+        }
+    }
+}
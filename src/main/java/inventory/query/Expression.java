@@ -0,0 +1,346 @@
+package inventory.query;
+
+import inventory.data.Asset;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notEmpty;
+import static org.apache.commons.lang3.Validate.notNull;
+import static org.apache.commons.lang3.Validate.noNullElements;
+
+/**
+ * Boolean query over the asset attributes, where QueryCriteria only expresses a conjunction
+ * of equalities. Expressions are built from:
+ *
+ * in(attribute, values...) / eq(attribute, value): the attribute takes one of the values.
+ * between(attribute, min, max), atLeast, atMost: inclusive range over cores or memory.
+ * and(...), or(...), not(...): combinations of the above, nested at will.
+ *
+ * For example, Linux or macOS assets with at least 16GB that are not on AMD:
+ *
+ * and(in(OS, LINUX, MACOS), atLeast(MEMORY, 16), not(eq(CPU, AMD)))
+ *
+ * An expression is a predicate over a single asset, so evaluating it over an inventory yields
+ * each matching asset once, however many branches of an OR it matches. Expressions are
+ * immutable and compare by value.
+ */
+public abstract class Expression implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    static final String RANGE_MESSAGE = "Ranges are only supported on cores and memory.";
+
+    private Expression() {}
+
+    /**
+     * @param asset
+     * @return whether the asset satisfies the expression
+     */
+    public abstract boolean matches(Asset asset);
+
+    public static Expression and(final Expression... operands) {
+        return new And(operands(operands));
+    }
+
+    public static Expression or(final Expression... operands) {
+        return new Or(operands(operands));
+    }
+
+    public static Expression not(final Expression operand) {
+        return new Not(notNull(operand));
+    }
+
+    public static Expression eq(final Attribute attribute, final Object value) {
+        return in(attribute, Collections.singleton(value));
+    }
+
+    public static Expression in(final Attribute attribute, final Object... values) {
+        return in(attribute, Arrays.asList(values));
+    }
+
+    public static Expression in(final Attribute attribute, final Collection<?> values) {
+        notNull(attribute);
+        noNullElements(notEmpty(values));
+        return new In(attribute, new LinkedHashSet<>(values));
+    }
+
+    /**
+     * @return expression matching the assets whose attribute lies between min and max, both included
+     */
+    public static Expression between(final Attribute attribute, final int min, final int max) {
+        notNull(attribute);
+        isTrue(attribute == Attribute.CORES || attribute == Attribute.MEMORY, RANGE_MESSAGE);
+        return new Range(attribute, min, max);
+    }
+
+    public static Expression atLeast(final Attribute attribute, final int min) {
+        return between(attribute, min, Integer.MAX_VALUE);
+    }
+
+    public static Expression atMost(final Attribute attribute, final int max) {
+        return between(attribute, Integer.MIN_VALUE, max);
+    }
+
+    /**
+     * @return the conjunction of the parameters defined by the criteria, an empty criteria
+     * matches every asset
+     */
+    public static Expression of(final QueryCriteria criteria) {
+        notNull(criteria);
+        List<Expression> operands = new ArrayList<>();
+        for (Attribute attribute : Attribute.values()) {
+            Object value = attribute.valueIn(criteria);
+            if (value != null) {
+                operands.add(eq(attribute, value));
+            }
+        }
+        return new And(operands);
+    }
+
+    private static List<Expression> operands(final Expression... operands) {
+        noNullElements(operands);
+        return Collections.unmodifiableList(new ArrayList<>(Arrays.asList(operands)));
+    }
+
+    /**
+     * Matches when every operand matches, and() matches every asset.
+     */
+    public static final class And extends Expression {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Expression> operands;
+
+        private And(final List<Expression> operands) {
+            this.operands = operands;
+        }
+
+        public List<Expression> getOperands() {
+            return operands;
+        }
+
+        @Override
+        public boolean matches(final Asset asset) {
+            for (Expression operand : operands) {
+                if (!operand.matches(asset)) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof And && operands.equals(((And) o).operands);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(And.class, operands);
+        }
+
+        @Override
+        public String toString() {
+            return join("AND", operands, "TRUE");
+        }
+    }
+
+    /**
+     * Matches when any operand matches, or() matches nothing.
+     */
+    public static final class Or extends Expression {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Expression> operands;
+
+        private Or(final List<Expression> operands) {
+            this.operands = operands;
+        }
+
+        public List<Expression> getOperands() {
+            return operands;
+        }
+
+        @Override
+        public boolean matches(final Asset asset) {
+            for (Expression operand : operands) {
+                if (operand.matches(asset)) return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof Or && operands.equals(((Or) o).operands);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(Or.class, operands);
+        }
+
+        @Override
+        public String toString() {
+            return join("OR", operands, "FALSE");
+        }
+    }
+
+    public static final class Not extends Expression {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Expression operand;
+
+        private Not(final Expression operand) {
+            this.operand = operand;
+        }
+
+        public Expression getOperand() {
+            return operand;
+        }
+
+        @Override
+        public boolean matches(final Asset asset) {
+            return !operand.matches(asset);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof Not && operand.equals(((Not) o).operand);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(Not.class, operand);
+        }
+
+        @Override
+        public String toString() {
+            return "NOT " + operand;
+        }
+    }
+
+    public static final class In extends Expression {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Attribute attribute;
+        private final Set<Object> values;
+
+        private In(final Attribute attribute, final Set<Object> values) {
+            this.attribute = attribute;
+            this.values = values;
+        }
+
+        public Attribute getAttribute() {
+            return attribute;
+        }
+
+        public Set<Object> getValues() {
+            return Collections.unmodifiableSet(values);
+        }
+
+        @Override
+        public boolean matches(final Asset asset) {
+            return values.contains(attribute.valueIn(asset));
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof In)) return false;
+
+            In other = (In) o;
+            return attribute == other.attribute && values.equals(other.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(attribute, values);
+        }
+
+        @Override
+        public String toString() {
+            if (values.size() == 1) return attribute + "=" + values.iterator().next();
+            return attribute + " IN " + values;
+        }
+    }
+
+    public static final class Range extends Expression {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Attribute attribute;
+        private final int min;
+        private final int max;
+
+        private Range(final Attribute attribute, final int min, final int max) {
+            this.attribute = attribute;
+            this.min = min;
+            this.max = max;
+        }
+
+        public Attribute getAttribute() {
+            return attribute;
+        }
+
+        public int getMin() {
+            return min;
+        }
+
+        public int getMax() {
+            return max;
+        }
+
+        /**
+         * @return whether the value lies within the range
+         */
+        public boolean contains(final int value) {
+            return value >= min && value <= max;
+        }
+
+        @Override
+        public boolean matches(final Asset asset) {
+            return contains((Integer) attribute.valueIn(asset));
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Range)) return false;
+
+            Range other = (Range) o;
+            return attribute == other.attribute && min == other.min && max == other.max;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(attribute, min, max);
+        }
+
+        @Override
+        public String toString() {
+            if (max == Integer.MAX_VALUE) return attribute + ">=" + min;
+            if (min == Integer.MIN_VALUE) return attribute + "<=" + max;
+            return attribute + " BETWEEN " + min + " AND " + max;
+        }
+    }
+
+    private static String join(final String operator, final List<Expression> operands, final String empty) {
+        if (operands.isEmpty()) return empty;
+        if (operands.size() == 1) return operands.get(0).toString();
+
+        StringBuilder sb = new StringBuilder("(");
+        for (int i = 0; i < operands.size(); i++) {
+            if (i > 0) sb.append(' ').append(operator).append(' ');
+            sb.append(operands.get(i));
+        }
+        return sb.append(')').toString();
+    }
+}
@@ -0,0 +1,62 @@
+package inventory.query;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Frequency histogram of the values of one attribute: the number of assets for each distinct
+ * value. The attributes have few distinct values (enums, core and memory sizes), so the
+ * histogram keeps one exact count per value rather than ranges.
+ *
+ * Maintained incrementally by the owning inventory as assets are added and deleted, not
+ * thread safe.
+ */
+public final class Histogram {
+
+    private final Map<Object, Integer> counts = new HashMap<>();
+    private int total;
+
+    public void add(final Object value) {
+        counts.merge(value, 1, Integer::sum);
+        total++;
+    }
+
+    public void remove(final Object value) {
+        Integer count = counts.get(value);
+        if (count == null) return;
+
+        if (count == 1) {
+            counts.remove(value);
+        } else {
+            counts.put(value, count - 1);
+        }
+        total--;
+    }
+
+    /**
+     * @return number of assets holding the value
+     */
+    public int count(final Object value) {
+        return counts.getOrDefault(value, 0);
+    }
+
+    public int total() {
+        return total;
+    }
+
+    public int distinct() {
+        return counts.size();
+    }
+
+    /**
+     * @return share of the assets holding the value, 0 for an empty histogram
+     */
+    public double selectivity(final Object value) {
+        return total == 0 ? 0 : (double) count(value) / total;
+    }
+
+    @Override
+    public String toString() {
+        return counts.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package inventory.query;
+
+import inventory.data.Asset;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * A page of an ordered search along with the opaque cursor to pass in the request for the
+ * next page.
+ */
+public final class Page {
+
+    private final List<Asset> assets;
+    private final String nextCursor;
+
+    private Page(final List<Asset> assets, final String nextCursor) {
+        this.assets = Collections.unmodifiableList(assets);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Builds the page from the assets following the request's cursor, in order. Fetching one
+     * asset more than the page size tells whether another page follows.
+     *
+     * @param request
+     * @param fetched up to page size + 1 assets following the cursor, in the request's order
+     * @return Page
+     */
+    public static Page of(final PageRequest request, final List<Asset> fetched) {
+        return of(request, fetched, false);
+    }
+
+    /**
+     * @param more whether assets beyond the fetched ones are known to exist
+     */
+    public static Page of(final PageRequest request, final List<Asset> fetched, final boolean more) {
+        notNull(request);
+        notNull(fetched);
+
+        int size = request.getPageSize();
+        if (fetched.isEmpty() || (fetched.size() <= size && !more)) {
+            return new Page(new ArrayList<>(fetched), null);
+        }
+
+        List<Asset> assets = new ArrayList<>(fetched.subList(0, Math.min(size, fetched.size())));
+        Asset last = assets.get(assets.size() - 1);
+        return new Page(assets, Cursor.after(request.getKey(), request.isDescending(), last).encode());
+    }
+
+    public List<Asset> getAssets() {
+        return assets;
+    }
+
+    /**
+     * @return cursor of the next page, null on the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,121 @@
+package inventory.query;
+
+import inventory.data.Asset;
+
+import java.util.Comparator;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Defines a page of an ordered search: the sort key and direction, the page size and, past
+ * the first page, the cursor returned with the previous page. Pages are sorted by asset id,
+ * ascending, unless told otherwise.
+ */
+public final class PageRequest {
+
+    static final String PAGE_SIZE_MESSAGE = "Page size must be a positive number.";
+    static final String CURSOR_MISMATCH_MESSAGE = "The cursor was issued for a different sort.";
+
+    private final SortKey key;
+    private final boolean descending;
+    private final int pageSize;
+    private final Cursor cursor;
+
+    private PageRequest(final Builder builder) {
+        key = notNull(builder.key);
+        descending = builder.descending;
+        isTrue(builder.pageSize > 0, PAGE_SIZE_MESSAGE);
+        pageSize = builder.pageSize;
+        cursor = builder.cursor == null ? null : Cursor.decode(builder.cursor);
+        isTrue(cursor == null || (cursor.getKey() == key && cursor.isDescending() == descending),
+                CURSOR_MISMATCH_MESSAGE);
+    }
+
+    public SortKey getKey() {
+        return key;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * @return the cursor of the previous page, null for the first page
+     */
+    public Cursor getCursor() {
+        return cursor;
+    }
+
+    public Comparator<Asset> order() {
+        return descending ? key.descending() : key.ascending();
+    }
+
+    /**
+     * @return whether the asset belongs after the cursor, always true for the first page
+     */
+    public boolean isAfterCursor(final Asset asset) {
+        return cursor == null || cursor.precedes(asset);
+    }
+
+    /**
+     * @return the request for the page following the given one, same sort and size
+     */
+    public PageRequest next(final Page page) {
+        notNull(page);
+        isTrue(page.hasNext(), "There is no page after the last page.");
+        return builder()
+                .setSortKey(key)
+                .setDescending(descending)
+                .setPageSize(pageSize)
+                .setCursor(page.getNextCursor())
+                .build();
+    }
+
+    public static PageRequest.Builder builder() {
+        return new PageRequest.Builder();
+    }
+
+    public static class Builder {
+
+        private SortKey key = SortKey.ID;
+        private boolean descending;
+        private int pageSize;
+        private String cursor;
+
+        private Builder() {}
+
+        public Builder setSortKey(SortKey key)
+        {
+            this.key = key;
+            return this;
+        }
+
+        public Builder setDescending(boolean descending)
+        {
+            this.descending = descending;
+            return this;
+        }
+
+        public Builder setPageSize(int pageSize)
+        {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        public Builder setCursor(String cursor)
+        {
+            this.cursor = cursor;
+            return this;
+        }
+
+        public PageRequest build()
+        {
+            return new PageRequest(this);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package inventory.query;
+
+import inventory.data.Asset;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Cost based compiler of a QueryCriteria into a QueryPlan.
+ *
+ * Only the parameters the criteria defines take part in the plan. They are ordered by the
+ * number of assets the statistics estimate they match, so that the filter rejects most
+ * candidates on its first check. The compiler then estimates the cost of three access paths
+ * and picks the cheapest:
+ *
+ * scan: read every asset sequentially.
+ * index probe: read the assets of the most selective indexed parameter.
+ * index intersection: walk the ids of the most selective indexed parameter, keep those present
+ * in the indexes of the next most selective parameters and only read the assets that remain.
+ *
+ * Costs are in relative units, reading an asset during a scan costs 1. Estimates come from
+ * the per attribute histograms and assume the parameters are independent.
+ */
+public final class QueryCompiler {
+
+    public static final double SCAN_ROW_COST = 1.0;
+
+    /** Locating the bucket of a value in an index */
+    public static final double INDEX_OPEN_COST = 10.0;
+
+    /** Reading an asset through an index bucket, random rather than sequential access */
+    public static final double INDEX_ROW_COST = 4.0;
+
+    /** Walking one id of the index driving an intersection */
+    public static final double INDEX_ENTRY_COST = 0.5;
+
+    /** Checking whether an id is present in another index */
+    public static final double INDEX_LOOKUP_COST = 1.0;
+
+    private QueryCompiler() {}
+
+    /**
+     * @param criteria  criteria to compile, an empty criteria compiles to a scan without filter
+     * @param statistics statistics of the inventory the plan runs against
+     * @return QueryPlan
+     */
+    public static QueryPlan compile(final QueryCriteria criteria, final Statistics statistics) {
+        notNull(criteria);
+        notNull(statistics);
+
+        List<Attribute> order = new ArrayList<>(Attribute.values().length);
+        for (Attribute attribute : Attribute.values()) {
+            if (attribute.valueIn(criteria) != null) {
+                order.add(attribute);
+            }
+        }
+        // Stable sort, ties keep the declaration order of the attributes
+        order.sort(Comparator.comparingInt(a -> statistics.estimate(a, a.valueIn(criteria))));
+
+        List<Attribute> indexed = new ArrayList<>(order.size());
+        for (Attribute attribute : order) {
+            if (statistics.isIndexed(attribute)) {
+                indexed.add(attribute);
+            }
+        }
+
+        int size = statistics.size();
+        Map<QueryPlan.Access, Double> costs = new EnumMap<>(QueryPlan.Access.class);
+        costs.put(QueryPlan.Access.SCAN, size * SCAN_ROW_COST);
+        QueryPlan.Access access = QueryPlan.Access.SCAN;
+        double cheapest = costs.get(access);
+        int indexCount = 0;
+        double estimatedRows = size;
+
+        if (!indexed.isEmpty() && size > 0) {
+            int driving = statistics.estimate(indexed.get(0), indexed.get(0).valueIn(criteria));
+            double probeCost = INDEX_OPEN_COST + driving * INDEX_ROW_COST;
+            costs.put(QueryPlan.Access.INDEX_PROBE, probeCost);
+            if (probeCost < cheapest) {
+                access = QueryPlan.Access.INDEX_PROBE;
+                cheapest = probeCost;
+                indexCount = 1;
+                estimatedRows = driving;
+            }
+
+            double rows = driving;
+            for (int k = 2; k <= indexed.size(); k++) {
+                Attribute attribute = indexed.get(k - 1);
+                rows *= (double) statistics.estimate(attribute, attribute.valueIn(criteria)) / size;
+                double cost = k * INDEX_OPEN_COST
+                        + driving * (INDEX_ENTRY_COST + (k - 1) * INDEX_LOOKUP_COST)
+                        + rows * INDEX_ROW_COST;
+
+                costs.merge(QueryPlan.Access.INDEX_INTERSECTION, cost, Math::min);
+                if (cost < cheapest) {
+                    access = QueryPlan.Access.INDEX_INTERSECTION;
+                    cheapest = cost;
+                    indexCount = k;
+                    estimatedRows = rows;
+                }
+            }
+        }
+
+        List<Attribute> indexes = new ArrayList<>(indexed.subList(0, indexCount));
+        List<Attribute> remaining = new ArrayList<>(order);
+        remaining.removeAll(indexes);
+        return new QueryPlan(criteria, access, indexes, remaining, filter(criteria, remaining),
+                (int) Math.round(estimatedRows), size, costs);
+    }
+
+    /**
+     * Chains the predicates of the attributes in order, without any always true predicate for
+     * the parameters the criteria leaves undefined.
+     */
+    static Predicate<Asset> filter(final QueryCriteria criteria, final List<Attribute> order) {
+        Predicate<Asset> filter = null;
+        for (Attribute attribute : order) {
+            Predicate<Asset> predicate = attribute.predicate(attribute.valueIn(criteria));
+            filter = filter == null ? predicate : filter.and(predicate);
+        }
+        return filter == null ? a -> true : filter;
+    }
+}
@@ -1,8 +1,12 @@
 package inventory.query;
 
+import inventory.data.Asset;
+import inventory.data.Configuration;
 import inventory.data.types.CPU;
 import inventory.data.types.OperatingSystem;
 
+import java.io.Serializable;
+import java.util.Objects;
 import java.util.Optional;
 
 import static java.util.Optional.ofNullable;
@@ -15,7 +19,9 @@ import static java.util.Optional.ofNullable;
  * Criteria can be specified for all or none of the parameters.
  *
  */
-public class QueryCriteria {
+public class QueryCriteria implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private final OperatingSystem os;
     private final CPU cpu;
@@ -52,6 +58,27 @@ public class QueryCriteria {
                 .toString();
     }
 
+    /**
+     * Two criteria are equal when they define the same parameters, which allows for using
+     * criteria as keys (caching, coalescing of identical queries).
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (!(o instanceof QueryCriteria)) return false;
+
+        QueryCriteria other = (QueryCriteria) o;
+        return os == other.os
+                && cpu == other.cpu
+                && Objects.equals(cores, other.cores)
+                && Objects.equals(memory, other.memory);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(os, cpu, cores, memory);
+    }
+
     public boolean isEmpty() {
         if (os == null && cpu == null && cores == null && memory == null) {
             return true;
@@ -59,6 +86,28 @@ public class QueryCriteria {
         return false;
     }
 
+    /**
+     * Determines whether the asset satisfies every parameter defined by this criteria. Parameters
+     * that were not defined match any asset.
+     *
+     * @param asset
+     * @return boolean
+     */
+    public boolean matches(final Asset asset) {
+        return matches(asset.getConfiguration());
+    }
+
+    /**
+     * @param configuration
+     * @return whether the assets with this configuration satisfy the criteria
+     */
+    public boolean matches(final Configuration configuration) {
+        return (os == null || os == configuration.getOS())
+                && (cpu == null || cpu == configuration.getCPU())
+                && (cores == null || cores.intValue() == configuration.getCores().intValue())
+                && (memory == null || memory.intValue() == configuration.getMemory().intValue());
+    }
+
     private QueryCriteria(final Builder builder) {
         os = builder.os;
         cpu = builder.cpu;
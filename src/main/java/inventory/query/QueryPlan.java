@@ -0,0 +1,156 @@
+package inventory.query;
+
+import inventory.data.Asset;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * A QueryCriteria compiled by the QueryCompiler: how the candidate assets are obtained
+ * (access path) and the filter applied to them.
+ *
+ * The filter only holds the predicates for the parameters the criteria defines, ordered from
+ * the most to the least selective, minus the parameters already satisfied by the indexes used.
+ * A plan never depends on the inventory content for its correctness, only for its speed, so
+ * it can be reused for as long as the criteria is.
+ *
+ * The estimated cost of every access path the compiler considered is kept along with the
+ * chosen one, for debugging the decision.
+ */
+public final class QueryPlan {
+
+    public enum Access {
+        SCAN,
+        INDEX_PROBE,
+        INDEX_INTERSECTION
+    }
+
+    private final QueryCriteria criteria;
+    private final Access access;
+    private final List<Attribute> indexes;
+    private final List<Attribute> filterOrder;
+    private final Predicate<Asset> filter;
+    private final int estimatedRows;
+    private final int size;
+    private final Map<Access, Double> costs;
+
+    QueryPlan(final QueryCriteria criteria, final Access access, final List<Attribute> indexes,
+              final List<Attribute> filterOrder, final Predicate<Asset> filter,
+              final int estimatedRows, final int size, final Map<Access, Double> costs) {
+        this.criteria = criteria;
+        this.access = access;
+        this.indexes = Collections.unmodifiableList(indexes);
+        this.filterOrder = Collections.unmodifiableList(filterOrder);
+        this.filter = filter;
+        this.estimatedRows = estimatedRows;
+        this.size = size;
+        this.costs = Collections.unmodifiableMap(new EnumMap<>(costs));
+    }
+
+    public QueryCriteria getCriteria() {
+        return criteria;
+    }
+
+    public Access getAccess() {
+        return access;
+    }
+
+    /**
+     * @return the attributes looked up in an index, the most selective first, empty when scanning
+     */
+    public List<Attribute> getIndexes() {
+        return indexes;
+    }
+
+    /**
+     * @return the attribute looked up first in an index, null when scanning
+     */
+    public Attribute getProbe() {
+        return indexes.isEmpty() ? null : indexes.get(0);
+    }
+
+    public Object getProbeValue() {
+        return indexes.isEmpty() ? null : indexes.get(0).valueIn(criteria);
+    }
+
+    /**
+     * @return the attributes checked by the filter, in evaluation order
+     */
+    public List<Attribute> getFilterOrder() {
+        return filterOrder;
+    }
+
+    /**
+     * @return estimated number of assets produced by the access path
+     */
+    public int getEstimatedRows() {
+        return estimatedRows;
+    }
+
+    /**
+     * @return estimated cost of the chosen access path
+     */
+    public double getCost() {
+        return costs.get(access);
+    }
+
+    /**
+     * @return estimated cost of each access path considered
+     */
+    public Map<Access, Double> getCosts() {
+        return costs;
+    }
+
+    /**
+     * Applies the filter to a candidate produced by the access path.
+     *
+     * @param asset
+     * @return boolean
+     */
+    public boolean filter(final Asset asset) {
+        return filter.test(asset);
+    }
+
+    /**
+     * Describes the chosen access path, the filter and the costs of the alternatives, for example
+     * "INDEX_PROBE [MEMORY=64] (est. 1 of 101 assets), filter [OS=LINUX], cost {SCAN=101.0, INDEX_PROBE=14.0}".
+     *
+     * @return String
+     */
+    public String explain() {
+        StringBuilder sb = new StringBuilder().append(access);
+        if (!indexes.isEmpty()) {
+            sb.append(' ');
+            appendParameters(sb, indexes);
+        }
+        sb.append(" (est. ").append(estimatedRows).append(" of ").append(size).append(" assets), filter ");
+        appendParameters(sb, filterOrder);
+        sb.append(", cost {");
+        String separator = "";
+        for (Map.Entry<Access, Double> cost : costs.entrySet()) {
+            sb.append(separator).append(cost.getKey()).append('=')
+                    .append(String.format(Locale.ROOT, "%.1f", cost.getValue()));
+            separator = ", ";
+        }
+        return sb.append('}').toString();
+    }
+
+    @Override
+    public String toString() {
+        return explain();
+    }
+
+    private void appendParameters(final StringBuilder sb, final List<Attribute> attributes) {
+        sb.append('[');
+        for (int i = 0; i < attributes.size(); i++) {
+            Attribute attribute = attributes.get(i);
+            if (i > 0) sb.append(", ");
+            sb.append(attribute).append('=').append(attribute.valueIn(criteria));
+        }
+        sb.append(']');
+    }
+}
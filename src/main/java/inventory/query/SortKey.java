@@ -0,0 +1,51 @@
+package inventory.query;
+
+import inventory.data.Asset;
+
+import java.util.Comparator;
+import java.util.function.ToIntFunction;
+
+/**
+ * Attribute the assets of a query result are ordered by. Assets with the same value are
+ * ordered by asset id, so that the order is total and stable across calls. The descending
+ * order is the exact reverse of the ascending one.
+ */
+public enum SortKey {
+
+    MEMORY(a -> a.getMemory()),
+    CORES(a -> a.getCores()),
+    ID(a -> 0);
+
+    private final ToIntFunction<Asset> value;
+    private final Comparator<Asset> ascending;
+    private final Comparator<Asset> descending;
+
+    SortKey(final ToIntFunction<Asset> value) {
+        Comparator<Asset> key = Comparator.comparingInt(value);
+        Comparator<Asset> byId = Comparator.comparing(Asset::getAssetId);
+        this.value = value;
+        this.ascending = key.thenComparing(byId);
+        this.descending = key.reversed().thenComparing(byId.reversed());
+    }
+
+    /**
+     * @return the value of the asset the key orders by, ids aside
+     */
+    public int valueOf(final Asset asset) {
+        return value.applyAsInt(asset);
+    }
+
+    /**
+     * @return smallest value first, ties by ascending id
+     */
+    public Comparator<Asset> ascending() {
+        return ascending;
+    }
+
+    /**
+     * @return largest value first, ties by descending id
+     */
+    public Comparator<Asset> descending() {
+        return descending;
+    }
+}
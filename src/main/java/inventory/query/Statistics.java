@@ -0,0 +1,44 @@
+package inventory.query;
+
+/**
+ * Statistics an inventory exposes to the QueryCompiler for ordering predicates and choosing
+ * an access path.
+ */
+public interface Statistics {
+
+    /**
+     * Statistics of an inventory without indexes where nothing is known about the assets,
+     * every plan compiled against it scans.
+     */
+    Statistics NONE = new Statistics() {
+        @Override
+        public int size() {
+            return 0;
+        }
+
+        @Override
+        public int estimate(final Attribute attribute, final Object value) {
+            return 0;
+        }
+
+        @Override
+        public boolean isIndexed(final Attribute attribute) {
+            return false;
+        }
+    };
+
+    /**
+     * @return number of assets in the inventory
+     */
+    int size();
+
+    /**
+     * @return estimated number of assets whose attribute equals the value
+     */
+    int estimate(Attribute attribute, Object value);
+
+    /**
+     * @return whether the assets with a given value of the attribute can be looked up directly
+     */
+    boolean isIndexed(Attribute attribute);
+}
@@ -0,0 +1,81 @@
+package inventory.query;
+
+import inventory.data.Asset;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Keeps the first k assets, in a given order, of the assets it is fed.
+ *
+ * The assets are held in a bounded heap whose head is the worst asset kept, so each asset
+ * costs at most O(log k) and memory stays O(k) whatever the number of assets visited; the
+ * assets are never collected nor sorted as a whole.
+ */
+public final class TopK implements Consumer<Asset> {
+
+    public static final String NEGATIVE_K_MESSAGE = "The number of assets requested cannot be negative.";
+
+    private final int k;
+    private final Comparator<Asset> order;
+    private final PriorityQueue<Asset> heap;
+
+    /**
+     * @param k     number of assets to keep
+     * @param order order of the result, the first k assets in that order are kept
+     */
+    public TopK(final int k, final Comparator<Asset> order) {
+        isTrue(k >= 0, NEGATIVE_K_MESSAGE);
+        this.k = k;
+        this.order = notNull(order);
+        // Worst asset kept at the head
+        this.heap = new PriorityQueue<>(Math.max(1, Math.min(k, 1024)), order.reversed());
+    }
+
+    /**
+     * @return the k largest assets by the key, largest first
+     */
+    public static TopK largest(final int k, final SortKey key) {
+        return new TopK(k, notNull(key).descending());
+    }
+
+    /**
+     * @return the k smallest assets by the key, smallest first
+     */
+    public static TopK smallest(final int k, final SortKey key) {
+        return new TopK(k, notNull(key).ascending());
+    }
+
+    @Override
+    public void accept(final Asset asset) {
+        if (heap.size() < k) {
+            heap.add(asset);
+        } else if (k > 0 && order.compare(asset, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(asset);
+        }
+    }
+
+    public TopK addAll(final Iterable<Asset> assets) {
+        for (Asset asset : assets) {
+            accept(asset);
+        }
+        return this;
+    }
+
+    /**
+     * @return the assets kept, in order
+     */
+    public List<Asset> result() {
+        List<Asset> result = new ArrayList<>(heap);
+        Collections.sort(result, order);
+        return result;
+    }
+}
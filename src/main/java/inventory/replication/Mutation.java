@@ -0,0 +1,53 @@
+package inventory.replication;
+
+import inventory.data.Asset;
+
+import java.io.Serializable;
+
+/**
+ * A single change applied to the primary inventory, as recorded in the MutationLog.
+ *
+ * Sequence numbers are assigned by the log, start at 1 and increase without gaps, which
+ * allows a reader to resume from the last sequence it has applied.
+ */
+public final class Mutation implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Type {
+        ADD,
+        DELETE
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final Asset asset;
+    private final long timestamp;
+
+    Mutation(final long sequence, final Type type, final Asset asset, final long timestamp) {
+        this.sequence = sequence;
+        this.type = type;
+        this.asset = asset;
+        this.timestamp = timestamp;
+    }
+
+    public long getSequence() { return sequence; }
+
+    public Type getType() { return type; }
+
+    public Asset getAsset() { return asset; }
+
+    // Time at which the mutation was recorded, in milliseconds since the epoch
+    public long getTimestamp() { return timestamp; }
+
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        return sb.append("Mutation: ")
+                .append(sequence)
+                .append(" ")
+                .append(type)
+                .append(" ")
+                .append(asset)
+                .toString();
+    }
+}
@@ -0,0 +1,133 @@
+package inventory.replication;
+
+import inventory.data.Asset;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Append only, in memory log of the mutations applied to a primary inventory.
+ *
+ * Readers (replicas) tail the log by asking for the mutations following the last sequence
+ * they have applied. Entries that every reader has consumed can be released with trim.
+ */
+public class MutationLog {
+
+    static final String TRIMMED_MESSAGE = "Mutations requested have already been trimmed from the log.";
+
+    private final Clock clock;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Sequence of entries.get(0), entries are contiguous from there on
+    private long firstSequence = 1;
+    private List<Mutation> entries = new ArrayList<>();
+
+    public MutationLog() {
+        this(Clock.systemUTC());
+    }
+
+    public MutationLog(final Clock clock) {
+        this.clock = notNull(clock);
+    }
+
+    /**
+     * Records a mutation and assigns it the next sequence number.
+     *
+     * @return the sequence of the recorded mutation
+     */
+    public long append(final Mutation.Type type, final Asset asset) {
+        notNull(type);
+        notNull(asset);
+
+        lock.writeLock().lock();
+        try {
+            long sequence = firstSequence + entries.size();
+            entries.add(new Mutation(sequence, type, asset, clock.millis()));
+            return sequence;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to max mutations following the given sequence, in order.
+     *
+     * @param afterSequence - last sequence already seen by the reader, 0 to read from the start
+     * @param max - maximum number of mutations returned
+     * @return list of mutations or empty list when the reader is caught up
+     */
+    public List<Mutation> read(final long afterSequence, final int max) {
+        isTrue(max > 0, "max must be a positive number");
+
+        lock.readLock().lock();
+        try {
+            if (afterSequence + 1 < firstSequence) {
+                throw new IllegalStateException(TRIMMED_MESSAGE);
+            }
+
+            int from = (int) (afterSequence + 1 - firstSequence);
+            if (from >= entries.size()) return Collections.emptyList();
+
+            int to = (int) Math.min(entries.size(), (long) from + max);
+            return new ArrayList<>(entries.subList(from, to));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the sequence of the last mutation appended, 0 if nothing was ever appended
+     */
+    public long lastSequence() {
+        lock.readLock().lock();
+        try {
+            return firstSequence + entries.size() - 1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return timestamp of the mutation with the given sequence, or -1 when it is not in the log
+     */
+    public long timestampOf(final long sequence) {
+        lock.readLock().lock();
+        try {
+            long index = sequence - firstSequence;
+            if (index < 0 || index >= entries.size()) return -1;
+            return entries.get((int) index).getTimestamp();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Releases every mutation up to and including the given sequence. Readers must have
+     * applied those mutations already.
+     *
+     * @param throughSequence
+     */
+    public void trim(final long throughSequence) {
+        lock.writeLock().lock();
+        try {
+            int count = (int) Math.min(entries.size(), Math.max(0, throughSequence + 1 - firstSequence));
+            if (count == 0) return;
+
+            entries = new ArrayList<>(entries.subList(count, entries.size()));
+            firstSequence += count;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    long now() {
+        return clock.millis();
+    }
+}
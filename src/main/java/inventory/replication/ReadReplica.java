@@ -0,0 +1,352 @@
+package inventory.replication;
+
+import inventory.Inventory;
+import inventory.data.Asset;
+import inventory.query.QueryCriteria;
+import inventory.snapshot.InventorySnapshot;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Read only inventory kept up to date by tailing the MutationLog of a ReplicatedInventory.
+ *
+ * Reads are served from an immutable InventorySnapshot. Mutations are applied in batches
+ * to a new version derived from the current snapshot, which shares all untouched storage
+ * with it, and the new version is then swapped in atomically. Reads never block on, nor
+ * observe a partially applied, batch.
+ *
+ * The replica can be driven by the caller (catchUp) or tail the log on its own (start).
+ * How far the replica trails the primary is exposed through getLag and getLagMillis.
+ */
+public class ReadReplica implements Inventory, Closeable {
+
+    static final int DEFAULT_BATCH_SIZE = 1024;
+
+    static final String READ_ONLY_MESSAGE = "Read replicas do not accept mutations, write to the primary.";
+
+    private final MutationLog log;
+    private final int batchSize;
+
+    private final AtomicReference<InventorySnapshot> snapshot = new AtomicReference<>(InventorySnapshot.EMPTY);
+    private final Lock applyLock = new ReentrantLock();
+
+    private volatile long appliedSequence;
+    private ScheduledExecutorService tailer;
+
+    private Logger logger = Logger.getLogger(ReadReplica.class.getName());
+
+    public ReadReplica(final MutationLog log) {
+        this(log, DEFAULT_BATCH_SIZE);
+    }
+
+    public ReadReplica(final MutationLog log, final int batchSize) {
+        isTrue(batchSize > 0, "Batch size must be a positive number.");
+        this.log = notNull(log);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Applies the next batch of pending mutations, if any, and publishes the resulting snapshot.
+     *
+     * @return number of mutations applied
+     */
+    public int poll() {
+        applyLock.lock();
+        try {
+            List<Mutation> batch = log.read(appliedSequence, batchSize);
+            if (batch.isEmpty()) return 0;
+
+            InventorySnapshot.Editor next = snapshot.get().edit();
+            for (Mutation m : batch) {
+                apply(next, m);
+            }
+
+            snapshot.set(next.build());
+            appliedSequence = batch.get(batch.size() - 1).getSequence();
+            return batch.size();
+        } finally {
+            applyLock.unlock();
+        }
+    }
+
+    /**
+     * Applies every mutation pending at the time of the call, batch by batch.
+     *
+     * @return number of mutations applied
+     */
+    public int catchUp() {
+        int applied = 0;
+        int count;
+        while ((count = poll()) > 0) {
+            applied += count;
+        }
+        return applied;
+    }
+
+    /**
+     * Starts tailing the log in the background, pending mutations are applied every period.
+     */
+    public void start(final long period, final TimeUnit unit) {
+        applyLock.lock();
+        try {
+            isTrue(tailer == null, "Replica is already tailing the log.");
+            // Scheduled under the lock, a concurrent close shuts it down once scheduled
+            ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "read-replica-tailer");
+                t.setDaemon(true);
+                return t;
+            });
+            try {
+                executor.scheduleWithFixedDelay(this::tail, 0, period, unit);
+            } catch (RuntimeException e) {
+                executor.shutdownNow();
+                throw e;
+            }
+            tailer = executor;
+        } finally {
+            applyLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        applyLock.lock();
+        try {
+            if (tailer != null) {
+                tailer.shutdownNow();
+                tailer = null;
+            }
+        } finally {
+            applyLock.unlock();
+        }
+    }
+
+    public long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    /**
+     * @return number of mutations recorded by the primary and not yet visible on this replica
+     */
+    public long getLag() {
+        return Math.max(0, log.lastSequence() - appliedSequence);
+    }
+
+    /**
+     * @return age in milliseconds of the oldest mutation not yet visible on this replica, 0 when caught up
+     */
+    public long getLagMillis() {
+        long oldestPending = log.timestampOf(appliedSequence + 1);
+        return oldestPending < 0 ? 0 : Math.max(0, log.now() - oldestPending);
+    }
+
+    private void tail() {
+        try {
+            catchUp();
+        } catch (RuntimeException e) {
+            // Keep tailing, the failure is retried on the next period
+            logger.warning("Failed to apply mutations: " + e);
+        }
+    }
+
+    private static void apply(final InventorySnapshot.Editor editor, final Mutation mutation) {
+        switch (mutation.getType()) {
+            case ADD:
+                editor.add(mutation.getAsset());
+                break;
+            case DELETE:
+                editor.delete(mutation.getAsset().getAssetId());
+                break;
+            default:
+                throw new IllegalStateException("Unsupported mutation " + mutation);
+        }
+    }
+
+    /**
+     * @return the snapshot currently served by this replica
+     */
+    public InventorySnapshot snapshot() {
+        return snapshot.get();
+    }
+
+    private InventorySnapshot current() {
+        return snapshot.get();
+    }
+
+    @Override
+    public String addAsset(final Asset asset) {
+        throw new UnsupportedOperationException(READ_ONLY_MESSAGE);
+    }
+
+    @Override
+    public List<String> addAssets(final List<Asset> assets) {
+        throw new UnsupportedOperationException(READ_ONLY_MESSAGE);
+    }
+
+    @Override
+    public List<Asset> deleteAssets(final QueryCriteria criteria) {
+        throw new UnsupportedOperationException(READ_ONLY_MESSAGE);
+    }
+
+    @Override
+    public List<Asset> deleteAssets(final List<QueryCriteria> criteria) {
+        throw new UnsupportedOperationException(READ_ONLY_MESSAGE);
+    }
+
+    @Override
+    public Optional<Asset> deleteAssetById(final String assetId) {
+        throw new UnsupportedOperationException(READ_ONLY_MESSAGE);
+    }
+
+    @Override
+    public List<Asset> deleteAssetsByIds(final List<String> assetId) {
+        throw new UnsupportedOperationException(READ_ONLY_MESSAGE);
+    }
+
+    @Override
+    public Optional<Asset> getAssetById(final String asset_id) {
+        return current().getAssetById(asset_id);
+    }
+
+    @Override
+    public List<Asset> getAssetsByIds(final List<String> assetIds) {
+        return current().getAssetsByIds(assetIds);
+    }
+
+    @Override
+    public List<Asset> getFullInventory() {
+        return current().getFullInventory();
+    }
+
+    @Override
+    public int getFullInventorySize() {
+        return current().getFullInventorySize();
+    }
+
+    @Override
+    public int totalMemory() {
+        return current().totalMemory();
+    }
+
+    @Override
+    public int totalMemory(final QueryCriteria criteria) {
+        return current().totalMemory(criteria);
+    }
+
+    @Override
+    public int totalCores() {
+        return current().totalCores();
+    }
+
+    @Override
+    public int totalCores(final QueryCriteria criteria) {
+        return current().totalCores(criteria);
+    }
+
+    @Override
+    public int maxMemory() {
+        return current().maxMemory();
+    }
+
+    @Override
+    public int maxMemory(final QueryCriteria criteria) {
+        return current().maxMemory(criteria);
+    }
+
+    @Override
+    public int maxCores() {
+        return current().maxCores();
+    }
+
+    @Override
+    public int maxCores(final QueryCriteria criteria) {
+        return current().maxCores(criteria);
+    }
+
+    @Override
+    public int minMemory() {
+        return current().minMemory();
+    }
+
+    @Override
+    public int minMemory(final QueryCriteria criteria) {
+        return current().minMemory(criteria);
+    }
+
+    @Override
+    public int minCores() {
+        return current().minCores();
+    }
+
+    @Override
+    public int minCores(final QueryCriteria criteria) {
+        return current().minCores(criteria);
+    }
+
+    @Override
+    public int totalAssets(final QueryCriteria criteria) {
+        return current().totalAssets(criteria);
+    }
+
+    @Override
+    public List<Asset> search(final QueryCriteria criteria) {
+        return current().search(criteria);
+    }
+
+    /*
+     * List based queries run against a single snapshot, so that every criteria of the list
+     * sees the same state of the inventory.
+     */
+
+    @Override
+    public List<Asset> search(final List<QueryCriteria> criteria) {
+        return current().search(criteria);
+    }
+
+    @Override
+    public int totalAssets(final List<QueryCriteria> criteria) {
+        return current().totalAssets(criteria);
+    }
+
+    @Override
+    public int totalMemory(final List<QueryCriteria> criteria) {
+        return current().totalMemory(criteria);
+    }
+
+    @Override
+    public int totalCores(final List<QueryCriteria> criteria) {
+        return current().totalCores(criteria);
+    }
+
+    @Override
+    public int maxMemory(final List<QueryCriteria> criteria) {
+        return current().maxMemory(criteria);
+    }
+
+    @Override
+    public int maxCores(final List<QueryCriteria> criteria) {
+        return current().maxCores(criteria);
+    }
+
+    @Override
+    public int minMemory(final List<QueryCriteria> criteria) {
+        return current().minMemory(criteria);
+    }
+
+    @Override
+    public int minCores(final List<QueryCriteria> criteria) {
+        return current().minCores(criteria);
+    }
+}
@@ -0,0 +1,325 @@
+package inventory.replication;
+
+import inventory.Delta;
+import inventory.Inventory;
+import inventory.data.Asset;
+import inventory.query.QueryCriteria;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * The primary of a replicated inventory.
+ *
+ * Wraps the inventory holding the authoritative state and records every successful mutation
+ * to a MutationLog, which ReadReplicas tail. Mutations are applied and logged under one write
+ * lock so that the log order always matches the order in which the primary applied them.
+ */
+public class ReplicatedInventory implements Inventory {
+
+    private final Inventory primary;
+    private final MutationLog log;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ReplicatedInventory(final Inventory primary, final MutationLog log) {
+        this.primary = notNull(primary);
+        this.log = notNull(log);
+    }
+
+    public MutationLog getMutationLog() {
+        return log;
+    }
+
+    @Override
+    public String addAsset(final Asset asset) {
+        return write(() -> {
+            String id = primary.addAsset(asset);
+            log.append(Mutation.Type.ADD, asset);
+            return id;
+        });
+    }
+
+    @Override
+    public List<String> addAssets(final List<Asset> assets) {
+        // Validate up front, a partially applied list would not make it to the log
+        notNull(assets, NON_NULL_ARGUMENT);
+        for (Asset a : assets) {
+            notNull(a, NON_NULL_ARGUMENT);
+        }
+
+        return write(() -> {
+            List<String> ids = primary.addAssets(assets);
+            for (Asset a : assets) {
+                log.append(Mutation.Type.ADD, a);
+            }
+            return ids;
+        });
+    }
+
+    /**
+     * An update is logged as the addition of the new version, which replaces the previous
+     * one on the replicas.
+     */
+    @Override
+    public Optional<Asset> updateAsset(final Asset asset) {
+        notNull(asset, NON_NULL_ARGUMENT);
+        return write(() -> {
+            Optional<Asset> previous = primary.updateAsset(asset);
+            previous.ifPresent(p -> log.append(Mutation.Type.ADD, asset));
+            return previous;
+        });
+    }
+
+    @Override
+    public List<Asset> updateAssets(final List<Asset> assets) {
+        notNull(assets, NON_NULL_ARGUMENT);
+        for (Asset a : assets) {
+            notNull(a, NON_NULL_ARGUMENT);
+        }
+
+        return write(() -> {
+            List<Asset> replaced = primary.updateAssets(assets);
+            Set<String> updated = new HashSet<>();
+            for (Asset a : replaced) {
+                updated.add(a.getAssetId());
+            }
+            for (Asset a : assets) {
+                if (updated.contains(a.getAssetId())) {
+                    log.append(Mutation.Type.ADD, a);
+                }
+            }
+            return replaced;
+        });
+    }
+
+    @Override
+    public Optional<Asset> upsertAsset(final Asset asset) {
+        notNull(asset, NON_NULL_ARGUMENT);
+        return write(() -> {
+            Optional<Asset> previous = primary.upsertAsset(asset);
+            log.append(Mutation.Type.ADD, asset);
+            return previous;
+        });
+    }
+
+    @Override
+    public List<Asset> upsertAssets(final List<Asset> assets) {
+        notNull(assets, NON_NULL_ARGUMENT);
+        for (Asset a : assets) {
+            notNull(a, NON_NULL_ARGUMENT);
+        }
+
+        return write(() -> {
+            List<Asset> replaced = primary.upsertAssets(assets);
+            for (Asset a : assets) {
+                log.append(Mutation.Type.ADD, a);
+            }
+            return replaced;
+        });
+    }
+
+    /**
+     * Logs the difference applied by the primary, removals then additions, replicas replace
+     * a changed asset when they apply its addition.
+     */
+    @Override
+    public Delta reconcile(final List<Asset> assets) {
+        return write(() -> {
+            Delta delta = primary.reconcile(assets);
+            logDeletes(delta.getRemoved());
+            for (Asset a : delta.getAdded()) {
+                log.append(Mutation.Type.ADD, a);
+            }
+            for (Asset a : delta.getChanged()) {
+                log.append(Mutation.Type.ADD, a);
+            }
+            return delta;
+        });
+    }
+
+    @Override
+    public Optional<Asset> getAssetById(final String asset_id) {
+        return read(() -> primary.getAssetById(asset_id));
+    }
+
+    @Override
+    public List<Asset> getAssetsByIds(final List<String> assetIds) {
+        return read(() -> primary.getAssetsByIds(assetIds));
+    }
+
+    @Override
+    public List<Asset> deleteAssets(final QueryCriteria criteria) {
+        return write(() -> logDeletes(primary.deleteAssets(criteria)));
+    }
+
+    @Override
+    public List<Asset> deleteAssets(final List<QueryCriteria> criteria) {
+        return write(() -> logDeletes(primary.deleteAssets(criteria)));
+    }
+
+    @Override
+    public Optional<Asset> deleteAssetById(final String assetId) {
+        return write(() -> {
+            Optional<Asset> deleted = primary.deleteAssetById(assetId);
+            deleted.ifPresent(a -> log.append(Mutation.Type.DELETE, a));
+            return deleted;
+        });
+    }
+
+    @Override
+    public List<Asset> deleteAssetsByIds(final List<String> assetId) {
+        return write(() -> logDeletes(primary.deleteAssetsByIds(assetId)));
+    }
+
+    @Override
+    public List<Asset> getFullInventory() {
+        return read(primary::getFullInventory);
+    }
+
+    @Override
+    public int getFullInventorySize() {
+        return read(primary::getFullInventorySize);
+    }
+
+    @Override
+    public int totalMemory() {
+        return read(primary::totalMemory);
+    }
+
+    @Override
+    public int totalMemory(final QueryCriteria criteria) {
+        return read(() -> primary.totalMemory(criteria));
+    }
+
+    @Override
+    public int totalCores() {
+        return read(primary::totalCores);
+    }
+
+    @Override
+    public int totalCores(final QueryCriteria criteria) {
+        return read(() -> primary.totalCores(criteria));
+    }
+
+    @Override
+    public int maxMemory() {
+        return read(primary::maxMemory);
+    }
+
+    @Override
+    public int maxMemory(final QueryCriteria criteria) {
+        return read(() -> primary.maxMemory(criteria));
+    }
+
+    @Override
+    public int maxCores() {
+        return read(primary::maxCores);
+    }
+
+    @Override
+    public int maxCores(final QueryCriteria criteria) {
+        return read(() -> primary.maxCores(criteria));
+    }
+
+    @Override
+    public int minMemory() {
+        return read(primary::minMemory);
+    }
+
+    @Override
+    public int minMemory(final QueryCriteria criteria) {
+        return read(() -> primary.minMemory(criteria));
+    }
+
+    @Override
+    public int minCores() {
+        return read(primary::minCores);
+    }
+
+    @Override
+    public int minCores(final QueryCriteria criteria) {
+        return read(() -> primary.minCores(criteria));
+    }
+
+    @Override
+    public int totalAssets(final QueryCriteria criteria) {
+        return read(() -> primary.totalAssets(criteria));
+    }
+
+    @Override
+    public List<Asset> search(final QueryCriteria criteria) {
+        return read(() -> primary.search(criteria));
+    }
+
+    @Override
+    public List<Asset> search(final List<QueryCriteria> criteria) {
+        return read(() -> primary.search(criteria));
+    }
+
+    @Override
+    public int totalAssets(final List<QueryCriteria> criteria) {
+        return read(() -> primary.totalAssets(criteria));
+    }
+
+    @Override
+    public int totalMemory(final List<QueryCriteria> criteria) {
+        return read(() -> primary.totalMemory(criteria));
+    }
+
+    @Override
+    public int totalCores(final List<QueryCriteria> criteria) {
+        return read(() -> primary.totalCores(criteria));
+    }
+
+    @Override
+    public int maxMemory(final List<QueryCriteria> criteria) {
+        return read(() -> primary.maxMemory(criteria));
+    }
+
+    @Override
+    public int maxCores(final List<QueryCriteria> criteria) {
+        return read(() -> primary.maxCores(criteria));
+    }
+
+    @Override
+    public int minMemory(final List<QueryCriteria> criteria) {
+        return read(() -> primary.minMemory(criteria));
+    }
+
+    @Override
+    public int minCores(final List<QueryCriteria> criteria) {
+        return read(() -> primary.minCores(criteria));
+    }
+
+    private List<Asset> logDeletes(final List<Asset> deleted) {
+        for (Asset a : deleted) {
+            log.append(Mutation.Type.DELETE, a);
+        }
+        return deleted;
+    }
+
+    private <T> T read(final Supplier<T> operation) {
+        return locked(lock.readLock(), operation);
+    }
+
+    private <T> T write(final Supplier<T> operation) {
+        return locked(lock.writeLock(), operation);
+    }
+
+    private static <T> T locked(final Lock held, final Supplier<T> operation) {
+        held.lock();
+        try {
+            return operation.get();
+        } finally {
+            held.unlock();
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package inventory.rollup;
+
+import inventory.data.Configuration;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Time series of the capacity of an inventory (count, memory and cores for each operating
+ * system and CPU) recorded at a fixed interval.
+ *
+ * A sample is computed from the number of assets of each configuration, which inventories
+ * keep up to date as assets change (see DefaultInventory.getConfigurations), so recording
+ * costs a walk of the distinct configurations rather than a scan of the assets.
+ *
+ * Samples are kept in a ring buffer of primitive arrays holding a fixed number of them. Once
+ * it is full, the oldest sample is dropped for each new one, or appended to a spill file when
+ * one is configured, in which case ranges reaching past the buffer are read back from the file.
+ */
+public final class CapacityRollup implements Closeable {
+
+    /**
+     * How the samples falling into one step of a downsampled series are combined, field by field.
+     */
+    public enum Reduction { MEAN, MIN, MAX, LAST }
+
+    static final String INVALID_INTERVAL = "Interval must be at least a millisecond.";
+    static final String INVALID_CAPACITY = "Capacity must be a positive number.";
+    static final String INVALID_RANGE = "Range must not end before it starts.";
+    static final String INVALID_STEP = "Step must be at least a millisecond.";
+
+    private final Logger logger = Logger.getLogger(CapacityRollup.class.getName());
+
+    private final Supplier<Map<Configuration, Integer>> source;
+    private final Duration interval;
+    private final Clock clock;
+    private final int capacity;
+    private final SpillFile spill;
+
+    // Ring buffer, the sample in slot i has its time in times[i] and its fields from values[i * FIELDS]
+    private final long[] times;
+    private final int[] values;
+    private int oldest;
+    private int size;
+    private long lastTime = Long.MIN_VALUE;
+
+    private final Lock lock = new ReentrantLock();
+    private ScheduledExecutorService recorder;
+    // Once the spill file is closed, samples leaving the buffer are dropped
+    private boolean closed;
+
+    private CapacityRollup(final Builder builder) throws IOException {
+        source = notNull(builder.source);
+        interval = notNull(builder.interval);
+        isTrue(interval.toMillis() > 0, INVALID_INTERVAL);
+        isTrue(builder.capacity > 0, INVALID_CAPACITY);
+        capacity = builder.capacity;
+        clock = notNull(builder.clock);
+
+        times = new long[capacity];
+        values = new int[capacity * Sample.FIELDS];
+        spill = builder.spillFile == null ? null : new SpillFile(builder.spillFile);
+    }
+
+    public static CapacityRollup.Builder builder() {
+        return new CapacityRollup.Builder();
+    }
+
+    /**
+     * Takes a sample now, the recorder does so every interval once started.
+     *
+     * @return the sample recorded
+     */
+    public Sample record() {
+        int[] sample = new int[Sample.FIELDS];
+        for (Map.Entry<Configuration, Integer> entry : source.get().entrySet()) {
+            Configuration configuration = entry.getKey();
+            int count = entry.getValue();
+            int offset = Sample.offset(configuration.getOS(), configuration.getCPU());
+            sample[offset] += count;
+            sample[offset + 1] += count * configuration.getMemory();
+            sample[offset + 2] += count * configuration.getCores();
+        }
+
+        lock.lock();
+        try {
+            // Times never go back, even when the clock does
+            long time = Math.max(clock.millis(), lastTime);
+            lastTime = time;
+
+            if (size == capacity) {
+                if (spill != null && !closed) {
+                    spill.append(times[oldest], values, oldest * Sample.FIELDS);
+                }
+                oldest = (oldest + 1) % capacity;
+                size--;
+            }
+            int slot = (oldest + size) % capacity;
+            times[slot] = time;
+            System.arraycopy(sample, 0, values, slot * Sample.FIELDS, Sample.FIELDS);
+            size++;
+            return new Sample(time, sample);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts recording a sample every interval in the background.
+     */
+    public void start() {
+        lock.lock();
+        try {
+            isTrue(recorder == null, "Rollup is already recording.");
+            recorder = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "capacity-rollup");
+                t.setDaemon(true);
+                return t;
+            });
+            recorder.scheduleAtFixedRate(this::tick, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops recording and closes the spill file. The samples in memory can still be queried,
+     * the ones spilled to disk are left out of the ranges from then on.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (recorder != null) {
+                recorder.shutdownNow();
+                recorder = null;
+            }
+            if (spill != null && !closed) {
+                spill.close();
+            }
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the samples taken in [from, to), oldest first, including those spilled to disk
+     */
+    public List<Sample> range(final Instant from, final Instant to) {
+        notNull(from);
+        notNull(to);
+        isTrue(!to.isBefore(from), INVALID_RANGE);
+        long start = from.toEpochMilli();
+        long end = to.toEpochMilli();
+
+        List<Sample> result = new ArrayList<>();
+        lock.lock();
+        try {
+            long firstInMemory = size == 0 ? Long.MAX_VALUE : times[oldest];
+            if (spill != null && !closed && start < firstInMemory) {
+                result.addAll(spill.read(start, Math.min(end, firstInMemory)));
+            }
+            for (int i = 0; i < size; i++) {
+                int slot = (oldest + i) % capacity;
+                long time = times[slot];
+                if (time >= end) break;
+                if (time >= start) {
+                    int offset = slot * Sample.FIELDS;
+                    result.add(new Sample(time, Arrays.copyOfRange(values, offset, offset + Sample.FIELDS)));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Combines the samples of [from, to) into one per step, each timed at the start of its
+     * step. Steps without any sample are left out.
+     */
+    public List<Sample> downsample(final Instant from, final Instant to, final Duration step,
+                                   final Reduction reduction) {
+        notNull(step);
+        notNull(reduction);
+        isTrue(step.toMillis() > 0, INVALID_STEP);
+        long start = notNull(from).toEpochMilli();
+        long stepMillis = step.toMillis();
+
+        List<Sample> result = new ArrayList<>();
+        List<Sample> bucket = new ArrayList<>();
+        long bucketIndex = -1;
+        for (Sample sample : range(from, to)) {
+            long index = (sample.time() - start) / stepMillis;
+            if (index != bucketIndex && !bucket.isEmpty()) {
+                result.add(reduce(start + bucketIndex * stepMillis, bucket, reduction));
+                bucket.clear();
+            }
+            bucketIndex = index;
+            bucket.add(sample);
+        }
+        if (!bucket.isEmpty()) {
+            result.add(reduce(start + bucketIndex * stepMillis, bucket, reduction));
+        }
+        return result;
+    }
+
+    /**
+     * @return number of samples held in memory
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    private void tick() {
+        try {
+            record();
+        } catch (Throwable e) {
+            // Errors too, they would cancel the schedule silently. Keep recording, this sample is lost
+            logger.warning("Failed to record capacity: " + e);
+        }
+    }
+
+    private static Sample reduce(final long time, final List<Sample> samples, final Reduction reduction) {
+        if (reduction == Reduction.LAST) return new Sample(time, samples.get(samples.size() - 1).values());
+
+        int[] result = new int[Sample.FIELDS];
+        for (int f = 0; f < Sample.FIELDS; f++) {
+            long reduced = reduction == Reduction.MIN ? Long.MAX_VALUE : reduction == Reduction.MAX ? Long.MIN_VALUE : 0;
+            for (Sample sample : samples) {
+                int value = sample.values()[f];
+                switch (reduction) {
+                    case MIN:
+                        reduced = Math.min(reduced, value);
+                        break;
+                    case MAX:
+                        reduced = Math.max(reduced, value);
+                        break;
+                    default:
+                        reduced += value;
+                }
+            }
+            result[f] = (int) (reduction == Reduction.MEAN ? Math.round((double) reduced / samples.size()) : reduced);
+        }
+        return new Sample(time, result);
+    }
+
+    public static class Builder {
+
+        private Supplier<Map<Configuration, Integer>> source;
+        private Duration interval = Duration.ofMinutes(1);
+        private int capacity = 24 * 60;
+        private Path spillFile;
+        private Clock clock = Clock.systemUTC();
+
+        private Builder() {}
+
+        /**
+         * @param source number of assets of each configuration, such as
+         *               ShardedInventory::getConfigurations. Called from the recording thread, it
+         *               must be safe to call while the inventory changes.
+         */
+        public Builder setSource(Supplier<Map<Configuration, Integer>> source)
+        {
+            this.source = source;
+            return this;
+        }
+
+        public Builder setInterval(Duration interval)
+        {
+            this.interval = interval;
+            return this;
+        }
+
+        /**
+         * @param capacity number of samples kept in memory, a day of minutes by default
+         */
+        public Builder setCapacity(int capacity)
+        {
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * @param spillFile file receiving the samples dropped from memory, replaced if it exists
+         */
+        public Builder setSpillFile(Path spillFile)
+        {
+            this.spillFile = spillFile;
+            return this;
+        }
+
+        public Builder setClock(Clock clock)
+        {
+            this.clock = clock;
+            return this;
+        }
+
+        public CapacityRollup build() throws IOException
+        {
+            return new CapacityRollup(this);
+        }
+    }
+}
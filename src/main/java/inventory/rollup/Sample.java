@@ -0,0 +1,89 @@
+package inventory.rollup;
+
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+
+import java.time.Instant;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Capacity of an inventory at one point in time: the number of assets along with their total
+ * memory and cores for each pair of operating system and CPU.
+ */
+public final class Sample {
+
+    static final int CELLS = OperatingSystem.values().length * CPU.values().length;
+
+    // Count, memory and cores of each cell
+    static final int FIELDS = 3 * CELLS;
+
+    private final long time;
+    private final int[] values;
+
+    Sample(final long time, final int[] values) {
+        this.time = time;
+        this.values = values;
+    }
+
+    public Instant getTime() {
+        return Instant.ofEpochMilli(time);
+    }
+
+    public int getCount(final OperatingSystem os, final CPU cpu) {
+        return values[offset(os, cpu)];
+    }
+
+    public int getTotalMemory(final OperatingSystem os, final CPU cpu) {
+        return values[offset(os, cpu) + 1];
+    }
+
+    public int getTotalCores(final OperatingSystem os, final CPU cpu) {
+        return values[offset(os, cpu) + 2];
+    }
+
+    /**
+     * @return number of assets of any operating system and CPU
+     */
+    public int getCount() {
+        return sum(0);
+    }
+
+    public int getTotalMemory() {
+        return sum(1);
+    }
+
+    public int getTotalCores() {
+        return sum(2);
+    }
+
+    long time() {
+        return time;
+    }
+
+    int[] values() {
+        return values;
+    }
+
+    /**
+     * @return index of the count of the operating system and CPU, their memory and cores follow
+     */
+    static int offset(final OperatingSystem os, final CPU cpu) {
+        notNull(os);
+        notNull(cpu);
+        return 3 * (os.ordinal() * CPU.values().length + cpu.ordinal());
+    }
+
+    private int sum(final int field) {
+        int sum = 0;
+        for (int i = field; i < FIELDS; i += 3) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    public String toString() {
+        return "Time: " + getTime() + " Assets: " + getCount() + " Memory (GB): " + getTotalMemory()
+                + " Cores: " + getTotalCores();
+    }
+}
@@ -0,0 +1,102 @@
+package inventory.rollup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Samples evicted from the ring buffer, appended to a file as fixed width records (the time
+ * then every field as an int) in time order. A range is located by a binary search on the
+ * times, then read sequentially.
+ */
+final class SpillFile implements AutoCloseable {
+
+    static final int RECORD_SIZE = Long.BYTES + Sample.FIELDS * Integer.BYTES;
+
+    private final FileChannel channel;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private long records;
+
+    /**
+     * Starts an empty file, replacing any file at the path.
+     */
+    SpillFile(final Path file) throws IOException {
+        channel = FileChannel.open(file, CREATE, READ, WRITE, TRUNCATE_EXISTING);
+    }
+
+    void append(final long time, final int[] values, final int offset) throws IOException {
+        record.clear();
+        record.putLong(time);
+        for (int i = 0; i < Sample.FIELDS; i++) {
+            record.putInt(values[offset + i]);
+        }
+        record.flip();
+        long position = records * RECORD_SIZE;
+        while (record.hasRemaining()) {
+            position += channel.write(record, position);
+        }
+        records++;
+    }
+
+    /**
+     * @return the samples whose time is in [from, to), oldest first
+     */
+    List<Sample> read(final long from, final long to) throws IOException {
+        long low = 0;
+        long high = records;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (timeAt(middle) < from) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        List<Sample> samples = new ArrayList<>();
+        for (long i = low; i < records; i++) {
+            read(i);
+            long time = record.getLong();
+            if (time >= to) break;
+
+            int[] values = new int[Sample.FIELDS];
+            for (int f = 0; f < Sample.FIELDS; f++) {
+                values[f] = record.getInt();
+            }
+            samples.add(new Sample(time, values));
+        }
+        return samples;
+    }
+
+    long size() {
+        return records;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private long timeAt(final long index) throws IOException {
+        read(index);
+        return record.getLong();
+    }
+
+    private void read(final long index) throws IOException {
+        record.clear();
+        long position = index * RECORD_SIZE;
+        while (record.hasRemaining()) {
+            int read = channel.read(record, position + record.position());
+            if (read < 0) throw new IOException("Spill file truncated at record " + index);
+        }
+        record.flip();
+    }
+}
@@ -0,0 +1,263 @@
+package inventory.snapshot;
+
+import inventory.data.Configuration;
+import inventory.query.Aggregates;
+import inventory.query.QueryCriteria;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Versioned inventory keeping its history, so that searches and aggregates can be answered as
+ * of a past instant, such as the total memory of some assets at the end of a month.
+ *
+ * Every change is recorded with its time as the addition or the removal of an asset, an update
+ * being the removal of the previous version followed by the addition of the new one. The
+ * history is split into segments covering a fixed period of time. A segment starts with a
+ * checkpoint: the version current when the segment began, which shares its structure with the
+ * other versions, and the number of assets of each configuration at that time. A past state is
+ * derived from the checkpoint of its segment and the changes of that segment up to the instant,
+ * so the cost of a historical query depends on the length of a segment, not of the history.
+ *
+ * Reads of the current state are those of VersionedInventory.
+ */
+public class HistoricalInventory extends VersionedInventory {
+
+    public static final Duration DEFAULT_SEGMENT_LENGTH = Duration.ofDays(1);
+
+    static final String INVALID_SEGMENT_LENGTH = "Segment length must be at least a millisecond.";
+
+    private final long segmentMillis;
+    private final Clock clock;
+
+    // Segments by start time, guarded by the history lock
+    private final NavigableMap<Long, Segment> segments = new TreeMap<>();
+    private final ReadWriteLock history = new ReentrantReadWriteLock();
+
+    // Number of assets of each configuration in the latest version, only used by the writer
+    private final Map<Configuration, Integer> configurations = new HashMap<>();
+    private long lastMillis = Long.MIN_VALUE;
+
+    public HistoricalInventory() {
+        this(DEFAULT_SEGMENT_LENGTH, Clock.systemUTC());
+    }
+
+    public HistoricalInventory(final Duration segmentLength) {
+        this(segmentLength, Clock.systemUTC());
+    }
+
+    /**
+     * @param segmentLength period of time covered by a segment, shorter segments make historical
+     *                      queries cheaper and take more checkpoints
+     * @param clock         source of the time of the changes
+     */
+    public HistoricalInventory(final Duration segmentLength, final Clock clock) {
+        notNull(segmentLength);
+        isTrue(segmentLength.toMillis() > 0, INVALID_SEGMENT_LENGTH);
+        this.segmentMillis = segmentLength.toMillis();
+        this.clock = notNull(clock);
+    }
+
+    /**
+     * @return the inventory as it was at the instant, with the full read api, empty before the
+     * first change. Versions of the past are rebuilt, their version numbers are not those
+     * they were published with.
+     */
+    public InventorySnapshot asOf(final Instant instant) {
+        notNull(instant);
+        long millis = instant.toEpochMilli();
+
+        history.readLock().lock();
+        try {
+            Map.Entry<Long, Segment> entry = segments.floorEntry(millis);
+            if (entry == null) return InventorySnapshot.EMPTY;
+
+            Segment segment = entry.getValue();
+            InventorySnapshot.Editor editor = segment.checkpoint.edit();
+            for (InventorySnapshot.Change change : segment.changesUpTo(millis)) {
+                if (change.added) {
+                    editor.add(change.asset);
+                } else {
+                    editor.delete(change.asset.getAssetId());
+                }
+            }
+            return editor.build();
+        } finally {
+            history.readLock().unlock();
+        }
+    }
+
+    /**
+     * Aggregates over every asset held at the instant, computed from the checkpointed number of
+     * assets of each configuration without rebuilding the assets.
+     */
+    public Aggregates aggregateAsOf(final Instant instant) {
+        return aggregate(instant, null);
+    }
+
+    /**
+     * Aggregates over the assets matching the criteria at the instant, see aggregateAsOf. The
+     * rules of the search method apply, a null or empty criteria matches nothing.
+     */
+    public Aggregates aggregateAsOf(final Instant instant, final QueryCriteria criteria) {
+        if (criteria == null || criteria.isEmpty()) return Aggregates.EMPTY;
+        return aggregate(instant, criteria);
+    }
+
+    /**
+     * Forgets the history before the instant, past states from the start of the segment
+     * holding the instant on remain available, earlier ones are answered as empty.
+     */
+    public void trim(final Instant before) {
+        notNull(before);
+        history.writeLock().lock();
+        try {
+            Long kept = segments.floorKey(before.toEpochMilli());
+            if (kept != null) {
+                segments.headMap(kept, false).clear();
+            }
+        } finally {
+            history.writeLock().unlock();
+        }
+    }
+
+    public int getSegmentCount() {
+        history.readLock().lock();
+        try {
+            return segments.size();
+        } finally {
+            history.readLock().unlock();
+        }
+    }
+
+    @Override
+    boolean isRecording() {
+        return true;
+    }
+
+    /**
+     * Records the changes, under the time of the clock or of the previous changes if the clock
+     * went back. The first change of a period starts a segment, whose checkpoint is the
+     * previous version.
+     */
+    @Override
+    void published(final InventorySnapshot previous, final InventorySnapshot next,
+                   final List<InventorySnapshot.Change> changes) {
+        long now = Math.max(clock.millis(), lastMillis);
+        lastMillis = now;
+
+        history.writeLock().lock();
+        try {
+            Map.Entry<Long, Segment> latest = segments.lastEntry();
+            long start = now - Math.floorMod(now, segmentMillis);
+            Segment segment;
+            if (latest == null || latest.getKey() < start) {
+                segment = new Segment(previous, new HashMap<>(configurations));
+                segments.put(start, segment);
+            } else {
+                segment = latest.getValue();
+            }
+
+            for (InventorySnapshot.Change change : changes) {
+                segment.add(now, change);
+                count(configurations, change.asset.getConfiguration(), change.added);
+            }
+        } finally {
+            history.writeLock().unlock();
+        }
+    }
+
+    private Aggregates aggregate(final Instant instant, final QueryCriteria criteria) {
+        notNull(instant);
+        long millis = instant.toEpochMilli();
+
+        Map<Configuration, Integer> counts;
+        history.readLock().lock();
+        try {
+            Map.Entry<Long, Segment> entry = segments.floorEntry(millis);
+            if (entry == null) return Aggregates.EMPTY;
+
+            Segment segment = entry.getValue();
+            counts = new HashMap<>(segment.configurations);
+            for (InventorySnapshot.Change change : segment.changesUpTo(millis)) {
+                count(counts, change.asset.getConfiguration(), change.added);
+            }
+        } finally {
+            history.readLock().unlock();
+        }
+
+        Aggregates.Accumulator accumulator = new Aggregates.Accumulator();
+        for (Map.Entry<Configuration, Integer> entry : counts.entrySet()) {
+            Configuration configuration = entry.getKey();
+            if (criteria == null || criteria.matches(configuration)) {
+                accumulator.add(entry.getValue(), configuration.getCores(), configuration.getMemory());
+            }
+        }
+        return accumulator.result();
+    }
+
+    private static void count(final Map<Configuration, Integer> counts, final Configuration configuration,
+                              final boolean added) {
+        if (added) {
+            counts.merge(configuration, 1, Integer::sum);
+        } else {
+            counts.computeIfPresent(configuration, (c, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    /**
+     * The changes of a period of time, on top of the state at its start.
+     */
+    private static final class Segment {
+
+        private final InventorySnapshot checkpoint;
+        private final Map<Configuration, Integer> configurations;
+
+        // The changes in order, along with their times
+        private final List<InventorySnapshot.Change> changes = new ArrayList<>();
+        private long[] times = new long[16];
+
+        private Segment(final InventorySnapshot checkpoint, final Map<Configuration, Integer> configurations) {
+            this.checkpoint = checkpoint;
+            this.configurations = configurations;
+        }
+
+        private void add(final long time, final InventorySnapshot.Change change) {
+            if (changes.size() == times.length) {
+                times = Arrays.copyOf(times, times.length * 2);
+            }
+            times[changes.size()] = time;
+            changes.add(change);
+        }
+
+        /**
+         * @return the changes made at or before the time, found by a binary search of the times
+         */
+        private List<InventorySnapshot.Change> changesUpTo(final long time) {
+            int low = 0;
+            int high = changes.size();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (times[middle] <= time) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return changes.subList(0, low);
+        }
+    }
+}
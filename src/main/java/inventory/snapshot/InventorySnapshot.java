@@ -0,0 +1,393 @@
+package inventory.snapshot;
+
+import inventory.AbstractInventory;
+import inventory.data.Asset;
+import inventory.query.Aggregates;
+import inventory.query.Expression;
+import inventory.query.Page;
+import inventory.query.PageRequest;
+import inventory.query.QueryCriteria;
+import inventory.query.SortKey;
+import inventory.query.TopK;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * An immutable, consistent version of an inventory.
+ *
+ * A snapshot supports the full read api of the Inventory interface without any locking, every
+ * query (including each criteria of a list based query) sees exactly the same assets. Mutations
+ * are rejected, new versions are derived through an Editor which shares the untouched parts of
+ * the underlying storage with this snapshot.
+ *
+ * The aggregates over the entire snapshot are computed once, on first use.
+ */
+public final class InventorySnapshot extends AbstractInventory {
+
+    public static final InventorySnapshot EMPTY = new InventorySnapshot(0, PersistentAssetMap.EMPTY);
+
+    static final String READ_ONLY_MESSAGE = "Inventory snapshots are immutable.";
+
+    private final long version;
+    private final PersistentAssetMap assets;
+
+    // Lazily computed, racing threads compute the same value
+    private volatile Aggregates fullAggregates;
+
+    private InventorySnapshot(final long version, final PersistentAssetMap assets) {
+        this.version = version;
+        this.assets = assets;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Starts a new version derived from this snapshot, the snapshot itself is left untouched.
+     *
+     * @return Editor
+     */
+    public Editor edit() {
+        return new Editor(this, false);
+    }
+
+    /**
+     * @param recording whether the editor keeps the list of its changes, see Editor.changes
+     */
+    Editor edit(final boolean recording) {
+        return new Editor(this, recording);
+    }
+
+    @Override
+    public Optional<Asset> getAssetById(final String asset_id) {
+        return Optional.ofNullable(assets.get(asset_id));
+    }
+
+    @Override
+    public List<Asset> getAssetsByIds(final List<String> assetIds) {
+        List<Asset> result = new ArrayList<>(assetIds.size());
+        for (String id : assetIds) {
+            Asset a = assets.get(id);
+            if (a != null) {
+                result.add(a);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Asset> getFullInventory() {
+        List<Asset> result = new ArrayList<>(assets.size());
+        assets.forEach(result::add);
+        return result;
+    }
+
+    @Override
+    public int getFullInventorySize() {
+        return assets.size();
+    }
+
+    /**
+     * @return the aggregates over every asset of the snapshot
+     */
+    public Aggregates aggregate() {
+        Aggregates result = fullAggregates;
+        if (result == null) {
+            Aggregates.Accumulator accumulator = new Aggregates.Accumulator();
+            assets.forEach(accumulator::add);
+            result = accumulator.result();
+            fullAggregates = result;
+        }
+        return result;
+    }
+
+    /**
+     * Aggregates over the assets matching the criteria. The rules of the search method apply,
+     * a null or empty criteria matches nothing.
+     *
+     * @param criteria
+     * @return Aggregates
+     */
+    public Aggregates aggregate(final QueryCriteria criteria) {
+        if (criteria == null || criteria.isEmpty()) return Aggregates.EMPTY;
+
+        Aggregates.Accumulator accumulator = new Aggregates.Accumulator();
+        assets.forEach(a -> {
+            if (criteria.matches(a)) accumulator.add(a);
+        });
+        return accumulator.result();
+    }
+
+    @Override
+    public List<Asset> search(final QueryCriteria criteria) {
+        if (criteria == null || criteria.isEmpty()) return new ArrayList<>();
+        return search(assets, criteria);
+    }
+
+    @Override
+    public List<Asset> search(final Expression expression) {
+        List<Asset> result = new ArrayList<>();
+        if (expression == null) return result;
+
+        assets.forEach(a -> {
+            if (expression.matches(a)) result.add(a);
+        });
+        return result;
+    }
+
+    @Override
+    public List<Asset> top(final int k, final SortKey key) {
+        return select(TopK.largest(k, key), null);
+    }
+
+    @Override
+    public List<Asset> top(final int k, final SortKey key, final QueryCriteria criteria) {
+        if (criteria == null || criteria.isEmpty()) return TopK.largest(k, key).result();
+        return select(TopK.largest(k, key), criteria);
+    }
+
+    @Override
+    public List<Asset> bottom(final int k, final SortKey key) {
+        return select(TopK.smallest(k, key), null);
+    }
+
+    @Override
+    public List<Asset> bottom(final int k, final SortKey key, final QueryCriteria criteria) {
+        if (criteria == null || criteria.isEmpty()) return TopK.smallest(k, key).result();
+        return select(TopK.smallest(k, key), criteria);
+    }
+
+    @Override
+    public Page search(final QueryCriteria criteria, final PageRequest request) {
+        notNull(request);
+        TopK page = new TopK(request.getPageSize() + 1, request.order());
+        if (criteria == null || criteria.isEmpty()) return Page.of(request, page.result());
+
+        assets.forEach(a -> {
+            if (criteria.matches(a) && request.isAfterCursor(a)) page.accept(a);
+        });
+        return Page.of(request, page.result());
+    }
+
+    private List<Asset> select(final TopK selection, final QueryCriteria criteria) {
+        assets.forEach(a -> {
+            if (criteria == null || criteria.matches(a)) selection.accept(a);
+        });
+        return selection.result();
+    }
+
+    @Override
+    public int totalMemory() {
+        return aggregate().getTotalMemory();
+    }
+
+    @Override
+    public int totalMemory(final QueryCriteria criteria) {
+        return aggregate(criteria).getTotalMemory();
+    }
+
+    @Override
+    public int totalCores() {
+        return aggregate().getTotalCores();
+    }
+
+    @Override
+    public int totalCores(final QueryCriteria criteria) {
+        return aggregate(criteria).getTotalCores();
+    }
+
+    @Override
+    public int maxMemory() {
+        return aggregate().getMaxMemory();
+    }
+
+    @Override
+    public int maxMemory(final QueryCriteria criteria) {
+        return aggregate(criteria).getMaxMemory();
+    }
+
+    @Override
+    public int maxCores() {
+        return aggregate().getMaxCores();
+    }
+
+    @Override
+    public int maxCores(final QueryCriteria criteria) {
+        return aggregate(criteria).getMaxCores();
+    }
+
+    @Override
+    public int minMemory() {
+        return aggregate().getMinMemory();
+    }
+
+    @Override
+    public int minMemory(final QueryCriteria criteria) {
+        return aggregate(criteria).getMinMemory();
+    }
+
+    @Override
+    public int minCores() {
+        return aggregate().getMinCores();
+    }
+
+    @Override
+    public int minCores(final QueryCriteria criteria) {
+        return aggregate(criteria).getMinCores();
+    }
+
+    @Override
+    public int totalAssets(final QueryCriteria criteria) {
+        return aggregate(criteria).getCount();
+    }
+
+    @Override
+    public String addAsset(final Asset asset) {
+        throw new UnsupportedOperationException(READ_ONLY_MESSAGE);
+    }
+
+    @Override
+    public List<String> addAssets(final List<Asset> assets) {
+        throw new UnsupportedOperationException(READ_ONLY_MESSAGE);
+    }
+
+    @Override
+    public List<Asset> deleteAssets(final QueryCriteria criteria) {
+        throw new UnsupportedOperationException(READ_ONLY_MESSAGE);
+    }
+
+    @Override
+    public List<Asset> deleteAssets(final List<QueryCriteria> criteria) {
+        throw new UnsupportedOperationException(READ_ONLY_MESSAGE);
+    }
+
+    @Override
+    public Optional<Asset> deleteAssetById(final String assetId) {
+        throw new UnsupportedOperationException(READ_ONLY_MESSAGE);
+    }
+
+    @Override
+    public List<Asset> deleteAssetsByIds(final List<String> assetId) {
+        throw new UnsupportedOperationException(READ_ONLY_MESSAGE);
+    }
+
+    /**
+     * An asset added to or removed from a version.
+     */
+    static final class Change {
+
+        final Asset asset;
+        final boolean added;
+
+        Change(final Asset asset, final boolean added) {
+            this.asset = asset;
+            this.added = added;
+        }
+    }
+
+    private static List<Asset> search(final PersistentAssetMap assets, final QueryCriteria criteria) {
+        List<Asset> result = new ArrayList<>();
+        assets.forEach(a -> {
+            if (criteria.matches(a)) result.add(a);
+        });
+        return result;
+    }
+
+    /**
+     * Accumulates changes on top of a snapshot and produces the next version. An editor is
+     * meant to be used by a single writer thread.
+     */
+    public static final class Editor {
+
+        private final InventorySnapshot base;
+        private PersistentAssetMap assets;
+
+        // Assets added and removed in the order of the changes, null when not recording
+        private final List<Change> changes;
+
+        private Editor(final InventorySnapshot base, final boolean recording) {
+            this.base = base;
+            this.assets = base.assets;
+            this.changes = recording ? new ArrayList<>() : null;
+        }
+
+        public Editor add(final Asset asset) {
+            notNull(asset, NON_NULL_ARGUMENT);
+            if (changes != null) {
+                Asset previous = assets.get(asset.getAssetId());
+                if (previous == asset) return this;
+                if (previous != null) {
+                    changes.add(new Change(previous, false));
+                }
+                changes.add(new Change(asset, true));
+            }
+            assets = assets.put(asset);
+            return this;
+        }
+
+        /**
+         * @return the asset held under the id in the version being built
+         */
+        public Optional<Asset> get(final String assetId) {
+            return Optional.ofNullable(assets.get(assetId));
+        }
+
+        /**
+         * @return the asset removed, if the id was present
+         */
+        public Optional<Asset> delete(final String assetId) {
+            Asset existing = assets.get(assetId);
+            if (existing != null) {
+                assets = assets.remove(assetId);
+                if (changes != null) {
+                    changes.add(new Change(existing, false));
+                }
+            }
+            return Optional.ofNullable(existing);
+        }
+
+        /**
+         * Removes every asset matching the criteria, a null or empty criteria deletes nothing.
+         *
+         * @return list of assets removed or empty list
+         */
+        public List<Asset> delete(final QueryCriteria criteria) {
+            if (criteria == null || criteria.isEmpty()) return new ArrayList<>();
+
+            List<Asset> deleted = search(assets, criteria);
+            for (Asset a : deleted) {
+                assets = assets.remove(a.getAssetId());
+                if (changes != null) {
+                    changes.add(new Change(a, false));
+                }
+            }
+            return deleted;
+        }
+
+        /**
+         * @return the assets added and removed so far, in order, an update being the removal of
+         * the previous version followed by the addition of the new one; null when the editor
+         * does not record its changes
+         */
+        List<Change> changes() {
+            return changes;
+        }
+
+        public boolean isModified() {
+            return assets != base.assets;
+        }
+
+        /**
+         * @return the next version, or the base snapshot when nothing was changed
+         */
+        public InventorySnapshot build() {
+            if (!isModified()) return base;
+            return new InventorySnapshot(base.version + 1, assets);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package inventory.snapshot;
+
+import inventory.data.Asset;
+
+import java.util.function.Consumer;
+
+/**
+ * Immutable map from asset id to asset, implemented as a hash array mapped trie.
+ *
+ * Every put or remove returns a new map sharing all untouched nodes with the original, so a
+ * modification copies at most one node per level (log32 of the size) instead of the whole map.
+ * Instances can therefore be published to any number of readers without locking.
+ */
+final class PersistentAssetMap {
+
+    static final PersistentAssetMap EMPTY = new PersistentAssetMap(BitmapNode.EMPTY, 0);
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private final Node root;
+    private final int size;
+
+    private PersistentAssetMap(final Node root, final int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    Asset get(final String assetId) {
+        if (assetId == null) return null;
+        return root.get(assetId.hashCode(), assetId, 0);
+    }
+
+    PersistentAssetMap put(final Asset asset) {
+        Change change = new Change();
+        Node newRoot = root.put(new Leaf(asset), 0, change);
+        if (newRoot == root) return this;
+        return new PersistentAssetMap(newRoot, change.added ? size + 1 : size);
+    }
+
+    PersistentAssetMap remove(final String assetId) {
+        if (assetId == null) return this;
+
+        Change change = new Change();
+        Node newRoot = root.remove(assetId.hashCode(), assetId, 0, change);
+        if (!change.removed) return this;
+        return new PersistentAssetMap(newRoot == null ? BitmapNode.EMPTY : newRoot, size - 1);
+    }
+
+    void forEach(final Consumer<Asset> action) {
+        root.forEach(action);
+    }
+
+    private static int index(final int hash, final int shift) {
+        return (hash >>> shift) & MASK;
+    }
+
+    /**
+     * Builds the smallest node holding two entries with distinct hashes. An entry is either a
+     * Leaf or a CollisionNode, both of which carry a single hash.
+     */
+    private static Node merge(final int hash1, final Object entry1, final int hash2, final Object entry2,
+                              final int shift) {
+        int index1 = index(hash1, shift);
+        int index2 = index(hash2, shift);
+        if (index1 == index2) {
+            return new BitmapNode(1 << index1, new Object[] {merge(hash1, entry1, hash2, entry2, shift + BITS)});
+        }
+
+        Object[] slots = index1 < index2 ? new Object[] {entry1, entry2} : new Object[] {entry2, entry1};
+        return new BitmapNode((1 << index1) | (1 << index2), slots);
+    }
+
+    /**
+     * Outcome of a modification, used to maintain the size of the map.
+     */
+    private static final class Change {
+        boolean added;
+        boolean removed;
+    }
+
+    private static final class Leaf {
+
+        final int hash;
+        final String key;
+        final Asset value;
+
+        Leaf(final Asset value) {
+            this.key = value.getAssetId();
+            this.hash = key.hashCode();
+            this.value = value;
+        }
+    }
+
+    private interface Node {
+
+        Asset get(int hash, String key, int shift);
+
+        // Returns this node when nothing changed
+        Node put(Leaf leaf, int shift, Change change);
+
+        // Returns this node when nothing changed, null when the node became empty
+        Node remove(int hash, String key, int shift, Change change);
+
+        void forEach(Consumer<Asset> action);
+    }
+
+    /**
+     * Interior node, the bitmap records which of the 32 possible slots are present and the
+     * array holds only those, each either a Leaf or a child Node.
+     */
+    private static final class BitmapNode implements Node {
+
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        private final int bitmap;
+        private final Object[] slots;
+
+        BitmapNode(final int bitmap, final Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        @Override
+        public Asset get(final int hash, final String key, final int shift) {
+            int bit = 1 << index(hash, shift);
+            if ((bitmap & bit) == 0) return null;
+
+            Object slot = slots[Integer.bitCount(bitmap & (bit - 1))];
+            if (slot instanceof Leaf) {
+                Leaf leaf = (Leaf) slot;
+                return leaf.key.equals(key) ? leaf.value : null;
+            }
+            return ((Node) slot).get(hash, key, shift + BITS);
+        }
+
+        @Override
+        public Node put(final Leaf leaf, final int shift, final Change change) {
+            int bit = 1 << index(leaf.hash, shift);
+            int position = Integer.bitCount(bitmap & (bit - 1));
+
+            if ((bitmap & bit) == 0) {
+                Object[] copy = new Object[slots.length + 1];
+                System.arraycopy(slots, 0, copy, 0, position);
+                copy[position] = leaf;
+                System.arraycopy(slots, position, copy, position + 1, slots.length - position);
+                change.added = true;
+                return new BitmapNode(bitmap | bit, copy);
+            }
+
+            Object slot = slots[position];
+            Object replacement;
+            if (slot instanceof Leaf) {
+                Leaf existing = (Leaf) slot;
+                if (existing.key.equals(leaf.key)) {
+                    if (existing.value == leaf.value) return this;
+                    replacement = leaf;
+                } else if (existing.hash == leaf.hash) {
+                    replacement = new CollisionNode(leaf.hash, new Leaf[] {existing, leaf});
+                    change.added = true;
+                } else {
+                    replacement = merge(existing.hash, existing, leaf.hash, leaf, shift + BITS);
+                    change.added = true;
+                }
+            } else {
+                Node child = (Node) slot;
+                replacement = child.put(leaf, shift + BITS, change);
+                if (replacement == child) return this;
+            }
+
+            Object[] copy = slots.clone();
+            copy[position] = replacement;
+            return new BitmapNode(bitmap, copy);
+        }
+
+        @Override
+        public Node remove(final int hash, final String key, final int shift, final Change change) {
+            int bit = 1 << index(hash, shift);
+            if ((bitmap & bit) == 0) return this;
+
+            int position = Integer.bitCount(bitmap & (bit - 1));
+            Object slot = slots[position];
+            Object replacement;
+            if (slot instanceof Leaf) {
+                if (!((Leaf) slot).key.equals(key)) return this;
+                change.removed = true;
+                replacement = null;
+            } else {
+                Node child = (Node) slot;
+                replacement = child.remove(hash, key, shift + BITS, change);
+                if (replacement == child) return this;
+            }
+
+            if (replacement != null) {
+                Object[] copy = slots.clone();
+                copy[position] = replacement;
+                return new BitmapNode(bitmap, copy);
+            }
+
+            if (slots.length == 1) return null;
+
+            Object[] copy = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, copy, 0, position);
+            System.arraycopy(slots, position + 1, copy, position, slots.length - position - 1);
+            return new BitmapNode(bitmap & ~bit, copy);
+        }
+
+        @Override
+        public void forEach(final Consumer<Asset> action) {
+            for (Object slot : slots) {
+                if (slot instanceof Leaf) {
+                    action.accept(((Leaf) slot).value);
+                } else {
+                    ((Node) slot).forEach(action);
+                }
+            }
+        }
+    }
+
+    /**
+     * Holds the entries whose ids share the same 32 bit hash.
+     */
+    private static final class CollisionNode implements Node {
+
+        private final int hash;
+        private final Leaf[] leaves;
+
+        CollisionNode(final int hash, final Leaf[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+
+        @Override
+        public Asset get(final int hash, final String key, final int shift) {
+            for (Leaf leaf : leaves) {
+                if (leaf.key.equals(key)) return leaf.value;
+            }
+            return null;
+        }
+
+        @Override
+        public Node put(final Leaf leaf, final int shift, final Change change) {
+            if (leaf.hash != hash) {
+                change.added = true;
+                return merge(hash, this, leaf.hash, leaf, shift);
+            }
+
+            for (int i = 0; i < leaves.length; i++) {
+                if (leaves[i].key.equals(leaf.key)) {
+                    if (leaves[i].value == leaf.value) return this;
+                    Leaf[] copy = leaves.clone();
+                    copy[i] = leaf;
+                    return new CollisionNode(hash, copy);
+                }
+            }
+
+            Leaf[] copy = new Leaf[leaves.length + 1];
+            System.arraycopy(leaves, 0, copy, 0, leaves.length);
+            copy[leaves.length] = leaf;
+            change.added = true;
+            return new CollisionNode(hash, copy);
+        }
+
+        @Override
+        public Node remove(final int hash, final String key, final int shift, final Change change) {
+            for (int i = 0; i < leaves.length; i++) {
+                if (leaves[i].key.equals(key)) {
+                    change.removed = true;
+                    if (leaves.length == 1) return null;
+
+                    Leaf[] copy = new Leaf[leaves.length - 1];
+                    System.arraycopy(leaves, 0, copy, 0, i);
+                    System.arraycopy(leaves, i + 1, copy, i, leaves.length - i - 1);
+                    return new CollisionNode(this.hash, copy);
+                }
+            }
+            return this;
+        }
+
+        @Override
+        public void forEach(final Consumer<Asset> action) {
+            for (Leaf leaf : leaves) {
+                action.accept(leaf.value);
+            }
+        }
+    }
+}
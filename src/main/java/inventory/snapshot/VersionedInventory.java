@@ -0,0 +1,400 @@
+package inventory.snapshot;
+
+import inventory.Delta;
+import inventory.Inventory;
+import inventory.data.Asset;
+import inventory.query.Expression;
+import inventory.query.Page;
+import inventory.query.PageRequest;
+import inventory.query.QueryCriteria;
+import inventory.query.SortKey;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Multi version inventory, every mutation publishes a new immutable InventorySnapshot.
+ *
+ * Writers are serialized by a lock and derive the next version from the current one through
+ * structural sharing, a single asset change copies a handful of trie nodes rather than the
+ * whole inventory. Readers never lock: each read runs against the snapshot current at the
+ * time of the call, and callers needing several reads to agree can hold on to a snapshot.
+ *
+ * A mutation affecting several assets (a list of assets, a criteria, a list of ids) is
+ * published as one version, so readers observe it entirely or not at all.
+ */
+public class VersionedInventory implements Inventory {
+
+    private final AtomicReference<InventorySnapshot> current = new AtomicReference<>(InventorySnapshot.EMPTY);
+    private final Lock writeLock = new ReentrantLock();
+
+    private Logger logger = Logger.getLogger(VersionedInventory.class.getName());
+
+    /**
+     * @return the latest published version of the inventory
+     */
+    public InventorySnapshot snapshot() {
+        return current.get();
+    }
+
+    public long getVersion() {
+        return snapshot().getVersion();
+    }
+
+    @Override
+    public String addAsset(final Asset asset) {
+        notNull(asset, NON_NULL_ARGUMENT);
+        logger.info("addAsset:  " + asset);
+        write(editor -> editor.add(asset));
+        return asset.getAssetId();
+    }
+
+    @Override
+    public List<String> addAssets(final List<Asset> assets) {
+        notNull(assets, NON_NULL_ARGUMENT);
+        List<String> ids = new ArrayList<>(assets.size());
+        for (Asset a : assets) {
+            notNull(a, NON_NULL_ARGUMENT);
+            ids.add(a.getAssetId());
+        }
+
+        logger.info("addAssets: Adding list of assets");
+        write(editor -> {
+            for (Asset a : assets) {
+                editor.add(a);
+            }
+            return null;
+        });
+        return ids;
+    }
+
+    @Override
+    public Optional<Asset> updateAsset(final Asset asset) {
+        notNull(asset, NON_NULL_ARGUMENT);
+        logger.info("updateAsset: " + asset);
+        return write(editor -> {
+            Optional<Asset> previous = editor.get(asset.getAssetId());
+            previous.ifPresent(p -> editor.add(asset));
+            return previous;
+        });
+    }
+
+    /**
+     * The assets are published as one version, like a list of assets added.
+     */
+    @Override
+    public List<Asset> updateAssets(final List<Asset> assets) {
+        notNull(assets, NON_NULL_ARGUMENT);
+        for (Asset a : assets) {
+            notNull(a, NON_NULL_ARGUMENT);
+        }
+
+        logger.info("updateAssets: updating a list of assets");
+        return write(editor -> {
+            List<Asset> replaced = new ArrayList<>();
+            for (Asset a : assets) {
+                Optional<Asset> previous = editor.get(a.getAssetId());
+                if (previous.isPresent()) {
+                    editor.add(a);
+                    replaced.add(previous.get());
+                }
+            }
+            return replaced;
+        });
+    }
+
+    @Override
+    public Optional<Asset> upsertAsset(final Asset asset) {
+        notNull(asset, NON_NULL_ARGUMENT);
+        logger.info("upsertAsset: " + asset);
+        return write(editor -> {
+            Optional<Asset> previous = editor.get(asset.getAssetId());
+            editor.add(asset);
+            return previous;
+        });
+    }
+
+    @Override
+    public List<Asset> upsertAssets(final List<Asset> assets) {
+        notNull(assets, NON_NULL_ARGUMENT);
+        for (Asset a : assets) {
+            notNull(a, NON_NULL_ARGUMENT);
+        }
+
+        logger.info("upsertAssets: upserting a list of assets");
+        return write(editor -> {
+            List<Asset> replaced = new ArrayList<>();
+            for (Asset a : assets) {
+                editor.get(a.getAssetId()).ifPresent(replaced::add);
+                editor.add(a);
+            }
+            return replaced;
+        });
+    }
+
+    @Override
+    public List<Asset> deleteAssets(final QueryCriteria criteria) {
+        if (criteria == null) {
+            logger.info("Input criteria is null, returning empty list");
+            return new ArrayList<>();
+        }
+
+        logger.info("deleteAssets matching " + criteria);
+        return write(editor -> editor.delete(criteria));
+    }
+
+    @Override
+    public List<Asset> deleteAssets(final List<QueryCriteria> criteria) {
+        if (criteria == null) return new ArrayList<>();
+
+        logger.info("Deleting a list of assets matching list of criteria");
+        return write(editor -> {
+            List<Asset> deleted = new ArrayList<>();
+            for (QueryCriteria c : criteria) {
+                deleted.addAll(editor.delete(c));
+            }
+            return deleted;
+        });
+    }
+
+    @Override
+    public Optional<Asset> deleteAssetById(final String assetId) {
+        logger.info("delete asset with id: " + assetId);
+        return write(editor -> editor.delete(assetId));
+    }
+
+    @Override
+    public List<Asset> deleteAssetsByIds(final List<String> assetIds) {
+        logger.info("deleteAssetsByIds: deleting a list of assets by id");
+        return write(editor -> {
+            List<Asset> deleted = new ArrayList<>();
+            for (String id : assetIds) {
+                editor.delete(id).ifPresent(deleted::add);
+            }
+            return deleted;
+        });
+    }
+
+    /**
+     * The difference is computed against the latest version and applied to the next one under
+     * the write lock, so readers see either version but never part of the difference.
+     */
+    @Override
+    public Delta reconcile(final List<Asset> assets) {
+        notNull(assets, NON_NULL_ARGUMENT);
+        logger.info("reconcile against " + assets.size() + " assets");
+        return write(editor -> {
+            Delta delta = Delta.between(snapshot().getFullInventory(), assets);
+            for (Asset a : delta.getRemoved()) {
+                editor.delete(a.getAssetId());
+            }
+            delta.getAdded().forEach(editor::add);
+            delta.getChanged().forEach(editor::add);
+            return delta;
+        });
+    }
+
+    @Override
+    public Optional<Asset> getAssetById(final String asset_id) {
+        return snapshot().getAssetById(asset_id);
+    }
+
+    @Override
+    public List<Asset> getAssetsByIds(final List<String> assetIds) {
+        return snapshot().getAssetsByIds(assetIds);
+    }
+
+    @Override
+    public List<Asset> getFullInventory() {
+        return snapshot().getFullInventory();
+    }
+
+    @Override
+    public int getFullInventorySize() {
+        return snapshot().getFullInventorySize();
+    }
+
+    @Override
+    public int totalMemory() {
+        return snapshot().totalMemory();
+    }
+
+    @Override
+    public int totalMemory(final QueryCriteria criteria) {
+        return snapshot().totalMemory(criteria);
+    }
+
+    @Override
+    public int totalCores() {
+        return snapshot().totalCores();
+    }
+
+    @Override
+    public int totalCores(final QueryCriteria criteria) {
+        return snapshot().totalCores(criteria);
+    }
+
+    @Override
+    public int maxMemory() {
+        return snapshot().maxMemory();
+    }
+
+    @Override
+    public int maxMemory(final QueryCriteria criteria) {
+        return snapshot().maxMemory(criteria);
+    }
+
+    @Override
+    public int maxCores() {
+        return snapshot().maxCores();
+    }
+
+    @Override
+    public int maxCores(final QueryCriteria criteria) {
+        return snapshot().maxCores(criteria);
+    }
+
+    @Override
+    public int minMemory() {
+        return snapshot().minMemory();
+    }
+
+    @Override
+    public int minMemory(final QueryCriteria criteria) {
+        return snapshot().minMemory(criteria);
+    }
+
+    @Override
+    public int minCores() {
+        return snapshot().minCores();
+    }
+
+    @Override
+    public int minCores(final QueryCriteria criteria) {
+        return snapshot().minCores(criteria);
+    }
+
+    @Override
+    public int totalAssets(final QueryCriteria criteria) {
+        return snapshot().totalAssets(criteria);
+    }
+
+    @Override
+    public List<Asset> search(final QueryCriteria criteria) {
+        return snapshot().search(criteria);
+    }
+
+    @Override
+    public List<Asset> search(final List<QueryCriteria> criteria) {
+        return snapshot().search(criteria);
+    }
+
+    @Override
+    public List<Asset> search(final Expression expression) {
+        return snapshot().search(expression);
+    }
+
+    @Override
+    public List<Asset> top(final int k, final SortKey key) {
+        return snapshot().top(k, key);
+    }
+
+    @Override
+    public List<Asset> top(final int k, final SortKey key, final QueryCriteria criteria) {
+        return snapshot().top(k, key, criteria);
+    }
+
+    @Override
+    public List<Asset> bottom(final int k, final SortKey key) {
+        return snapshot().bottom(k, key);
+    }
+
+    @Override
+    public List<Asset> bottom(final int k, final SortKey key, final QueryCriteria criteria) {
+        return snapshot().bottom(k, key, criteria);
+    }
+
+    @Override
+    public Page search(final QueryCriteria criteria, final PageRequest request) {
+        return snapshot().search(criteria, request);
+    }
+
+    @Override
+    public int totalAssets(final List<QueryCriteria> criteria) {
+        return snapshot().totalAssets(criteria);
+    }
+
+    @Override
+    public int totalMemory(final List<QueryCriteria> criteria) {
+        return snapshot().totalMemory(criteria);
+    }
+
+    @Override
+    public int totalCores(final List<QueryCriteria> criteria) {
+        return snapshot().totalCores(criteria);
+    }
+
+    @Override
+    public int maxMemory(final List<QueryCriteria> criteria) {
+        return snapshot().maxMemory(criteria);
+    }
+
+    @Override
+    public int maxCores(final List<QueryCriteria> criteria) {
+        return snapshot().maxCores(criteria);
+    }
+
+    @Override
+    public int minMemory(final List<QueryCriteria> criteria) {
+        return snapshot().minMemory(criteria);
+    }
+
+    @Override
+    public int minCores(final List<QueryCriteria> criteria) {
+        return snapshot().minCores(criteria);
+    }
+
+    /**
+     * Applies the changes to a new version derived from the current snapshot and publishes it.
+     */
+    private <T> T write(final Function<InventorySnapshot.Editor, T> changes) {
+        writeLock.lock();
+        try {
+            InventorySnapshot base = current.get();
+            InventorySnapshot.Editor editor = base.edit(isRecording());
+            T result = changes.apply(editor);
+            InventorySnapshot next = editor.build();
+            if (next != base) {
+                published(base, next, editor.changes());
+                current.set(next);
+            }
+            return result;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @return whether the changes making each version are recorded and passed to published
+     */
+    boolean isRecording() {
+        return false;
+    }
+
+    /**
+     * Called under the write lock for every new version, just before it is published.
+     *
+     * @param changes made to the previous version, null unless recording
+     */
+    void published(final InventorySnapshot previous, final InventorySnapshot next,
+                   final List<InventorySnapshot.Change> changes) {
+    }
+}
@@ -0,0 +1,77 @@
+package inventory.storage;
+
+import inventory.query.Aggregates;
+
+import java.util.logging.Logger;
+
+/**
+ * Computes the count, sum, min and max of memory and cores over the rows of primitive columns
+ * that equal the given OS, CPU, cores and memory values, ANY matching every row.
+ *
+ * Two implementations: a SIMD one on the Vector API (jdk.incubator.vector), used when the
+ * module is available at runtime (--add-modules jdk.incubator.vector), and a scalar loop
+ * otherwise. The choice is made once, see selected(). The system property
+ * inventory.vector.disabled forces the scalar kernel.
+ */
+interface AggregateKernel {
+
+    /** Value of a parameter matching every row */
+    int ANY = -1;
+
+    String VECTOR_MODULE = "jdk.incubator.vector";
+    String DISABLED_PROPERTY = "inventory.vector.disabled";
+
+    Aggregates aggregate(Columns columns, int size, int os, int cpu, int cores, int memory);
+
+    String name();
+
+    /**
+     * @return the kernel selected for this JVM
+     */
+    static AggregateKernel selected() {
+        return Selection.KERNEL;
+    }
+
+    /**
+     * Lazy holder, the vector kernel is only loaded once the module is known to be present.
+     */
+    final class Selection {
+
+        private static final AggregateKernel KERNEL = select();
+
+        private Selection() {}
+
+        private static AggregateKernel select() {
+            AggregateKernel kernel = new ScalarKernel();
+            if (!Boolean.getBoolean(DISABLED_PROPERTY) && ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+                try {
+                    kernel = (AggregateKernel) Class.forName("inventory.storage.VectorKernel")
+                            .getDeclaredConstructor().newInstance();
+                } catch (ReflectiveOperationException | LinkageError e) {
+                    Logger.getLogger(AggregateKernel.class.getName())
+                            .info("Vector kernel unavailable, using the scalar kernel: " + e);
+                }
+            }
+            Logger.getLogger(AggregateKernel.class.getName()).info("Aggregate kernel: " + kernel.name());
+            return kernel;
+        }
+    }
+
+    /**
+     * The columns of a table of assets, row i describing the asset in slot i.
+     */
+    final class Columns {
+
+        int[] os;
+        int[] cpu;
+        int[] cores;
+        int[] memory;
+
+        Columns(final int capacity) {
+            os = new int[capacity];
+            cpu = new int[capacity];
+            cores = new int[capacity];
+            memory = new int[capacity];
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package inventory.storage;
+
+import inventory.data.Asset;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used assets by id, at most a fixed number of them. Assets are only added by
+ * put, a lookup that misses leaves the cache as it is. The cached assets are also held in a
+ * map without order, for peek to find them without making them recently used.
+ *
+ * Not thread safe.
+ */
+final class AssetCache {
+
+    private final int capacity;
+    private final Map<String, Asset> assets;
+    private final Map<String, Asset> unordered = new HashMap<>();
+    private long hits;
+    private long misses;
+
+    AssetCache(final int capacity) {
+        this.capacity = capacity;
+        // Access order, the eldest entry is the least recently used
+        assets = new LinkedHashMap<String, Asset>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Asset> eldest) {
+                if (size() <= AssetCache.this.capacity) return false;
+                unordered.remove(eldest.getKey());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * @return the asset, made the most recently used, null when not cached
+     */
+    Asset get(final String assetId) {
+        Asset asset = assets.get(assetId);
+        if (asset == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return asset;
+    }
+
+    void put(final Asset asset) {
+        if (capacity > 0) {
+            unordered.put(asset.getAssetId(), asset);
+            assets.put(asset.getAssetId(), asset);
+        }
+    }
+
+    /**
+     * Same as get, without making the asset recently used nor counting towards the hits and
+     * misses, for scans.
+     */
+    Asset peek(final String assetId) {
+        return unordered.get(assetId);
+    }
+
+    void remove(final String assetId) {
+        unordered.remove(assetId);
+        assets.remove(assetId);
+    }
+
+    int size() {
+        return assets.size();
+    }
+
+    long getHits() {
+        return hits;
+    }
+
+    long getMisses() {
+        return misses;
+    }
+}
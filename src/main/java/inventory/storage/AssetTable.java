@@ -0,0 +1,161 @@
+package inventory.storage;
+
+import inventory.data.Asset;
+import inventory.query.Aggregates;
+import inventory.query.QueryCriteria;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Assets by id, stored densely in an array of records with an IdIndex from id to slot in
+ * place of a HashMap. Deleting an asset moves the last record into its slot, so the records
+ * stay contiguous and a scan walks a plain array.
+ *
+ * The attributes of the assets are also kept in primitive columns (OS and CPU as ordinals),
+ * aggregates over criteria run on those through the AggregateKernel selected at startup,
+ * vectorized when the Vector API is available.
+ *
+ * Not thread safe, the values view must not be iterated while the table is changed.
+ */
+public final class AssetTable {
+
+    private final IdIndex ids;
+    private Asset[] records;
+    private final AggregateKernel.Columns columns;
+    private int size;
+
+    private final Collection<Asset> values = new AbstractCollection<Asset>() {
+        @Override
+        public Iterator<Asset> iterator() {
+            return new Iterator<Asset>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < size;
+                }
+
+                @Override
+                public Asset next() {
+                    if (next >= size) throw new NoSuchElementException();
+                    return records[next++];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    };
+
+    public AssetTable() {
+        this(16);
+    }
+
+    /**
+     * @param expected number of assets the table holds without growing
+     */
+    public AssetTable(final int expected) {
+        ids = new IdIndex(expected);
+        records = new Asset[Math.max(expected, 16)];
+        columns = new AggregateKernel.Columns(records.length);
+    }
+
+    public Asset get(final String assetId) {
+        int slot = ids.get(assetId);
+        return slot == IdIndex.NO_SLOT ? null : records[slot];
+    }
+
+    public boolean containsKey(final String assetId) {
+        return ids.contains(assetId);
+    }
+
+    /**
+     * @return the asset previously stored under the same id, null if none
+     */
+    public Asset put(final Asset asset) {
+        notNull(asset);
+        int slot = ids.get(asset.getAssetId());
+        if (slot != IdIndex.NO_SLOT) {
+            Asset previous = records[slot];
+            set(slot, asset);
+            return previous;
+        }
+
+        if (size == records.length) {
+            grow();
+        }
+        ids.put(asset.getAssetId(), size);
+        set(size++, asset);
+        return null;
+    }
+
+    /**
+     * @return the asset removed, null if none
+     */
+    public Asset remove(final String assetId) {
+        int slot = ids.remove(assetId);
+        if (slot == IdIndex.NO_SLOT) return null;
+
+        Asset removed = records[slot];
+        int last = --size;
+        if (slot != last) {
+            set(slot, records[last]);
+            ids.put(records[slot].getAssetId(), slot);
+        }
+        records[last] = null;
+        return removed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param criteria
+     * @return the aggregates over the assets matching the criteria, every asset for an empty
+     * criteria
+     */
+    public Aggregates aggregate(final QueryCriteria criteria) {
+        notNull(criteria);
+        // Assets have positive cores and memory, and ANY is negative
+        if (criteria.getCores().orElse(1) <= 0 || criteria.getMemory().orElse(1) <= 0) return Aggregates.EMPTY;
+
+        return AggregateKernel.selected().aggregate(columns, size,
+                criteria.getOs().map(Enum::ordinal).orElse(AggregateKernel.ANY),
+                criteria.getCpu().map(Enum::ordinal).orElse(AggregateKernel.ANY),
+                criteria.getCores().orElse(AggregateKernel.ANY),
+                criteria.getMemory().orElse(AggregateKernel.ANY));
+    }
+
+    private void set(final int slot, final Asset asset) {
+        records[slot] = asset;
+        columns.os[slot] = asset.getOS().ordinal();
+        columns.cpu[slot] = asset.getCPU().ordinal();
+        columns.cores[slot] = asset.getCores();
+        columns.memory[slot] = asset.getMemory();
+    }
+
+    private void grow() {
+        int capacity = records.length * 2;
+        records = Arrays.copyOf(records, capacity);
+        columns.os = Arrays.copyOf(columns.os, capacity);
+        columns.cpu = Arrays.copyOf(columns.cpu, capacity);
+        columns.cores = Arrays.copyOf(columns.cores, capacity);
+        columns.memory = Arrays.copyOf(columns.memory, capacity);
+    }
+
+    /**
+     * @return read only view of the assets, in slot order
+     */
+    public Collection<Asset> values() {
+        return values;
+    }
+}
@@ -0,0 +1,268 @@
+package inventory.storage;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+
+/**
+ * Maps asset ids to record slots (int) in flat primitive arrays, for inventories keeping
+ * their assets in an array rather than a map of objects.
+ *
+ * Generated asset ids are UUIDs in canonical form, each is stored as its two 64 bit halves
+ * next to its slot, so an entry costs 20 bytes in three arrays instead of a map node, a String
+ * and its byte array. The table is an open addressing hash table with linear probing, kept at
+ * most half full, a lookup touches a few adjacent cells of each array. Removals shift the
+ * following entries of the run back rather than leaving tombstones, so lookups never slow
+ * down with churn.
+ *
+ * Any other id (set through Asset.Builder.setAssetId, say from an external system) goes to a
+ * plain HashMap from id to slot. Ids are compared exactly either way: a UUID in upper case is
+ * another id than the same UUID in lower case, as in a map keyed by the id.
+ *
+ * Not thread safe.
+ */
+public final class IdIndex {
+
+    /** Slot returned for an id that is not in the index */
+    public static final int NO_SLOT = -1;
+
+    static final String NULL_ID_MESSAGE = "Asset ids cannot be null.";
+    static final String NEGATIVE_SLOT_MESSAGE = "Slots cannot be negative.";
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] high;
+    private long[] low;
+    private int[] slots;
+    private int mask;
+    // Number of UUIDs in the arrays
+    private int size;
+
+    // Ids other than canonical UUIDs, created on the first one
+    private Map<String, Integer> others;
+
+    public IdIndex() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    /**
+     * @param expected number of ids the index holds without growing
+     */
+    public IdIndex(final int expected) {
+        allocate(capacityFor(expected));
+    }
+
+    /**
+     * Index over the arrays of another one, as saved by TieredImage, without its other ids.
+     */
+    IdIndex(final long[] high, final long[] low, final int[] slots, final int size) {
+        isTrue(slots.length >= MIN_CAPACITY && Integer.bitCount(slots.length) == 1
+                && high.length == slots.length && low.length == slots.length, "Invalid id index arrays.");
+        this.high = high;
+        this.low = low;
+        this.slots = slots;
+        this.size = size;
+        mask = slots.length - 1;
+    }
+
+    /**
+     * @return the slot of the id, NO_SLOT when absent (including null)
+     */
+    public int get(final String assetId) {
+        if (!isUuid(assetId)) {
+            Integer slot = assetId == null || others == null ? null : others.get(assetId);
+            return slot == null ? NO_SLOT : slot;
+        }
+
+        long h = half(assetId, 0);
+        long l = half(assetId, 19);
+        for (int i = cell(h, l); slots[i] != NO_SLOT; i = (i + 1) & mask) {
+            if (high[i] == h && low[i] == l) return slots[i];
+        }
+        return NO_SLOT;
+    }
+
+    public boolean contains(final String assetId) {
+        return get(assetId) != NO_SLOT;
+    }
+
+    /**
+     * @return the previous slot of the id, NO_SLOT when it was absent
+     */
+    public int put(final String assetId, final int slot) {
+        isTrue(assetId != null, NULL_ID_MESSAGE);
+        isTrue(slot >= 0, NEGATIVE_SLOT_MESSAGE);
+        if (!isUuid(assetId)) {
+            if (others == null) {
+                others = new HashMap<>();
+            }
+            Integer previous = others.put(assetId, slot);
+            return previous == null ? NO_SLOT : previous;
+        }
+
+        long h = half(assetId, 0);
+        long l = half(assetId, 19);
+        int i = cell(h, l);
+        for (; slots[i] != NO_SLOT; i = (i + 1) & mask) {
+            if (high[i] == h && low[i] == l) {
+                int previous = slots[i];
+                slots[i] = slot;
+                return previous;
+            }
+        }
+
+        high[i] = h;
+        low[i] = l;
+        slots[i] = slot;
+        if (++size > (mask + 1) / 2) {
+            grow();
+        }
+        return NO_SLOT;
+    }
+
+    /**
+     * @return the slot the id was mapped to, NO_SLOT when it was absent
+     */
+    public int remove(final String assetId) {
+        if (!isUuid(assetId)) {
+            Integer slot = assetId == null || others == null ? null : others.remove(assetId);
+            return slot == null ? NO_SLOT : slot;
+        }
+
+        long h = half(assetId, 0);
+        long l = half(assetId, 19);
+        for (int i = cell(h, l); slots[i] != NO_SLOT; i = (i + 1) & mask) {
+            if (high[i] == h && low[i] == l) {
+                int slot = slots[i];
+                shiftBack(i);
+                size--;
+                return slot;
+            }
+        }
+        return NO_SLOT;
+    }
+
+    public int size() {
+        return others == null ? size : size + others.size();
+    }
+
+    /**
+     * @return number of ids held in the arrays
+     */
+    int packedSize() {
+        return size;
+    }
+
+    long[] high() {
+        return high;
+    }
+
+    long[] low() {
+        return low;
+    }
+
+    int[] slots() {
+        return slots;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, NO_SLOT);
+        size = 0;
+        others = null;
+    }
+
+    /**
+     * Closes the gap left at the cell by moving back the entries of the run that follows it,
+     * unless they already sit between their home cell and the gap.
+     */
+    private void shiftBack(int gap) {
+        for (int i = (gap + 1) & mask; slots[i] != NO_SLOT; i = (i + 1) & mask) {
+            int home = cell(high[i], low[i]);
+            // Distance from the home cell, wrapping around the end of the table
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                high[gap] = high[i];
+                low[gap] = low[i];
+                slots[gap] = slots[i];
+                gap = i;
+            }
+        }
+        slots[gap] = NO_SLOT;
+    }
+
+    private void grow() {
+        long[] oldHigh = high;
+        long[] oldLow = low;
+        int[] oldSlots = slots;
+        allocate(oldSlots.length * 2);
+
+        for (int j = 0; j < oldSlots.length; j++) {
+            if (oldSlots[j] == NO_SLOT) continue;
+
+            int i = cell(oldHigh[j], oldLow[j]);
+            while (slots[i] != NO_SLOT) {
+                i = (i + 1) & mask;
+            }
+            high[i] = oldHigh[j];
+            low[i] = oldLow[j];
+            slots[i] = oldSlots[j];
+        }
+    }
+
+    private void allocate(final int capacity) {
+        high = new long[capacity];
+        low = new long[capacity];
+        slots = new int[capacity];
+        Arrays.fill(slots, NO_SLOT);
+        mask = capacity - 1;
+    }
+
+    private static int capacityFor(final int expected) {
+        int capacity = MIN_CAPACITY;
+        while (capacity / 2 < expected && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private int cell(final long h, final long l) {
+        long x = h ^ Long.rotateLeft(l, 32);
+        // Finalizer of MurmurHash3, random UUIDs leave a few bits fixed
+        x = (x ^ (x >>> 33)) * 0xff51afd7ed558ccdL;
+        x = (x ^ (x >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return (int) (x ^ (x >>> 33)) & mask;
+    }
+
+    /**
+     * Canonical form only, 8-4-4-4-12 lower case hex digits, which is what Asset generates and
+     * what UUID.toString gives back, so the halves always convert back to the same id.
+     */
+    static boolean isUuid(final String id) {
+        if (id == null || id.length() != 36) return false;
+        for (int i = 0; i < 36; i++) {
+            char c = id.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') return false;
+            } else if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The 64 bits of the 16 hex digits starting at the offset, skipping the dashes: offset 0
+     * gives the most significant half, offset 19 the least significant one.
+     */
+    private static long half(final String id, final int offset) {
+        long value = 0;
+        for (int i = offset, digits = 0; digits < 16; i++) {
+            char c = id.charAt(i);
+            if (c == '-') continue;
+            value = (value << 4) | Character.digit(c, 16);
+            digits++;
+        }
+        return value;
+    }
+}
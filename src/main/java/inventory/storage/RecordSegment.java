@@ -0,0 +1,193 @@
+package inventory.storage;
+
+import inventory.data.Asset;
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Asset records by slot in a memory-mapped file, off the heap. The file is mapped in chunks of
+ * a fixed number of records, a chunk is mapped (and the file extended) the first time one of
+ * its slots is written, so no mapping is ever remapped or exceeds the 2GB a buffer can address.
+ *
+ * Record (28 bytes, the layout of the BinaryFormat records): asset id as the two halves of its
+ * UUID (2 longs), OS ordinal (byte), CPU ordinal (byte), id flag (short), cores (int),
+ * memory (int). Ids other than canonical UUIDs (see IdIndex) do not fit a record, their flag
+ * is set and the table keeps them on the heap.
+ *
+ * Not thread safe.
+ */
+final class RecordSegment implements Closeable {
+
+    static final int RECORD_SIZE = 28;
+    static final int DEFAULT_CHUNK_RECORDS = 1 << 16;
+
+    // Flag of a record whose id is not a canonical UUID
+    private static final short OTHER_ID = 1;
+
+    private final FileChannel channel;
+    private final int chunkRecords;
+    private final List<MappedByteBuffer> chunks = new ArrayList<>();
+
+    /**
+     * Starts an empty segment, replacing any file at the path.
+     */
+    RecordSegment(final Path file, final int chunkRecords) throws IOException {
+        this(FileChannel.open(file, CREATE, READ, WRITE, TRUNCATE_EXISTING), chunkRecords);
+    }
+
+    private RecordSegment(final FileChannel channel, final int chunkRecords) {
+        this.channel = channel;
+        this.chunkRecords = chunkRecords;
+    }
+
+    /**
+     * Maps the chunks of an existing segment, written with the same number of records per chunk.
+     */
+    static RecordSegment open(final Path file, final int chunkRecords) throws IOException {
+        RecordSegment segment = new RecordSegment(FileChannel.open(file, READ, WRITE), chunkRecords);
+        try {
+            long chunkBytes = (long) chunkRecords * RECORD_SIZE;
+            long chunks = segment.channel.size() / chunkBytes;
+            if (chunks > 0) {
+                segment.chunkFor((int) (chunks * chunkRecords - 1));
+            }
+            return segment;
+        } catch (IOException | RuntimeException e) {
+            segment.close();
+            throw e;
+        }
+    }
+
+    void write(final int slot, final Asset asset) throws IOException {
+        MappedByteBuffer chunk = chunkFor(slot);
+        int offset = offset(slot);
+        boolean uuid = IdIndex.isUuid(asset.getAssetId());
+        UUID id = uuid ? UUID.fromString(asset.getAssetId()) : new UUID(0, 0);
+        chunk.putLong(offset, id.getMostSignificantBits());
+        chunk.putLong(offset + 8, id.getLeastSignificantBits());
+        chunk.put(offset + 16, (byte) asset.getOS().ordinal());
+        chunk.put(offset + 17, (byte) asset.getCPU().ordinal());
+        chunk.putShort(offset + 18, uuid ? 0 : OTHER_ID);
+        chunk.putInt(offset + 20, asset.getCores());
+        chunk.putInt(offset + 24, asset.getMemory());
+    }
+
+    /**
+     * @param assetId id of the record, see idAt
+     */
+    Asset read(final int slot, final String assetId) {
+        MappedByteBuffer chunk = chunks.get(slot / chunkRecords);
+        int offset = offset(slot);
+        return Asset.builder()
+                .setAssetId(assetId)
+                .setOS(OperatingSystem.values()[chunk.get(offset + 16)])
+                .setCPU(CPU.values()[chunk.get(offset + 17)])
+                .setCore(chunk.getInt(offset + 20))
+                .setMemory(chunk.getInt(offset + 24))
+                .build();
+    }
+
+    /**
+     * @return the id of the record in the slot, null for an id held outside the record
+     */
+    String idAt(final int slot) {
+        MappedByteBuffer chunk = chunks.get(slot / chunkRecords);
+        int offset = offset(slot);
+        if (chunk.getShort(offset + 18) == OTHER_ID) return null;
+        return new UUID(chunk.getLong(offset), chunk.getLong(offset + 8)).toString();
+    }
+
+    /**
+     * Overwrites the record in slot to with the one in slot from.
+     */
+    void copy(final int from, final int to) {
+        MappedByteBuffer source = chunks.get(from / chunkRecords);
+        MappedByteBuffer target = chunks.get(to / chunkRecords);
+        int sourceOffset = offset(from);
+        int targetOffset = offset(to);
+        for (int i = 0; i < RECORD_SIZE; i += Integer.BYTES) {
+            target.putInt(targetOffset + i, source.getInt(sourceOffset + i));
+        }
+    }
+
+    /**
+     * @return number of slots mapped
+     */
+    long capacity() {
+        return (long) chunks.size() * chunkRecords;
+    }
+
+    int getChunkRecords() {
+        return chunkRecords;
+    }
+
+    /**
+     * @return CRC32 of the records of the first slots, which must be mapped
+     */
+    int checksum(final int slots) {
+        CRC32 crc = new CRC32();
+        int remaining = slots;
+        for (int i = 0; remaining > 0; i++) {
+            int records = Math.min(remaining, chunkRecords);
+            crc.update(chunks.get(i).duplicate().position(0).limit(records * RECORD_SIZE));
+            remaining -= records;
+        }
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Writes the changes made to the records through to the file.
+     */
+    void force() {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+
+    /**
+     * Reads the mapped records into memory, so the first lookups do not wait on the disk.
+     */
+    void load() {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.load();
+        }
+    }
+
+    /**
+     * Closes the file, the chunks stay mapped until they are garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        chunks.clear();
+        channel.close();
+    }
+
+    private MappedByteBuffer chunkFor(final int slot) throws IOException {
+        int index = slot / chunkRecords;
+        while (chunks.size() <= index) {
+            long bytes = (long) chunkRecords * RECORD_SIZE;
+            chunks.add(channel.map(READ_WRITE, chunks.size() * bytes, bytes));
+        }
+        return chunks.get(index);
+    }
+
+    private int offset(final int slot) {
+        return (slot % chunkRecords) * RECORD_SIZE;
+    }
+}
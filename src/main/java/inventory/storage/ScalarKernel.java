@@ -0,0 +1,44 @@
+package inventory.storage;
+
+import inventory.query.Aggregates;
+
+/**
+ * One row at a time, the fallback when the Vector API is not available.
+ */
+final class ScalarKernel implements AggregateKernel {
+
+    @Override
+    public Aggregates aggregate(final Columns columns, final int size, final int os, final int cpu,
+                                final int cores, final int memory) {
+        int count = 0;
+        int totalMemory = 0;
+        int totalCores = 0;
+        int minMemory = Integer.MAX_VALUE;
+        int maxMemory = Integer.MIN_VALUE;
+        int minCores = Integer.MAX_VALUE;
+        int maxCores = Integer.MIN_VALUE;
+
+        for (int i = 0; i < size; i++) {
+            if ((os == ANY || columns.os[i] == os)
+                    && (cpu == ANY || columns.cpu[i] == cpu)
+                    && (cores == ANY || columns.cores[i] == cores)
+                    && (memory == ANY || columns.memory[i] == memory)) {
+                int m = columns.memory[i];
+                int c = columns.cores[i];
+                count++;
+                totalMemory += m;
+                totalCores += c;
+                minMemory = Math.min(minMemory, m);
+                maxMemory = Math.max(maxMemory, m);
+                minCores = Math.min(minCores, c);
+                maxCores = Math.max(maxCores, c);
+            }
+        }
+        return Aggregates.of(count, totalMemory, totalCores, minMemory, maxMemory, minCores, maxCores);
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
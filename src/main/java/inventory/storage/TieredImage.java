@@ -0,0 +1,366 @@
+package inventory.storage;
+
+import inventory.data.Configuration;
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Image of the structures a TieredTable keeps on the heap (columns, id index, number of assets
+ * of each configuration, ids other than UUIDs), saved next to its segment so that a restart maps them rather than
+ * rebuilding them from the records.
+ *
+ * Layout, big endian:
+ *
+ * header (32 bytes): magic "INVI", version (short), reserved (short), asset count (int),
+ *                    records per chunk of the segment (int), CRC32 of the records (int),
+ *                    section count (int), reserved (int), CRC32 of the previous 28 bytes (int)
+ * sections:          kind (int), version (int), payload length (long), CRC32 of the payload
+ *                    (int), the payload
+ * COLUMNS:           the OS, CPU, cores then memory column, an int per asset each
+ * IDS:               capacity (int), number of UUIDs (int), high halves (capacity longs), low
+ *                    halves (capacity longs), slots (capacity ints)
+ * CONFIGURATIONS:    configuration count (int), then for each OS ordinal (byte), CPU ordinal
+ *                    (byte), cores (int), memory (int), asset count (int)
+ * OTHER_IDS:         id count (int), then for each slot (int), length (int), UTF-8 bytes
+ *
+ * The image only describes the segment it was saved with, which opening it checks against the
+ * CRC of the records. Sections are mapped when the image is opened but only checked once their
+ * structure is first needed: a section missing, of another version, of the wrong length or
+ * failing its CRC is stale, and the table rebuilds that structure from the records instead.
+ * The records do not hold the ids other than UUIDs, so OTHER_IDS is read when the image is
+ * opened and the image is not valid without it.
+ */
+final class TieredImage {
+
+    /** Sections of the image, each with the version of its payload */
+    enum Section {
+        COLUMNS(1), IDS(1), CONFIGURATIONS(1), OTHER_IDS(1);
+
+        final int version;
+
+        Section(final int version) {
+            this.version = version;
+        }
+    }
+
+    static final int MAGIC = 0x494E5649;
+    static final short VERSION = 2;
+    static final int HEADER_SIZE = 32;
+    static final int SECTION_HEADER_SIZE = 20;
+
+    static final String BAD_HEADER_MESSAGE = "Not an inventory image or unsupported version: ";
+    static final String STALE_IMAGE_MESSAGE = "Image does not match the segment: ";
+
+    private final int size;
+    private final int chunkRecords;
+    private final int recordsChecksum;
+    private final Map<Section, MappedByteBuffer> payloads = new EnumMap<>(Section.class);
+    private final Map<Section, Integer> checksums = new EnumMap<>(Section.class);
+
+    private TieredImage(final int size, final int chunkRecords, final int recordsChecksum) {
+        this.size = size;
+        this.chunkRecords = chunkRecords;
+        this.recordsChecksum = recordsChecksum;
+    }
+
+    /**
+     * Writes the image to a file next to the target, then moves it in place, so a crash never
+     * leaves a partial image behind.
+     */
+    static void write(final Path image, final int size, final int chunkRecords, final int recordsChecksum,
+                      final AggregateKernel.Columns columns, final IdIndex ids,
+                      final Map<Configuration, Integer> configurations,
+                      final Map<Integer, String> otherIds) throws IOException {
+        Path temporary = image.resolveSibling(image.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            channel.position(HEADER_SIZE);
+
+            writeSection(channel, Section.COLUMNS, 4L * Integer.BYTES * size, out -> {
+                for (int[] column : new int[][] {columns.os, columns.cpu, columns.cores, columns.memory}) {
+                    for (int i = 0; i < size; i++) {
+                        out.writeInt(column[i]);
+                    }
+                }
+            });
+
+            int capacity = ids.slots().length;
+            writeSection(channel, Section.IDS, 2L * Integer.BYTES + capacity * (2L * Long.BYTES + Integer.BYTES), out -> {
+                out.writeInt(capacity);
+                out.writeInt(ids.packedSize());
+                for (long h : ids.high()) {
+                    out.writeLong(h);
+                }
+                for (long l : ids.low()) {
+                    out.writeLong(l);
+                }
+                for (int slot : ids.slots()) {
+                    out.writeInt(slot);
+                }
+            });
+
+            writeSection(channel, Section.CONFIGURATIONS, Integer.BYTES + configurations.size() * 14L, out -> {
+                out.writeInt(configurations.size());
+                for (Map.Entry<Configuration, Integer> entry : configurations.entrySet()) {
+                    Configuration configuration = entry.getKey();
+                    out.writeByte(configuration.getOS().ordinal());
+                    out.writeByte(configuration.getCPU().ordinal());
+                    out.writeInt(configuration.getCores());
+                    out.writeInt(configuration.getMemory());
+                    out.writeInt(entry.getValue());
+                }
+            });
+
+            Map<Integer, byte[]> encoded = new HashMap<>();
+            long length = Integer.BYTES;
+            for (Map.Entry<Integer, String> entry : otherIds.entrySet()) {
+                byte[] bytes = entry.getValue().getBytes(UTF_8);
+                encoded.put(entry.getKey(), bytes);
+                length += 2L * Integer.BYTES + bytes.length;
+            }
+            writeSection(channel, Section.OTHER_IDS, length, out -> {
+                out.writeInt(encoded.size());
+                for (Map.Entry<Integer, byte[]> entry : encoded.entrySet()) {
+                    out.writeInt(entry.getKey());
+                    out.writeInt(entry.getValue().length);
+                    out.write(entry.getValue());
+                }
+            });
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putInt(size).putInt(chunkRecords)
+                    .putInt(recordsChecksum).putInt(Section.values().length).putInt(0);
+            CRC32 crc = new CRC32();
+            crc.update(header.array(), 0, HEADER_SIZE - Integer.BYTES);
+            header.putInt((int) crc.getValue()).flip();
+            write(channel, header, 0);
+            channel.force(true);
+        }
+        Files.move(temporary, image, REPLACE_EXISTING, ATOMIC_MOVE);
+    }
+
+    /**
+     * Checks the header and maps the sections, which are only read once needed.
+     */
+    static TieredImage open(final Path image) throws IOException {
+        try (FileChannel channel = FileChannel.open(image, READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            read(channel, header, 0, image);
+            CRC32 crc = new CRC32();
+            crc.update(header.array(), 0, HEADER_SIZE - Integer.BYTES);
+            if (header.getInt(0) != MAGIC || header.getShort(4) != VERSION
+                    || header.getInt(HEADER_SIZE - Integer.BYTES) != (int) crc.getValue()) {
+                throw new IOException(BAD_HEADER_MESSAGE + image);
+            }
+            TieredImage result = new TieredImage(header.getInt(8), header.getInt(12), header.getInt(16));
+            int sections = header.getInt(20);
+            if (result.size < 0 || result.chunkRecords <= 0 || sections < 0) {
+                throw new IOException(BAD_HEADER_MESSAGE + image);
+            }
+
+            long position = HEADER_SIZE;
+            ByteBuffer sectionHeader = ByteBuffer.allocate(SECTION_HEADER_SIZE);
+            for (int i = 0; i < sections; i++) {
+                read(channel, sectionHeader.clear(), position, image);
+                int kind = sectionHeader.getInt(0);
+                int version = sectionHeader.getInt(4);
+                long length = sectionHeader.getLong(8);
+                position += SECTION_HEADER_SIZE;
+                if (length < 0 || length > Integer.MAX_VALUE || position + length > channel.size()) {
+                    throw new IOException(BAD_HEADER_MESSAGE + image);
+                }
+                // Unknown kinds and other versions are skipped, their structure counts as stale
+                if (kind >= 0 && kind < Section.values().length && Section.values()[kind].version == version) {
+                    Section section = Section.values()[kind];
+                    result.payloads.put(section, channel.map(READ_ONLY, position, length));
+                    result.checksums.put(section, sectionHeader.getInt(16));
+                }
+                position += length;
+            }
+            return result;
+        }
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    int getChunkRecords() {
+        return chunkRecords;
+    }
+
+    int getRecordsChecksum() {
+        return recordsChecksum;
+    }
+
+    /**
+     * @return the columns, with room for at least the given number of assets, null when stale
+     */
+    AggregateKernel.Columns columns(final int capacity) {
+        ByteBuffer payload = payload(Section.COLUMNS, 4L * Integer.BYTES * size);
+        if (payload == null) return null;
+
+        AggregateKernel.Columns columns = new AggregateKernel.Columns(capacity);
+        for (int[] column : new int[][] {columns.os, columns.cpu, columns.cores, columns.memory}) {
+            payload.asIntBuffer().get(column, 0, size);
+            payload.position(payload.position() + size * Integer.BYTES);
+        }
+        return columns;
+    }
+
+    /**
+     * @param packed number of UUIDs the index must hold
+     * @return the id index, without the other ids, null when stale
+     */
+    IdIndex ids(final int packed) {
+        ByteBuffer payload = payloads.get(Section.IDS);
+        if (payload == null || payload.capacity() < 2 * Integer.BYTES) return null;
+
+        int capacity = payload.getInt(0);
+        payload = payload(Section.IDS, 2L * Integer.BYTES + capacity * (2L * Long.BYTES + Integer.BYTES));
+        if (payload == null || payload.getInt(4) != packed) return null;
+
+        long[] high = new long[capacity];
+        long[] low = new long[capacity];
+        int[] slots = new int[capacity];
+        payload.position(2 * Integer.BYTES);
+        payload.asLongBuffer().get(high);
+        payload.position(payload.position() + capacity * Long.BYTES);
+        payload.asLongBuffer().get(low);
+        payload.position(payload.position() + capacity * Long.BYTES);
+        payload.asIntBuffer().get(slots);
+        try {
+            return new IdIndex(high, low, slots, packed);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the number of assets of each configuration, null when stale
+     */
+    Map<Configuration, Integer> configurations() {
+        ByteBuffer payload = payloads.get(Section.CONFIGURATIONS);
+        if (payload == null || payload.capacity() < Integer.BYTES) return null;
+
+        int count = payload.getInt(0);
+        payload = payload(Section.CONFIGURATIONS, Integer.BYTES + count * 14L);
+        if (payload == null) return null;
+
+        Map<Configuration, Integer> configurations = new HashMap<>();
+        payload.position(Integer.BYTES);
+        try {
+            for (int i = 0; i < count; i++) {
+                OperatingSystem os = OperatingSystem.values()[payload.get()];
+                CPU cpu = CPU.values()[payload.get()];
+                int cores = payload.getInt();
+                int memory = payload.getInt();
+                configurations.put(Configuration.of(os, cpu, cores, memory), payload.getInt());
+            }
+        } catch (RuntimeException e) {
+            // Checksum collision on a damaged section
+            return null;
+        }
+        return configurations;
+    }
+
+    /**
+     * @return the ids other than UUIDs, by slot
+     * @throws IOException when the section is missing or damaged, as nothing else holds them
+     */
+    Map<Integer, String> otherIds(final Path image) throws IOException {
+        ByteBuffer payload = payloads.get(Section.OTHER_IDS);
+        if (payload != null) {
+            payload = payload(Section.OTHER_IDS, payload.capacity());
+        }
+        if (payload == null || payload.capacity() < Integer.BYTES) throw new IOException(STALE_IMAGE_MESSAGE + image);
+
+        Map<Integer, String> otherIds = new HashMap<>();
+        try {
+            int count = payload.getInt();
+            for (int i = 0; i < count; i++) {
+                int slot = payload.getInt();
+                byte[] bytes = new byte[payload.getInt()];
+                payload.get(bytes);
+                if (slot < 0 || slot >= size) throw new IOException(STALE_IMAGE_MESSAGE + image);
+                otherIds.put(slot, new String(bytes, UTF_8));
+            }
+        } catch (RuntimeException e) {
+            // Checksum collision on a damaged section
+            throw new IOException(STALE_IMAGE_MESSAGE + image, e);
+        }
+        return otherIds;
+    }
+
+    /**
+     * @return the payload of the section, positioned at its start, null when the section is
+     * missing, not of the expected length or fails its checksum
+     */
+    private ByteBuffer payload(final Section section, final long length) {
+        MappedByteBuffer payload = payloads.get(section);
+        if (payload == null || payload.capacity() != length) return null;
+
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != checksums.get(section)) return null;
+        return payload.duplicate();
+    }
+
+    private interface Payload {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static void writeSection(final FileChannel channel, final Section section, final long length,
+                                     final Payload payload) throws IOException {
+        long start = channel.position();
+        channel.position(start + SECTION_HEADER_SIZE);
+
+        CRC32 crc = new CRC32();
+        // Not closed, that would close the channel
+        DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), crc));
+        payload.write(out);
+        out.flush();
+
+        ByteBuffer header = ByteBuffer.allocate(SECTION_HEADER_SIZE);
+        header.putInt(section.ordinal()).putInt(section.version).putLong(length).putInt((int) crc.getValue()).flip();
+        write(channel, header, start);
+    }
+
+    private static void write(final FileChannel channel, final ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void read(final FileChannel channel, final ByteBuffer buffer, final long position,
+                             final Path image) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) throw new IOException(BAD_HEADER_MESSAGE + image);
+        }
+        buffer.flip();
+    }
+}
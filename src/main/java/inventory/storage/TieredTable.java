@@ -0,0 +1,458 @@
+package inventory.storage;
+
+import inventory.data.Asset;
+import inventory.data.Configuration;
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+import inventory.query.Aggregates;
+import inventory.query.QueryCriteria;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.logging.Logger;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Assets by id in two tiers. The IdIndex and the primitive columns (OS and CPU as ordinals,
+ * cores, memory) stay on the heap, so criteria are matched and aggregates computed (through
+ * the AggregateKernel, as in AssetTable) without touching a record. The records themselves
+ * go to a memory-mapped RecordSegment, slot for slot with the columns, and no Asset object is
+ * kept live except in a small LRU cache. The number of assets of each configuration is kept
+ * along, for aggregating over the configurations rather than the columns.
+ *
+ * Looking an asset up by id goes through the cache, a miss decodes the record and caches it.
+ * The assets of a search are served from the cache when present and decoded otherwise, but
+ * not added to it, so a large scan does not evict the assets looked up by id.
+ *
+ * The structures on the heap can be saved to a TieredImage (see save), a table opened from
+ * the image and its segment loads each structure from the image the first time it is needed,
+ * or rebuilds it from the records when its section of the image is stale. The first change
+ * loads every structure not loaded yet.
+ *
+ * Canonical UUIDs, which is what Asset generates, are held in the records and the packed
+ * arrays of the IdIndex. Any other id is kept on the heap by slot, and saved to the image
+ * along. Deleting an asset moves the last record into its slot, as in AssetTable.
+ *
+ * Not thread safe, the values view must not be iterated while the table is changed.
+ */
+public final class TieredTable implements Closeable {
+
+    public static final int DEFAULT_CACHE_SIZE = 10_000;
+
+    static final String NEGATIVE_CACHE_SIZE = "Cache size cannot be negative.";
+
+    private final Logger logger = Logger.getLogger(TieredTable.class.getName());
+
+    private final RecordSegment segment;
+    private final AssetCache cache;
+    private int size;
+
+    // Ids that are not canonical UUIDs, by slot, see RecordSegment
+    private final Map<Integer, String> otherIds;
+
+    // Null until loaded from the image, see ids(), columns() and configurations()
+    private IdIndex ids;
+    private AggregateKernel.Columns columns;
+    private Map<Configuration, Integer> configurations;
+
+    // Image the table was opened from, until every structure is loaded
+    private TieredImage image;
+
+    private final Collection<Asset> values = new AbstractCollection<Asset>() {
+        @Override
+        public Iterator<Asset> iterator() {
+            return new Iterator<Asset>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < size;
+                }
+
+                @Override
+                public Asset next() {
+                    if (next >= size) throw new NoSuchElementException();
+                    return materialize(next++);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    };
+
+    /**
+     * @param file      segment file, replaced if it exists
+     * @param cacheSize number of assets cached, 0 for none
+     */
+    public TieredTable(final Path file, final int cacheSize) throws IOException {
+        this(file, cacheSize, RecordSegment.DEFAULT_CHUNK_RECORDS);
+    }
+
+    TieredTable(final Path file, final int cacheSize, final int chunkRecords) throws IOException {
+        this(new RecordSegment(notNull(file), chunkRecords), cacheSize, null, new HashMap<>());
+        ids = new IdIndex();
+        columns = new AggregateKernel.Columns(16);
+        configurations = new HashMap<>();
+    }
+
+    private TieredTable(final RecordSegment segment, final int cacheSize, final TieredImage image,
+                        final Map<Integer, String> otherIds) {
+        isTrue(cacheSize >= 0, NEGATIVE_CACHE_SIZE);
+        this.segment = segment;
+        this.image = image;
+        this.otherIds = otherIds;
+        cache = new AssetCache(cacheSize);
+        size = image == null ? 0 : image.getSize();
+    }
+
+    /**
+     * Opens the table saved to the image, over the segment it was saved with. Only the header
+     * of the image, the checksum of the records and the ids other than UUIDs, which the records
+     * cannot rebuild, are read here, the other structures are loaded when first needed, see
+     * warmUp.
+     *
+     * @param file      segment file, as left by the table that saved the image
+     * @param image     image saved by that table
+     * @param cacheSize number of assets cached, 0 for none
+     * @throws IOException when the image is not valid or the segment changed since it was saved
+     */
+    public static TieredTable open(final Path file, final Path image, final int cacheSize) throws IOException {
+        notNull(file);
+        TieredImage saved = TieredImage.open(notNull(image));
+        RecordSegment segment = RecordSegment.open(file, saved.getChunkRecords());
+        try {
+            if (segment.capacity() < saved.getSize() || segment.checksum(saved.getSize()) != saved.getRecordsChecksum()) {
+                throw new IOException(TieredImage.STALE_IMAGE_MESSAGE + image);
+            }
+            return new TieredTable(segment, cacheSize, saved, saved.otherIds(image));
+        } catch (IOException | RuntimeException e) {
+            segment.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Saves the structures on the heap to the image, replacing it, after writing the records
+     * through to the segment. Changes made afterwards make the image stale, it is meant to be
+     * saved on shutdown.
+     */
+    public void save(final Path image) throws IOException {
+        notNull(image);
+        segment.force();
+        TieredImage.write(image, size, segment.getChunkRecords(), segment.checksum(size),
+                columns(), ids(), configurations(), otherIds);
+        logger.info("Saved image of " + size + " assets to " + image);
+    }
+
+    /**
+     * Loads every structure not loaded yet and reads the records into memory, so that the
+     * first queries after a restart do not pay for it. Optional, everything loads on demand.
+     */
+    public void warmUp() {
+        loadAll();
+        segment.load();
+    }
+
+    public Asset get(final String assetId) {
+        int slot = ids().get(assetId);
+        if (slot == IdIndex.NO_SLOT) return null;
+
+        Asset asset = cache.get(assetId);
+        if (asset == null) {
+            asset = segment.read(slot, assetId);
+            cache.put(asset);
+        }
+        return asset;
+    }
+
+    /**
+     * Same as get, but neither reads nor fills the cache, for comparing many assets at once
+     * without evicting the ones looked up by id.
+     */
+    public Asset find(final String assetId) {
+        int slot = ids().get(assetId);
+        return slot == IdIndex.NO_SLOT ? null : segment.read(slot, assetId);
+    }
+
+    public boolean containsKey(final String assetId) {
+        return ids().contains(assetId);
+    }
+
+    /**
+     * @return the asset previously stored under the same id, null if none
+     */
+    public Asset put(final Asset asset) {
+        notNull(asset);
+        loadAll();
+        int slot = ids.get(asset.getAssetId());
+        Asset previous = slot == IdIndex.NO_SLOT ? null : materialize(slot);
+        if (slot == IdIndex.NO_SLOT) {
+            if (size == columns.os.length) {
+                grow();
+            }
+            slot = size;
+        }
+
+        try {
+            segment.write(slot, asset);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ids.put(asset.getAssetId(), slot);
+        if (!IdIndex.isUuid(asset.getAssetId())) {
+            otherIds.put(slot, asset.getAssetId());
+        }
+        set(slot, asset);
+        configurations.merge(asset.getConfiguration(), 1, Integer::sum);
+        if (previous == null) {
+            size++;
+        } else {
+            cache.remove(previous.getAssetId());
+            uncount(previous.getConfiguration());
+        }
+        return previous;
+    }
+
+    /**
+     * @return the asset removed, null if none
+     */
+    public Asset remove(final String assetId) {
+        loadAll();
+        int slot = ids.remove(assetId);
+        if (slot == IdIndex.NO_SLOT) return null;
+
+        Asset removed = materialize(slot);
+        cache.remove(removed.getAssetId());
+        uncount(removed.getConfiguration());
+        otherIds.remove(slot);
+        int last = --size;
+        if (slot != last) {
+            segment.copy(last, slot);
+            columns.os[slot] = columns.os[last];
+            columns.cpu[slot] = columns.cpu[last];
+            columns.cores[slot] = columns.cores[last];
+            columns.memory[slot] = columns.memory[last];
+            String moved = otherIds.remove(last);
+            if (moved != null) {
+                otherIds.put(slot, moved);
+            }
+            ids.put(idAt(slot), slot);
+        }
+        return removed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of assets of each configuration, a read only view
+     */
+    public Map<Configuration, Integer> getConfigurations() {
+        return Collections.unmodifiableMap(configurations());
+    }
+
+    /**
+     * @param criteria
+     * @return the aggregates over the assets matching the criteria, every asset for an empty
+     * criteria
+     */
+    public Aggregates aggregate(final QueryCriteria criteria) {
+        notNull(criteria);
+        // Assets have positive cores and memory, and ANY is negative
+        if (criteria.getCores().orElse(1) <= 0 || criteria.getMemory().orElse(1) <= 0) return Aggregates.EMPTY;
+
+        return AggregateKernel.selected().aggregate(columns(), size, os(criteria), cpu(criteria),
+                criteria.getCores().orElse(AggregateKernel.ANY),
+                criteria.getMemory().orElse(AggregateKernel.ANY));
+    }
+
+    /**
+     * Matches the criteria on the columns, only the records of the matching assets are read.
+     *
+     * @param criteria
+     * @return the assets matching the criteria in slot order, every asset for an empty criteria
+     */
+    public List<Asset> select(final QueryCriteria criteria) {
+        notNull(criteria);
+        List<Asset> result = new ArrayList<>();
+        if (criteria.getCores().orElse(1) <= 0 || criteria.getMemory().orElse(1) <= 0) return result;
+
+        AggregateKernel.Columns columns = columns();
+        int os = os(criteria);
+        int cpu = cpu(criteria);
+        int cores = criteria.getCores().orElse(AggregateKernel.ANY);
+        int memory = criteria.getMemory().orElse(AggregateKernel.ANY);
+        for (int i = 0; i < size; i++) {
+            if ((os == AggregateKernel.ANY || columns.os[i] == os)
+                    && (cpu == AggregateKernel.ANY || columns.cpu[i] == cpu)
+                    && (cores == AggregateKernel.ANY || columns.cores[i] == cores)
+                    && (memory == AggregateKernel.ANY || columns.memory[i] == memory)) {
+                result.add(materialize(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return read only view of the assets, in slot order, decoded as they are iterated
+     */
+    public Collection<Asset> values() {
+        return values;
+    }
+
+    /**
+     * @return number of assets in the cache
+     */
+    public int getCachedCount() {
+        return cache.size();
+    }
+
+    /**
+     * @return ratio of the lookups by id answered by the cache, 0 before any lookup
+     */
+    public double getCacheHitRatio() {
+        long lookups = cache.getHits() + cache.getMisses();
+        return lookups == 0 ? 0 : (double) cache.getHits() / lookups;
+    }
+
+    /**
+     * Closes the segment file, the table cannot be used afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        segment.close();
+    }
+
+    private IdIndex ids() {
+        if (ids == null) {
+            ids = image.ids(size - otherIds.size());
+            if (ids == null) {
+                logger.info("Stale id index image, rebuilding it from the records");
+                ids = new IdIndex(size);
+                for (int slot = 0; slot < size; slot++) {
+                    ids.put(idAt(slot), slot);
+                }
+            } else {
+                for (Map.Entry<Integer, String> entry : otherIds.entrySet()) {
+                    ids.put(entry.getValue(), entry.getKey());
+                }
+            }
+            loaded();
+        }
+        return ids;
+    }
+
+    private AggregateKernel.Columns columns() {
+        if (columns == null) {
+            columns = image.columns(Math.max(size, 16));
+            if (columns == null) {
+                logger.info("Stale columns image, rebuilding them from the records");
+                columns = new AggregateKernel.Columns(Math.max(size, 16));
+                for (int slot = 0; slot < size; slot++) {
+                    set(slot, segment.read(slot, idAt(slot)));
+                }
+            }
+            loaded();
+        }
+        return columns;
+    }
+
+    private Map<Configuration, Integer> configurations() {
+        if (configurations == null) {
+            configurations = image.configurations();
+            if (configurations == null) {
+                logger.info("Stale configurations image, rebuilding them from the columns");
+                AggregateKernel.Columns columns = columns();
+                Map<Configuration, Integer> counts = new HashMap<>();
+                for (int slot = 0; slot < size; slot++) {
+                    Configuration configuration = Configuration.of(OperatingSystem.values()[columns.os[slot]],
+                            CPU.values()[columns.cpu[slot]], columns.cores[slot], columns.memory[slot]);
+                    counts.merge(configuration, 1, Integer::sum);
+                }
+                configurations = counts;
+            }
+            loaded();
+        }
+        return configurations;
+    }
+
+    /**
+     * Changes need every structure, as they stand in the image.
+     */
+    private void loadAll() {
+        if (image != null) {
+            ids();
+            columns();
+            configurations();
+        }
+    }
+
+    /**
+     * Lets go of the image, and its mappings, once every structure is loaded.
+     */
+    private void loaded() {
+        if (ids != null && columns != null && configurations != null) {
+            image = null;
+        }
+    }
+
+    /**
+     * The asset in the slot, from the cache when it is there, decoded from its record otherwise.
+     */
+    private Asset materialize(final int slot) {
+        String assetId = idAt(slot);
+        Asset cached = cache.peek(assetId);
+        return cached != null ? cached : segment.read(slot, assetId);
+    }
+
+    private String idAt(final int slot) {
+        String assetId = segment.idAt(slot);
+        return assetId != null ? assetId : otherIds.get(slot);
+    }
+
+    private void set(final int slot, final Asset asset) {
+        AggregateKernel.Columns columns = columns();
+        columns.os[slot] = asset.getOS().ordinal();
+        columns.cpu[slot] = asset.getCPU().ordinal();
+        columns.cores[slot] = asset.getCores();
+        columns.memory[slot] = asset.getMemory();
+    }
+
+    private void uncount(final Configuration configuration) {
+        configurations.computeIfPresent(configuration, (c, count) -> count == 1 ? null : count - 1);
+    }
+
+    private void grow() {
+        int capacity = columns.os.length * 2;
+        columns.os = Arrays.copyOf(columns.os, capacity);
+        columns.cpu = Arrays.copyOf(columns.cpu, capacity);
+        columns.cores = Arrays.copyOf(columns.cores, capacity);
+        columns.memory = Arrays.copyOf(columns.memory, capacity);
+    }
+
+    private static int os(final QueryCriteria criteria) {
+        return criteria.getOs().map(Enum::ordinal).orElse(AggregateKernel.ANY);
+    }
+
+    private static int cpu(final QueryCriteria criteria) {
+        return criteria.getCpu().map(Enum::ordinal).orElse(AggregateKernel.ANY);
+    }
+}
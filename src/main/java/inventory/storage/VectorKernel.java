@@ -0,0 +1,85 @@
+package inventory.storage;
+
+import inventory.query.Aggregates;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD kernel: each step compares as many rows as the preferred vector holds against the
+ * parameters, and folds the matching lanes into per lane counts, sums, mins and maxes which
+ * are reduced once at the end. The rows left over past the last full vector go through a
+ * masked final step, the others are loaded without masks.
+ *
+ * Only loaded when the jdk.incubator.vector module is present, see AggregateKernel.
+ */
+final class VectorKernel implements AggregateKernel {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    public Aggregates aggregate(final Columns columns, final int size, final int os, final int cpu,
+                                final int cores, final int memory) {
+        IntVector one = IntVector.broadcast(SPECIES, 1);
+        IntVector count = IntVector.zero(SPECIES);
+        IntVector totalMemory = IntVector.zero(SPECIES);
+        IntVector totalCores = IntVector.zero(SPECIES);
+        IntVector minMemory = IntVector.broadcast(SPECIES, Integer.MAX_VALUE);
+        IntVector maxMemory = IntVector.broadcast(SPECIES, Integer.MIN_VALUE);
+        IntVector minCores = IntVector.broadcast(SPECIES, Integer.MAX_VALUE);
+        IntVector maxCores = IntVector.broadcast(SPECIES, Integer.MIN_VALUE);
+
+        int bound = SPECIES.loopBound(size);
+        for (int i = 0; i < size; i += SPECIES.length()) {
+            VectorMask<Integer> inRange = i < bound ? null : SPECIES.indexInRange(i, size);
+            VectorMask<Integer> match = inRange == null ? SPECIES.maskAll(true) : inRange;
+            IntVector m = load(columns.memory, i, inRange);
+            IntVector c = load(columns.cores, i, inRange);
+            if (os != ANY) {
+                match = match.and(load(columns.os, i, inRange).eq(os));
+            }
+            if (cpu != ANY) {
+                match = match.and(load(columns.cpu, i, inRange).eq(cpu));
+            }
+            if (cores != ANY) {
+                match = match.and(c.eq(cores));
+            }
+            if (memory != ANY) {
+                match = match.and(m.eq(memory));
+            }
+            if (!match.anyTrue()) continue;
+
+            count = count.add(one, match);
+            totalMemory = totalMemory.add(m, match);
+            totalCores = totalCores.add(c, match);
+            minMemory = minMemory.lanewise(VectorOperators.MIN, m, match);
+            maxMemory = maxMemory.lanewise(VectorOperators.MAX, m, match);
+            minCores = minCores.lanewise(VectorOperators.MIN, c, match);
+            maxCores = maxCores.lanewise(VectorOperators.MAX, c, match);
+        }
+
+        return Aggregates.of(count.reduceLanes(VectorOperators.ADD),
+                totalMemory.reduceLanes(VectorOperators.ADD),
+                totalCores.reduceLanes(VectorOperators.ADD),
+                minMemory.reduceLanes(VectorOperators.MIN),
+                maxMemory.reduceLanes(VectorOperators.MAX),
+                minCores.reduceLanes(VectorOperators.MIN),
+                maxCores.reduceLanes(VectorOperators.MAX));
+    }
+
+    /**
+     * @return the vector of the column starting at the row, only the rows in range when a mask
+     * is given (last step)
+     */
+    private static IntVector load(final int[] column, final int row, final VectorMask<Integer> inRange) {
+        return inRange == null
+                ? IntVector.fromArray(SPECIES, column, row)
+                : IntVector.fromArray(SPECIES, column, row, inRange);
+    }
+
+    @Override
+    public String name() {
+        return "vector (" + SPECIES.length() + " x int)";
+    }
+}
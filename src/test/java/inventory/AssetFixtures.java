@@ -0,0 +1,51 @@
+package inventory;
+
+import inventory.data.Asset;
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+
+/**
+ * Assets shared by the tests. Every call builds a new asset with its own id.
+ */
+public final class AssetFixtures {
+
+    private AssetFixtures() {
+    }
+
+    public static Asset asset(final OperatingSystem os, final CPU cpu, final int cores, final int memory) {
+        return Asset.builder()
+                .setOS(os)
+                .setCPU(cpu)
+                .setCore(cores)
+                .setMemory(memory)
+                .build();
+    }
+
+    public static Asset macAMD1232() {
+        return asset(OperatingSystem.MACOS, CPU.AMD, 12, 32);
+    }
+
+    public static Asset macXEON48() {
+        return asset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, 4, 8);
+    }
+
+    public static Asset winAMD1232() {
+        return asset(OperatingSystem.WINDOWS, CPU.AMD, 12, 32);
+    }
+
+    public static Asset winINTEL1232() {
+        return asset(OperatingSystem.WINDOWS, CPU.INTEL, 12, 32);
+    }
+
+    public static Asset winAMD24128() {
+        return asset(OperatingSystem.WINDOWS, CPU.AMD, 24, 128);
+    }
+
+    public static Asset linuxINTEL1232() {
+        return asset(OperatingSystem.LINUX, CPU.INTEL, 12, 32);
+    }
+
+    public static Asset linuxXEON4128() {
+        return asset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, 4, 128);
+    }
+}
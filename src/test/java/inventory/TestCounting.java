@@ -0,0 +1,97 @@
+package inventory;
+
+import inventory.data.Asset;
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+import inventory.query.Attribute;
+import inventory.query.QueryCriteria;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class TestCounting {
+
+    private static final int[] CORE_SIZES = {2, 4, 8, 16};
+    private static final int[] MEMORY_SIZES = {4, 8, 16, 32, 64};
+
+    private List<Inventory> inventories;
+    private final List<QueryCriteria> criteria = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        inventories = asList(new DefaultInventory(), new DefaultInventory(EnumSet.noneOf(Attribute.class)),
+                new DefaultInventory(EnumSet.of(Attribute.OS, Attribute.CPU)), new ShardedInventory(4));
+
+        Random random = new Random(5);
+        for (int i = 0; i < 400; i++) {
+            Asset asset = Asset.builder()
+                    .setOS(OperatingSystem.values()[random.nextInt(OperatingSystem.values().length)])
+                    .setCPU(CPU.values()[random.nextInt(CPU.values().length)])
+                    .setCore(CORE_SIZES[random.nextInt(CORE_SIZES.length)])
+                    .setMemory(MEMORY_SIZES[random.nextInt(MEMORY_SIZES.length)])
+                    .build();
+            for (Inventory inventory : inventories) {
+                inventory.addAsset(asset);
+            }
+        }
+
+        criteria.add(QueryCriteria.builder().setOS(OperatingSystem.LINUX).build());
+        criteria.add(QueryCriteria.builder().setMemory(64).build());
+        criteria.add(QueryCriteria.builder().setMemory(3).build());
+        criteria.add(QueryCriteria.builder().setOS(OperatingSystem.WINDOWS).setCPU(CPU.INTEL).build());
+        criteria.add(QueryCriteria.builder().setCPU(CPU.AMD).setCore(8).setMemory(16).build());
+        criteria.add(QueryCriteria.builder().setOS(OperatingSystem.MACOS).setCPU(CPU.APPLE_SILLICON)
+                .setCore(2).setMemory(4).build());
+        criteria.add(QueryCriteria.builder().setCore(4).setMemory(1024).build());
+    }
+
+    @Test
+    public void testCountsMatchSearch() {
+        for (Inventory inventory : inventories) {
+            for (QueryCriteria c : criteria) {
+                assertEquals(c.toString(), inventory.search(c).size(), inventory.totalAssets(c));
+            }
+            assertEquals(400, inventory.getFullInventorySize());
+        }
+    }
+
+    @Test
+    public void testCountsFollowDeletes() {
+        QueryCriteria linux = QueryCriteria.builder().setOS(OperatingSystem.LINUX).build();
+        QueryCriteria eight = QueryCriteria.builder().setCore(8).build();
+
+        for (Inventory inventory : inventories) {
+            int deleted = inventory.deleteAssets(linux).size();
+            assertEquals(0, inventory.totalAssets(linux));
+            assertEquals(400 - deleted, inventory.getFullInventorySize());
+            for (QueryCriteria c : criteria) {
+                assertEquals(c.toString(), inventory.search(c).size(), inventory.totalAssets(c));
+            }
+            assertEquals(inventory.search(eight).size(), inventory.totalAssets(eight));
+        }
+    }
+
+    @Test
+    public void testNullAndEmptyCriteriaCountNothing() {
+        for (Inventory inventory : inventories) {
+            assertEquals(0, inventory.totalAssets((QueryCriteria) null));
+            assertEquals(0, inventory.totalAssets(QueryCriteria.builder().build()));
+        }
+    }
+
+    @Test
+    public void testUnionCount() {
+        DefaultInventory union = new DefaultInventory(DefaultInventory.ListMode.UNION);
+        union.addAssets(inventories.get(0).getFullInventory());
+
+        assertEquals(union.search(criteria).size(), union.totalAssets(criteria));
+        assertEquals(0, union.totalAssets((List<QueryCriteria>) null));
+    }
+}
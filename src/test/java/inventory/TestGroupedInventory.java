@@ -0,0 +1,140 @@
+package inventory;
+
+import inventory.data.Asset;
+import inventory.data.Configuration;
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+import inventory.query.Expression;
+import inventory.query.QueryCriteria;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static inventory.query.Attribute.MEMORY;
+import static inventory.query.Attribute.OS;
+import static inventory.query.Expression.*;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class TestGroupedInventory {
+
+    private static final int[] CORE_SIZES = {2, 4, 8, 16};
+    private static final int[] MEMORY_SIZES = {4, 8, 16, 32, 64};
+
+    private GroupedInventory grouped;
+    private DefaultInventory reference;
+    private final List<Asset> assets = new ArrayList<>();
+
+    private List<QueryCriteria> criteria = asList(
+            QueryCriteria.builder().setOS(OperatingSystem.LINUX).build(),
+            QueryCriteria.builder().setCPU(CPU.AMD).setMemory(16).build(),
+            QueryCriteria.builder().setCore(8).build(),
+            QueryCriteria.builder().setOS(OperatingSystem.MACOS).setCPU(CPU.APPLE_SILLICON)
+                    .setCore(2).setMemory(4).build(),
+            QueryCriteria.builder().setMemory(3).build(),
+            QueryCriteria.builder().setOS(OperatingSystem.WINDOWS).setCPU(CPU.INTEL).build(),
+            QueryCriteria.builder().setOS(OperatingSystem.LINUX).setCPU(CPU.AMD).setCore(4).build(),
+            QueryCriteria.builder().setOS(OperatingSystem.LINUX).setMemory(8).build());
+
+    @Before
+    public void setup() {
+        grouped = new GroupedInventory();
+        reference = new DefaultInventory();
+
+        Random random = new Random(29);
+        for (int i = 0; i < 1000; i++) {
+            assets.add(Asset.builder()
+                    .setOS(OperatingSystem.values()[random.nextInt(OperatingSystem.values().length)])
+                    .setCPU(CPU.values()[random.nextInt(CPU.values().length)])
+                    .setCore(CORE_SIZES[random.nextInt(CORE_SIZES.length)])
+                    .setMemory(MEMORY_SIZES[random.nextInt(MEMORY_SIZES.length)])
+                    .build());
+        }
+        grouped.addAssets(assets);
+        reference.addAssets(assets);
+    }
+
+    @Test
+    public void testAgreesWithDefaultInventory() {
+        assertTrue(grouped.getGroupCount() < assets.size());
+        assertAgree();
+    }
+
+    @Test
+    public void testRangeBoundsAreNotInterned() {
+        int interned = Configuration.interned();
+        for (int cores = 1000; cores < 1100; cores++) {
+            assertEquals(0, grouped.totalAssets(QueryCriteria.builder().setOS(OperatingSystem.LINUX)
+                    .setCPU(CPU.AMD).setCore(cores).build()));
+        }
+        assertEquals(interned, Configuration.interned());
+    }
+
+    @Test
+    public void testIncrementalMaintenance() {
+        for (int i = 0; i < assets.size(); i += 2) {
+            String id = assets.get(i).getAssetId();
+            assertEquals(reference.deleteAssetById(id), grouped.deleteAssetById(id));
+        }
+        assertEquals(new HashSet<>(reference.deleteAssets(criteria.get(1))),
+                new HashSet<>(grouped.deleteAssets(criteria.get(1))));
+        assertEquals(0, grouped.totalAssets(criteria.get(1)));
+        assertAgree();
+
+        assertEquals(new HashSet<>(reference.deleteAssetsByIds(ids())), new HashSet<>(grouped.deleteAssetsByIds(ids())));
+        assertEquals(0, grouped.getFullInventorySize());
+        assertEquals(0, grouped.getGroupCount());
+        assertEquals(0, grouped.maxMemory());
+    }
+
+    @Test
+    public void testExpressionsExpandMatchingGroups() {
+        Expression expression = or(and(eq(OS, OperatingSystem.LINUX), atLeast(MEMORY, 32)),
+                not(in(OS, OperatingSystem.LINUX, OperatingSystem.WINDOWS)));
+
+        List<Asset> found = grouped.search(expression);
+        assertEquals(new HashSet<>(reference.search(expression)), new HashSet<>(found));
+        assertEquals(found.size(), new HashSet<>(found).size());
+    }
+
+    @Test
+    public void testNullAndEmptyCriteria() {
+        assertTrue(grouped.search((QueryCriteria) null).isEmpty());
+        assertTrue(grouped.deleteAssets(QueryCriteria.builder().build()).isEmpty());
+        assertEquals(0, grouped.totalMemory(QueryCriteria.builder().build()));
+        assertEquals(assets.size(), grouped.getFullInventorySize());
+    }
+
+    private void assertAgree() {
+        assertEquals(reference.getFullInventorySize(), grouped.getFullInventorySize());
+        assertEquals(reference.totalMemory(), grouped.totalMemory());
+        assertEquals(reference.totalCores(), grouped.totalCores());
+        assertEquals(reference.minMemory(), grouped.minMemory());
+        assertEquals(reference.maxCores(), grouped.maxCores());
+
+        for (QueryCriteria c : criteria) {
+            assertEquals(new HashSet<>(reference.search(c)), new HashSet<>(grouped.search(c)));
+            assertEquals(reference.totalAssets(c), grouped.totalAssets(c));
+            assertEquals(reference.totalMemory(c), grouped.totalMemory(c));
+            assertEquals(reference.totalCores(c), grouped.totalCores(c));
+            assertEquals(reference.maxMemory(c), grouped.maxMemory(c));
+            assertEquals(reference.minCores(c), grouped.minCores(c));
+        }
+        assertEquals(reference.totalMemory(criteria), grouped.totalMemory(criteria));
+        for (Asset a : reference.getFullInventory()) {
+            assertEquals(a, grouped.getAssetById(a.getAssetId()).get());
+        }
+    }
+
+    private List<String> ids() {
+        List<String> ids = new ArrayList<>();
+        for (Asset a : assets) {
+            ids.add(a.getAssetId());
+        }
+        return ids;
+    }
+}
@@ -14,7 +14,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
-import static inventory.DefaultInventory.NON_NULL_ARGUMENT;
+import static inventory.AssetFixtures.*;
+import static inventory.Inventory.NON_NULL_ARGUMENT;
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 import static org.apache.commons.collections4.CollectionUtils.isEqualCollection;
@@ -37,23 +38,23 @@ public class TestInventoryManager {
     private static final int ONEHUNDREDTWENTYEIGHT = 128;
 
     // Set of mac assets
-    private Asset macAMD1232 = getAsset(OperatingSystem.MACOS, CPU.AMD, TWELVE, THIRTYTWO);
-    private Asset macINTEL1232 = getAsset(OperatingSystem.MACOS, CPU.INTEL, TWELVE, THIRTYTWO);
-    private Asset macXEON1232 = getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWELVE, THIRTYTWO);
-    private Asset macXEON48 = getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, FOUR, EIGHT);
+    private Asset macAMD1232 = macAMD1232();
+    private Asset macINTEL1232 = asset(OperatingSystem.MACOS, CPU.INTEL, TWELVE, THIRTYTWO);
+    private Asset macXEON1232 = asset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWELVE, THIRTYTWO);
+    private Asset macXEON48 = macXEON48();
 
     // Set of windows assets
-    private Asset winAMD1232 = getAsset(OperatingSystem.WINDOWS, CPU.AMD, TWELVE, THIRTYTWO);
-    private Asset winINTEL1232 = getAsset(OperatingSystem.WINDOWS, CPU.INTEL, TWELVE, THIRTYTWO);
-    private Asset winXEON1232 = getAsset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWELVE, THIRTYTWO);
-    private Asset winXEON24128 = getAsset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR, ONEHUNDREDTWENTYEIGHT);
-    private Asset winAMD24128 = getAsset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR, ONEHUNDREDTWENTYEIGHT);
+    private Asset winAMD1232 = winAMD1232();
+    private Asset winINTEL1232 = winINTEL1232();
+    private Asset winXEON1232 = asset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWELVE, THIRTYTWO);
+    private Asset winXEON24128 = asset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR, ONEHUNDREDTWENTYEIGHT);
+    private Asset winAMD24128 = winAMD24128();
 
     // Set of linux assets
-    private Asset linuxAMD1232 = getAsset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO);
-    private Asset linuxINTEL1232 = getAsset(OperatingSystem.LINUX, CPU.INTEL, TWELVE, THIRTYTWO);
-    private Asset linuxXEON1232 = getAsset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, TWELVE, THIRTYTWO);
-    private Asset linuxXEON4128 = getAsset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, FOUR, ONEHUNDREDTWENTYEIGHT);
+    private Asset linuxAMD1232 = asset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO);
+    private Asset linuxINTEL1232 = linuxINTEL1232();
+    private Asset linuxXEON1232 = asset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, TWELVE, THIRTYTWO);
+    private Asset linuxXEON4128 = linuxXEON4128();
 
 
     @Before
@@ -63,9 +64,9 @@ public class TestInventoryManager {
 
     @Test
     public void addAsset() {
-        Asset macAsset = getAsset(OperatingSystem.MACOS, CPU.AMD, TWELVE, THIRTYTWO);
-        Asset winAsset = getAsset(OperatingSystem.WINDOWS, CPU.AMD, TWELVE, THIRTYTWO);
-        Asset linAsset = getAsset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO);
+        Asset macAsset = macAMD1232();
+        Asset winAsset = winAMD1232();
+        Asset linAsset = asset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO);
 
         inventory.addAsset(macAsset);
         inventory.addAsset(winAsset);
@@ -228,14 +229,14 @@ public class TestInventoryManager {
 
     @Test
     public void testSumOfCoresAllWindowsAssets() {
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, FOUR, EIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
+        inventory.addAsset(macAMD1232());
+        inventory.addAsset(macXEON48());
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
 
         QueryCriteria query = QueryCriteria.builder()
@@ -248,14 +249,14 @@ public class TestInventoryManager {
 
     @Test
     public void testSumOfCoresAllWindowsAmdAssets() {
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, FOUR, EIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
+        inventory.addAsset(macAMD1232());
+        inventory.addAsset(macXEON48());
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
 
         QueryCriteria query = QueryCriteria.builder()
@@ -269,14 +270,14 @@ public class TestInventoryManager {
 
     @Test
     public void testSumOfCoresAllAmdAssets() {
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, FOUR, EIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
+        inventory.addAsset(macAMD1232());
+        inventory.addAsset(macXEON48());
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
 
         QueryCriteria query = QueryCriteria.builder()
@@ -289,14 +290,14 @@ public class TestInventoryManager {
 
     @Test
     public void testSumOfCoresAll128MemoryAssets() {
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, FOUR, EIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
+        inventory.addAsset(macAMD1232());
+        inventory.addAsset(macXEON48());
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
 
         QueryCriteria query = QueryCriteria.builder()
@@ -420,7 +421,7 @@ public class TestInventoryManager {
         inventory.addAsset(macXEON48);
         inventory.addAsset(linuxXEON1232);
         inventory.addAsset(linuxXEON4128);
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
 
 
@@ -441,7 +442,7 @@ public class TestInventoryManager {
         inventory.addAsset(macXEON48);
         inventory.addAsset(linuxXEON1232);
         inventory.addAsset(linuxXEON4128);
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
 
         int sum = inventory.maxCores();
@@ -456,7 +457,7 @@ public class TestInventoryManager {
         inventory.addAsset(macXEON48);
         inventory.addAsset(linuxXEON1232);
         inventory.addAsset(linuxXEON4128);
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR, ONEHUNDREDTWENTYEIGHT));
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR, ONEHUNDREDTWENTYEIGHT));
 
 
         QueryCriteria query = QueryCriteria.builder()
@@ -471,14 +472,14 @@ public class TestInventoryManager {
 
     @Test
     public void testMinMemory() {
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, FOUR, EIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
+        inventory.addAsset(macAMD1232());
+        inventory.addAsset(macXEON48());
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
 
        int sum = inventory.minMemory();
@@ -488,14 +489,14 @@ public class TestInventoryManager {
 
     @Test
     public void testMinMemoryForMacAssets() {
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, FOUR, EIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
+        inventory.addAsset(macAMD1232());
+        inventory.addAsset(macXEON48());
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
 
         QueryCriteria query = QueryCriteria.builder()
@@ -508,14 +509,14 @@ public class TestInventoryManager {
 
     @Test
     public void testMinMemoryForLinuxXeonAssets() {
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, FOUR, EIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
+        inventory.addAsset(macAMD1232());
+        inventory.addAsset(macXEON48());
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
 
         QueryCriteria query = QueryCriteria.builder()
@@ -529,14 +530,14 @@ public class TestInventoryManager {
 
     @Test
     public void testMaxMemory() {
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, FOUR, EIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
+        inventory.addAsset(macAMD1232());
+        inventory.addAsset(macXEON48());
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
 
         int sum = inventory.maxMemory();
@@ -546,14 +547,14 @@ public class TestInventoryManager {
 
     @Test
     public void testMaxMemoryForMacAssets() {
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, FOUR, EIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
+        inventory.addAsset(macAMD1232());
+        inventory.addAsset(macXEON48());
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
 
         QueryCriteria query = QueryCriteria.builder()
@@ -566,14 +567,14 @@ public class TestInventoryManager {
 
     @Test
     public void testMaxMemoryForLinuxXeonAssets() {
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, FOUR, EIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
+        inventory.addAsset(macAMD1232());
+        inventory.addAsset(macXEON48());
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
 
         QueryCriteria query = QueryCriteria.builder()
@@ -588,14 +589,14 @@ public class TestInventoryManager {
 
     @Test
     public void testCountOfAll() {
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, FOUR, EIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
+        inventory.addAsset(macAMD1232());
+        inventory.addAsset(macXEON48());
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
 
         int totalAssets = inventory.getFullInventorySize();
@@ -607,14 +608,14 @@ public class TestInventoryManager {
     public void testCountAllOfOneCPU() {
         //We are testing for APPLE_SILLICON ... the inventory load adds 3 assets that match
         load32G12CoreInventory();
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, FOUR, EIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
+        inventory.addAsset(macAMD1232());
+        inventory.addAsset(macXEON48());
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, 64,
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, 64,
                 ONEHUNDREDTWENTYEIGHT));
 
 
@@ -630,14 +631,14 @@ public class TestInventoryManager {
     public void testCountOfAllOneMemory() {
         //We are testing for 32GB ... the inventory load adds 9 assets that match
         load32G12CoreInventory();
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, FOUR, EIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
+        inventory.addAsset(macAMD1232());
+        inventory.addAsset(macXEON48());
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
 
         QueryCriteria query = QueryCriteria.builder()
@@ -652,14 +653,14 @@ public class TestInventoryManager {
     public void testCountAllOfOneCoreSize() {
         //We are testing for 24 Core ... the inventory load adds 0 assets that match
         load32G12CoreInventory();
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, FOUR, EIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
+        inventory.addAsset(macAMD1232());
+        inventory.addAsset(macXEON48());
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
 
         QueryCriteria query = QueryCriteria.builder()
@@ -675,14 +676,14 @@ public class TestInventoryManager {
         //We are testing for 24 Core ... the inventory load adds 0 assets that match
         load32G12CoreInventory();
 
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, FOUR, EIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
+        inventory.addAsset(macAMD1232());
+        inventory.addAsset(macXEON48());
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
 
         QueryCriteria query = QueryCriteria.builder()
@@ -700,14 +701,14 @@ public class TestInventoryManager {
     public void testTotalAssetsWinAMD32Core128MemoryFindNone() {
         //We are testing for 24 Core ... the inventory load adds 0 assets that match
         load32G12CoreInventory();
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.APPLE_SILLICON, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, FOUR, EIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
-        inventory.addAsset(getAsset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
+        inventory.addAsset(macAMD1232());
+        inventory.addAsset(macXEON48());
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.AMD, TWELVE, THIRTYTWO));
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.AMD, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
-        inventory.addAsset(getAsset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, SIXTYFOUR,
                 ONEHUNDREDTWENTYEIGHT));
 
 
@@ -727,9 +728,9 @@ public class TestInventoryManager {
         //We are testing for 24 Core ... the inventory load adds 0 assets that match
         load32G12CoreInventory();
 
-        Asset asset1 = getAsset(OperatingSystem.WINDOWS, CPU.AMD, THIRTYTWO,
+        Asset asset1 = asset(OperatingSystem.WINDOWS, CPU.AMD, THIRTYTWO,
                 ONEHUNDREDTWENTYEIGHT);
-        Asset asset2 = getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWENTYFOUR,
+        Asset asset2 = asset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWENTYFOUR,
                 ONEHUNDREDTWENTYEIGHT);
 
         inventory.addAsset(asset1);
@@ -770,9 +771,9 @@ public class TestInventoryManager {
         //We are testing for 24 Core ... the inventory load adds 0 assets that match
         load32G12CoreInventory();
 
-        Asset asset1 = getAsset(OperatingSystem.WINDOWS, CPU.AMD, THIRTYTWO,
+        Asset asset1 = asset(OperatingSystem.WINDOWS, CPU.AMD, THIRTYTWO,
                 ONEHUNDREDTWENTYEIGHT);
-        Asset asset2 = getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWENTYFOUR,
+        Asset asset2 = asset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWENTYFOUR,
                 EIGHT);
 
         inventory.addAsset(asset1);
@@ -811,9 +812,9 @@ public class TestInventoryManager {
         //Tests max and min core for multiple criteria
         load32G12CoreInventory();
 
-        Asset asset1 = getAsset(OperatingSystem.WINDOWS, CPU.AMD, THIRTYTWO,
+        Asset asset1 = asset(OperatingSystem.WINDOWS, CPU.AMD, THIRTYTWO,
                 ONEHUNDREDTWENTYEIGHT);
-        Asset asset2 = getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWENTYFOUR,
+        Asset asset2 = asset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWENTYFOUR,
                 EIGHT);
 
         inventory.addAsset(asset1);
@@ -849,13 +850,13 @@ public class TestInventoryManager {
 
     @Test
     public void testTotalCoreMultipleCriteria() {
-        Asset asset1 = getAsset(OperatingSystem.WINDOWS, CPU.AMD, THIRTYTWO,
+        Asset asset1 = asset(OperatingSystem.WINDOWS, CPU.AMD, THIRTYTWO,
                 ONEHUNDREDTWENTYEIGHT);
-        Asset asset2 = getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWENTYFOUR,
+        Asset asset2 = asset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWENTYFOUR,
                 EIGHT);
-        Asset asset3 = getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWENTYFOUR,
+        Asset asset3 = asset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWENTYFOUR,
                 EIGHT);
-        Asset asset4 = getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWENTYFOUR,
+        Asset asset4 = asset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWENTYFOUR,
                 EIGHT);
 
         inventory.addAsset(asset1);
@@ -892,13 +893,13 @@ public class TestInventoryManager {
 
     @Test
     public void testTotalMemoryMultipleCriteria() {
-        Asset asset1 = getAsset(OperatingSystem.WINDOWS, CPU.AMD, THIRTYTWO,
+        Asset asset1 = asset(OperatingSystem.WINDOWS, CPU.AMD, THIRTYTWO,
                 ONEHUNDREDTWENTYEIGHT);
-        Asset asset2 = getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWENTYFOUR,
+        Asset asset2 = asset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWENTYFOUR,
                 EIGHT);
-        Asset asset3 = getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWENTYFOUR,
+        Asset asset3 = asset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWENTYFOUR,
                 EIGHT);
-        Asset asset4 = getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWENTYFOUR,
+        Asset asset4 = asset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWENTYFOUR,
                 EIGHT);
 
         inventory.addAsset(asset1);
@@ -935,13 +936,13 @@ public class TestInventoryManager {
 
     @Test
     public void testTotalAssetsMultipleCriteria() {
-        Asset asset1 = getAsset(OperatingSystem.WINDOWS, CPU.AMD, THIRTYTWO,
+        Asset asset1 = asset(OperatingSystem.WINDOWS, CPU.AMD, THIRTYTWO,
                 ONEHUNDREDTWENTYEIGHT);
-        Asset asset2 = getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWENTYFOUR,
+        Asset asset2 = asset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWENTYFOUR,
                 EIGHT);
-        Asset asset3 = getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWENTYFOUR,
+        Asset asset3 = asset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWENTYFOUR,
                 EIGHT);
-        Asset asset4 = getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWENTYFOUR,
+        Asset asset4 = asset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWENTYFOUR,
                 EIGHT);
 
         inventory.addAsset(asset1);
@@ -978,13 +979,13 @@ public class TestInventoryManager {
 
     @Test
     public void testAddAssets() {
-        Asset asset1 = getAsset(OperatingSystem.WINDOWS, CPU.AMD, THIRTYTWO,
+        Asset asset1 = asset(OperatingSystem.WINDOWS, CPU.AMD, THIRTYTWO,
                 ONEHUNDREDTWENTYEIGHT);
-        Asset asset2 = getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWENTYFOUR,
+        Asset asset2 = asset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWENTYFOUR,
                 EIGHT);
-        Asset asset3 = getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWENTYFOUR,
+        Asset asset3 = asset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWENTYFOUR,
                 EIGHT);
-        Asset asset4 = getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWENTYFOUR,
+        Asset asset4 = asset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, TWENTYFOUR,
                 EIGHT);
 
         String assetId = inventory.addAsset(asset1);
@@ -1002,7 +1003,7 @@ public class TestInventoryManager {
 
     @Test
     public void testDeleteAssetWithNull() {
-        Asset asset1 = getAsset(OperatingSystem.WINDOWS, CPU.AMD, TWO, ONEHUNDREDTWENTYEIGHT);
+        Asset asset1 = asset(OperatingSystem.WINDOWS, CPU.AMD, TWO, ONEHUNDREDTWENTYEIGHT);
 
         List<Asset> assets = new ArrayList<>(singletonList(asset1));
 
@@ -1026,10 +1027,10 @@ public class TestInventoryManager {
 
     @Test
     public void testDeleteAssetWithCriteria() {
-        Asset asset1 = getAsset(OperatingSystem.WINDOWS, CPU.AMD, TWO, ONEHUNDREDTWENTYEIGHT);
-        Asset asset2 = getAsset(OperatingSystem.MACOS, CPU.INTEL, TWELVE, EIGHT);
-        Asset asset3 = getAsset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, TWENTYFOUR, SIXTYFOUR);
-        Asset asset4 = getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, FOUR, THIRTYTWO);
+        Asset asset1 = asset(OperatingSystem.WINDOWS, CPU.AMD, TWO, ONEHUNDREDTWENTYEIGHT);
+        Asset asset2 = asset(OperatingSystem.MACOS, CPU.INTEL, TWELVE, EIGHT);
+        Asset asset3 = asset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, TWENTYFOUR, SIXTYFOUR);
+        Asset asset4 = asset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, FOUR, THIRTYTWO);
 
         List<Asset> assets = new ArrayList<>(asList(asset3, asset4, asset1, asset2));
 
@@ -1085,10 +1086,10 @@ public class TestInventoryManager {
 
     @Test
     public void testDeleteListAssetById() {
-        Asset asset1 = getAsset(OperatingSystem.WINDOWS, CPU.AMD, TWO, ONEHUNDREDTWENTYEIGHT);
-        Asset asset2 = getAsset(OperatingSystem.MACOS, CPU.INTEL, TWELVE, EIGHT);
-        Asset asset3 = getAsset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, TWENTYFOUR, SIXTYFOUR);
-        Asset asset4 = getAsset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, FOUR, THIRTYTWO);
+        Asset asset1 = asset(OperatingSystem.WINDOWS, CPU.AMD, TWO, ONEHUNDREDTWENTYEIGHT);
+        Asset asset2 = asset(OperatingSystem.MACOS, CPU.INTEL, TWELVE, EIGHT);
+        Asset asset3 = asset(OperatingSystem.LINUX, CPU.APPLE_SILLICON, TWENTYFOUR, SIXTYFOUR);
+        Asset asset4 = asset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, FOUR, THIRTYTWO);
 
         List<Asset> assets = new ArrayList<>(asList(asset3, asset4, asset1, asset2));
 
@@ -1138,14 +1139,4 @@ public class TestInventoryManager {
         inventory.addAsset(linuxINTEL1232);
         inventory.addAsset(linuxXEON1232);
     }
-
-    private static Asset getAsset(final OperatingSystem os, final CPU cpu, final Integer core,
-                           final Integer memory) {
-        return Asset.builder()
-                .setOS(os)
-                .setCPU(cpu)
-                .setCore(core)
-                .setMemory(memory)
-                .build();
-    }
 }
\ No newline at end of file
@@ -0,0 +1,200 @@
+package inventory;
+
+import inventory.data.Asset;
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+import inventory.distributed.DistributedInventory;
+import inventory.distributed.LocalTransport;
+import inventory.replication.MutationLog;
+import inventory.replication.ReadReplica;
+import inventory.replication.ReplicatedInventory;
+import inventory.snapshot.VersionedInventory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class TestReconcile {
+
+    private static final int[] CORE_SIZES = {2, 4, 8, 16};
+    private static final int[] MEMORY_SIZES = {4, 8, 16, 32, 64};
+
+    private final Random random = new Random(45);
+    private final List<Asset> current = new ArrayList<>();
+    private final List<Asset> fleet = new ArrayList<>();
+    private List<Inventory> inventories;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setup() throws IOException {
+        inventories = asList(new DefaultInventory(), new ShardedInventory(4), new VersionedInventory(),
+                new GroupedInventory(), new TieredInventory(folder.getRoot().toPath().resolve("records.seg"), 100),
+                new DistributedInventory(new LocalTransport(3)));
+        for (int i = 0; i < 1000; i++) {
+            current.add(asset(null));
+        }
+        for (Inventory inventory : inventories) {
+            inventory.addAssets(current);
+        }
+
+        // The night's list: 100 assets gone, 50 with new hardware, 200 new ones
+        fleet.addAll(current.subList(100, 1000));
+        for (int i = 0; i < 50; i++) {
+            Asset old = fleet.get(i * 10);
+            Asset upgraded = Asset.builder()
+                    .setAssetId(old.getAssetId())
+                    .setOS(old.getOS())
+                    .setCPU(old.getCPU())
+                    .setCore(old.getCores())
+                    .setMemory(old.getMemory() * 2)
+                    .build();
+            fleet.set(i * 10, upgraded);
+        }
+        for (int i = 0; i < 200; i++) {
+            fleet.add(asset(null));
+        }
+    }
+
+    @After
+    public void close() throws IOException {
+        for (Inventory inventory : inventories) {
+            if (inventory instanceof Closeable) {
+                ((Closeable) inventory).close();
+            }
+        }
+    }
+
+    @Test
+    public void testAppliesOnlyTheDifference() {
+        for (Inventory inventory : inventories) {
+            Delta delta = inventory.reconcile(fleet);
+            assertEquals(200, delta.getAdded().size());
+            assertEquals(100, delta.getRemoved().size());
+            assertEquals(50, delta.getChanged().size());
+            assertSameAssets(inventory);
+
+            assertTrue(inventory.reconcile(fleet).isEmpty());
+        }
+    }
+
+    @Test
+    public void testVersionPublishedOnce() {
+        VersionedInventory inventory = (VersionedInventory) inventories.get(2);
+        long version = inventory.getVersion();
+
+        inventory.reconcile(fleet);
+        assertEquals(version + 1, inventory.getVersion());
+
+        inventory.reconcile(fleet);
+        assertEquals(version + 1, inventory.getVersion());
+    }
+
+    @Test
+    public void testInvalidListChangesNothing() {
+        List<Asset> duplicated = new ArrayList<>(fleet);
+        duplicated.add(fleet.get(0));
+        for (Inventory inventory : inventories) {
+            int memory = inventory.totalMemory();
+            try {
+                inventory.reconcile(duplicated);
+                fail();
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage().contains(Delta.DUPLICATE_ID_MESSAGE));
+            }
+            assertEquals(current.size(), inventory.getFullInventorySize());
+            assertEquals(memory, inventory.totalMemory());
+        }
+    }
+
+    @Test
+    public void testIdsFromAnotherSystem() {
+        fleet.add(asset("host-42"));
+        for (Inventory inventory : inventories) {
+            assertEquals(201, inventory.reconcile(fleet).getAdded().size());
+            assertSameAssets(inventory);
+        }
+    }
+
+    @Test
+    public void testUndoRestoresTheInventory() {
+        DefaultInventory inventory = (DefaultInventory) inventories.get(0);
+        int memory = inventory.totalMemory();
+
+        Runnable undo = inventory.apply(inventory.difference(fleet));
+        assertEquals(fleet.size(), inventory.getFullInventorySize());
+        undo.run();
+        assertEquals(current.size(), inventory.getFullInventorySize());
+        assertEquals(memory, inventory.totalMemory());
+        for (Asset expected : current) {
+            assertSame(expected.getConfiguration(), inventory.getAssetById(expected.getAssetId()).get().getConfiguration());
+        }
+    }
+
+    @Test
+    public void testReplicasFollow() {
+        ReplicatedInventory primary = new ReplicatedInventory(new DefaultInventory(), new MutationLog());
+        ReadReplica replica = new ReadReplica(primary.getMutationLog(), 100);
+        primary.addAssets(current);
+
+        Delta delta = primary.reconcile(fleet);
+        replica.catchUp();
+        assertEquals(delta.size(), primary.getMutationLog().lastSequence() - current.size());
+        assertSameAssets(replica);
+    }
+
+    @Test
+    public void testLargeListsInParallel() {
+        List<Asset> held = new ArrayList<>();
+        for (int i = 0; i < Delta.PARALLEL_THRESHOLD; i++) {
+            held.add(asset(null));
+        }
+        List<Asset> target = new ArrayList<>(held.subList(1, held.size()));
+        target.add(asset(null));
+        target.set(0, asset(target.get(0).getAssetId()));
+
+        Delta delta = Delta.between(held, target);
+        assertEquals(held.get(0), delta.getRemoved().get(0));
+        assertEquals(1, delta.getAdded().size());
+        assertTrue(delta.getChanged().size() <= 1);
+    }
+
+    private void assertSameAssets(final Inventory inventory) {
+        assertEquals(fleet.size(), inventory.getFullInventorySize());
+        Map<String, Asset> byId = new HashMap<>();
+        for (Asset a : inventory.getFullInventory()) {
+            byId.put(a.getAssetId(), a);
+        }
+        int memory = 0;
+        for (Asset expected : fleet) {
+            assertSame(expected.getConfiguration(), byId.get(expected.getAssetId()).getConfiguration());
+            memory += expected.getMemory();
+        }
+        assertEquals(memory, inventory.totalMemory());
+    }
+
+    private Asset asset(final String id) {
+        Asset.Builder builder = Asset.builder()
+                .setOS(OperatingSystem.values()[random.nextInt(OperatingSystem.values().length)])
+                .setCPU(CPU.values()[random.nextInt(CPU.values().length)])
+                .setCore(CORE_SIZES[random.nextInt(CORE_SIZES.length)])
+                .setMemory(MEMORY_SIZES[random.nextInt(MEMORY_SIZES.length)]);
+        if (id != null) {
+            builder.setAssetId(id);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,110 @@
+package inventory;
+
+import inventory.data.Asset;
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+import inventory.query.QueryCriteria;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static inventory.AssetFixtures.*;
+import static inventory.ShardedInventory.INVALID_SHARD_COUNT;
+import static java.util.Arrays.asList;
+import static org.apache.commons.collections4.CollectionUtils.isEqualCollection;
+import static org.junit.Assert.*;
+
+public class TestShardedInventory {
+
+    private static final int ZERO = 0;
+    private static final int FOUR = 4;
+    private static final int EIGHT = 8;
+    private static final int TWELVE = 12;
+    private static final int TWENTYFOUR = 24;
+    private static final int THIRTYTWO = 32;
+    private static final int ONEHUNDREDTWENTYEIGHT = 128;
+
+    private ShardedInventory inventory;
+
+    private Asset macAMD1232 = macAMD1232();
+    private Asset macXEON48 = macXEON48();
+    private Asset winAMD24128 = winAMD24128();
+    private Asset winINTEL1232 = winINTEL1232();
+    private Asset linuxXEON4128 = linuxXEON4128();
+
+    @Rule
+    public ExpectedException exceptionRule = ExpectedException.none();
+
+    @Before
+    public void setup() {
+        // More shards than assets so that most shards are empty
+        inventory = new ShardedInventory(EIGHT);
+        inventory.addAssets(asList(macAMD1232, macXEON48, winAMD24128, winINTEL1232, linuxXEON4128));
+    }
+
+    @Test
+    public void testInvalidShardCount() {
+        exceptionRule.expect(IllegalArgumentException.class);
+        exceptionRule.expectMessage(INVALID_SHARD_COUNT);
+
+        new ShardedInventory(ZERO);
+    }
+
+    @Test
+    public void testPointOperations() {
+        Optional<Asset> found = inventory.getAssetById(winAMD24128.getAssetId());
+        assertEquals(winAMD24128, found.orElse(null));
+
+        Optional<Asset> deleted = inventory.deleteAssetById(winAMD24128.getAssetId());
+        assertEquals(winAMD24128, deleted.orElse(null));
+        assertFalse(inventory.getAssetById(winAMD24128.getAssetId()).isPresent());
+        assertFalse(inventory.getAssetById(null).isPresent());
+        assertEquals(FOUR, inventory.getFullInventorySize());
+    }
+
+    @Test
+    public void testSearchMergesShards() {
+        List<Asset> results = inventory.search(QueryCriteria.builder().setOS(OperatingSystem.MACOS).build());
+
+        assertTrue(isEqualCollection(asList(macAMD1232, macXEON48), results));
+        assertEquals(ZERO, inventory.search(QueryCriteria.builder().build()).size());
+    }
+
+    @Test
+    public void testAggregatesMergeShards() {
+        assertEquals(THIRTYTWO + EIGHT + ONEHUNDREDTWENTYEIGHT + THIRTYTWO + ONEHUNDREDTWENTYEIGHT,
+                inventory.totalMemory());
+        assertEquals(TWELVE + FOUR + TWENTYFOUR + TWELVE + FOUR, inventory.totalCores());
+        assertEquals(EIGHT, inventory.minMemory());
+        assertEquals(TWENTYFOUR, inventory.maxCores());
+
+        // Empty shards must not pull the min down to zero
+        QueryCriteria amd = QueryCriteria.builder().setCPU(CPU.AMD).build();
+        assertEquals(THIRTYTWO, inventory.minMemory(amd));
+        assertEquals(TWELVE, inventory.minCores(amd));
+        assertEquals(ONEHUNDREDTWENTYEIGHT, inventory.maxMemory(amd));
+        assertEquals(2, inventory.totalAssets(amd));
+
+        // Nothing matches
+        QueryCriteria linuxAmd = QueryCriteria.builder().setOS(OperatingSystem.LINUX).setCPU(CPU.AMD).build();
+        assertEquals(ZERO, inventory.minMemory(linuxAmd));
+        assertEquals(ZERO, inventory.maxCores(linuxAmd));
+    }
+
+    @Test
+    public void testDeletesAcrossShards() {
+        List<Asset> deleted = inventory.deleteAssets(QueryCriteria.builder().setMemory(ONEHUNDREDTWENTYEIGHT).build());
+        assertTrue(isEqualCollection(asList(winAMD24128, linuxXEON4128), deleted));
+
+        List<Asset> deletedByIds = inventory.deleteAssetsByIds(
+                new ArrayList<>(asList(macAMD1232.getAssetId(), macXEON48.getAssetId())));
+        assertTrue(isEqualCollection(asList(macAMD1232, macXEON48), deletedByIds));
+
+        assertTrue(isEqualCollection(asList(winINTEL1232), inventory.getFullInventory()));
+    }
+}
@@ -0,0 +1,139 @@
+package inventory;
+
+import inventory.data.Asset;
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+import inventory.query.QueryCriteria;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class TestTieredInventory {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TieredInventory tiered;
+    private final DefaultInventory reference = new DefaultInventory();
+
+    @Before
+    public void setup() throws IOException {
+        tiered = new TieredInventory(folder.getRoot().toPath().resolve("records.seg"), 16);
+    }
+
+    @After
+    public void close() throws IOException {
+        tiered.close();
+    }
+
+    @Test
+    public void testAgreesWithDefaultInventory() {
+        Random random = new Random(49);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            int action = random.nextInt(5);
+            if (ids.isEmpty() || action < 3) {
+                Asset asset = getAsset(random);
+                assertEquals(reference.addAsset(asset), tiered.addAsset(asset));
+                ids.add(asset.getAssetId());
+            } else if (action == 3) {
+                String id = ids.remove(random.nextInt(ids.size()));
+                assertEquals(reference.deleteAssetById(id).get().getConfiguration(),
+                        tiered.deleteAssetById(id).get().getConfiguration());
+            } else {
+                Asset next = getAsset(random).toBuilder().setAssetId(ids.get(random.nextInt(ids.size()))).build();
+                assertEquals(reference.updateAsset(next).get().getConfiguration(),
+                        tiered.updateAsset(next).get().getConfiguration());
+            }
+        }
+
+        assertEquals(reference.getFullInventorySize(), tiered.getFullInventorySize());
+        assertEquals(reference.aggregate().toString(), tiered.aggregate().toString());
+        assertEquals(reference.getConfigurations(), tiered.getConfigurations());
+        for (OperatingSystem os : OperatingSystem.values()) {
+            for (CPU cpu : CPU.values()) {
+                QueryCriteria criteria = QueryCriteria.builder().setOS(os).setCPU(cpu).build();
+                assertEquals(ids(reference.search(criteria)), ids(tiered.search(criteria)));
+                assertEquals(reference.totalAssets(criteria), tiered.totalAssets(criteria));
+                assertEquals(reference.maxMemory(criteria), tiered.maxMemory(criteria));
+                assertEquals(reference.minCores(criteria), tiered.minCores(criteria));
+            }
+        }
+
+        QueryCriteria linux = QueryCriteria.builder().setOS(OperatingSystem.LINUX).build();
+        assertEquals(ids(reference.deleteAssets(linux)), ids(tiered.deleteAssets(linux)));
+        assertEquals(reference.totalMemory(), tiered.totalMemory());
+        assertEquals(ids(reference.getFullInventory()), ids(tiered.getFullInventory()));
+    }
+
+    @Test
+    public void testOnlyTheCacheIsKeptOnTheHeap() {
+        Random random = new Random(5);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            ids.add(tiered.addAsset(getAsset(random)));
+        }
+        assertEquals(0, tiered.getCachedCount());
+        assertEquals(1000, tiered.getAssetsByIds(ids).size());
+        assertEquals(16, tiered.getCachedCount());
+
+        Asset asset = tiered.getAssetById(ids.get(0)).get();
+        assertEquals(ids.get(0), asset.getAssetId());
+        assertTrue(tiered.search(QueryCriteria.builder().setOS(asset.getOS()).build()).stream()
+                .anyMatch(a -> a.getAssetId().equals(asset.getAssetId())));
+        assertTrue(tiered.search(QueryCriteria.builder().setMemory(1000).build()).isEmpty());
+        assertTrue(tiered.search((QueryCriteria) null).isEmpty());
+    }
+
+    @Test
+    public void testRestartsFromTheImage() throws IOException {
+        Random random = new Random(11);
+        for (int i = 0; i < 500; i++) {
+            Asset asset = getAsset(random);
+            tiered.addAsset(asset);
+            reference.addAsset(asset);
+        }
+        Path segment = folder.getRoot().toPath().resolve("records.seg");
+        Path image = folder.getRoot().toPath().resolve("records.img");
+        tiered.saveImage(image);
+        tiered.close();
+
+        tiered = TieredInventory.open(segment, image, 16);
+        assertEquals(500, tiered.getFullInventorySize());
+        QueryCriteria intel = QueryCriteria.builder().setCPU(CPU.INTEL).build();
+        assertEquals(reference.aggregate(intel).toString(), tiered.aggregate(intel).toString());
+        assertEquals(ids(reference.search(intel)), ids(tiered.search(intel)));
+        tiered.warmUp();
+        String id = reference.getFullInventory().get(0).getAssetId();
+        assertEquals(id, tiered.getAssetById(id).get().getAssetId());
+    }
+
+    private static Asset getAsset(final Random random) {
+        return Asset.builder()
+                .setOS(OperatingSystem.values()[random.nextInt(OperatingSystem.values().length)])
+                .setCPU(CPU.values()[random.nextInt(CPU.values().length)])
+                .setCore(1 + random.nextInt(8))
+                .setMemory(1 + random.nextInt(32))
+                .build();
+    }
+
+    private static Set<String> ids(final List<Asset> assets) {
+        Set<String> ids = new HashSet<>();
+        for (Asset asset : assets) {
+            ids.add(asset.getAssetId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,93 @@
+package inventory;
+
+import inventory.data.Asset;
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+import inventory.query.QueryCriteria;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static inventory.AssetFixtures.*;
+import static java.util.Arrays.asList;
+import static org.apache.commons.collections4.CollectionUtils.isEqualCollection;
+import static org.junit.Assert.*;
+
+public class TestUnionListMode {
+
+    private static final int FOUR = 4;
+    private static final int EIGHT = 8;
+    private static final int TWELVE = 12;
+    private static final int THIRTYTWO = 32;
+    private static final int ONEHUNDREDTWENTYEIGHT = 128;
+
+    private DefaultInventory union;
+    private DefaultInventory concatenation;
+
+    private Asset macAMD1232 = macAMD1232();
+    private Asset macXEON48 = macXEON48();
+    private Asset linuxAMD4128 = asset(OperatingSystem.LINUX, CPU.AMD, FOUR, ONEHUNDREDTWENTYEIGHT);
+    private Asset winINTEL1232 = winINTEL1232();
+
+    // macAMD1232 matches both
+    private QueryCriteria mac = QueryCriteria.builder().setOS(OperatingSystem.MACOS).build();
+    private QueryCriteria amd = QueryCriteria.builder().setCPU(CPU.AMD).build();
+
+    @Before
+    public void setup() {
+        union = new DefaultInventory(DefaultInventory.ListMode.UNION);
+        concatenation = new DefaultInventory();
+
+        List<Asset> assets = asList(macAMD1232, macXEON48, linuxAMD4128, winINTEL1232);
+        union.addAssets(assets);
+        concatenation.addAssets(assets);
+    }
+
+    @Test
+    public void testOverlappingCriteriaAreCountedOnce() {
+        List<QueryCriteria> criteria = asList(mac, amd);
+
+        assertTrue(isEqualCollection(asList(macAMD1232, macXEON48, linuxAMD4128), union.search(criteria)));
+        assertEquals(3, union.totalAssets(criteria));
+        assertEquals(THIRTYTWO + EIGHT + ONEHUNDREDTWENTYEIGHT, union.totalMemory(criteria));
+        assertEquals(TWELVE + FOUR + FOUR, union.totalCores(criteria));
+        assertEquals(ONEHUNDREDTWENTYEIGHT, union.maxMemory(criteria));
+        assertEquals(TWELVE, union.maxCores(criteria));
+        assertEquals(EIGHT, union.minMemory(criteria));
+        assertEquals(FOUR, union.minCores(criteria));
+
+        // The default mode counts macAMD1232 twice
+        assertEquals(4, concatenation.totalAssets(criteria));
+        assertEquals(2 * THIRTYTWO + EIGHT + ONEHUNDREDTWENTYEIGHT, concatenation.totalMemory(criteria));
+    }
+
+    @Test
+    public void testNullAndEmptyCriteriaMatchNothing() {
+        List<QueryCriteria> criteria = new ArrayList<>(asList(null, QueryCriteria.builder().build()));
+
+        assertTrue(union.search(criteria).isEmpty());
+        assertEquals(0, union.totalAssets(criteria));
+        assertEquals(0, union.minMemory(criteria));
+        assertEquals(0, union.totalMemory((List<QueryCriteria>) null));
+        assertTrue(union.search((List<QueryCriteria>) null).isEmpty());
+    }
+
+    @Test
+    public void testDeleteUnion() {
+        List<Asset> deleted = union.deleteAssets(asList(mac, amd));
+
+        assertTrue(isEqualCollection(asList(macAMD1232, macXEON48, linuxAMD4128), deleted));
+        assertEquals(asList(winINTEL1232), union.getFullInventory());
+        assertEquals(0, union.totalAssets(amd));
+    }
+
+    @Test
+    public void testAggregateIgnoresListMode() {
+        List<QueryCriteria> criteria = asList(mac, amd, mac);
+
+        assertEquals(3, concatenation.aggregate(criteria).getCount());
+        assertEquals(union.aggregate(criteria).getTotalMemory(), concatenation.aggregate(criteria).getTotalMemory());
+    }
+}
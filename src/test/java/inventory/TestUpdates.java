@@ -0,0 +1,135 @@
+package inventory;
+
+import inventory.data.Asset;
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+import inventory.query.Attribute;
+import inventory.query.QueryCriteria;
+import inventory.query.SortKey;
+import inventory.replication.MutationLog;
+import inventory.replication.ReadReplica;
+import inventory.replication.ReplicatedInventory;
+import inventory.snapshot.VersionedInventory;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+
+import static inventory.AssetFixtures.*;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class TestUpdates {
+
+    private final Asset linux = asset(OperatingSystem.LINUX, CPU.INTEL, 4, 16);
+    private final Asset windows = asset(OperatingSystem.WINDOWS, CPU.AMD, 8, 32);
+    private final Asset mac = asset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, 2, 8);
+
+    private List<Inventory> inventories;
+
+    @Before
+    public void setup() {
+        inventories = asList(new DefaultInventory(), new DefaultInventory(EnumSet.noneOf(Attribute.class)),
+                new ShardedInventory(4), new VersionedInventory(), new GroupedInventory(),
+                new ReplicatedInventory(new DefaultInventory(), new MutationLog()));
+        for (Inventory inventory : inventories) {
+            inventory.addAssets(asList(linux, windows, mac));
+        }
+    }
+
+    @Test
+    public void testUpdateKeepsId() {
+        Asset upgraded = linux.toBuilder().setMemory(64).build();
+        assertEquals(linux.getAssetId(), upgraded.getAssetId());
+
+        for (Inventory inventory : inventories) {
+            assertSame(linux, inventory.updateAsset(upgraded).get());
+
+            assertEquals(3, inventory.getFullInventorySize());
+            assertSame(upgraded, inventory.getAssetById(linux.getAssetId()).get());
+            assertEquals(64 + 32 + 8, inventory.totalMemory());
+            assertEquals(64, inventory.maxMemory());
+            assertEquals(0, inventory.totalAssets(QueryCriteria.builder().setMemory(16).build()));
+            assertEquals(asList(upgraded), inventory.search(QueryCriteria.builder().setMemory(64).build()));
+            assertEquals(asList(upgraded), inventory.search(QueryCriteria.builder()
+                    .setOS(OperatingSystem.LINUX).setCore(4).build()));
+            assertEquals(upgraded, inventory.top(1, SortKey.MEMORY).get(0));
+        }
+    }
+
+    @Test
+    public void testUpdateOfUnknownIdAddsNothing() {
+        Asset unknown = asset(OperatingSystem.LINUX, CPU.AMD, 16, 128);
+        for (Inventory inventory : inventories) {
+            assertFalse(inventory.updateAsset(unknown).isPresent());
+            assertEquals(3, inventory.getFullInventorySize());
+            assertFalse(inventory.getAssetById(unknown.getAssetId()).isPresent());
+        }
+    }
+
+    @Test
+    public void testUpsert() {
+        Asset added = asset(OperatingSystem.LINUX, CPU.AMD, 16, 128);
+        Asset downgraded = windows.toBuilder().setCore(4).build();
+        for (Inventory inventory : inventories) {
+            assertFalse(inventory.upsertAsset(added).isPresent());
+            assertSame(windows, inventory.upsertAsset(downgraded).get());
+
+            assertEquals(4, inventory.getFullInventorySize());
+            assertEquals(4 + 4 + 2 + 16, inventory.totalCores());
+            assertEquals(2, inventory.totalAssets(QueryCriteria.builder().setCore(4).build()));
+        }
+    }
+
+    @Test
+    public void testBatches() {
+        Asset unknown = asset(OperatingSystem.LINUX, CPU.AMD, 16, 128);
+        List<Asset> updates = asList(mac.toBuilder().setCore(4).build(), unknown,
+                linux.toBuilder().setCPU(CPU.AMD).build());
+        for (Inventory inventory : inventories) {
+            assertEquals(asList(mac, linux), inventory.updateAssets(updates));
+            assertEquals(3, inventory.getFullInventorySize());
+            assertEquals(2, inventory.totalAssets(QueryCriteria.builder().setCPU(CPU.AMD).build()));
+
+            List<Asset> upserts = new ArrayList<>(updates);
+            upserts.set(0, mac);
+            assertEquals(asList(updates.get(0), updates.get(2)), inventory.upsertAssets(upserts));
+            assertEquals(4, inventory.getFullInventorySize());
+            assertEquals(4 + 8 + 2 + 16, inventory.totalCores());
+        }
+    }
+
+    @Test
+    public void testRepeatedIds() {
+        Asset first = linux.toBuilder().setMemory(32).build();
+        Asset second = linux.toBuilder().setMemory(64).build();
+        Asset added = asset(OperatingSystem.LINUX, CPU.AMD, 16, 128);
+        Asset addedAgain = added.toBuilder().setCore(32).build();
+        for (Inventory inventory : inventories) {
+            assertEquals(asList(linux, first), inventory.updateAssets(asList(first, second)));
+            assertSame(second, inventory.getAssetById(linux.getAssetId()).get());
+
+            assertEquals(asList(added), inventory.upsertAssets(asList(added, addedAgain)));
+            assertSame(addedAgain, inventory.getAssetById(added.getAssetId()).get());
+            assertEquals(4, inventory.getFullInventorySize());
+        }
+    }
+
+    @Test
+    public void testReplicasFollowUpdates() {
+        ReplicatedInventory primary = (ReplicatedInventory) inventories.get(5);
+        ReadReplica replica = new ReadReplica(primary.getMutationLog(), 10);
+
+        primary.updateAsset(linux.toBuilder().setMemory(64).build());
+        primary.updateAsset(asset(OperatingSystem.LINUX, CPU.AMD, 16, 128));
+        primary.upsertAssets(asList(mac.toBuilder().setMemory(4).build()));
+        replica.catchUp();
+
+        assertEquals(5, primary.getMutationLog().lastSequence());
+        assertEquals(3, replica.getFullInventorySize());
+        assertEquals(64 + 32 + 4, replica.totalMemory());
+    }
+}
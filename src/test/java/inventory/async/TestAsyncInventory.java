@@ -0,0 +1,140 @@
+package inventory.async;
+
+import inventory.data.Asset;
+import inventory.data.types.OperatingSystem;
+import inventory.query.QueryCriteria;
+import inventory.snapshot.VersionedInventory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static inventory.AssetFixtures.*;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class TestAsyncInventory {
+
+    private static final int FOUR = 4;
+    private static final int EIGHT = 8;
+    private static final int TWELVE = 12;
+    private static final int THIRTYTWO = 32;
+
+    private CountingInventory inventory;
+    private ExecutorService executor;
+    private AsyncInventory async;
+
+    private Asset macAMD1232 = macAMD1232();
+    private Asset macXEON48 = macXEON48();
+
+    @Before
+    public void setup() {
+        inventory = new CountingInventory();
+        executor = Executors.newSingleThreadExecutor();
+        async = new AsyncInventory(inventory, executor);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testConcurrentLookupsAreBatched() throws Exception {
+        async.addAssets(asList(macAMD1232, macXEON48)).get();
+
+        // Hold the executor so that every lookup is queued before the drain runs
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        List<CompletableFuture<Optional<Asset>>> lookups = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            lookups.add(async.getAssetById(i % 2 == 0 ? macAMD1232.getAssetId() : macXEON48.getAssetId()));
+        }
+        CompletableFuture<Optional<Asset>> missing = async.getAssetById("missing");
+        release.countDown();
+
+        for (int i = 0; i < lookups.size(); i++) {
+            assertEquals(i % 2 == 0 ? macAMD1232 : macXEON48, lookups.get(i).get().orElse(null));
+        }
+        assertFalse(missing.get().isPresent());
+        assertEquals(1, inventory.batches.get());
+    }
+
+    @Test
+    public void testQueriesAndAggregates() throws Exception {
+        async.addAssets(asList(macAMD1232, macXEON48)).get();
+        QueryCriteria mac = QueryCriteria.builder().setOS(OperatingSystem.MACOS).build();
+
+        assertEquals(2, async.search(mac).get().size());
+        assertEquals(Integer.valueOf(THIRTYTWO + EIGHT), async.totalMemory(mac).get());
+        assertEquals(Integer.valueOf(FOUR), async.minCores(mac).get());
+        assertEquals(Integer.valueOf(TWELVE), async.maxCores(asList(mac)).get());
+
+        // The whole inventory forms
+        assertEquals(2, async.getFullInventory().get().size());
+        assertEquals(Integer.valueOf(2), async.getFullInventorySize().get());
+        assertEquals(Integer.valueOf(THIRTYTWO + EIGHT), async.totalMemory().get());
+        assertEquals(Integer.valueOf(TWELVE + FOUR), async.totalCores().get());
+        assertEquals(Integer.valueOf(THIRTYTWO), async.maxMemory().get());
+        assertEquals(Integer.valueOf(TWELVE), async.maxCores().get());
+        assertEquals(Integer.valueOf(EIGHT), async.minMemory().get());
+        assertEquals(Integer.valueOf(FOUR), async.minCores().get());
+
+        assertEquals(1, async.deleteAssetsByIds(asList(macXEON48.getAssetId())).get().size());
+        assertEquals(Integer.valueOf(1), async.totalAssets(mac).get());
+    }
+
+    @Test
+    public void testErrorFailsTheWholeBatch() throws Exception {
+        inventory.failure = new AssertionError("lookup failed");
+        List<CompletableFuture<Optional<Asset>>> lookups = asList(async.getAssetById(macAMD1232.getAssetId()),
+                async.getAssetById(macXEON48.getAssetId()));
+
+        for (CompletableFuture<Optional<Asset>> lookup : lookups) {
+            try {
+                lookup.get(5, TimeUnit.SECONDS);
+                fail();
+            } catch (ExecutionException e) {
+                assertSame(inventory.failure, e.getCause());
+            }
+        }
+    }
+
+    @Test
+    public void testDefaultExecutor() throws Exception {
+        try (AsyncInventory defaultAsync = new AsyncInventory(inventory)) {
+            defaultAsync.addAssets(asList(macAMD1232)).get();
+            assertEquals(macAMD1232, defaultAsync.getAssetById(macAMD1232.getAssetId()).get().orElse(null));
+        }
+    }
+
+    private static final class CountingInventory extends VersionedInventory {
+
+        final AtomicInteger batches = new AtomicInteger();
+        volatile Error failure;
+
+        @Override
+        public List<Asset> getAssetsByIds(final List<String> assetIds) {
+            batches.incrementAndGet();
+            if (failure != null) throw failure;
+            return super.getAssetsByIds(assetIds);
+        }
+    }
+}
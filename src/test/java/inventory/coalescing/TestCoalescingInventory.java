@@ -0,0 +1,208 @@
+package inventory.coalescing;
+
+import inventory.data.Asset;
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+import inventory.query.QueryCriteria;
+import inventory.snapshot.VersionedInventory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static inventory.AssetFixtures.*;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class TestCoalescingInventory {
+
+    private static final int FOUR = 4;
+    private static final int EIGHT = 8;
+    private static final int TWELVE = 12;
+    private static final int THIRTYTWO = 32;
+    private static final int CALLERS = 8;
+
+    private BlockingInventory inventory;
+    private CoalescingInventory coalescing;
+    private ExecutorService executor;
+
+    private Asset macAMD1232 = macAMD1232();
+    private Asset macXEON48 = macXEON48();
+
+    @Before
+    public void setup() {
+        inventory = new BlockingInventory();
+        inventory.addAssets(asList(macAMD1232, macXEON48));
+        coalescing = new CoalescingInventory(inventory);
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @After
+    public void tearDown() {
+        inventory.release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testIdenticalQueriesShareOneEvaluation() throws Exception {
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            // Distinct but equal criteria instances
+            QueryCriteria mac = QueryCriteria.builder().setOS(OperatingSystem.MACOS).build();
+            results.add(executor.submit(() -> coalescing.totalMemory(mac)));
+        }
+
+        awaitCoalesced(CALLERS - 1);
+        inventory.release.countDown();
+
+        for (Future<Integer> result : results) {
+            assertEquals(Integer.valueOf(THIRTYTWO + EIGHT), result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, inventory.evaluations.get());
+    }
+
+    @Test
+    public void testFollowersGetTheirOwnList() throws Exception {
+        QueryCriteria mac = QueryCriteria.builder().setOS(OperatingSystem.MACOS).build();
+        inventory.release.countDown();
+
+        List<Asset> first = coalescing.search(mac);
+        first.clear();
+        assertEquals(2, coalescing.search(mac).size());
+    }
+
+    @Test
+    public void testSequentialQueriesAreNotCached() {
+        QueryCriteria mac = QueryCriteria.builder().setOS(OperatingSystem.MACOS).build();
+        inventory.release.countDown();
+
+        assertEquals(THIRTYTWO + EIGHT, coalescing.totalMemory(mac));
+        coalescing.deleteAssetById(macXEON48.getAssetId());
+        assertEquals(THIRTYTWO, coalescing.totalMemory(mac));
+        assertEquals(2, inventory.evaluations.get());
+        assertEquals(0, coalescing.getCoalescedCount());
+    }
+
+    @Test
+    public void testDifferentQueriesAreNotCoalesced() throws Exception {
+        QueryCriteria mac = QueryCriteria.builder().setOS(OperatingSystem.MACOS).build();
+        QueryCriteria amd = QueryCriteria.builder().setCPU(CPU.AMD).build();
+
+        Future<Integer> macMemory = executor.submit(() -> coalescing.totalMemory(mac));
+        Future<Integer> amdMemory = executor.submit(() -> coalescing.totalMemory(amd));
+        Future<Integer> macCores = executor.submit(() -> coalescing.totalCores(mac));
+        inventory.release.countDown();
+
+        assertEquals(Integer.valueOf(THIRTYTWO + EIGHT), macMemory.get(5, TimeUnit.SECONDS));
+        assertEquals(Integer.valueOf(THIRTYTWO), amdMemory.get(5, TimeUnit.SECONDS));
+        assertEquals(Integer.valueOf(TWELVE + FOUR), macCores.get(5, TimeUnit.SECONDS));
+        assertEquals(0, coalescing.getCoalescedCount());
+    }
+
+    @Test
+    public void testWholeInventoryFormIsNotCoalescedWithNullCriteria() throws Exception {
+        Future<Integer> none = executor.submit(() -> coalescing.totalMemory((QueryCriteria) null));
+        awaitEvaluations(1);
+
+        // Answered right away, not by joining the evaluation in flight
+        assertEquals(THIRTYTWO + EIGHT, coalescing.totalMemory());
+        inventory.release.countDown();
+        assertEquals(Integer.valueOf(0), none.get(5, TimeUnit.SECONDS));
+        assertEquals(0, coalescing.getCoalescedCount());
+    }
+
+    @Test
+    public void testFollowersGetTheLeadersError() throws Exception {
+        inventory.failure = new AssertionError("evaluation failed");
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            QueryCriteria mac = QueryCriteria.builder().setOS(OperatingSystem.MACOS).build();
+            results.add(executor.submit(() -> coalescing.totalMemory(mac)));
+        }
+
+        awaitCoalesced(CALLERS - 1);
+        inventory.release.countDown();
+
+        for (Future<Integer> result : results) {
+            try {
+                result.get(5, TimeUnit.SECONDS);
+                fail();
+            } catch (ExecutionException e) {
+                assertSame(inventory.failure, e.getCause());
+            }
+        }
+    }
+
+    @Test
+    public void testQueryAfterWriteIsNotCoalesced() throws Exception {
+        QueryCriteria mac = QueryCriteria.builder().setOS(OperatingSystem.MACOS).build();
+        Future<Integer> before = executor.submit(() -> coalescing.totalMemory(mac));
+        awaitEvaluations(1);
+
+        coalescing.deleteAssetById(macXEON48.getAssetId());
+        Future<Integer> after = executor.submit(() -> coalescing.totalMemory(mac));
+        awaitEvaluations(2);
+        inventory.release.countDown();
+
+        assertEquals(Integer.valueOf(THIRTYTWO), after.get(5, TimeUnit.SECONDS));
+        before.get(5, TimeUnit.SECONDS);
+        assertEquals(0, coalescing.getCoalescedCount());
+    }
+
+    private void awaitEvaluations(final int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (inventory.evaluations.get() < expected) {
+            assertTrue("query was not evaluated", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private void awaitCoalesced(final long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (coalescing.getCoalescedCount() < expected) {
+            assertTrue("callers were not coalesced", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Counts criteria evaluations and holds them until released.
+     */
+    private static final class BlockingInventory extends VersionedInventory {
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger evaluations = new AtomicInteger();
+        volatile Error failure;
+
+        @Override
+        public int totalMemory(final QueryCriteria criteria) {
+            evaluations.incrementAndGet();
+            await();
+            if (failure != null) throw failure;
+            return super.totalMemory(criteria);
+        }
+
+        @Override
+        public int totalCores(final QueryCriteria criteria) {
+            await();
+            return super.totalCores(criteria);
+        }
+
+        private void await() {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
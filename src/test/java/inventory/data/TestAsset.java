@@ -70,4 +70,12 @@ public class TestAsset {
         Asset.builder().setCore(ZERO).setMemory(FOUR).setCPU(APPLE_SILLICON).setOS(MACOS).build();
         Asset.builder().setCore(FOUR).setMemory(ZERO).setCPU(APPLE_SILLICON).setOS(MACOS).build();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testBlankAssetId() {
+        exceptionRule.expect(IllegalArgumentException.class);
+        exceptionRule.expectMessage(BLANK_ID_MESSAGE);
+
+        Asset.builder().setAssetId(" ").setMemory(TWELVE).setCore(FOUR).setCPU(APPLE_SILLICON).setOS(MACOS).build();
+    }
+}
@@ -0,0 +1,90 @@
+package inventory.data;
+
+import inventory.DefaultInventory;
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+import inventory.query.Aggregates;
+import inventory.query.QueryCriteria;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static inventory.AssetFixtures.*;
+import static org.junit.Assert.*;
+
+public class TestConfiguration {
+
+    private static final int[] CORE_SIZES = {2, 4, 8};
+    private static final int[] MEMORY_SIZES = {8, 16, 32};
+
+    @Test
+    public void testAssetsShareTheirConfiguration() {
+        Asset first = asset(OperatingSystem.LINUX, CPU.AMD, 4, 1024);
+        Asset second = asset(OperatingSystem.LINUX, CPU.AMD, 4, 1024);
+        Asset other = asset(OperatingSystem.LINUX, CPU.AMD, 4, 2048);
+
+        assertNotEquals(first.getAssetId(), second.getAssetId());
+        assertSame(first.getConfiguration(), second.getConfiguration());
+        assertSame(first.getMemory(), second.getMemory());
+        assertNotSame(first.getConfiguration(), other.getConfiguration());
+    }
+
+    @Test
+    public void testDeserializedAssetsShareTheirConfiguration() throws Exception {
+        Asset asset = asset(OperatingSystem.WINDOWS, CPU.INTEL, 8, 64);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(asset);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            Asset copy = (Asset) in.readObject();
+            assertEquals(asset.getAssetId(), copy.getAssetId());
+            assertSame(asset.getConfiguration(), copy.getConfiguration());
+        }
+    }
+
+    @Test
+    public void testAggregatesPerConfiguration() {
+        DefaultInventory inventory = new DefaultInventory();
+        List<Asset> assets = new ArrayList<>();
+        Random random = new Random(23);
+        for (int i = 0; i < 500; i++) {
+            assets.add(asset(OperatingSystem.values()[random.nextInt(OperatingSystem.values().length)],
+                    CPU.values()[random.nextInt(CPU.values().length)],
+                    CORE_SIZES[random.nextInt(CORE_SIZES.length)],
+                    MEMORY_SIZES[random.nextInt(MEMORY_SIZES.length)]));
+        }
+        inventory.addAssets(assets);
+
+        assertTrue(inventory.getConfigurations().size() < assets.size());
+        assertEquals(assets.size(), inventory.getConfigurations().values().stream().mapToInt(Integer::intValue).sum());
+        assertAggregates(Aggregates.of(assets), inventory.aggregate());
+
+        QueryCriteria linux = QueryCriteria.builder().setOS(OperatingSystem.LINUX).setCore(4).build();
+        inventory.deleteAssets(QueryCriteria.builder().setMemory(32).build());
+        assertAggregates(Aggregates.of(inventory.search(linux)), inventory.aggregate(linux));
+        assertEquals(inventory.search(linux).stream().mapToInt(Asset::getMemory).sum(), inventory.totalMemory(linux));
+        assertEquals(16, inventory.maxMemory());
+
+        for (Configuration configuration : inventory.getConfigurations().keySet()) {
+            assertNotEquals(Integer.valueOf(32), configuration.getMemory());
+        }
+    }
+
+    private static void assertAggregates(final Aggregates expected, final Aggregates actual) {
+        assertEquals(expected.getCount(), actual.getCount());
+        assertEquals(expected.getTotalMemory(), actual.getTotalMemory());
+        assertEquals(expected.getTotalCores(), actual.getTotalCores());
+        assertEquals(expected.getMinMemory(), actual.getMinMemory());
+        assertEquals(expected.getMaxMemory(), actual.getMaxMemory());
+        assertEquals(expected.getMinCores(), actual.getMinCores());
+        assertEquals(expected.getMaxCores(), actual.getMaxCores());
+    }
+}
@@ -0,0 +1,165 @@
+package inventory.distributed;
+
+import inventory.Delta;
+import inventory.data.Asset;
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+import inventory.query.Aggregates;
+import inventory.query.QueryCriteria;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import static inventory.AssetFixtures.*;
+import static java.util.Arrays.asList;
+import static org.apache.commons.collections4.CollectionUtils.isEqualCollection;
+import static org.junit.Assert.*;
+
+public class TestDistributedInventory {
+
+    private static final int ZERO = 0;
+    private static final int FOUR = 4;
+    private static final int EIGHT = 8;
+    private static final int TWELVE = 12;
+    private static final int TWENTYFOUR = 24;
+    private static final int THIRTYTWO = 32;
+    private static final int ONEHUNDREDTWENTYEIGHT = 128;
+
+    private Asset macAMD1232 = macAMD1232();
+    private Asset macXEON48 = macXEON48();
+    private Asset winAMD24128 = winAMD24128();
+    private Asset linuxINTEL1232 = linuxINTEL1232();
+
+    private QueryCriteria mac = QueryCriteria.builder().setOS(OperatingSystem.MACOS).build();
+    private QueryCriteria amd = QueryCriteria.builder().setCPU(CPU.AMD).build();
+
+    @Test
+    public void testLocalTransport() throws Exception {
+        try (DistributedInventory inventory = new DistributedInventory(new LocalTransport(FOUR))) {
+            verifyInventory(inventory);
+        }
+    }
+
+    @Test
+    public void testSocketTransport() throws Exception {
+        List<NodeServer> servers = new ArrayList<>();
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            NodeServer server = new NodeServer(new InventoryNode());
+            servers.add(server);
+            addresses.add(server.getAddress());
+        }
+
+        try (DistributedInventory inventory = new DistributedInventory(new SocketTransport(addresses))) {
+            verifyInventory(inventory);
+        } finally {
+            for (NodeServer server : servers) {
+                server.close();
+            }
+        }
+    }
+
+    @Test
+    public void testOnlyBatchClassesDeserialized() throws Exception {
+        List<Request> batch = asList(Request.add(asList(macAMD1232)), Request.search(mac));
+        assertEquals(2, ((List<?>) filtered(new ArrayList<>(batch))).size());
+        List<Response> responses = asList(Response.ofDelta(Delta.between(new ArrayList<>(), asList(macAMD1232))),
+                Response.ofAggregates(Aggregates.EMPTY));
+        assertEquals(2, ((List<?>) filtered(new ArrayList<>(responses))).size());
+
+        try {
+            filtered(new ArrayList<>(asList(new File("batch"))));
+            fail();
+        } catch (InvalidClassException e) {
+            assertTrue(e.getMessage().contains("REJECTED"));
+        }
+    }
+
+    private static Object filtered(final Object object) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        in.setObjectInputFilter(NodeServer.FILTER);
+        return in.readObject();
+    }
+
+    @Test
+    public void testDeleteListInOneBatchPerNode() throws Exception {
+        List<Integer> batches = new ArrayList<>();
+        LocalTransport nodes = new LocalTransport(FOUR);
+        Transport counting = new Transport() {
+            @Override
+            public int nodeCount() {
+                return nodes.nodeCount();
+            }
+
+            @Override
+            public List<Response> send(final int node, final List<Request> batch) {
+                synchronized (batches) {
+                    batches.add(batch.size());
+                }
+                return nodes.send(node, batch);
+            }
+
+            @Override
+            public void close() {
+                nodes.close();
+            }
+        };
+
+        try (DistributedInventory inventory = new DistributedInventory(counting)) {
+            inventory.addAssets(asList(macAMD1232, macXEON48, winAMD24128, linuxINTEL1232));
+            batches.clear();
+
+            List<Asset> deleted = inventory.deleteAssets(asList(mac, null, amd));
+            assertEquals(asList(3, 3, 3, 3), batches);
+            assertEquals(3, deleted.size());
+            assertEquals(winAMD24128.getAssetId(), deleted.get(2).getAssetId());
+            assertEquals(1, inventory.getFullInventorySize());
+        }
+    }
+
+    private void verifyInventory(final DistributedInventory inventory) {
+        List<String> ids = inventory.addAssets(asList(macAMD1232, macXEON48, winAMD24128, linuxINTEL1232));
+        assertEquals(asList(macAMD1232.getAssetId(), macXEON48.getAssetId(),
+                winAMD24128.getAssetId(), linuxINTEL1232.getAssetId()), ids);
+
+        assertEquals(FOUR, inventory.getFullInventorySize());
+        assertEquals(macXEON48.getAssetId(), inventory.getAssetById(macXEON48.getAssetId()).get().getAssetId());
+
+        // Filtering and aggregation pushed down to the nodes
+        assertEquals(2, inventory.search(mac).size());
+        assertEquals(THIRTYTWO + ONEHUNDREDTWENTYEIGHT, inventory.totalMemory(amd));
+        assertEquals(TWELVE, inventory.minCores(amd));
+        assertEquals(EIGHT, inventory.minMemory());
+        assertEquals(TWENTYFOUR, inventory.maxCores());
+        assertEquals(ZERO, inventory.totalAssets(QueryCriteria.builder().build()));
+
+        // List of criteria evaluated in one batch per node, same semantics as the single node inventory
+        assertEquals(4, inventory.totalAssets(asList(mac, amd)));
+        assertEquals(THIRTYTWO + EIGHT + THIRTYTWO + ONEHUNDREDTWENTYEIGHT, inventory.totalMemory(asList(mac, amd)));
+        assertEquals(FOUR, inventory.minCores(asList(mac, amd)));
+        assertEquals(4, inventory.search(asList(mac, amd)).size());
+
+        List<Asset> deleted = inventory.deleteAssets(amd);
+        assertEquals(2, deleted.size());
+        assertTrue(isEqualCollection(asList(macAMD1232.getAssetId(), winAMD24128.getAssetId()),
+                asList(deleted.get(0).getAssetId(), deleted.get(1).getAssetId())));
+
+        assertEquals(1, inventory.deleteAssetsByIds(asList(macXEON48.getAssetId(), "missing")).size());
+        assertTrue(inventory.deleteAssetById(linuxINTEL1232.getAssetId()).isPresent());
+        assertEquals(ZERO, inventory.getFullInventorySize());
+        assertFalse(inventory.getAssetById(linuxINTEL1232.getAssetId()).isPresent());
+    }
+}
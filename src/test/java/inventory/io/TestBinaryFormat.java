@@ -0,0 +1,189 @@
+package inventory.io;
+
+import inventory.DefaultInventory;
+import inventory.GroupedInventory;
+import inventory.Inventory;
+import inventory.data.Asset;
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TestBinaryFormat {
+
+    private static final int[] CORE_SIZES = {2, 4, 8, 16};
+    private static final int[] MEMORY_SIZES = {4, 8, 16, 32, 64};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<Asset> assets = new ArrayList<>();
+    private Path file;
+
+    @Before
+    public void setup() throws IOException {
+        Random random = new Random(37);
+        for (int i = 0; i < 1000; i++) {
+            assets.add(Asset.builder()
+                    .setOS(OperatingSystem.values()[random.nextInt(OperatingSystem.values().length)])
+                    .setCPU(CPU.values()[random.nextInt(CPU.values().length)])
+                    .setCore(CORE_SIZES[random.nextInt(CORE_SIZES.length)])
+                    .setMemory(MEMORY_SIZES[random.nextInt(MEMORY_SIZES.length)])
+                    .build());
+        }
+        file = folder.newFile("inventory.bin").toPath();
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        DefaultInventory source = new DefaultInventory();
+        source.addAssets(assets);
+
+        assertEquals(assets.size(), BinaryFormat.export(source, file));
+        assertEquals(BinaryFormat.HEADER_SIZE + 3 * Integer.BYTES + assets.size() * BinaryFormat.RECORD_SIZE,
+                Files.size(file));
+
+        for (Inventory target : new Inventory[]{new DefaultInventory(), new GroupedInventory()}) {
+            assertEquals(assets.size(), BinaryFormat.load(file, target));
+            assertSameAssets(target);
+            assertEquals(source.totalMemory(), target.totalMemory());
+        }
+    }
+
+    @Test
+    public void testSeveralBlocks() throws IOException {
+        try (BinaryWriter writer = new BinaryWriter(file, 64)) {
+            for (Asset asset : assets) {
+                writer.write(asset);
+            }
+        }
+
+        try (BinaryReader reader = new BinaryReader(file)) {
+            assertEquals(assets.size(), reader.getCount());
+            int blocks = 0;
+            for (List<Asset> block = reader.readBlock(); block != null; block = reader.readBlock()) {
+                assertTrue(block.size() <= 64);
+                blocks++;
+            }
+            assertEquals((assets.size() + 63) / 64, blocks);
+        }
+
+        DefaultInventory target = new DefaultInventory();
+        BinaryFormat.load(file, target);
+        assertSameAssets(target);
+    }
+
+    @Test
+    public void testEmptyInventory() throws IOException {
+        assertEquals(0, BinaryFormat.export(new DefaultInventory(), file));
+        DefaultInventory target = new DefaultInventory();
+        assertEquals(0, BinaryFormat.load(file, target));
+        assertEquals(0, target.getFullInventorySize());
+    }
+
+    @Test(expected = IOException.class)
+    public void testCorruptBlock() throws IOException {
+        try (BinaryWriter writer = new BinaryWriter(file, 100)) {
+            for (Asset asset : assets) {
+                writer.write(asset);
+            }
+        }
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            // Memory of a record in the fourth block
+            long offset = BinaryFormat.HEADER_SIZE + 3 * (3 * Integer.BYTES + 100 * BinaryFormat.RECORD_SIZE)
+                    + Integer.BYTES + 10 * BinaryFormat.RECORD_SIZE + 24;
+            raw.seek(offset);
+            raw.writeInt(1 << 20);
+        }
+        BinaryFormat.load(file, new DefaultInventory());
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedFile() throws IOException {
+        DefaultInventory source = new DefaultInventory();
+        source.addAssets(assets);
+        BinaryFormat.export(source, file);
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.setLength(raw.length() - 10);
+        }
+        BinaryFormat.load(file, new DefaultInventory());
+    }
+
+    @Test
+    public void testLoadIntoNewInventory() throws IOException {
+        GroupedInventory source = new GroupedInventory();
+        source.addAssets(assets);
+        BinaryFormat.export(source, file);
+
+        DefaultInventory target = BinaryFormat.load(file);
+        assertSameAssets(target);
+        assertEquals(source.totalCores(), target.totalCores());
+    }
+
+    @Test
+    public void testIdsOtherThanUuids() throws IOException {
+        // In the first, a middle and the last block, with a UUID in upper case
+        assets.set(0, assets.get(0).toBuilder().setAssetId("host-42").build());
+        assets.set(500, assets.get(500).toBuilder().setAssetId("srv/étage-3").build());
+        assets.set(999, assets.get(999).toBuilder().setAssetId(assets.get(999).getAssetId().toUpperCase()).build());
+        try (BinaryWriter writer = new BinaryWriter(file, 64)) {
+            for (Asset asset : assets) {
+                writer.write(asset);
+            }
+        }
+
+        DefaultInventory target = BinaryFormat.load(file);
+        assertSameAssets(target);
+        assertTrue(target.getAssetById("host-42").isPresent());
+        assertTrue(target.getAssetById("srv/étage-3").isPresent());
+    }
+
+    @Test(expected = IOException.class)
+    public void testCorruptOtherId() throws IOException {
+        assets.set(0, assets.get(0).toBuilder().setAssetId("host-42").build());
+        try (BinaryWriter writer = new BinaryWriter(file, 64)) {
+            for (Asset asset : assets) {
+                writer.write(asset);
+            }
+        }
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            // Last byte of the id, after the records of the first block, its index and length
+            raw.seek(BinaryFormat.HEADER_SIZE + 64 * BinaryFormat.RECORD_SIZE + 4 * Integer.BYTES + 6);
+            raw.write('x');
+        }
+        BinaryFormat.load(file, new DefaultInventory());
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotAnInventoryFile() throws IOException {
+        Files.write(file, "id,os,cpu,cores,memory\n".repeat(4).getBytes());
+        BinaryFormat.load(file, new DefaultInventory());
+    }
+
+    private void assertSameAssets(final Inventory target) {
+        assertEquals(assets.size(), target.getFullInventorySize());
+        Map<String, Asset> byId = new HashMap<>();
+        for (Asset a : target.getFullInventory()) {
+            byId.put(a.getAssetId(), a);
+        }
+        for (Asset expected : assets) {
+            Asset actual = byId.get(expected.getAssetId());
+            assertNotNull(actual);
+            assertSame(expected.getConfiguration(), actual.getConfiguration());
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package inventory.io;
+
+import inventory.DefaultInventory;
+import inventory.Delta;
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+import inventory.query.QueryCriteria;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestIngestor {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testCsv() throws IOException {
+        String csv = "os,cpu,cores,memory\n"
+                + "LINUX,INTEL,4,16\r\n"
+                + "\"windows\",amd,8,32\n"
+                + "\n"
+                + "macos,INTEL,2,8";
+        DefaultInventory inventory = new DefaultInventory();
+        Ingestor.Result result = Ingestor.builder().build().ingest(new StringReader(csv), inventory);
+
+        assertEquals(5, result.getLines());
+        assertEquals(3, result.getAdded());
+        assertEquals(0, result.getRejected());
+        assertEquals(3, inventory.getFullInventorySize());
+        assertEquals(56, inventory.totalMemory());
+        assertEquals(1, inventory.totalAssets(QueryCriteria.builder()
+                .setOS(OperatingSystem.WINDOWS)
+                .setCPU(CPU.AMD)
+                .build()));
+    }
+
+    @Test
+    public void testFirstIdStartingLikeAHeader() throws IOException {
+        String csv = "ID-0001,LINUX,INTEL,4,16\n"
+                + "id-0002,windows,amd,8,32\n";
+        DefaultInventory inventory = new DefaultInventory();
+        Ingestor.Result result = Ingestor.builder().build().ingest(new StringReader(csv), inventory);
+
+        assertEquals(2, result.getAdded());
+        assertEquals(0, result.getRejected());
+        assertTrue(inventory.getAssetById("ID-0001").isPresent());
+        assertTrue(RecordParser.isCsvHeader("\"ID\", OS,cpu,Cores,memory"));
+        assertFalse(RecordParser.isCsvHeader("os,cpu,cores"));
+    }
+
+    @Test
+    public void testNdjson() throws IOException {
+        String ndjson = "{\"os\": \"LINUX\", \"cpu\": \"INTEL\", \"cores\": 4, \"memory\": 16}\n"
+                + "{\"memory\":32,\"cores\":8,\"cpu\":\"amd\",\"os\":\"windows\",\"rack\":\"r1\"}\n";
+        DefaultInventory inventory = new DefaultInventory();
+        Ingestor.Result result = Ingestor.builder()
+                .setFormat(Ingestor.Format.NDJSON)
+                .build()
+                .ingest(new StringReader(ndjson), inventory);
+
+        assertEquals(2, result.getAdded());
+        assertEquals(48, inventory.totalMemory());
+        assertEquals(12, inventory.totalCores());
+    }
+
+    @Test
+    public void testIdsMatchOnReconcile() throws IOException {
+        String csv = "id,os,cpu,cores,memory\n"
+                + "host-1,LINUX,INTEL,4,16\n"
+                + "\"host-2\",windows,amd,8,32\n"
+                + "host-3,macos,INTEL,2,8\n";
+        DefaultInventory inventory = new DefaultInventory();
+        Ingestor.builder().build().ingest(new StringReader(csv), inventory);
+        assertEquals(32, (int) inventory.getAssetById("host-2").get().getMemory());
+
+        // The next export, staged then reconciled: one asset upgraded, one gone, one new
+        String ndjson = "{\"id\": \"host-1\", \"os\": \"LINUX\", \"cpu\": \"INTEL\", \"cores\": 4, \"memory\": 16}\n"
+                + "{\"id\": \"host-2\", \"os\": \"WINDOWS\", \"cpu\": \"AMD\", \"cores\": 8, \"memory\": 64}\n"
+                + "{\"id\": \"host-4\", \"os\": \"LINUX\", \"cpu\": \"AMD\", \"cores\": 16, \"memory\": 64}\n";
+        DefaultInventory staged = new DefaultInventory();
+        Ingestor.builder().setFormat(Ingestor.Format.NDJSON).build().ingest(new StringReader(ndjson), staged);
+
+        Delta delta = inventory.reconcile(staged.getFullInventory());
+        assertEquals("host-4", delta.getAdded().get(0).getAssetId());
+        assertEquals("host-3", delta.getRemoved().get(0).getAssetId());
+        assertEquals("host-2", delta.getChanged().get(0).getAssetId());
+        assertEquals(3, delta.size());
+        assertTrue(inventory.reconcile(staged.getFullInventory()).isEmpty());
+    }
+
+    @Test
+    public void testErrorsReported() throws IOException {
+        String csv = "LINUX,INTEL,4,16\n"
+                + "LINUX,INTEL,-4,16\n"
+                + "BEOS,INTEL,4,16\n"
+                + "LINUX,INTEL,4\n"
+                + "LINUX,INTEL,four,16\n"
+                + "LINUX,,4,16\n"
+                + "WINDOWS,AMD,2,4\n";
+        List<Ingestor.LineError> errors = Collections.synchronizedList(new ArrayList<>());
+        DefaultInventory inventory = new DefaultInventory();
+        Ingestor.Result result = Ingestor.builder()
+                .setErrorHandler(errors::add)
+                .build()
+                .ingest(new StringReader(csv), inventory);
+
+        assertEquals(2, result.getAdded());
+        assertEquals(5, result.getRejected());
+        assertEquals(2, inventory.getFullInventorySize());
+
+        assertEquals(5, errors.size());
+        assertEquals(2, errors.get(0).getLineNumber());
+        assertEquals("LINUX,INTEL,-4,16", errors.get(0).getLine());
+        assertEquals("Unknown OperatingSystem: BEOS", errors.get(1).getReason());
+        assertEquals(RecordParser.CSV_COLUMNS_MESSAGE, errors.get(2).getReason());
+        assertEquals(5, errors.get(3).getLineNumber());
+        assertEquals(RecordParser.MISSING_MESSAGE + "cpu", errors.get(4).getReason());
+    }
+
+    @Test
+    public void testLongLineRejected() throws IOException {
+        StringBuilder csv = new StringBuilder("LINUX,INTEL,4,16\n");
+        for (int i = 0; i < Ingestor.MAX_LINE; i++) {
+            csv.append(' ');
+        }
+        csv.append("LINUX,INTEL,4,16\nLINUX,INTEL,4,16\n");
+        List<Ingestor.LineError> errors = Collections.synchronizedList(new ArrayList<>());
+        DefaultInventory inventory = new DefaultInventory();
+        Ingestor.Result result = Ingestor.builder()
+                .setErrorHandler(errors::add)
+                .build()
+                .ingest(new StringReader(csv.toString()), inventory);
+
+        assertEquals(3, result.getLines());
+        assertEquals(2, result.getAdded());
+        assertEquals(1, errors.size());
+        assertEquals(2, errors.get(0).getLineNumber());
+        assertEquals(Ingestor.LINE_TOO_LONG_MESSAGE, errors.get(0).getReason());
+        assertEquals(Ingestor.MAX_LINE, errors.get(0).getLine().length());
+    }
+
+    @Test
+    public void testLargeFileInBatches() throws IOException {
+        Path file = folder.newFile("assets.csv").toPath();
+        StringBuilder csv = new StringBuilder();
+        int lines = 25_000;
+        for (int i = 0; i < lines; i++) {
+            csv.append(OperatingSystem.values()[i % OperatingSystem.values().length]).append(',')
+                    .append(CPU.values()[i % CPU.values().length]).append(',')
+                    .append(1 + i % 16).append(',')
+                    .append(1 + i % 64).append('\n');
+        }
+        Files.write(file, csv.toString().getBytes());
+
+        DefaultInventory inventory = new DefaultInventory();
+        Ingestor.Result result = Ingestor.builder().setBatchSize(128).build().ingest(file, inventory);
+
+        assertEquals(lines, result.getAdded());
+        assertEquals(lines, inventory.getFullInventorySize());
+        long memory = 0;
+        for (int i = 0; i < lines; i++) {
+            memory += 1 + i % 64;
+        }
+        assertEquals(memory, inventory.totalMemory());
+    }
+
+    @Test(timeout = 10_000)
+    public void testParserErrorEndsIngestion() throws IOException {
+        Reader failing = new Reader() {
+            @Override
+            public int read(final char[] buffer, final int offset, final int length) {
+                throw new OutOfMemoryError("simulated");
+            }
+
+            @Override
+            public void close() {}
+        };
+        try {
+            Ingestor.builder().build().ingest(failing, new DefaultInventory());
+            fail();
+        } catch (OutOfMemoryError e) {
+            assertEquals("simulated", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testInventoryFailureStopsParser() {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            csv.append("LINUX,INTEL,4,16\n");
+        }
+        DefaultInventory inventory = new DefaultInventory() {
+            @Override
+            public List<String> addAssets(final List<inventory.data.Asset> assets) {
+                throw new IllegalStateException("full");
+            }
+        };
+        try {
+            Ingestor.builder().setBatchSize(10).build().ingest(new StringReader(csv.toString()), inventory);
+            fail();
+        } catch (IllegalStateException | IOException e) {
+            assertEquals("full", e.getMessage());
+        }
+    }
+}
@@ -32,4 +32,16 @@ public class QueryCriteriaTest {
 
         assertTrue(qc.isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testValueEquality() {
+        QueryCriteria qc = QueryCriteria.builder().setCore(FOUR).setOS(MACOS).build();
+        QueryCriteria same = QueryCriteria.builder().setOS(MACOS).setCore(FOUR).build();
+        QueryCriteria other = QueryCriteria.builder().setOS(MACOS).setCore(TWELVE).build();
+
+        assertEquals(qc, same);
+        assertEquals(qc.hashCode(), same.hashCode());
+        assertNotEquals(qc, other);
+        assertEquals(QueryCriteria.builder().build(), QueryCriteria.builder().build());
+    }
+}
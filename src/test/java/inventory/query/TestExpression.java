@@ -0,0 +1,136 @@
+package inventory.query;
+
+import inventory.DefaultInventory;
+import inventory.Inventory;
+import inventory.ShardedInventory;
+import inventory.data.Asset;
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+import inventory.snapshot.VersionedInventory;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static inventory.query.Attribute.CORES;
+import static inventory.query.Attribute.MEMORY;
+import static inventory.query.Attribute.OS;
+import static inventory.query.Expression.*;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class TestExpression {
+
+    private static final int[] CORE_SIZES = {2, 4, 8, 16};
+    private static final int[] MEMORY_SIZES = {4, 8, 16, 32, 64};
+
+    private DefaultInventory indexed;
+    private DefaultInventory unindexed;
+    private ShardedInventory sharded;
+    private VersionedInventory versioned;
+
+    @Before
+    public void setup() {
+        indexed = new DefaultInventory();
+        unindexed = new DefaultInventory(EnumSet.noneOf(Attribute.class));
+        sharded = new ShardedInventory(4);
+        versioned = new VersionedInventory();
+
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            Asset asset = Asset.builder()
+                    .setOS(OperatingSystem.values()[random.nextInt(OperatingSystem.values().length)])
+                    .setCPU(CPU.values()[random.nextInt(CPU.values().length)])
+                    .setCore(CORE_SIZES[random.nextInt(CORE_SIZES.length)])
+                    .setMemory(MEMORY_SIZES[random.nextInt(MEMORY_SIZES.length)])
+                    .build();
+            for (Inventory inventory : asList(indexed, unindexed, sharded, versioned)) {
+                inventory.addAsset(asset);
+            }
+        }
+    }
+
+    @Test
+    public void testOverlappingOrReturnsEachAssetOnce() {
+        QueryCriteria linux = QueryCriteria.builder().setOS(OperatingSystem.LINUX).build();
+        QueryCriteria amd = QueryCriteria.builder().setCPU(CPU.AMD).build();
+        Expression either = or(of(linux), of(amd));
+
+        List<Asset> found = indexed.search(either);
+        assertEquals(found.size(), new HashSet<>(found).size());
+
+        // The list based search counts assets matching both criteria twice
+        int both = indexed.search(QueryCriteria.builder()
+                .setOS(OperatingSystem.LINUX).setCPU(CPU.AMD).build()).size();
+        assertTrue(both > 0);
+        assertEquals(indexed.search(asList(linux, amd)).size() - both, found.size());
+    }
+
+    @Test
+    public void testEveryInventoryAgrees() {
+        List<Expression> expressions = asList(
+                eq(OS, OperatingSystem.LINUX),
+                in(OS, OperatingSystem.LINUX, OperatingSystem.MACOS),
+                not(eq(Attribute.CPU, CPU.INTEL)),
+                between(MEMORY, 8, 32),
+                and(atLeast(CORES, 8), atMost(MEMORY, 16)),
+                or(eq(CORES, 2), and(eq(OS, OperatingSystem.WINDOWS), atLeast(MEMORY, 64))),
+                and(in(OS, OperatingSystem.LINUX, OperatingSystem.MACOS), atLeast(MEMORY, 16),
+                        not(eq(Attribute.CPU, CPU.AMD))),
+                or(eq(MEMORY, 64), not(eq(CORES, 4))),
+                and(),
+                or());
+
+        for (Expression expression : expressions) {
+            Set<Asset> expected = new HashSet<>(versioned.search(expression));
+            for (Inventory inventory : asList(indexed, unindexed, sharded)) {
+                List<Asset> found = inventory.search(expression);
+                assertEquals(expression.toString(), expected.size(), found.size());
+                assertEquals(expression.toString(), expected, new HashSet<>(found));
+            }
+        }
+    }
+
+    @Test
+    public void testCriteriaConversion() {
+        QueryCriteria criteria = QueryCriteria.builder()
+                .setOS(OperatingSystem.LINUX)
+                .setCore(4)
+                .build();
+
+        Expression expression = of(criteria);
+        assertEquals("(OS=LINUX AND CORES=4)", expression.toString());
+        assertEquals(new HashSet<>(indexed.search(criteria)), new HashSet<>(indexed.search(expression)));
+    }
+
+    @Test
+    public void testValueEquality() {
+        assertEquals(and(eq(OS, OperatingSystem.LINUX), atLeast(MEMORY, 16)),
+                and(eq(OS, OperatingSystem.LINUX), atLeast(MEMORY, 16)));
+        assertEquals(in(CORES, 2, 4).hashCode(), in(CORES, asList(2, 4)).hashCode());
+        assertNotEquals(and(eq(CORES, 2)), or(eq(CORES, 2)));
+        assertNotEquals(atLeast(MEMORY, 16), atLeast(CORES, 16));
+    }
+
+    @Test
+    public void testToString() {
+        assertEquals("(OS IN [LINUX, MACOS] OR (MEMORY>=16 AND NOT CORES BETWEEN 2 AND 4))",
+                or(in(OS, OperatingSystem.LINUX, OperatingSystem.MACOS),
+                        and(atLeast(MEMORY, 16), not(between(CORES, 2, 4)))).toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRangeOnEnumAttribute() {
+        between(OS, 1, 2);
+    }
+
+    @Test
+    public void testNullExpression() {
+        assertTrue(indexed.search((Expression) null).isEmpty());
+        assertTrue(versioned.search((Expression) null).isEmpty());
+    }
+}
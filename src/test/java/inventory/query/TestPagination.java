@@ -0,0 +1,155 @@
+package inventory.query;
+
+import inventory.DefaultInventory;
+import inventory.Inventory;
+import inventory.ShardedInventory;
+import inventory.data.Asset;
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+import inventory.snapshot.VersionedInventory;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.*;
+
+public class TestPagination {
+
+    private static final int[] CORE_SIZES = {2, 4, 8, 16};
+    private static final int[] MEMORY_SIZES = {4, 8, 16, 32, 64, 128};
+
+    private final List<Asset> assets = new ArrayList<>();
+    private List<Inventory> inventories;
+
+    private QueryCriteria linux = QueryCriteria.builder().setOS(OperatingSystem.LINUX).build();
+    private QueryCriteria fourCores = QueryCriteria.builder().setCore(4).build();
+
+    @Before
+    public void setup() {
+        inventories = asList(new DefaultInventory(), new DefaultInventory(EnumSet.noneOf(Attribute.class)),
+                new DefaultInventory(EnumSet.noneOf(Attribute.class), EnumSet.allOf(SortKey.class),
+                        DefaultInventory.ListMode.CONCATENATION),
+                new ShardedInventory(4), new VersionedInventory());
+
+        Random random = new Random(11);
+        for (int i = 0; i < 250; i++) {
+            assets.add(randomAsset(random));
+        }
+        for (Inventory inventory : inventories) {
+            inventory.addAssets(assets);
+        }
+    }
+
+    @Test
+    public void testPagesMatchAFullSort() {
+        for (QueryCriteria criteria : asList(linux, fourCores)) {
+            for (SortKey key : SortKey.values()) {
+                for (boolean descending : new boolean[]{false, true}) {
+                    PageRequest request = PageRequest.builder()
+                            .setSortKey(key)
+                            .setDescending(descending)
+                            .setPageSize(7)
+                            .build();
+                    List<Asset> expected = assets.stream()
+                            .filter(criteria::matches)
+                            .sorted(request.order())
+                            .collect(toList());
+
+                    for (Inventory inventory : inventories) {
+                        assertEquals(key + " " + descending, expected, readAll(inventory, criteria, request));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAdditionsBetweenPagesAreNeverRepeated() {
+        PageRequest request = PageRequest.builder().setSortKey(SortKey.MEMORY).setPageSize(10).build();
+        Random random = new Random(3);
+
+        for (Inventory inventory : inventories) {
+            Set<Asset> seen = new HashSet<>();
+            Page page = inventory.search(linux, request);
+            while (true) {
+                for (Asset asset : page.getAssets()) {
+                    assertTrue(seen.add(asset));
+                }
+                if (!page.hasNext()) break;
+
+                inventory.addAsset(randomAsset(random));
+                page = inventory.search(linux, request.next(page));
+            }
+        }
+    }
+
+    @Test
+    public void testLastPage() {
+        long count = assets.stream().filter(linux::matches).count();
+        PageRequest request = PageRequest.builder().setPageSize((int) count).build();
+
+        for (Inventory inventory : inventories) {
+            Page page = inventory.search(linux, request);
+            assertEquals(count, page.getAssets().size());
+            assertFalse(page.hasNext());
+            assertNull(page.getNextCursor());
+        }
+    }
+
+    @Test
+    public void testNullAndEmptyCriteria() {
+        PageRequest request = PageRequest.builder().setPageSize(10).build();
+        for (Inventory inventory : inventories) {
+            assertTrue(inventory.search(null, request).getAssets().isEmpty());
+            assertFalse(inventory.search(QueryCriteria.builder().build(), request).hasNext());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCursor() {
+        PageRequest.builder().setPageSize(10).setCursor("not a cursor").build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCursorOfAnotherSort() {
+        Page page = inventories.get(0).search(linux, PageRequest.builder()
+                .setSortKey(SortKey.CORES).setPageSize(5).build());
+
+        PageRequest.builder().setSortKey(SortKey.MEMORY).setPageSize(5).setCursor(page.getNextCursor()).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroPageSize() {
+        PageRequest.builder().setPageSize(0).build();
+    }
+
+    private static List<Asset> readAll(final Inventory inventory, final QueryCriteria criteria, PageRequest request) {
+        List<Asset> all = new ArrayList<>();
+        Page page = inventory.search(criteria, request);
+        all.addAll(page.getAssets());
+        while (page.hasNext()) {
+            assertEquals(request.getPageSize(), page.getAssets().size());
+            request = request.next(page);
+            page = inventory.search(criteria, request);
+            all.addAll(page.getAssets());
+        }
+        return all;
+    }
+
+    private static Asset randomAsset(final Random random) {
+        return Asset.builder()
+                .setOS(OperatingSystem.values()[random.nextInt(OperatingSystem.values().length)])
+                .setCPU(CPU.values()[random.nextInt(CPU.values().length)])
+                .setCore(CORE_SIZES[random.nextInt(CORE_SIZES.length)])
+                .setMemory(MEMORY_SIZES[random.nextInt(MEMORY_SIZES.length)])
+                .build();
+    }
+}
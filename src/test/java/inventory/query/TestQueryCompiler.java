@@ -0,0 +1,221 @@
+package inventory.query;
+
+import inventory.DefaultInventory;
+import inventory.data.Asset;
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import static inventory.AssetFixtures.*;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class TestQueryCompiler {
+
+    private DefaultInventory inventory;
+
+    @Before
+    public void setup() {
+        inventory = new DefaultInventory(EnumSet.allOf(Attribute.class));
+        // 100 linux assets with 4 cores, 4 of them on AMD, a single one with 64GB
+        for (int i = 0; i < 100; i++) {
+            inventory.addAsset(asset(OperatingSystem.LINUX, i < 4 ? CPU.AMD : CPU.INTEL, 4, i == 0 ? 64 : 16));
+        }
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.INTEL, 8, 32));
+    }
+
+    @Test
+    public void testOnlyDefinedParametersAreFiltered() {
+        QueryPlan plan = inventory.compile(QueryCriteria.builder().setOS(OperatingSystem.LINUX).build());
+
+        assertEquals(QueryPlan.Access.SCAN, plan.getAccess());
+        assertEquals(asList(Attribute.OS), plan.getFilterOrder());
+        assertTrue(plan.filter(asset(OperatingSystem.LINUX, CPU.AMD, 1, 1)));
+        assertFalse(plan.filter(asset(OperatingSystem.MACOS, CPU.AMD, 1, 1)));
+    }
+
+    @Test
+    public void testMostSelectiveIndexIsProbed() {
+        QueryCriteria criteria = QueryCriteria.builder()
+                .setOS(OperatingSystem.LINUX)
+                .setCPU(CPU.AMD)
+                .setCore(4)
+                .setMemory(64)
+                .build();
+        QueryPlan plan = inventory.compile(criteria);
+
+        assertEquals(QueryPlan.Access.INDEX_PROBE, plan.getAccess());
+        assertEquals(Attribute.MEMORY, plan.getProbe());
+        assertEquals(1, plan.getEstimatedRows());
+        // Remaining parameters ordered by selectivity
+        assertEquals(asList(Attribute.CPU, Attribute.OS, Attribute.CORES), plan.getFilterOrder());
+        assertEquals("INDEX_PROBE [MEMORY=64] (est. 1 of 101 assets), filter [CPU=AMD, OS=LINUX, CORES=4], "
+                + "cost {SCAN=101.0, INDEX_PROBE=14.0, INDEX_INTERSECTION=21.7}", plan.explain());
+
+        List<Asset> found = inventory.search(plan);
+        assertEquals(1, found.size());
+        assertEquals(Integer.valueOf(64), found.get(0).getMemory());
+    }
+
+    @Test
+    public void testUnselectiveCriteriaIsScanned() {
+        QueryCriteria criteria = QueryCriteria.builder().setOS(OperatingSystem.LINUX).setCore(4).build();
+        QueryPlan plan = inventory.compile(criteria);
+
+        assertEquals(QueryPlan.Access.SCAN, plan.getAccess());
+        assertNull(plan.getProbe());
+        assertEquals(100, inventory.search(criteria).size());
+    }
+
+    @Test
+    public void testPlanIsReusable() {
+        QueryCriteria criteria = QueryCriteria.builder().setCPU(CPU.AMD).build();
+        QueryPlan plan = inventory.compile(criteria);
+        assertEquals(4, inventory.search(plan).size());
+
+        inventory.addAsset(asset(OperatingSystem.MACOS, CPU.AMD, 2, 8));
+        inventory.deleteAssets(QueryCriteria.builder().setMemory(64).build());
+        assertEquals(4, inventory.search(plan).size());
+        assertEquals(4, inventory.totalAssets(criteria));
+    }
+
+    @Test
+    public void testWithoutStatisticsEverythingIsScanned() {
+        QueryCriteria criteria = QueryCriteria.builder().setCPU(CPU.AMD).setMemory(8).build();
+        QueryPlan plan = QueryCompiler.compile(criteria, Statistics.NONE);
+
+        assertEquals(QueryPlan.Access.SCAN, plan.getAccess());
+        assertEquals(asList(Attribute.CPU, Attribute.MEMORY), plan.getFilterOrder());
+    }
+
+    @Test
+    public void testEmptyCriteria() {
+        QueryCriteria empty = QueryCriteria.builder().build();
+
+        assertEquals("SCAN (est. 101 of 101 assets), filter [], cost {SCAN=101.0}", inventory.explain(empty));
+        assertTrue(inventory.search(inventory.compile(empty)).isEmpty());
+    }
+
+    @Test
+    public void testCommonValueIsScannedRareValueIsProbed() {
+        // 80% of the fleet has 4 cores
+        DefaultInventory fleet = new DefaultInventory(EnumSet.allOf(Attribute.class));
+        for (int i = 0; i < 1000; i++) {
+            fleet.addAsset(asset(OperatingSystem.LINUX, CPU.INTEL, i % 5 == 0 ? 8 : 4, 16));
+        }
+
+        QueryPlan common = fleet.compile(QueryCriteria.builder().setCore(4).build());
+        assertEquals(QueryPlan.Access.SCAN, common.getAccess());
+        assertEquals(Double.valueOf(1000), common.getCosts().get(QueryPlan.Access.SCAN));
+        assertTrue(common.getCosts().get(QueryPlan.Access.INDEX_PROBE) > common.getCost());
+
+        QueryPlan rare = fleet.compile(QueryCriteria.builder().setCore(8).build());
+        assertEquals(QueryPlan.Access.INDEX_PROBE, rare.getAccess());
+        assertEquals(200, rare.getEstimatedRows());
+        assertEquals(200, fleet.search(rare).size());
+    }
+
+    @Test
+    public void testIndexesAreIntersected() {
+        // 200 linux assets and 100 AMD assets, 20 of them both
+        DefaultInventory fleet = new DefaultInventory(EnumSet.allOf(Attribute.class));
+        for (int i = 0; i < 1000; i++) {
+            fleet.addAsset(asset(i % 5 == 0 ? OperatingSystem.LINUX : OperatingSystem.WINDOWS,
+                    (i / 5) % 10 == 0 ? CPU.AMD : CPU.INTEL, 4, 16));
+        }
+
+        QueryCriteria criteria = QueryCriteria.builder()
+                .setOS(OperatingSystem.LINUX)
+                .setCPU(CPU.AMD)
+                .setMemory(16)
+                .build();
+        QueryPlan plan = fleet.compile(criteria);
+
+        assertEquals(QueryPlan.Access.INDEX_INTERSECTION, plan.getAccess());
+        assertEquals(asList(Attribute.CPU, Attribute.OS), plan.getIndexes());
+        assertEquals(asList(Attribute.MEMORY), plan.getFilterOrder());
+        assertEquals(20, plan.getEstimatedRows());
+        assertEquals(20, fleet.search(plan).size());
+        assertEquals(20, fleet.totalAssets(criteria));
+    }
+
+    @Test
+    public void testOnlyIndexedAttributesAreProbed() {
+        DefaultInventory partial = new DefaultInventory(EnumSet.of(Attribute.CPU));
+        for (int i = 0; i < 100; i++) {
+            partial.addAsset(asset(OperatingSystem.LINUX, i < 10 ? CPU.AMD : CPU.INTEL, 4, i == 0 ? 64 : 16));
+        }
+
+        QueryCriteria criteria = QueryCriteria.builder().setCPU(CPU.AMD).setMemory(64).build();
+        QueryPlan plan = partial.compile(criteria);
+
+        // Memory is the most selective but has no index, it is still checked first by the filter
+        assertEquals(QueryPlan.Access.INDEX_PROBE, plan.getAccess());
+        assertEquals(Attribute.CPU, plan.getProbe());
+        assertEquals(asList(Attribute.MEMORY), plan.getFilterOrder());
+        assertEquals(1, partial.search(plan).size());
+
+        QueryPlan unindexed = partial.compile(QueryCriteria.builder().setMemory(64).build());
+        assertEquals(QueryPlan.Access.SCAN, unindexed.getAccess());
+        assertEquals(1, partial.search(unindexed).size());
+    }
+
+    @Test
+    public void testNoIndexByDefault() {
+        DefaultInventory plain = new DefaultInventory();
+        plain.addAssets(inventory.getFullInventory());
+
+        QueryPlan plan = plain.compile(QueryCriteria.builder().setMemory(64).build());
+        assertEquals(QueryPlan.Access.SCAN, plan.getAccess());
+        assertEquals(1, plain.search(plan).size());
+    }
+
+    @Test
+    public void testPlanOfAnotherInventory() {
+        DefaultInventory plain = new DefaultInventory();
+        plain.addAssets(inventory.getFullInventory());
+
+        QueryPlan probe = inventory.compile(QueryCriteria.builder().setMemory(64).build());
+        assertEquals(QueryPlan.Access.INDEX_PROBE, probe.getAccess());
+        assertEquals(1, plain.search(probe).size());
+
+        QueryCriteria criteria = QueryCriteria.builder().setCPU(CPU.AMD).setMemory(16).build();
+        assertEquals(inventory.search(criteria).size(), plain.search(inventory.compile(criteria)).size());
+    }
+
+    @Test
+    public void testStatisticsFollowDeletes() {
+        QueryCriteria fourCores = QueryCriteria.builder().setCore(4).build();
+        assertEquals(QueryPlan.Access.SCAN, inventory.compile(fourCores).getAccess());
+
+        // Leave a handful of 4 core assets among many 8 core ones
+        inventory.deleteAssets(QueryCriteria.builder().setCPU(CPU.INTEL).setCore(4).build());
+        for (int i = 0; i < 100; i++) {
+            inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.INTEL, 8, 32));
+        }
+
+        QueryPlan plan = inventory.compile(fourCores);
+        assertEquals(QueryPlan.Access.INDEX_PROBE, plan.getAccess());
+        assertEquals(4, plan.getEstimatedRows());
+    }
+
+    @Test
+    public void testHistogram() {
+        Histogram histogram = new Histogram();
+        histogram.add(4);
+        histogram.add(4);
+        histogram.add(8);
+        histogram.remove(4);
+        histogram.remove(16);
+
+        assertEquals(2, histogram.total());
+        assertEquals(2, histogram.distinct());
+        assertEquals(1, histogram.count(4));
+        assertEquals(0, histogram.count(16));
+        assertEquals(0.5, histogram.selectivity(8), 0);
+    }
+}
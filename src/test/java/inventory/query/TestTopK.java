@@ -0,0 +1,104 @@
+package inventory.query;
+
+import inventory.DefaultInventory;
+import inventory.Inventory;
+import inventory.ShardedInventory;
+import inventory.data.Asset;
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+import inventory.snapshot.VersionedInventory;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.*;
+
+public class TestTopK {
+
+    private static final int[] CORE_SIZES = {2, 4, 8, 16};
+    private static final int[] MEMORY_SIZES = {4, 8, 16, 32, 64, 128};
+
+    private final List<Asset> assets = new ArrayList<>();
+    private List<Inventory> inventories;
+
+    private QueryCriteria linux = QueryCriteria.builder().setOS(OperatingSystem.LINUX).build();
+
+    @Before
+    public void setup() {
+        inventories = asList(new DefaultInventory(), new ShardedInventory(4), new VersionedInventory());
+
+        Random random = new Random(7);
+        for (int i = 0; i < 300; i++) {
+            assets.add(Asset.builder()
+                    .setOS(OperatingSystem.values()[random.nextInt(OperatingSystem.values().length)])
+                    .setCPU(CPU.values()[random.nextInt(CPU.values().length)])
+                    .setCore(CORE_SIZES[random.nextInt(CORE_SIZES.length)])
+                    .setMemory(MEMORY_SIZES[random.nextInt(MEMORY_SIZES.length)])
+                    .build());
+        }
+        for (Inventory inventory : inventories) {
+            inventory.addAssets(assets);
+        }
+    }
+
+    @Test
+    public void testTopAndBottomMatchAFullSort() {
+        for (SortKey key : SortKey.values()) {
+            List<Asset> descending = assets.stream().sorted(key.descending()).collect(toList());
+            List<Asset> ascending = assets.stream().sorted(key.ascending()).collect(toList());
+            List<Asset> linuxDescending = descending.stream().filter(linux::matches).collect(toList());
+
+            for (Inventory inventory : inventories) {
+                assertEquals(descending.subList(0, 10), inventory.top(10, key));
+                assertEquals(ascending.subList(0, 25), inventory.bottom(25, key));
+                assertEquals(linuxDescending.subList(0, 5), inventory.top(5, key, linux));
+            }
+        }
+    }
+
+    @Test
+    public void testLargeAndZeroK() {
+        for (Inventory inventory : inventories) {
+            assertEquals(assets.size(), inventory.top(1000, SortKey.MEMORY).size());
+            assertTrue(inventory.bottom(0, SortKey.CORES).isEmpty());
+        }
+    }
+
+    @Test
+    public void testNullAndEmptyCriteria() {
+        for (Inventory inventory : inventories) {
+            assertTrue(inventory.top(10, SortKey.MEMORY, null).isEmpty());
+            assertTrue(inventory.bottom(10, SortKey.MEMORY, QueryCriteria.builder().build()).isEmpty());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeK() {
+        new DefaultInventory().top(-1, SortKey.MEMORY);
+    }
+
+    @Test
+    public void testSelection() {
+        TopK top = TopK.largest(2, SortKey.CORES);
+        Asset two = asset(2);
+        Asset eight = asset(8);
+        Asset four = asset(4);
+        top.addAll(asList(two, eight, four));
+
+        assertEquals(asList(eight, four), top.result());
+    }
+
+    private static Asset asset(final int cores) {
+        return Asset.builder()
+                .setOS(OperatingSystem.LINUX)
+                .setCPU(CPU.INTEL)
+                .setCore(cores)
+                .setMemory(8)
+                .build();
+    }
+}
@@ -0,0 +1,134 @@
+package inventory.replication;
+
+import inventory.DefaultInventory;
+import inventory.data.Asset;
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+import inventory.query.QueryCriteria;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static inventory.AssetFixtures.*;
+import static inventory.replication.MutationLog.TRIMMED_MESSAGE;
+import static inventory.replication.ReadReplica.READ_ONLY_MESSAGE;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class TestReadReplica {
+
+    private static final int ZERO = 0;
+    private static final int TWO = 2;
+    private static final int EIGHT = 8;
+    private static final int THIRTYTWO = 32;
+
+    private ReplicatedInventory primary;
+    private ReadReplica replica;
+
+    private Asset macAMD1232 = macAMD1232();
+    private Asset macXEON48 = macXEON48();
+    private Asset winAMD1232 = winAMD1232();
+
+    @Rule
+    public ExpectedException exceptionRule = ExpectedException.none();
+
+    @Before
+    public void setup() {
+        primary = new ReplicatedInventory(new DefaultInventory(), new MutationLog());
+        replica = new ReadReplica(primary.getMutationLog(), TWO);
+    }
+
+    @Test
+    public void testReplicaAppliesMutationsInBatches() {
+        primary.addAssets(asList(macAMD1232, macXEON48, winAMD1232));
+
+        // Nothing visible until the replica applies the log
+        assertEquals(ZERO, replica.getFullInventorySize());
+        assertEquals(3, replica.getLag());
+
+        assertEquals(TWO, replica.poll());
+        assertEquals(TWO, replica.getFullInventorySize());
+        assertEquals(1, replica.getLag());
+
+        assertEquals(1, replica.catchUp());
+        assertEquals(ZERO, replica.getLag());
+        assertEquals(ZERO, replica.getLagMillis());
+        assertEquals(THIRTYTWO + EIGHT + THIRTYTWO, replica.totalMemory());
+
+        primary.deleteAssets(QueryCriteria.builder().setCPU(CPU.AMD).build());
+        replica.catchUp();
+        assertEquals(asList(macXEON48), replica.getFullInventory());
+        assertFalse(replica.getAssetById(macAMD1232.getAssetId()).isPresent());
+        assertEquals(primary.getMutationLog().lastSequence(), replica.getAppliedSequence());
+    }
+
+    @Test
+    public void testSnapshotIsolation() {
+        primary.addAsset(macAMD1232);
+        replica.catchUp();
+
+        // A reader holding results from the previous snapshot is unaffected by later batches
+        int before = replica.totalAssets(QueryCriteria.builder().setOS(OperatingSystem.MACOS).build());
+        primary.addAsset(macXEON48);
+        assertEquals(1, before);
+        assertEquals(1, replica.totalAssets(QueryCriteria.builder().setOS(OperatingSystem.MACOS).build()));
+
+        replica.catchUp();
+        assertEquals(TWO, replica.totalAssets(QueryCriteria.builder().setOS(OperatingSystem.MACOS).build()));
+    }
+
+    @Test
+    public void testReplicaTailsInBackground() throws InterruptedException {
+        replica.start(1, TimeUnit.MILLISECONDS);
+        try {
+            primary.addAssets(asList(macAMD1232, macXEON48, winAMD1232));
+
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+            while (replica.getLag() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(3, replica.getFullInventorySize());
+        } finally {
+            replica.close();
+        }
+    }
+
+    @Test
+    public void testStartRacingClose() throws Exception {
+        ExecutorService closer = Executors.newSingleThreadExecutor();
+        try {
+            for (int i = 0; i < 200; i++) {
+                Future<?> closing = closer.submit(replica::close);
+                replica.start(1, TimeUnit.MILLISECONDS);
+                closing.get(5, TimeUnit.SECONDS);
+                replica.close();
+            }
+        } finally {
+            closer.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testReplicaIsReadOnly() {
+        exceptionRule.expect(UnsupportedOperationException.class);
+        exceptionRule.expectMessage(READ_ONLY_MESSAGE);
+
+        replica.addAsset(macAMD1232);
+    }
+
+    @Test
+    public void testReadingTrimmedLog() {
+        exceptionRule.expect(IllegalStateException.class);
+        exceptionRule.expectMessage(TRIMMED_MESSAGE);
+
+        primary.addAssets(asList(macAMD1232, macXEON48));
+        primary.getMutationLog().trim(1);
+        replica.poll();
+    }
+}
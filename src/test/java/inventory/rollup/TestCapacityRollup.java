@@ -0,0 +1,215 @@
+package inventory.rollup;
+
+import inventory.DefaultInventory;
+import inventory.ShardedInventory;
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static inventory.AssetFixtures.*;
+import static org.junit.Assert.*;
+
+public class TestCapacityRollup {
+
+    private static final Instant START = Instant.parse("2026-03-01T00:00:00Z");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final TestClock clock = new TestClock();
+    private DefaultInventory inventory;
+
+    @Before
+    public void setup() {
+        inventory = new DefaultInventory();
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.INTEL, 4, 16));
+        inventory.addAsset(asset(OperatingSystem.LINUX, CPU.INTEL, 8, 32));
+        inventory.addAsset(asset(OperatingSystem.WINDOWS, CPU.AMD, 2, 8));
+    }
+
+    @Test
+    public void testSamplePerOsAndCpu() throws IOException {
+        try (CapacityRollup rollup = rollup(10, null)) {
+            Sample sample = rollup.record();
+            assertEquals(START, sample.getTime());
+            assertEquals(2, sample.getCount(OperatingSystem.LINUX, CPU.INTEL));
+            assertEquals(48, sample.getTotalMemory(OperatingSystem.LINUX, CPU.INTEL));
+            assertEquals(12, sample.getTotalCores(OperatingSystem.LINUX, CPU.INTEL));
+            assertEquals(8, sample.getTotalMemory(OperatingSystem.WINDOWS, CPU.AMD));
+            assertEquals(0, sample.getCount(OperatingSystem.MACOS, CPU.APPLE_SILLICON));
+            assertEquals(3, sample.getCount());
+            assertEquals(inventory.totalMemory(), sample.getTotalMemory());
+            assertEquals(inventory.totalCores(), sample.getTotalCores());
+        }
+    }
+
+    @Test
+    public void testRingDropsOldestSamples() throws IOException {
+        try (CapacityRollup rollup = rollup(4, null)) {
+            recordMinutes(rollup, 10);
+            assertEquals(4, rollup.size());
+
+            List<Sample> samples = rollup.range(START, START.plusSeconds(3600));
+            assertEquals(4, samples.size());
+            assertEquals(START.plusSeconds(6 * 60), samples.get(0).getTime());
+            assertEquals(3 + 9, samples.get(3).getCount());
+        }
+    }
+
+    @Test
+    public void testSpilledSamplesAreReadBack() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("capacity.bin");
+        try (CapacityRollup rollup = rollup(4, file)) {
+            recordMinutes(rollup, 10);
+            assertEquals(6 * SpillFile.RECORD_SIZE, Files.size(file));
+
+            List<Sample> samples = rollup.range(START, START.plusSeconds(3600));
+            assertEquals(10, samples.size());
+            for (int i = 0; i < 10; i++) {
+                assertEquals(START.plusSeconds(i * 60L), samples.get(i).getTime());
+                assertEquals(3 + i, samples.get(i).getCount());
+            }
+
+            samples = rollup.range(START.plusSeconds(2 * 60), START.plusSeconds(7 * 60));
+            assertEquals(5, samples.size());
+            assertEquals(3 + 2, samples.get(0).getCount());
+            assertEquals(3 + 6, samples.get(4).getCount());
+        }
+    }
+
+    @Test
+    public void testDownsample() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("capacity.bin");
+        try (CapacityRollup rollup = rollup(3, file)) {
+            recordMinutes(rollup, 10);
+
+            Instant end = START.plusSeconds(3600);
+            Duration step = Duration.ofMinutes(4);
+            List<Sample> mean = rollup.downsample(START, end, step, CapacityRollup.Reduction.MEAN);
+            assertEquals(3, mean.size());
+            assertEquals(START.plusSeconds(4 * 60), mean.get(1).getTime());
+            // Linux Intel counts of minutes 4 to 7 are 6 to 9, the Windows AMD count stays 1
+            assertEquals(8, mean.get(1).getCount(OperatingSystem.LINUX, CPU.INTEL));
+            assertEquals(1, mean.get(1).getCount(OperatingSystem.WINDOWS, CPU.AMD));
+            assertEquals(12, rollup.downsample(START, end, step, CapacityRollup.Reduction.MAX).get(2).getCount());
+            assertEquals(3, rollup.downsample(START, end, step, CapacityRollup.Reduction.MIN).get(0).getCount());
+            assertEquals(6, rollup.downsample(START, end, step, CapacityRollup.Reduction.LAST).get(0).getCount());
+        }
+    }
+
+    @Test
+    public void testRecordsInTheBackground() throws Exception {
+        ShardedInventory sharded = new ShardedInventory(4);
+        sharded.addAssets(inventory.getFullInventory());
+        try (CapacityRollup rollup = CapacityRollup.builder()
+                .setSource(sharded::getConfigurations)
+                .setInterval(Duration.ofMillis(5))
+                .build()) {
+            rollup.start();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (rollup.size() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue(rollup.size() >= 3);
+            assertEquals(56, rollup.range(Instant.EPOCH, Instant.now().plusSeconds(60)).get(0).getTotalMemory());
+        }
+    }
+
+    @Test
+    public void testMemoryQueriedAfterClose() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("capacity.bin");
+        CapacityRollup rollup = rollup(4, file);
+        recordMinutes(rollup, 10);
+        rollup.close();
+
+        List<Sample> samples = rollup.range(START, START.plusSeconds(3600));
+        assertEquals(4, samples.size());
+        assertEquals(START.plusSeconds(6 * 60), samples.get(0).getTime());
+
+        rollup.record();
+        assertEquals(4, rollup.size());
+        assertEquals(6 * SpillFile.RECORD_SIZE, Files.size(file));
+    }
+
+    @Test
+    public void testRecordingSurvivesAnError() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        try (CapacityRollup rollup = CapacityRollup.builder()
+                .setSource(() -> {
+                    if (calls.getAndIncrement() == 0) throw new AssertionError("first sample failed");
+                    return inventory.getConfigurations();
+                })
+                .setInterval(Duration.ofMillis(5))
+                .build()) {
+            rollup.start();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (rollup.size() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue(rollup.size() >= 2);
+        }
+    }
+
+    private CapacityRollup rollup(final int capacity, final Path spillFile) throws IOException {
+        return CapacityRollup.builder()
+                .setSource(inventory::getConfigurations)
+                .setCapacity(capacity)
+                .setSpillFile(spillFile)
+                .setClock(clock)
+                .build();
+    }
+
+    /**
+     * One sample a minute, an asset is added to the Linux Intel cell before each but the first.
+     */
+    private void recordMinutes(final CapacityRollup rollup, final int minutes) {
+        for (int i = 0; i < minutes; i++) {
+            clock.at(START.plusSeconds(i * 60L));
+            if (i > 0) {
+                inventory.addAsset(asset(OperatingSystem.LINUX, CPU.INTEL, 1, 1));
+            }
+            rollup.record();
+        }
+    }
+
+    /**
+     * Clock set by the test.
+     */
+    private static final class TestClock extends Clock {
+
+        private Instant now = START;
+
+        void at(final Instant instant) {
+            now = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
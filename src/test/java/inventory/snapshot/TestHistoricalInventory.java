@@ -0,0 +1,134 @@
+package inventory.snapshot;
+
+import inventory.data.Asset;
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+import inventory.query.QueryCriteria;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static inventory.AssetFixtures.*;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class TestHistoricalInventory {
+
+    private static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+
+    private final TestClock clock = new TestClock();
+    private HistoricalInventory inventory;
+
+    private final Asset linux = asset(OperatingSystem.LINUX, CPU.INTEL, 4, 16);
+    private final Asset windows = asset(OperatingSystem.WINDOWS, CPU.AMD, 12, 32);
+    private final Asset mac = asset(OperatingSystem.MACOS, CPU.APPLE_SILLICON, 4, 8);
+    private final QueryCriteria linuxOnly = QueryCriteria.builder().setOS(OperatingSystem.LINUX).build();
+
+    @Before
+    public void setup() {
+        inventory = new HistoricalInventory(Duration.ofHours(1), clock);
+    }
+
+    @Test
+    public void testQueriesAsOfThePast() {
+        clock.at(START.plusSeconds(10));
+        inventory.addAssets(asList(linux, windows));
+        clock.at(START.plusSeconds(20));
+        inventory.updateAsset(linux.toBuilder().setMemory(64).build());
+        clock.at(START.plusSeconds(30));
+        inventory.deleteAssetById(windows.getAssetId());
+        inventory.addAsset(mac);
+
+        assertEquals(0, inventory.asOf(START).getFullInventorySize());
+        assertEquals(2, inventory.asOf(START.plusSeconds(10)).getFullInventorySize());
+        assertEquals(48, inventory.asOf(START.plusSeconds(15)).totalMemory());
+        assertEquals(16, inventory.asOf(START.plusSeconds(15)).totalMemory(linuxOnly));
+        assertEquals(64, inventory.asOf(START.plusSeconds(25)).totalMemory(linuxOnly));
+        assertEquals(asList(windows), inventory.asOf(START.plusSeconds(29))
+                .search(QueryCriteria.builder().setCPU(CPU.AMD).build()));
+        assertEquals(72, inventory.asOf(START.plusSeconds(30)).totalMemory());
+        assertEquals(inventory.totalMemory(), inventory.asOf(START.plusSeconds(3600 * 5)).totalMemory());
+
+        assertEquals(48, inventory.aggregateAsOf(START.plusSeconds(15)).getTotalMemory());
+        assertEquals(16, inventory.aggregateAsOf(START.plusSeconds(15), linuxOnly).getTotalMemory());
+        assertEquals(64, inventory.aggregateAsOf(START.plusSeconds(45), linuxOnly).getMaxMemory());
+        assertEquals(0, inventory.aggregateAsOf(START.plusSeconds(45), null).getCount());
+    }
+
+    @Test
+    public void testSegmentsMatchAReplayOfTheHistory() {
+        Random random = new Random(47);
+        List<Asset> held = new ArrayList<>();
+        List<Integer> memoryAt = new ArrayList<>();
+        for (int minute = 0; minute < 6 * 60; minute++) {
+            clock.at(START.plusSeconds(minute * 60L));
+            if (held.isEmpty() || random.nextInt(3) > 0) {
+                Asset asset = asset(OperatingSystem.values()[random.nextInt(3)], CPU.values()[random.nextInt(3)],
+                        1 + random.nextInt(16), 1 + random.nextInt(64));
+                inventory.addAsset(asset);
+                held.add(asset);
+            } else {
+                inventory.deleteAssetById(held.remove(random.nextInt(held.size())).getAssetId());
+            }
+            memoryAt.add(inventory.totalMemory());
+        }
+
+        assertEquals(6, inventory.getSegmentCount());
+        for (int minute = 0; minute < memoryAt.size(); minute += 7) {
+            Instant instant = START.plusSeconds(minute * 60L + 59);
+            assertEquals(memoryAt.get(minute).intValue(), inventory.asOf(instant).totalMemory());
+            assertEquals(memoryAt.get(minute).intValue(), inventory.aggregateAsOf(instant).getTotalMemory());
+        }
+
+        inventory.trim(START.plusSeconds(4 * 3600 + 10));
+        assertEquals(2, inventory.getSegmentCount());
+        assertEquals(0, inventory.asOf(START.plusSeconds(3600)).getFullInventorySize());
+        assertEquals(memoryAt.get(250).intValue(), inventory.asOf(START.plusSeconds(250 * 60 + 59)).totalMemory());
+    }
+
+    @Test
+    public void testClockGoingBack() {
+        clock.at(START.plusSeconds(100));
+        inventory.addAsset(linux);
+        clock.at(START.plusSeconds(50));
+        inventory.addAsset(windows);
+
+        assertEquals(0, inventory.asOf(START.plusSeconds(99)).getFullInventorySize());
+        assertEquals(2, inventory.asOf(START.plusSeconds(100)).getFullInventorySize());
+    }
+
+    /**
+     * Clock set by the test.
+     */
+    private static final class TestClock extends Clock {
+
+        private Instant now = START;
+
+        void at(final Instant instant) {
+            now = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package inventory.snapshot;
+
+import inventory.data.Asset;
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+import inventory.query.QueryCriteria;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static inventory.AssetFixtures.*;
+import static inventory.snapshot.InventorySnapshot.READ_ONLY_MESSAGE;
+import static java.util.Arrays.asList;
+import static org.apache.commons.collections4.CollectionUtils.isEqualCollection;
+import static org.junit.Assert.*;
+
+public class TestVersionedInventory {
+
+    private static final int ZERO = 0;
+    private static final int EIGHT = 8;
+    private static final int THIRTYTWO = 32;
+
+    private VersionedInventory inventory;
+
+    private Asset macAMD1232 = macAMD1232();
+    private Asset macXEON48 = macXEON48();
+    private Asset winAMD1232 = winAMD1232();
+
+    @Rule
+    public ExpectedException exceptionRule = ExpectedException.none();
+
+    @Before
+    public void setup() {
+        inventory = new VersionedInventory();
+    }
+
+    @Test
+    public void testSnapshotsAreIsolatedFromLaterVersions() {
+        inventory.addAssets(asList(macAMD1232, macXEON48));
+        InventorySnapshot before = inventory.snapshot();
+        assertEquals(1, before.getVersion());
+
+        inventory.addAsset(winAMD1232);
+        inventory.deleteAssetById(macXEON48.getAssetId());
+
+        // The earlier snapshot still answers with the state it was taken at
+        assertTrue(isEqualCollection(asList(macAMD1232, macXEON48), before.getFullInventory()));
+        assertEquals(THIRTYTWO + EIGHT, before.totalMemory());
+        assertEquals(EIGHT, before.minMemory(QueryCriteria.builder().setOS(OperatingSystem.MACOS).build()));
+
+        InventorySnapshot after = inventory.snapshot();
+        assertEquals(3, after.getVersion());
+        assertTrue(isEqualCollection(asList(macAMD1232, winAMD1232), after.getFullInventory()));
+        assertEquals(2, after.totalAssets(QueryCriteria.builder().setCPU(CPU.AMD).build()));
+    }
+
+    @Test
+    public void testBulkMutationsPublishOneVersion() {
+        inventory.addAssets(asList(macAMD1232, macXEON48, winAMD1232));
+        assertEquals(1, inventory.getVersion());
+
+        List<Asset> deleted = inventory.deleteAssets(QueryCriteria.builder().setCPU(CPU.AMD).build());
+        assertEquals(2, deleted.size());
+        assertEquals(2, inventory.getVersion());
+
+        // Nothing deleted, no new version
+        inventory.deleteAssetsByIds(asList("missing"));
+        assertEquals(2, inventory.getVersion());
+        assertEquals(asList(macXEON48), inventory.getFullInventory());
+    }
+
+    @Test
+    public void testEmptyCriteriaFindsNothing() {
+        inventory.addAsset(macAMD1232);
+
+        assertEquals(ZERO, inventory.search(QueryCriteria.builder().build()).size());
+        assertEquals(ZERO, inventory.totalMemory(QueryCriteria.builder().build()));
+        assertEquals(THIRTYTWO, inventory.totalMemory());
+    }
+
+    @Test
+    public void testSnapshotIsReadOnly() {
+        exceptionRule.expect(UnsupportedOperationException.class);
+        exceptionRule.expectMessage(READ_ONLY_MESSAGE);
+
+        inventory.snapshot().addAsset(macAMD1232);
+    }
+
+    @Test
+    public void testPersistentMapAgainstHashMap() {
+        Random random = new Random(42);
+        Map<String, Asset> expected = new HashMap<>();
+        List<String> ids = new ArrayList<>();
+        PersistentAssetMap map = PersistentAssetMap.EMPTY;
+
+        for (int i = 0; i < 20000; i++) {
+            if (ids.isEmpty() || random.nextInt(3) > 0) {
+                Asset a = asset(OperatingSystem.LINUX, CPU.INTEL, 1 + random.nextInt(64), 1 + random.nextInt(256));
+                map = map.put(a);
+                expected.put(a.getAssetId(), a);
+                ids.add(a.getAssetId());
+            } else {
+                String id = ids.remove(random.nextInt(ids.size()));
+                PersistentAssetMap before = map;
+                map = map.remove(id);
+                expected.remove(id);
+
+                // Previous version untouched
+                assertNotNull(before.get(id));
+                assertNull(map.get(id));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<String, Asset> e : expected.entrySet()) {
+            assertSame(e.getValue(), map.get(e.getKey()));
+        }
+
+        List<Asset> values = new ArrayList<>();
+        map.forEach(values::add);
+        assertTrue(isEqualCollection(expected.values(), values));
+    }
+}
@@ -0,0 +1,93 @@
+package inventory.storage;
+
+import inventory.query.Aggregates;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static inventory.storage.AggregateKernel.ANY;
+import static org.junit.Assert.*;
+
+public class TestAggregateKernel {
+
+    private static final int[] CORE_SIZES = {2, 4, 8, 16};
+    private static final int[] MEMORY_SIZES = {4, 8, 16, 32, 64};
+
+    private final AggregateKernel scalar = new ScalarKernel();
+    private final AggregateKernel vector = new VectorKernel();
+
+    @Test
+    public void testVectorKernelIsSelectedWhenAvailable() {
+        // The build adds the incubator module to the test JVM
+        assertTrue(ModuleLayer.boot().findModule(AggregateKernel.VECTOR_MODULE).isPresent());
+        assertTrue(AggregateKernel.selected() instanceof VectorKernel);
+    }
+
+    @Test
+    public void testKernelsAgree() {
+        Random random = new Random(31);
+        for (int size : new int[]{0, 1, 7, 8, 15, 16, 17, 100, 1003}) {
+            AggregateKernel.Columns columns = columns(size, random);
+            int[][] parameters = {
+                    {ANY, ANY, ANY, ANY},
+                    {1, ANY, ANY, ANY},
+                    {ANY, 2, ANY, 16},
+                    {0, 1, 4, ANY},
+                    {2, 0, 8, 32},
+                    {ANY, ANY, 3, ANY}};
+
+            for (int[] p : parameters) {
+                assertAggregates(scalar.aggregate(columns, size, p[0], p[1], p[2], p[3]),
+                        vector.aggregate(columns, size, p[0], p[1], p[2], p[3]));
+            }
+        }
+    }
+
+    @Test
+    public void testScalarKernel() {
+        AggregateKernel.Columns columns = new AggregateKernel.Columns(4);
+        columns.os = new int[]{0, 1, 0, 0};
+        columns.cpu = new int[]{0, 0, 1, 0};
+        columns.cores = new int[]{2, 4, 8, 16};
+        columns.memory = new int[]{8, 16, 32, 64};
+
+        Aggregates linux = scalar.aggregate(columns, 4, 0, ANY, ANY, ANY);
+        assertEquals(3, linux.getCount());
+        assertEquals(104, linux.getTotalMemory());
+        assertEquals(26, linux.getTotalCores());
+        assertEquals(8, linux.getMinMemory());
+        assertEquals(16, linux.getMaxCores());
+
+        // Rows past the size are ignored
+        assertEquals(2, scalar.aggregate(columns, 3, 0, ANY, ANY, ANY).getCount());
+        assertTrue(scalar.aggregate(columns, 4, 3, ANY, ANY, ANY).isEmpty());
+    }
+
+    private static AggregateKernel.Columns columns(final int size, final Random random) {
+        AggregateKernel.Columns columns = new AggregateKernel.Columns(size + 5);
+        for (int i = 0; i < size; i++) {
+            columns.os[i] = random.nextInt(3);
+            columns.cpu[i] = random.nextInt(3);
+            columns.cores[i] = CORE_SIZES[random.nextInt(CORE_SIZES.length)];
+            columns.memory[i] = MEMORY_SIZES[random.nextInt(MEMORY_SIZES.length)];
+        }
+        // Capacity past the size must not be read
+        for (int i = size; i < size + 5; i++) {
+            columns.os[i] = 1;
+            columns.cpu[i] = 2;
+            columns.cores[i] = 1000;
+            columns.memory[i] = 1000;
+        }
+        return columns;
+    }
+
+    private static void assertAggregates(final Aggregates expected, final Aggregates actual) {
+        assertEquals(expected.getCount(), actual.getCount());
+        assertEquals(expected.getTotalMemory(), actual.getTotalMemory());
+        assertEquals(expected.getTotalCores(), actual.getTotalCores());
+        assertEquals(expected.getMinMemory(), actual.getMinMemory());
+        assertEquals(expected.getMaxMemory(), actual.getMaxMemory());
+        assertEquals(expected.getMinCores(), actual.getMinCores());
+        assertEquals(expected.getMaxCores(), actual.getMaxCores());
+    }
+}
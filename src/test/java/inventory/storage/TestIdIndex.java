@@ -0,0 +1,121 @@
+package inventory.storage;
+
+import inventory.data.Asset;
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class TestIdIndex {
+
+    @Test
+    public void testAgreesWithHashMapUnderChurn() {
+        IdIndex index = new IdIndex();
+        Map<String, Integer> expected = new HashMap<>();
+        List<String> ids = new ArrayList<>();
+        Random random = new Random(17);
+
+        for (int i = 0; i < 20000; i++) {
+            if (ids.isEmpty() || random.nextInt(3) > 0) {
+                String id = UUID.randomUUID().toString();
+                ids.add(id);
+                assertEquals(IdIndex.NO_SLOT, index.put(id, i));
+                expected.put(id, i);
+            } else {
+                String id = ids.remove(random.nextInt(ids.size()));
+                assertEquals((int) expected.remove(id), index.remove(id));
+                assertEquals(IdIndex.NO_SLOT, index.remove(id));
+            }
+        }
+
+        assertEquals(expected.size(), index.size());
+        for (Map.Entry<String, Integer> entry : expected.entrySet()) {
+            assertEquals((int) entry.getValue(), index.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    public void testReplaceSlot() {
+        IdIndex index = new IdIndex(1);
+        String id = UUID.randomUUID().toString();
+
+        assertEquals(IdIndex.NO_SLOT, index.put(id, 3));
+        assertEquals(3, index.put(id, 7));
+        assertEquals(7, index.get(id));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void testUnknownIds() {
+        IdIndex index = new IdIndex();
+        index.put(UUID.randomUUID().toString(), 0);
+
+        assertEquals(IdIndex.NO_SLOT, index.get(UUID.randomUUID().toString()));
+        assertEquals(IdIndex.NO_SLOT, index.get("not an id"));
+        assertEquals(IdIndex.NO_SLOT, index.get(null));
+        assertEquals(IdIndex.NO_SLOT, index.remove("not an id"));
+    }
+
+    @Test
+    public void testOtherIdsAreComparedExactly() {
+        IdIndex index = new IdIndex();
+        String id = UUID.randomUUID().toString();
+        index.put(id, 0);
+        index.put("host-42", 1);
+        index.put(id.toUpperCase(), 2);
+
+        assertEquals(3, index.size());
+        assertEquals(0, index.get(id));
+        assertEquals(1, index.get("host-42"));
+        assertEquals(2, index.get(id.toUpperCase()));
+        assertEquals(IdIndex.NO_SLOT, index.get("HOST-42"));
+        assertEquals(1, index.remove("host-42"));
+        assertEquals(IdIndex.NO_SLOT, index.get("host-42"));
+        assertEquals(2, index.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPutRejectsNullIds() {
+        new IdIndex().put(null, 0);
+    }
+
+    @Test
+    public void testAssetTableStaysDense() {
+        AssetTable table = new AssetTable();
+        List<Asset> assets = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Asset asset = Asset.builder()
+                    .setOS(OperatingSystem.LINUX)
+                    .setCPU(CPU.INTEL)
+                    .setCore(1 + i % 8)
+                    .setMemory(8)
+                    .build();
+            assets.add(asset);
+            assertNull(table.put(asset));
+        }
+
+        for (int i = 0; i < 100; i += 3) {
+            assertSame(assets.get(i), table.remove(assets.get(i).getAssetId()));
+        }
+        assertNull(table.remove(assets.get(0).getAssetId()));
+
+        HashSet<Asset> remaining = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            if (i % 3 != 0) {
+                remaining.add(assets.get(i));
+                assertSame(assets.get(i), table.get(assets.get(i).getAssetId()));
+            }
+        }
+        assertEquals(remaining.size(), table.size());
+        assertEquals(remaining, new HashSet<>(table.values()));
+    }
+}
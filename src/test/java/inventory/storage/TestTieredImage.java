@@ -0,0 +1,173 @@
+package inventory.storage;
+
+import inventory.data.Asset;
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+import inventory.query.QueryCriteria;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.junit.Assert.*;
+
+public class TestTieredImage {
+
+    private static final int ASSETS = 300;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path segment;
+    private Path image;
+    private final List<Asset> assets = new ArrayList<>();
+
+    @Before
+    public void setup() throws IOException {
+        segment = folder.getRoot().toPath().resolve("records.seg");
+        image = folder.getRoot().toPath().resolve("records.img");
+
+        Random random = new Random(50);
+        try (TieredTable table = new TieredTable(segment, 8, 64)) {
+            for (int i = 0; i < ASSETS + 20; i++) {
+                Asset asset = Asset.builder()
+                        .setOS(OperatingSystem.values()[random.nextInt(OperatingSystem.values().length)])
+                        .setCPU(CPU.values()[random.nextInt(CPU.values().length)])
+                        .setCore(1 + random.nextInt(8))
+                        .setMemory(1 + random.nextInt(32))
+                        // Some ids from another system, held outside the records
+                        .setAssetId(i % 10 == 0 ? "host-" + i : null)
+                        .build();
+                table.put(asset);
+                assets.add(asset);
+            }
+            // Deletes leave the slots shuffled
+            for (int i = 0; i < 20; i++) {
+                table.remove(assets.remove(random.nextInt(assets.size())).getAssetId());
+            }
+            table.save(image);
+        }
+    }
+
+    @Test
+    public void testRestartFromTheImage() throws IOException {
+        TieredImage saved = TieredImage.open(image);
+        assertEquals(ASSETS, saved.getSize());
+        assertNotNull(saved.columns(ASSETS));
+        assertNotNull(saved.ids(uuids()));
+        assertNotNull(saved.configurations());
+
+        try (TieredTable table = TieredTable.open(segment, image, 8)) {
+            assertReopened(table);
+
+            // Changes after a restart, saved to a new image
+            Asset added = assets.get(0).toBuilder().setAssetId(null).build();
+            table.put(added);
+            table.remove(assets.get(1).getAssetId());
+            assets.set(1, added);
+            table.save(image);
+        }
+        try (TieredTable table = TieredTable.open(segment, image, 8)) {
+            table.warmUp();
+            assertReopened(table);
+        }
+    }
+
+    @Test
+    public void testStaleSectionsAreRebuilt() throws IOException {
+        // A byte of the columns payload, then the version of the id index section
+        corrupt(TieredImage.HEADER_SIZE + TieredImage.SECTION_HEADER_SIZE + 5, (byte) 0x7F);
+        long ids = TieredImage.HEADER_SIZE + 2L * TieredImage.SECTION_HEADER_SIZE + 16L * ASSETS;
+        corrupt(ids + 7, (byte) 99);
+
+        TieredImage saved = TieredImage.open(image);
+        assertNull(saved.columns(ASSETS));
+        assertNull(saved.ids(uuids()));
+        assertNotNull(saved.configurations());
+
+        try (TieredTable table = TieredTable.open(segment, image, 8)) {
+            assertReopened(table);
+        }
+    }
+
+    @Test
+    public void testImageOfAnotherSegmentIsRejected() throws IOException {
+        try (TieredTable table = TieredTable.open(segment, image, 8)) {
+            table.remove(assets.get(0).getAssetId());
+        }
+        try {
+            TieredTable.open(segment, image, 8);
+            fail("Image should not match the segment");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().startsWith(TieredImage.STALE_IMAGE_MESSAGE));
+        }
+    }
+
+    @Test
+    public void testDamagedHeaderIsRejected() throws IOException {
+        corrupt(9, (byte) 1);
+        try {
+            TieredTable.open(segment, image, 8);
+            fail("Header should be rejected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().startsWith(TieredImage.BAD_HEADER_MESSAGE));
+        }
+    }
+
+    @Test
+    public void testImageWithoutOtherIdsIsRejected() throws IOException {
+        // A byte of the last section, the ids other than UUIDs
+        corrupt(Files.size(image) - 1, (byte) 0x7F);
+        try {
+            TieredTable.open(segment, image, 8);
+            fail("Image should be rejected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().startsWith(TieredImage.STALE_IMAGE_MESSAGE));
+        }
+    }
+
+    private int uuids() {
+        int count = 0;
+        for (Asset asset : assets) {
+            if (!asset.getAssetId().startsWith("host-")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void assertReopened(final TieredTable table) {
+        assertEquals(assets.size(), table.size());
+        for (Asset asset : assets) {
+            assertSame(asset.getConfiguration(), table.get(asset.getAssetId()).getConfiguration());
+        }
+        QueryCriteria linux = QueryCriteria.builder().setOS(OperatingSystem.LINUX).build();
+        int memory = 0;
+        int count = 0;
+        for (Asset asset : assets) {
+            if (linux.matches(asset)) {
+                memory += asset.getMemory();
+                count++;
+            }
+        }
+        assertEquals(memory, table.aggregate(linux).getTotalMemory());
+        assertEquals(count, table.select(linux).size());
+        assertEquals(assets.size(), table.getConfigurations().values().stream().mapToInt(Integer::intValue).sum());
+    }
+
+    private void corrupt(final long position, final byte value) throws IOException {
+        try (FileChannel channel = FileChannel.open(image, WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {value}), position);
+        }
+    }
+}
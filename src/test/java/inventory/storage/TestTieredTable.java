@@ -0,0 +1,188 @@
+package inventory.storage;
+
+import inventory.data.Asset;
+import inventory.data.types.CPU;
+import inventory.data.types.OperatingSystem;
+import inventory.query.Aggregates;
+import inventory.query.QueryCriteria;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TestTieredTable {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TieredTable table;
+
+    @Before
+    public void setup() throws IOException {
+        // Small chunks, so the segment maps several of them
+        table = new TieredTable(folder.getRoot().toPath().resolve("records.seg"), 8, 64);
+    }
+
+    @After
+    public void close() throws IOException {
+        table.close();
+    }
+
+    @Test
+    public void testAgreesWithHashMapUnderChurn() {
+        Map<String, Asset> expected = new HashMap<>();
+        List<String> ids = new ArrayList<>();
+        Random random = new Random(49);
+
+        for (int i = 0; i < 5000; i++) {
+            int action = random.nextInt(4);
+            if (ids.isEmpty() || action < 2) {
+                Asset asset = getAsset(random);
+                assertNull(table.put(asset));
+                expected.put(asset.getAssetId(), asset);
+                ids.add(asset.getAssetId());
+            } else if (action == 2) {
+                String id = ids.remove(random.nextInt(ids.size()));
+                assertSame(expected.remove(id).getConfiguration(), table.remove(id).getConfiguration());
+                assertNull(table.remove(id));
+            } else {
+                String id = ids.get(random.nextInt(ids.size()));
+                Asset next = getAsset(random).toBuilder().setAssetId(id).build();
+                assertSame(expected.put(id, next).getConfiguration(), table.put(next).getConfiguration());
+            }
+        }
+
+        assertEquals(expected.size(), table.size());
+        for (Asset asset : expected.values()) {
+            Asset stored = table.get(asset.getAssetId());
+            assertEquals(asset.getAssetId(), stored.getAssetId());
+            assertSame(asset.getConfiguration(), stored.getConfiguration());
+        }
+        assertEquals(expected.keySet(), ids(table.values()));
+    }
+
+    @Test
+    public void testSelectAndAggregateOnTheColumns() {
+        Random random = new Random(7);
+        List<Asset> assets = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Asset asset = getAsset(random);
+            table.put(asset);
+            assets.add(asset);
+        }
+
+        QueryCriteria criteria = QueryCriteria.builder().setOS(OperatingSystem.LINUX).setCPU(CPU.INTEL).build();
+        List<Asset> expected = new ArrayList<>();
+        for (Asset asset : assets) {
+            if (criteria.matches(asset)) {
+                expected.add(asset);
+            }
+        }
+        assertEquals(ids(expected), ids(table.select(criteria)));
+        assertEquals(Aggregates.of(expected).getTotalMemory(), table.aggregate(criteria).getTotalMemory());
+        assertEquals(500, table.select(QueryCriteria.builder().build()).size());
+        assertTrue(table.select(QueryCriteria.builder().setCore(0).build()).isEmpty());
+    }
+
+    @Test
+    public void testCacheHoldsTheRecentlyLookedUpAssets() {
+        Random random = new Random(3);
+        for (int i = 0; i < 100; i++) {
+            table.put(getAsset(random));
+        }
+        List<String> ids = new ArrayList<>();
+        for (Asset asset : table.values()) {
+            ids.add(asset.getAssetId());
+        }
+        // A scan does not fill the cache
+        assertEquals(0, table.getCachedCount());
+
+        for (String id : ids) {
+            table.get(id);
+        }
+        assertEquals(8, table.getCachedCount());
+        assertEquals(0, table.getCacheHitRatio(), 0);
+
+        Asset last = table.get(ids.get(99));
+        assertSame(last, table.get(ids.get(99)));
+        assertEquals(2.0 / 102, table.getCacheHitRatio(), 1e-9);
+
+        // Replaced and removed assets leave the cache
+        Asset next = last.toBuilder().setMemory(last.getMemory() + 1).build();
+        table.put(next);
+        assertEquals(next.getMemory(), table.get(ids.get(99)).getMemory());
+        table.remove(ids.get(99));
+        assertNull(table.get(ids.get(99)));
+        assertEquals(7, table.getCachedCount());
+    }
+
+    @Test
+    public void testScanKeepsTheCacheOrder() {
+        Random random = new Random(5);
+        for (int i = 0; i < 100; i++) {
+            table.put(getAsset(random));
+        }
+        List<String> ids = new ArrayList<>();
+        for (Asset asset : table.values()) {
+            ids.add(asset.getAssetId());
+        }
+        // Looked up last to first, the asset of the last slot is the least recently used
+        for (int i = 99; i >= 92; i--) {
+            table.get(ids.get(i));
+        }
+        // A scan reads the cached assets in slot order, the order must not change
+        assertEquals(100, table.values().stream().filter(a -> a.getMemory() > 0).count());
+
+        table.get(ids.get(0));
+        table.get(ids.get(92));
+        assertEquals(1.0 / 10, table.getCacheHitRatio(), 1e-9);
+        table.get(ids.get(99));
+        assertEquals(1.0 / 11, table.getCacheHitRatio(), 1e-9);
+    }
+
+    @Test
+    public void testIdsAreComparedExactly() {
+        Asset asset = getAsset(new Random(1));
+        String upper = asset.getAssetId().toUpperCase();
+        table.put(asset.toBuilder().setAssetId(upper).build());
+        table.put(asset);
+        table.put(asset.toBuilder().setAssetId("host-42").build());
+        assertEquals(3, table.size());
+
+        // The last id, held outside the records, moves to the slot left free
+        assertEquals(upper, table.remove(upper).getAssetId());
+        assertEquals("host-42", table.get("host-42").getAssetId());
+        assertEquals(asset.getAssetId(), table.get(asset.getAssetId()).getAssetId());
+        assertNull(table.get(upper));
+        assertEquals(ids(table.values()), new HashSet<>(Arrays.asList(asset.getAssetId(), "host-42")));
+    }
+
+    private static Asset getAsset(final Random random) {
+        return Asset.builder()
+                .setOS(OperatingSystem.values()[random.nextInt(OperatingSystem.values().length)])
+                .setCPU(CPU.values()[random.nextInt(CPU.values().length)])
+                .setCore(1 + random.nextInt(16))
+                .setMemory(1 + random.nextInt(64))
+                .build();
+    }
+
+    private static HashSet<String> ids(final Iterable<Asset> assets) {
+        HashSet<String> ids = new HashSet<>();
+        for (Asset asset : assets) {
+            ids.add(asset.getAssetId());
+        }
+        return ids;
+    }
+}